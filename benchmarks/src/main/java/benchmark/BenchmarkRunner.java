@@ -0,0 +1,34 @@
+package benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks, writing the results as JSON so runs can be compared
+ * with tools such as jmh.morethan.io or a plain diff.
+ *
+ * Takes the usual JMH command line, i.e. a regular expression selecting the
+ * benchmarks to run or -p rows=1000 to restrict a parameter. Results go to
+ * target/jmh-result.json unless -rff names another file.
+ *
+ * @author Francisco Frias
+ * @author Abel Guzman
+ * @author Amin Guzman
+ *
+ */
+public class BenchmarkRunner {
+	private static final String DEFAULT_RESULT_FILE = "target/jmh-result.json";
+
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+		CommandLineOptions commandLine = new CommandLineOptions(args);
+		Options options = new OptionsBuilder().parent(commandLine)
+				.resultFormat(commandLine.getResultFormat().orElse(ResultFormatType.JSON))
+				.result(commandLine.getResult().orElse(DEFAULT_RESULT_FILE)).build();
+		new Runner(options).run();
+	}
+}
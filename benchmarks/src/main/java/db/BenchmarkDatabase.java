@@ -0,0 +1,108 @@
+package db;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import core.Employee;
+import core.PhoneNumber;
+import core.Student;
+
+/**
+ * In-memory H2 database in MySQL mode with the tables and views read by the
+ * database helpers, filled with a synthetic roster.
+ *
+ * Every Student and Employee gets two phone numbers. Rows are generated from
+ * their position, so two databases of the same size hold the same roster,
+ * except for the uuids.
+ *
+ * @author Francisco Frias
+ * @author Abel Guzman
+ * @author Amin Guzman
+ *
+ */
+public final class BenchmarkDatabase {
+	private static final String URL_FORMAT = "jdbc:h2:mem:%s;MODE=MySQL;DATABASE_TO_LOWER=FALSE;DB_CLOSE_DELAY=-1";
+	private static final String SCHEMA_SCRIPT = "classpath:db/benchmark-schema.sql";
+	private static final int PHONE_NUMBERS_PER_PERSON = 2;
+
+	private BenchmarkDatabase() {
+	}
+
+	/**
+	 *
+	 * @param name
+	 *            Name of the database, which lives until the JVM exits.
+	 * @param rows
+	 *            Number of Students and of Employees to generate.
+	 * @return A connection to the new database.
+	 * @throws SQLException
+	 *             If the schema or the rows could not be created.
+	 */
+	public static Connection create(String name, int rows) throws SQLException {
+		Connection connection = DriverManager.getConnection(String.format(URL_FORMAT, name));
+		Statement statement = connection.createStatement();
+		statement.execute("DROP ALL OBJECTS");
+		statement.execute("RUNSCRIPT FROM '" + SCHEMA_SCRIPT + "'");
+		// Close unused resources
+		statement.close();
+
+		insertNames(connection, "INSERT INTO StudentStatus (status) VALUES (?)", Student.Status.values());
+		insertNames(connection, "INSERT INTO EmployeeRole (name) VALUES (?)", Employee.Role.values());
+		// Whatever phone types core.PhoneNumber declares
+		insertNames(connection, "INSERT INTO PhoneType (phoneType) VALUES (?)", getPhoneTypes());
+
+		execute(connection, "INSERT INTO Student (studentId, firstName, middleName, firstSurname, secondSurname, "
+				+ "cedula, email, address, StatusPk_id) SELECT CONCAT('S', LPAD(X, 8, '0')), "
+				+ "CONCAT('Name', MOD(X, 97)), CONCAT('Middle', MOD(X, 89)), CONCAT('Surname', MOD(X, 83)), "
+				+ "CONCAT('Surname', MOD(X, 79)), LPAD(X, 11, '0'), CONCAT('student', X, '@example.edu'), "
+				+ "CONCAT(X, ' Calle Principal, Santo Domingo'), MOD(X, (SELECT COUNT(*) FROM StudentStatus)) + 1 "
+				+ "FROM SYSTEM_RANGE(1, ?)", rows);
+		execute(connection, "INSERT INTO Employee (firstName, middleName, firstSurname, secondSurname, cedula, "
+				+ "email, RolePk_id) SELECT CONCAT('Name', MOD(X, 97)), CONCAT('Middle', MOD(X, 89)), "
+				+ "CONCAT('Surname', MOD(X, 83)), CONCAT('Surname', MOD(X, 79)), LPAD(X + 50000000, 11, '0'), "
+				+ "CONCAT('employee', X, '@example.edu'), MOD(X, (SELECT COUNT(*) FROM EmployeeRole)) + 1 "
+				+ "FROM SYSTEM_RANGE(1, ?)", rows);
+
+		// Phone numbers 1 to 2n belong to the Students, the rest to the Employees
+		int phoneNumbers = rows * PHONE_NUMBERS_PER_PERSON;
+		execute(connection, "INSERT INTO PhoneNumber (phoneNumber, PhoneTypePk_id) SELECT "
+				+ "CONCAT('809', LPAD(X, 7, '0')), MOD(X, (SELECT COUNT(*) FROM PhoneType)) + 1 "
+				+ "FROM SYSTEM_RANGE(1, ?)", phoneNumbers * 2);
+		execute(connection, "INSERT INTO StudentHasPhoneNumber (StudentPk_id, PhoneNumberPk_id) "
+				+ "SELECT (X + 1) / 2, X FROM SYSTEM_RANGE(1, ?)", phoneNumbers);
+		execute(connection, "INSERT INTO EmployeeHasPhoneNumber (EmployeePk_id, PhoneNumberPk_id) "
+				+ "SELECT (X + 1) / 2, X + " + phoneNumbers + " FROM SYSTEM_RANGE(1, ?)", phoneNumbers);
+		return connection;
+	}
+
+	private static void insertNames(Connection connection, String query, Enum<?>[] constants) throws SQLException {
+		PreparedStatement statement = connection.prepareStatement(query);
+		for (Enum<?> constant : constants) {
+			statement.setString(1, constant.name());
+			statement.addBatch();
+		}
+		statement.executeBatch();
+		// Close unused resources
+		statement.close();
+	}
+
+	private static void execute(Connection connection, String query, int count) throws SQLException {
+		PreparedStatement statement = connection.prepareStatement(query);
+		statement.setInt(1, count);
+		statement.executeUpdate();
+		// Close unused resources
+		statement.close();
+	}
+
+	private static Enum<?>[] getPhoneTypes() {
+		try {
+			Class<?> type = PhoneNumber.class.getMethod("getType").getReturnType();
+			return (Enum<?>[]) type.getEnumConstants();
+		} catch (NoSuchMethodException e) {
+			throw new IllegalStateException("core.PhoneNumber has no getType method", e);
+		}
+	}
+}
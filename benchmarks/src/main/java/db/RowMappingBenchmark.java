@@ -0,0 +1,93 @@
+package db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import core.Employee;
+import core.Student;
+
+/**
+ * Reads a whole collection through the query the database helpers run for
+ * collection reads: the rows of VW_Student or VW_Employee mapped to entities,
+ * then their phone numbers fetched in batches.
+ *
+ * The projection is one of full, every field and the phone numbers,
+ * noPhoneNumbers, every field, and sparse, a handful of fields.
+ *
+ * @author Francisco Frias
+ * @author Abel Guzman
+ * @author Amin Guzman
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RowMappingBenchmark {
+	private static final Projection SPARSE = Projection.of(Arrays.asList("firstName", "firstSurname", "email"),
+			false);
+
+	@Param({ "1000", "10000", "100000" })
+	public int rows;
+
+	@Param({ "full", "noPhoneNumbers", "sparse" })
+	public String projection;
+
+	private Connection connection;
+	private StudentRowMapper studentMapper;
+	private EmployeeRowMapper employeeMapper;
+	private String studentQuery;
+	private String employeeQuery;
+
+	@Setup(Level.Trial)
+	public void setUp() throws SQLException {
+		connection = BenchmarkDatabase.create("rowMapping", rows);
+
+		Projection selected;
+		if ("full".equals(projection)) {
+			selected = Projection.FULL;
+		} else if ("noPhoneNumbers".equals(projection)) {
+			selected = Projection.of(null, false);
+		} else {
+			selected = SPARSE;
+		}
+		studentMapper = StudentRowMapper.of(selected);
+		employeeMapper = EmployeeRowMapper.of(selected);
+		studentQuery = "SELECT " + studentMapper.getSelectList() + " FROM VW_Student ORDER BY StudentPk_id";
+		employeeQuery = "SELECT " + employeeMapper.getSelectList() + " FROM VW_Employee ORDER BY EmployeePk_id";
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws SQLException {
+		connection.close();
+	}
+
+	@Benchmark
+	public Map<Integer, Student> students() throws SQLException {
+		return StudentDatabaseHelper.query(connection, studentMapper, studentQuery);
+	}
+
+	@Benchmark
+	public Map<Integer, Employee> employees() throws SQLException {
+		return EmployeeDatabaseHelper.query(connection, employeeMapper, employeeQuery);
+	}
+}
@@ -0,0 +1,56 @@
+package service;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.core.MediaType;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Negotiates the media type of a response the way every resource method does,
+ * from the raw Accept header of the request.
+ *
+ * The headers cover what clients usually send: none, a single media type, a
+ * browser's, and a client ranking XML over JSON. Negotiation is measured both
+ * through the cache of the services and from scratch.
+ *
+ * @author Francisco Frias
+ * @author Abel Guzman
+ * @author Amin Guzman
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContentNegotiationBenchmark {
+
+	@Param({ "", "application/json", "text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8",
+			"application/json;q=0.5, application/xml" })
+	public String accept;
+
+	private final StudentService service = new StudentService();
+	private final MediaTypeNegotiator negotiator = new MediaTypeNegotiator(
+			GenericWebService.PRIMARY_OBJECT_MEDIA_TYPE, GenericWebService.SECONDARY_OBJECT_MEDIA_TYPE);
+
+	@Benchmark
+	public MediaType negotiate() {
+		return service.getPreferredMediaType(accept);
+	}
+
+	@Benchmark
+	public MediaType negotiateUncached() {
+		return negotiator.negotiate(accept);
+	}
+}
@@ -0,0 +1,227 @@
+package service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.core.GenericEntity;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.ext.ContextResolver;
+import javax.ws.rs.ext.ExceptionMapper;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Providers;
+
+import org.eclipse.persistence.jaxb.rs.MOXyJsonProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import core.Employee;
+import core.PhoneNumber;
+import core.Student;
+
+/**
+ * Serializes a collection of Students or Employees, each with two phone
+ * numbers, the ways a collection read answers: as a whole list in JSON, or
+ * streamed entity by entity in JSON or XML by {@link EntityStreamingOutput}.
+ * The output is discarded.
+ *
+ * @author Francisco Frias
+ * @author Abel Guzman
+ * @author Amin Guzman
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+	private static final Annotation[] NO_ANNOTATIONS = new Annotation[0];
+
+	@Param({ "1000", "10000", "100000" })
+	public int rows;
+
+	@Param({ "student", "employee" })
+	public String entity;
+
+	private final MOXyJsonProvider jsonProvider = new MOXyJsonProvider();
+	private final Providers providers = new JsonProviders(jsonProvider);
+	private Class<?> type;
+	private List<?> entities;
+	private GenericEntity<?> listEntity;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		if ("student".equals(entity)) {
+			List<Student> students = new ArrayList<>(rows);
+			for (int i = 1; i <= rows; i++) {
+				Student student = new Student();
+				student.setEntityId(getEntityId(i));
+				student.setFirstName("Name" + i % 97);
+				student.setMiddleName("Middle" + i % 89);
+				student.setFirstSurname("Surname" + i % 83);
+				student.setSecondSurname("Surname" + i % 79);
+				student.setCedula(String.format("%011d", i));
+				student.setEmail("student" + i + "@example.edu");
+				student.setPhoneNumbers(getPhoneNumbers(i));
+				student.setStudentId(String.format("S%08d", i));
+				student.setAddress(i + " Calle Principal, Santo Domingo");
+				student.setStatus(Student.Status.values()[i % Student.Status.values().length].name());
+				students.add(student);
+			}
+			type = Student.class;
+			entities = students;
+			listEntity = new GenericEntity<List<Student>>(students) {
+			};
+		} else {
+			List<Employee> employees = new ArrayList<>(rows);
+			for (int i = 1; i <= rows; i++) {
+				Employee employee = new Employee();
+				employee.setEntityId(getEntityId(i));
+				employee.setFirstName("Name" + i % 97);
+				employee.setMiddleName("Middle" + i % 89);
+				employee.setFirstSurname("Surname" + i % 83);
+				employee.setSecondSurname("Surname" + i % 79);
+				employee.setCedula(String.format("%011d", i + 50000000));
+				employee.setEmail("employee" + i + "@example.edu");
+				employee.setPhoneNumbers(getPhoneNumbers(i));
+				employee.setRole(Employee.Role.values()[i % Employee.Role.values().length].name());
+				employees.add(employee);
+			}
+			type = Employee.class;
+			entities = employees;
+			listEntity = new GenericEntity<List<Employee>>(employees) {
+			};
+		}
+	}
+
+	@Benchmark
+	public void jsonList(Blackhole blackhole) throws IOException {
+		jsonProvider.writeTo(listEntity.getEntity(), listEntity.getRawType(), listEntity.getType(), NO_ANNOTATIONS,
+				MediaType.APPLICATION_JSON_TYPE, new MultivaluedHashMap<String, Object>(),
+				new DiscardingOutputStream(blackhole));
+	}
+
+	@Benchmark
+	public void jsonStream(Blackhole blackhole) throws IOException {
+		stream(MediaType.APPLICATION_JSON_TYPE, blackhole);
+	}
+
+	@Benchmark
+	public void xmlStream(Blackhole blackhole) throws IOException {
+		stream(MediaType.APPLICATION_XML_TYPE, blackhole);
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private void stream(MediaType mediaType, Blackhole blackhole) throws IOException {
+		EntityStreamingOutput<?> output = new EntityStreamingOutput(type, entity + "s", mediaType, providers,
+				consumer -> {
+					entities.forEach(consumer);
+					return true;
+				});
+		output.write(new DiscardingOutputStream(blackhole));
+	}
+
+	private static String getEntityId(int i) {
+		return String.format("00000000-0000-4000-8000-%012d", i);
+	}
+
+	private static List<PhoneNumber> getPhoneNumbers(int i) {
+		Object[] phoneTypes = getPhoneTypes();
+		PhoneNumber home = new PhoneNumber();
+		home.setEntityId(String.format("00000000-0000-4000-9000-%012d", 2 * i));
+		home.setPhoneNumber(String.format("809%07d", 2 * i));
+		home.setType(((Enum<?>) phoneTypes[0]).name());
+		PhoneNumber mobile = new PhoneNumber();
+		mobile.setEntityId(String.format("00000000-0000-4000-9000-%012d", 2 * i + 1));
+		mobile.setPhoneNumber(String.format("829%07d", 2 * i + 1));
+		mobile.setType(((Enum<?>) phoneTypes[phoneTypes.length - 1]).name());
+		return new ArrayList<>(Arrays.asList(home, mobile));
+	}
+
+	// Whatever phone types core.PhoneNumber declares
+	private static Object[] getPhoneTypes() {
+		try {
+			return PhoneNumber.class.getMethod("getType").getReturnType().getEnumConstants();
+		} catch (NoSuchMethodException e) {
+			throw new IllegalStateException("core.PhoneNumber has no getType method", e);
+		}
+	}
+
+	/**
+	 * Hands every byte written to a blackhole, so writing cannot be optimized
+	 * away.
+	 */
+	private static class DiscardingOutputStream extends OutputStream {
+		private final Blackhole blackhole;
+
+		DiscardingOutputStream(Blackhole blackhole) {
+			this.blackhole = blackhole;
+		}
+
+		@Override
+		public void write(int b) {
+			blackhole.consume(b);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			blackhole.consume(b);
+			blackhole.consume(len);
+		}
+	}
+
+	/**
+	 * The providers of a request, as far as {@link EntityStreamingOutput} is
+	 * concerned: the JSON writer the server is deployed with.
+	 */
+	private static class JsonProviders implements Providers {
+		private final MOXyJsonProvider jsonProvider;
+
+		JsonProviders(MOXyJsonProvider jsonProvider) {
+			this.jsonProvider = jsonProvider;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public <T> MessageBodyWriter<T> getMessageBodyWriter(Class<T> type, Type genericType,
+				Annotation[] annotations, MediaType mediaType) {
+			return (MessageBodyWriter<T>) jsonProvider;
+		}
+
+		@Override
+		public <T> MessageBodyReader<T> getMessageBodyReader(Class<T> type, Type genericType,
+				Annotation[] annotations, MediaType mediaType) {
+			return null;
+		}
+
+		@Override
+		public <T extends Throwable> ExceptionMapper<T> getExceptionMapper(Class<T> type) {
+			return null;
+		}
+
+		@Override
+		public <T> ContextResolver<T> getContextResolver(Class<T> contextType, MediaType mediaType) {
+			return null;
+		}
+	}
+}
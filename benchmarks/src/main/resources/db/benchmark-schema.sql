@@ -0,0 +1,77 @@
+-- Tables and views read by the database helpers, in the subset of the MySQL
+-- dialect H2 accepts in MODE=MySQL. Rows are generated by BenchmarkDatabase.
+
+CREATE TABLE StudentStatus (
+	pk_id INT AUTO_INCREMENT PRIMARY KEY,
+	status VARCHAR(32) NOT NULL
+);
+CREATE TABLE EmployeeRole (
+	pk_id INT AUTO_INCREMENT PRIMARY KEY,
+	name VARCHAR(32) NOT NULL
+);
+CREATE TABLE PhoneType (
+	pk_id INT AUTO_INCREMENT PRIMARY KEY,
+	phoneType VARCHAR(32) NOT NULL
+);
+
+CREATE TABLE Student (
+	pk_id INT AUTO_INCREMENT PRIMARY KEY,
+	uuid CHAR(36) NOT NULL DEFAULT CAST(RANDOM_UUID() AS VARCHAR),
+	studentId VARCHAR(16) NOT NULL,
+	firstName VARCHAR(64) NOT NULL,
+	middleName VARCHAR(64),
+	firstSurname VARCHAR(64) NOT NULL,
+	secondSurname VARCHAR(64),
+	cedula VARCHAR(16) NOT NULL,
+	email VARCHAR(255),
+	address VARCHAR(255),
+	StatusPk_id INT NOT NULL REFERENCES StudentStatus (pk_id),
+	MD_isDeleted BOOLEAN NOT NULL DEFAULT FALSE,
+	MD_version INT NOT NULL DEFAULT 1,
+	MD_changeSeq BIGINT NOT NULL DEFAULT 0
+);
+CREATE TABLE Employee (
+	pk_id INT AUTO_INCREMENT PRIMARY KEY,
+	uuid CHAR(36) NOT NULL DEFAULT CAST(RANDOM_UUID() AS VARCHAR),
+	firstName VARCHAR(64) NOT NULL,
+	middleName VARCHAR(64),
+	firstSurname VARCHAR(64) NOT NULL,
+	secondSurname VARCHAR(64),
+	cedula VARCHAR(16) NOT NULL,
+	email VARCHAR(255),
+	RolePk_id INT NOT NULL REFERENCES EmployeeRole (pk_id),
+	MD_isDeleted BOOLEAN NOT NULL DEFAULT FALSE,
+	MD_version INT NOT NULL DEFAULT 1,
+	MD_changeSeq BIGINT NOT NULL DEFAULT 0
+);
+CREATE TABLE PhoneNumber (
+	pk_id INT AUTO_INCREMENT PRIMARY KEY,
+	uuid CHAR(36) NOT NULL DEFAULT CAST(RANDOM_UUID() AS VARCHAR),
+	phoneNumber VARCHAR(32) NOT NULL,
+	PhoneTypePk_id INT NOT NULL REFERENCES PhoneType (pk_id)
+);
+CREATE TABLE StudentHasPhoneNumber (
+	StudentPk_id INT NOT NULL REFERENCES Student (pk_id),
+	PhoneNumberPk_id INT NOT NULL REFERENCES PhoneNumber (pk_id),
+	PRIMARY KEY (StudentPk_id, PhoneNumberPk_id)
+);
+CREATE TABLE EmployeeHasPhoneNumber (
+	EmployeePk_id INT NOT NULL REFERENCES Employee (pk_id),
+	PhoneNumberPk_id INT NOT NULL REFERENCES PhoneNumber (pk_id),
+	PRIMARY KEY (EmployeePk_id, PhoneNumberPk_id)
+);
+
+CREATE VIEW VW_Student AS
+	SELECT Student.pk_id AS StudentPk_id, Student.uuid, Student.studentId, Student.firstName, Student.middleName,
+		Student.firstSurname, Student.secondSurname, Student.cedula, Student.email, Student.address,
+		StudentStatus.status
+	FROM Student INNER JOIN StudentStatus ON Student.StatusPk_id=StudentStatus.pk_id
+	WHERE Student.MD_isDeleted=FALSE;
+CREATE VIEW VW_Employee AS
+	SELECT Employee.pk_id AS EmployeePk_id, Employee.uuid, Employee.firstName, Employee.middleName,
+		Employee.firstSurname, Employee.secondSurname, Employee.cedula, Employee.email, EmployeeRole.name AS role
+	FROM Employee INNER JOIN EmployeeRole ON Employee.RolePk_id=EmployeeRole.pk_id
+	WHERE Employee.MD_isDeleted=FALSE;
+CREATE VIEW VW_PhoneNumber AS
+	SELECT PhoneNumber.pk_id AS PhoneNumberPk_id, PhoneNumber.uuid, PhoneNumber.phoneNumber, PhoneType.phoneType
+	FROM PhoneNumber INNER JOIN PhoneType ON PhoneNumber.PhoneTypePk_id=PhoneType.pk_id;
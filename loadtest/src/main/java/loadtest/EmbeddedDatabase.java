@@ -0,0 +1,155 @@
+package loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.Scanner;
+
+import ch.vorburger.exec.ManagedProcessException;
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+import core.Employee;
+import core.Student;
+
+/**
+ * MariaDB server running out of a temporary directory, with the schema the
+ * server expects and its lookup tables filled.
+ *
+ * The server listens on the port of the database.properties the web
+ * application reads, so it connects to this database without further setup.
+ *
+ * @author Francisco Frias
+ * @author Abel Guzman
+ * @author Amin Guzman
+ *
+ */
+final class EmbeddedDatabase implements AutoCloseable {
+	private static final String PROPERTIES_NAMESPACE = "/config/database.properties";
+	private static final String SCHEMA_SCRIPT = "/db/loadtest-schema.sql";
+	// Migrations shipped with the server, applied on top of the base schema in order
+	private static final String[] MIGRATION_SCRIPTS = { "/sql/001_row_version.sql", "/sql/002_change_sequence.sql",
+			"/sql/003_collection_filters.sql" };
+	private static final String URL_FORMAT = "jdbc:mysql://localhost:%d/%s?user=root&useSSL=false";
+
+	private final DB db;
+	private final int port;
+	private final String schema;
+
+	private EmbeddedDatabase(DB db, int port, String schema) {
+		this.db = db;
+		this.port = port;
+		this.schema = schema;
+	}
+
+	/**
+	 *
+	 * Starts the server and creates the schema, replacing any data left by a
+	 * previous run.
+	 *
+	 * @return The running database.
+	 * @throws ManagedProcessException
+	 *             If the server could not be started.
+	 * @throws SQLException
+	 *             If the schema could not be created.
+	 * @throws IOException
+	 *             If a script could not be read.
+	 */
+	static EmbeddedDatabase start() throws ManagedProcessException, SQLException, IOException {
+		Properties properties = new Properties();
+		try (InputStream input = EmbeddedDatabase.class.getResourceAsStream(PROPERTIES_NAMESPACE)) {
+			properties.load(input);
+		}
+		int port = Integer.parseInt(properties.getProperty("port"));
+		String schema = properties.getProperty("schema");
+
+		DBConfigurationBuilder configuration = DBConfigurationBuilder.newBuilder();
+		configuration.setPort(port);
+		if ("root".equals(System.getProperty("user.name"))) {
+			// mysqld refuses to run as root unless told so, i.e. in containers
+			configuration.addArg("--user=root");
+		}
+		DB db = DB.newEmbeddedDB(configuration.build());
+		db.start();
+		EmbeddedDatabase database = new EmbeddedDatabase(db, port, schema);
+
+		// The mysql command line client is not always runnable, so go through JDBC
+		try (Connection connection = DriverManager.getConnection(String.format(URL_FORMAT, port, ""))) {
+			Statement statement = connection.createStatement();
+			statement.execute("DROP DATABASE IF EXISTS " + schema);
+			statement.execute("CREATE DATABASE " + schema + " CHARACTER SET utf8mb4");
+			// Close unused resources
+			statement.close();
+		}
+		try (Connection connection = database.getConnection()) {
+			runScript(connection, SCHEMA_SCRIPT);
+			for (String script : MIGRATION_SCRIPTS) {
+				runScript(connection, script);
+			}
+			insertNames(connection, "INSERT INTO StudentStatus (status) VALUES (?)", Student.Status.values());
+			insertNames(connection, "INSERT INTO EmployeeRole (name) VALUES (?)", Employee.Role.values());
+			insertNames(connection, "INSERT INTO PhoneType (phoneType) VALUES (?)", RosterGenerator.PHONE_TYPES);
+		}
+		return database;
+	}
+
+	/**
+	 *
+	 * @return A new connection to the schema, as an administrator.
+	 * @throws SQLException
+	 *             If the connection could not be opened.
+	 */
+	Connection getConnection() throws SQLException {
+		return DriverManager.getConnection(String.format(URL_FORMAT, port, schema));
+	}
+
+	@Override
+	public void close() throws ManagedProcessException {
+		db.stop();
+	}
+
+	/*
+	 * Scripts hold one statement per semicolon terminated line, optionally
+	 * preceded by comment lines.
+	 */
+	private static void runScript(Connection connection, String script) throws SQLException, IOException {
+		StringBuilder text = new StringBuilder();
+		try (InputStream input = EmbeddedDatabase.class.getResourceAsStream(script)) {
+			if (input == null) {
+				throw new IOException("Missing script " + script);
+			}
+			Scanner scanner = new Scanner(input, StandardCharsets.UTF_8.name());
+			while (scanner.hasNextLine()) {
+				String line = scanner.nextLine();
+				if (!line.trim().startsWith("--")) {
+					text.append(line).append('\n');
+				}
+			}
+		}
+
+		Statement statement = connection.createStatement();
+		for (String sql : text.toString().split(";\\s*\n")) {
+			if (sql.trim().length() > 0) {
+				statement.execute(sql);
+			}
+		}
+		// Close unused resources
+		statement.close();
+	}
+
+	private static void insertNames(Connection connection, String query, Enum<?>[] constants) throws SQLException {
+		PreparedStatement statement = connection.prepareStatement(query);
+		for (Enum<?> constant : constants) {
+			statement.setString(1, constant.name());
+			statement.addBatch();
+		}
+		statement.executeBatch();
+		// Close unused resources
+		statement.close();
+	}
+}
@@ -0,0 +1,65 @@
+package loadtest;
+
+import java.net.URI;
+
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.util.resource.Resource;
+import org.eclipse.jetty.webapp.WebAppContext;
+
+/**
+ * Jetty serving the web application as deployed, from the WEB-INF/web.xml in
+ * WebContent, which the build copies to the class path.
+ *
+ * The application classes are loaded from the class path rather than
+ * WEB-INF/classes, so the load test and the server share them.
+ *
+ * @author Francisco Frias
+ * @author Abel Guzman
+ * @author Amin Guzman
+ *
+ */
+final class EmbeddedServer implements AutoCloseable {
+	private static final String WEBAPP = "/webapp";
+
+	private final Server server;
+
+	private EmbeddedServer(Server server) {
+		this.server = server;
+	}
+
+	/**
+	 *
+	 * @param port
+	 *            The port to listen on, or 0 for any free port.
+	 * @return The running server.
+	 * @throws Exception
+	 *             If the web application failed to start.
+	 */
+	static EmbeddedServer start(int port) throws Exception {
+		Server server = new Server(port);
+		WebAppContext context = new WebAppContext();
+		context.setContextPath("/");
+		context.setBaseResource(Resource.newClassPathResource(WEBAPP));
+		context.setParentLoaderPriority(true);
+		// Fail right away rather than serving 503s if the listener or Jersey cannot start
+		context.setThrowUnavailableOnStartupException(true);
+		server.setHandler(context);
+		server.start();
+		return new EmbeddedServer(server);
+	}
+
+	/**
+	 *
+	 * @return The root of the API, i.e. http://localhost:8080/api.
+	 */
+	URI getApiUri() {
+		int port = ((ServerConnector) server.getConnectors()[0]).getLocalPort();
+		return URI.create(String.format("http://localhost:%d/api", port));
+	}
+
+	@Override
+	public void close() throws Exception {
+		server.stop();
+	}
+}
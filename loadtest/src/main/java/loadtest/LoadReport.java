@@ -0,0 +1,151 @@
+package loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import metrics.LatencyHistogram;
+
+/**
+ * Latency and outcome of the requests sent during a run, by operation, i.e.
+ * StudentService.read.
+ *
+ * @author Francisco Frias
+ * @author Abel Guzman
+ * @author Amin Guzman
+ *
+ */
+final class LoadReport {
+	private static final double[] QUANTILES = { 0.5, 0.9, 0.99, 0.999 };
+	private static final String[] QUANTILE_NAMES = { "p50", "p90", "p99", "p999" };
+
+	private final ConcurrentMap<String, Statistics> statistics = new ConcurrentHashMap<>();
+	private long startTime;
+	private long elapsedNanos;
+
+	void start() {
+		startTime = System.nanoTime();
+	}
+
+	void stop() {
+		elapsedNanos = System.nanoTime() - startTime;
+	}
+
+	/**
+	 *
+	 * @param operation
+	 *            The operation, i.e. StudentService.read.
+	 * @param status
+	 *            The status code of the response, or 0 if none was received.
+	 * @param nanos
+	 *            Time between sending the request and reading the whole
+	 *            response.
+	 */
+	void record(String operation, int status, long nanos) {
+		Statistics operationStatistics = statistics.get(operation);
+		if (operationStatistics == null) {
+			operationStatistics = statistics.computeIfAbsent(operation, o -> new Statistics());
+		}
+		operationStatistics.latencies.record(nanos);
+		if (status >= 400 && status < 500) {
+			operationStatistics.clientErrors.increment();
+		} else if (status == 0 || status >= 500) {
+			operationStatistics.serverErrors.increment();
+		}
+	}
+
+	/**
+	 *
+	 * Prints a table with the throughput and latency percentiles of every
+	 * operation.
+	 *
+	 * @param output
+	 *            Where to print.
+	 */
+	void print(PrintStream output) {
+		double seconds = elapsedNanos / 1e9;
+		output.printf(Locale.ROOT, "%-36s %9s %9s %7s %7s %9s %9s %9s %9s %9s%n", "Operation", "Requests", "Req/s",
+				"4xx", "5xx", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+		for (Map.Entry<String, Statistics> entry : new TreeMap<>(statistics).entrySet()) {
+			LatencyHistogram latencies = entry.getValue().latencies;
+			double[] quantiles = latencies.getQuantileSeconds(QUANTILES);
+			output.printf(Locale.ROOT, "%-36s %9d %9.1f %7d %7d %9.2f %9.2f %9.2f %9.2f %9.2f%n", entry.getKey(),
+					latencies.getCount(), latencies.getCount() / seconds, entry.getValue().clientErrors.sum(),
+					entry.getValue().serverErrors.sum(), quantiles[0] * 1000, quantiles[1] * 1000,
+					quantiles[2] * 1000, quantiles[3] * 1000, latencies.getMaximumSeconds() * 1000);
+		}
+	}
+
+	/**
+	 *
+	 * Writes the results as JSON, so runs can be compared.
+	 *
+	 * @param file
+	 *            The file to write.
+	 * @param settings
+	 *            The settings of the run, written along with the results.
+	 * @throws IOException
+	 *             If the file could not be written.
+	 */
+	void write(Path file, Map<String, Object> settings) throws IOException {
+		double seconds = elapsedNanos / 1e9;
+		StringBuilder json = new StringBuilder("{\n  \"settings\": {");
+		boolean first = true;
+		for (Map.Entry<String, Object> setting : settings.entrySet()) {
+			json.append(first ? "\n" : ",\n").append("    \"").append(setting.getKey()).append("\": ");
+			if (setting.getValue() instanceof Number) {
+				json.append(setting.getValue());
+			} else {
+				json.append('"').append(setting.getValue()).append('"');
+			}
+			first = false;
+		}
+		json.append("\n  },\n  \"durationSeconds\": ").append(format(seconds)).append(",\n  \"operations\": [");
+
+		first = true;
+		for (Map.Entry<String, Statistics> entry : new TreeMap<>(statistics).entrySet()) {
+			LatencyHistogram latencies = entry.getValue().latencies;
+			double[] quantiles = latencies.getQuantileSeconds(QUANTILES);
+			json.append(first ? "\n" : ",\n").append("    {\"operation\": \"").append(entry.getKey())
+					.append("\", \"requests\": ").append(latencies.getCount()).append(", \"throughput\": ")
+					.append(format(latencies.getCount() / seconds)).append(", \"clientErrors\": ")
+					.append(entry.getValue().clientErrors.sum()).append(", \"serverErrors\": ")
+					.append(entry.getValue().serverErrors.sum()).append(", \"latencyMillis\": {");
+			for (int i = 0; i < QUANTILES.length; i++) {
+				json.append('"').append(QUANTILE_NAMES[i]).append("\": ").append(format(quantiles[i] * 1000))
+						.append(", ");
+			}
+			json.append("\"max\": ").append(format(latencies.getMaximumSeconds() * 1000)).append("}}");
+			first = false;
+		}
+		json.append("\n  ]\n}\n");
+
+		if (file.getParent() != null) {
+			Files.createDirectories(file.getParent());
+		}
+		try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			writer.write(json.toString());
+		}
+	}
+
+	private static String format(double value) {
+		return String.format(Locale.ROOT, "%.3f", value);
+	}
+
+	private static final class Statistics {
+		private final LatencyHistogram latencies = new LatencyHistogram();
+		// Responses with a 4xx status, i.e. reads of an entity deleted meanwhile
+		private final LongAdder clientErrors = new LongAdder();
+		// Responses with a 5xx status and requests that got no response
+		private final LongAdder serverErrors = new LongAdder();
+	}
+}
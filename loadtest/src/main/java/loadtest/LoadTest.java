@@ -0,0 +1,120 @@
+package loadtest;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+
+/**
+ * Reproducible, offline load test of the Student and Employee resources.
+ *
+ * Starts an embedded MariaDB with the server schema, boots the web application
+ * on an embedded Jetty, fills the database with a synthetic roster and then
+ * sends a mix of reads and writes from concurrent clients. The throughput and
+ * latency percentiles of every operation are printed and written as JSON.
+ *
+ * Options, all optional:
+ * <ul>
+ * <li>--students N: Students created before the run, 10000 by default.</li>
+ * <li>--employees N: Employees created before the run, 1000 by default.</li>
+ * <li>--concurrency N: concurrent clients, 16 by default.</li>
+ * <li>--warmup S: seconds of traffic before measuring, 10 by default.</li>
+ * <li>--duration S: seconds of traffic measured, 60 by default.</li>
+ * <li>--read-ratio R: share of requests that are reads, 0.9 by default.</li>
+ * <li>--seed N: seed of the roster and the requests, 42 by default.</li>
+ * <li>--port N: HTTP port of the server, any free port by default.</li>
+ * <li>--result FILE: where to write the results,
+ * target/loadtest-result.json by default.</li>
+ * </ul>
+ *
+ * @author Francisco Frias
+ * @author Abel Guzman
+ * @author Amin Guzman
+ *
+ */
+public class LoadTest {
+	private static final String DEFAULT_RESULT_FILE = "target/loadtest-result.json";
+
+	public static void main(String[] args) throws Exception {
+		Map<String, Object> settings = new LinkedHashMap<>();
+		settings.put("students", 10000);
+		settings.put("employees", 1000);
+		settings.put("concurrency", 16);
+		settings.put("warmup", 10);
+		settings.put("duration", 60);
+		settings.put("read-ratio", 0.9);
+		settings.put("seed", 42L);
+		settings.put("port", 0);
+		settings.put("result", DEFAULT_RESULT_FILE);
+		if (!parse(args, settings)) {
+			System.err.println("Usage: java -jar loadtest.jar [--students N] [--employees N] [--concurrency N] "
+					+ "[--warmup S] [--duration S] [--read-ratio R] [--seed N] [--port N] [--result FILE]");
+			System.exit(2);
+		}
+		int concurrency = (Integer) settings.get("concurrency");
+		long seed = (Long) settings.get("seed");
+		Path result = Paths.get((String) settings.get("result"));
+
+		// HttpURLConnection only keeps 5 idle connections per host otherwise
+		if (System.getProperty("http.maxConnections") == null) {
+			System.setProperty("http.maxConnections", Integer.toString(concurrency));
+		}
+
+		try (EmbeddedDatabase database = EmbeddedDatabase.start();
+				EmbeddedServer server = EmbeddedServer.start((Integer) settings.get("port"))) {
+			Client client = ClientBuilder.newClient();
+			try {
+				Workload workload = new Workload(client.target(server.getApiUri()), new RosterGenerator(),
+						(Double) settings.get("read-ratio"));
+
+				long startTime = System.nanoTime();
+				workload.seed((Integer) settings.get("students"), (Integer) settings.get("employees"),
+						new Random(seed));
+				System.out.printf("Seeded %d students and %d employees in %d ms%n", settings.get("students"),
+						settings.get("employees"), (System.nanoTime() - startTime) / 1000000);
+
+				workload.run(concurrency, (Integer) settings.get("warmup"), seed - 1, new LoadReport());
+				LoadReport report = new LoadReport();
+				workload.run(concurrency, (Integer) settings.get("duration"), seed, report);
+
+				report.print(System.out);
+				report.write(result, settings);
+				System.out.println("Results written to " + result.toAbsolutePath());
+			} finally {
+				client.close();
+			}
+		}
+	}
+
+	// Replaces the defaults with the options given, keeping their types
+	private static boolean parse(String[] args, Map<String, Object> settings) {
+		if (args.length % 2 != 0) {
+			return false;
+		}
+		for (int i = 0; i < args.length; i += 2) {
+			String name = args[i].startsWith("--") ? args[i].substring(2) : null;
+			Object defaultValue = name == null ? null : settings.get(name);
+			if (defaultValue == null) {
+				return false;
+			}
+			try {
+				if (defaultValue instanceof Integer) {
+					settings.put(name, Integer.valueOf(args[i + 1]));
+				} else if (defaultValue instanceof Long) {
+					settings.put(name, Long.valueOf(args[i + 1]));
+				} else if (defaultValue instanceof Double) {
+					settings.put(name, Double.valueOf(args[i + 1]));
+				} else {
+					settings.put(name, args[i + 1]);
+				}
+			} catch (NumberFormatException e) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
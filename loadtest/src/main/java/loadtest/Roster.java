@@ -0,0 +1,112 @@
+package loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The Students or Employees known to exist on the server, from which the
+ * workload picks the targets of reads, updates and deletes.
+ *
+ * Entities are added once created and removed when deleted. Picking and
+ * removing are constant time, at the cost of the order of the entities.
+ *
+ * @author Francisco Frias
+ * @author Abel Guzman
+ * @author Amin Guzman
+ *
+ */
+final class Roster {
+	private final List<Identity> identities = new ArrayList<>();
+
+	synchronized void add(Identity identity) {
+		identities.add(identity);
+	}
+
+	synchronized int size() {
+		return identities.size();
+	}
+
+	/**
+	 *
+	 * @param random
+	 *            Decides the entity picked.
+	 * @return Any of the entities, or null if there are none.
+	 */
+	synchronized Identity pick(Random random) {
+		return identities.isEmpty() ? null : identities.get(random.nextInt(identities.size()));
+	}
+
+	/**
+	 *
+	 * @param random
+	 *            Decides the entities picked.
+	 * @param count
+	 *            Number of entities to pick.
+	 * @return Up to count entities, possibly repeated.
+	 */
+	synchronized List<Identity> pick(Random random, int count) {
+		List<Identity> picked = new ArrayList<>(count);
+		for (int i = 0; i < count && !identities.isEmpty(); i++) {
+			picked.add(identities.get(random.nextInt(identities.size())));
+		}
+		return picked;
+	}
+
+	/**
+	 *
+	 * Takes an entity out of the roster, so no other request targets it while it
+	 * is being deleted.
+	 *
+	 * @param random
+	 *            Decides the entity removed.
+	 * @return The entity removed, or null if there are none.
+	 */
+	synchronized Identity remove(Random random) {
+		if (identities.isEmpty()) {
+			return null;
+		}
+		int index = random.nextInt(identities.size());
+		Identity identity = identities.get(index);
+		// Move the last entity into the gap
+		identities.set(index, identities.get(identities.size() - 1));
+		identities.remove(identities.size() - 1);
+		return identity;
+	}
+
+	/**
+	 * The identifiers of a Student or Employee.
+	 */
+	static final class Identity {
+		private final String entityId;
+		private final String cedula;
+		private final String studentId;
+
+		/**
+		 *
+		 * @param entityId
+		 *            The uuid assigned by the server.
+		 * @param cedula
+		 *            The cedula.
+		 * @param studentId
+		 *            The student ID, or null for Employees.
+		 */
+		Identity(String entityId, String cedula, String studentId) {
+			this.entityId = entityId;
+			this.cedula = cedula;
+			this.studentId = studentId;
+		}
+
+		String getEntityId() {
+			return entityId;
+		}
+
+		String getCedula() {
+			return cedula;
+		}
+
+		String getStudentId() {
+			return studentId;
+		}
+	}
+}
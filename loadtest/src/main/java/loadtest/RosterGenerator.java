@@ -0,0 +1,195 @@
+package loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import core.Employee;
+import core.PhoneNumber;
+import core.Student;
+
+/**
+ * Synthetic Students and Employees, each with one to three phone numbers.
+ *
+ * Names, statuses, roles and phone numbers are drawn from the random passed
+ * in, so a seeded random yields the same roster on every run. Cedulas and
+ * student IDs come from counters shared by every caller, so they never
+ * collide, even between threads.
+ *
+ * @author Francisco Frias
+ * @author Abel Guzman
+ * @author Amin Guzman
+ *
+ */
+final class RosterGenerator {
+	static final Enum<?>[] PHONE_TYPES = getPhoneTypes();
+	static final String[] FIRST_NAMES = { "Ana", "Carlos", "Maria", "Jose", "Luisa", "Pedro", "Carmen", "Juan",
+			"Rosa", "Miguel", "Elena", "Rafael", "Isabel", "Francisco", "Lucia", "Manuel" };
+	static final String[] SURNAMES = { "Garcia", "Rodriguez", "Martinez", "Perez", "Gomez", "Fernandez", "Diaz",
+			"Santos", "Reyes", "Cruz", "Ramirez", "Castillo", "Jimenez", "Vargas", "Guzman", "Frias" };
+	private static final String[] STREETS = { "Calle El Conde", "Avenida Duarte", "Calle Las Damas",
+			"Avenida Mella", "Calle Hostos", "Avenida Independencia" };
+	private static final String[] AREA_CODES = { "809", "829", "849" };
+	private static final String EMAIL_DOMAIN = "example.edu";
+	private static final String STUDENT_CSV_HEADER = "studentId,firstName,middleName,firstSurname,secondSurname,"
+			+ "cedula,email,address,status,phoneNumbers";
+	private static final String EMPLOYEE_CSV_HEADER = "firstName,middleName,firstSurname,secondSurname,cedula,"
+			+ "email,role,phoneNumbers";
+
+	private final AtomicLong studentSequence = new AtomicLong();
+	private final AtomicLong employeeSequence = new AtomicLong();
+
+	/**
+	 *
+	 * @param random
+	 *            Source of the names and phone numbers.
+	 * @return A Student with a cedula and student ID never generated before.
+	 */
+	Student newStudent(Random random) {
+		long sequence = studentSequence.incrementAndGet();
+		return fillStudent(random, new Student(), String.format("1%010d", sequence),
+				String.format("S%08d", sequence));
+	}
+
+	/**
+	 *
+	 * @param random
+	 *            Source of the names and phone numbers.
+	 * @param identity
+	 *            The Student to update.
+	 * @return New data for the Student, keeping its identifiers.
+	 */
+	Student updatedStudent(Random random, Roster.Identity identity) {
+		return fillStudent(random, new Student(), identity.getCedula(), identity.getStudentId());
+	}
+
+	/**
+	 *
+	 * @param random
+	 *            Source of the names and phone numbers.
+	 * @return An Employee with a cedula never generated before.
+	 */
+	Employee newEmployee(Random random) {
+		return fillEmployee(random, new Employee(), String.format("2%010d", employeeSequence.incrementAndGet()));
+	}
+
+	/**
+	 *
+	 * @param random
+	 *            Source of the names and phone numbers.
+	 * @param identity
+	 *            The Employee to update.
+	 * @return New data for the Employee, keeping its cedula.
+	 */
+	Employee updatedEmployee(Random random, Roster.Identity identity) {
+		return fillEmployee(random, new Employee(), identity.getCedula());
+	}
+
+	/**
+	 *
+	 * @param students
+	 *            The Students to write.
+	 * @return The Students as the CSV expected by the Student bulk import.
+	 */
+	String toStudentCsv(List<Student> students) {
+		StringBuilder csv = new StringBuilder(STUDENT_CSV_HEADER).append("\r\n");
+		for (Student student : students) {
+			csv.append(student.getStudentId()).append(',').append(student.getFirstName()).append(',')
+					.append(orEmpty(student.getMiddleName())).append(',').append(student.getFirstSurname())
+					.append(',').append(student.getSecondSurname()).append(',').append(student.getCedula())
+					.append(',').append(student.getEmail()).append(",\"").append(student.getAddress())
+					.append("\",").append(student.getStatus()).append(',')
+					.append(toPairs(student.getPhoneNumbers())).append("\r\n");
+		}
+		return csv.toString();
+	}
+
+	/**
+	 *
+	 * @param employees
+	 *            The Employees to write.
+	 * @return The Employees as the CSV expected by the Employee bulk import.
+	 */
+	String toEmployeeCsv(List<Employee> employees) {
+		StringBuilder csv = new StringBuilder(EMPLOYEE_CSV_HEADER).append("\r\n");
+		for (Employee employee : employees) {
+			csv.append(employee.getFirstName()).append(',').append(orEmpty(employee.getMiddleName()))
+					.append(',').append(employee.getFirstSurname()).append(',').append(employee.getSecondSurname())
+					.append(',').append(employee.getCedula()).append(',').append(employee.getEmail()).append(',')
+					.append(employee.getRole()).append(',').append(toPairs(employee.getPhoneNumbers()))
+					.append("\r\n");
+		}
+		return csv.toString();
+	}
+
+	private static Student fillStudent(Random random, Student student, String cedula, String studentId) {
+		student.setStudentId(studentId);
+		student.setFirstName(pick(random, FIRST_NAMES));
+		student.setMiddleName(random.nextBoolean() ? pick(random, FIRST_NAMES) : null);
+		student.setFirstSurname(pick(random, SURNAMES));
+		student.setSecondSurname(pick(random, SURNAMES));
+		student.setCedula(cedula);
+		student.setEmail(String.format("%s.%s@%s", studentId.toLowerCase(),
+				student.getFirstSurname().toLowerCase(), EMAIL_DOMAIN));
+		student.setAddress(String.format("%d %s, Santo Domingo", 1 + random.nextInt(500), pick(random, STREETS)));
+		student.setStatus(pick(random, Student.Status.values()).name());
+		student.setPhoneNumbers(newPhoneNumbers(random));
+		return student;
+	}
+
+	private static Employee fillEmployee(Random random, Employee employee, String cedula) {
+		employee.setFirstName(pick(random, FIRST_NAMES));
+		employee.setMiddleName(random.nextBoolean() ? pick(random, FIRST_NAMES) : null);
+		employee.setFirstSurname(pick(random, SURNAMES));
+		employee.setSecondSurname(pick(random, SURNAMES));
+		employee.setCedula(cedula);
+		employee.setEmail(
+				String.format("e%s.%s@%s", cedula, employee.getFirstSurname().toLowerCase(), EMAIL_DOMAIN));
+		employee.setRole(pick(random, Employee.Role.values()).name());
+		employee.setPhoneNumbers(newPhoneNumbers(random));
+		return employee;
+	}
+
+	private static List<PhoneNumber> newPhoneNumbers(Random random) {
+		int count = 1 + random.nextInt(3);
+		List<PhoneNumber> phoneNumbers = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			PhoneNumber phoneNumber = new PhoneNumber();
+			phoneNumber.setPhoneNumber(pick(random, AREA_CODES) + String.format("%07d", random.nextInt(10000000)));
+			phoneNumber.setType(pick(random, PHONE_TYPES).name());
+			phoneNumbers.add(phoneNumber);
+		}
+		return phoneNumbers;
+	}
+
+	// TYPE:number pairs, as read by GenericWebService.parsePhoneNumbers
+	private static String toPairs(List<PhoneNumber> phoneNumbers) {
+		StringBuilder pairs = new StringBuilder();
+		for (PhoneNumber phoneNumber : phoneNumbers) {
+			if (pairs.length() > 0) {
+				pairs.append(';');
+			}
+			pairs.append(phoneNumber.getType()).append(':').append(phoneNumber.getPhoneNumber());
+		}
+		return pairs.toString();
+	}
+
+	// Nothing between the commas, rather than the text null
+	private static String orEmpty(String value) {
+		return value == null ? "" : value;
+	}
+
+	private static <T> T pick(Random random, T[] values) {
+		return values[random.nextInt(values.length)];
+	}
+
+	// Whatever phone types core.PhoneNumber declares
+	private static Enum<?>[] getPhoneTypes() {
+		try {
+			return (Enum<?>[]) PhoneNumber.class.getMethod("getType").getReturnType().getEnumConstants();
+		} catch (NoSuchMethodException e) {
+			throw new IllegalStateException("core.PhoneNumber has no getType method", e);
+		}
+	}
+}
@@ -0,0 +1,379 @@
+package loadtest;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.GenericEntity;
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import core.Employee;
+import core.Student;
+import db.BulkInsertResult;
+import service.BatchGetRequest;
+import service.BulkImportReport;
+
+/**
+ * Mixed read and write traffic against every resource method of
+ * StudentService and EmployeeService.
+ *
+ * Each request is a read with probability readRatio, or a write otherwise.
+ * Within reads and writes, operations are picked by weight, as a client
+ * browsing the roster would: mostly single entity reads and pages, a few
+ * batch gets, delta syncs and full streams, mostly creates and updates and a
+ * few deletes and bulk imports.
+ *
+ * @author Francisco Frias
+ * @author Abel Guzman
+ * @author Amin Guzman
+ *
+ */
+final class Workload {
+	private static final int SEED_CHUNK_SIZE = 1000;
+	private static final int PAGE_SIZE = 100;
+	private static final int BATCH_GET_SIZE = 20;
+	private static final int BULK_SIZE = 50;
+	private static final String STREAM_FIELDS = "entityId,firstName,firstSurname,email";
+	private static final String CSV_MEDIA_TYPE = "text/csv";
+	private static final Type STUDENT_LIST = new GenericType<List<Student>>() {
+	}.getType();
+	private static final Type EMPLOYEE_LIST = new GenericType<List<Employee>>() {
+	}.getType();
+
+	private final WebTarget api;
+	private final double readRatio;
+	private final Collection<Student> students;
+	private final Collection<Employee> employees;
+	private final List<Operation> reads = new ArrayList<>();
+	private final List<Operation> writes = new ArrayList<>();
+
+	/**
+	 *
+	 * @param api
+	 *            The root of the API.
+	 * @param generator
+	 *            Generates the entities created and updated.
+	 * @param readRatio
+	 *            Share of the requests that are reads, between 0 and 1.
+	 */
+	Workload(WebTarget api, RosterGenerator generator, double readRatio) {
+		this.api = api;
+		this.readRatio = readRatio;
+		this.students = new Collection<>("Student", "students", STUDENT_LIST, "status",
+				enumNames(Student.Status.values()), generator::newStudent, generator::updatedStudent,
+				generator::toStudentCsv,
+				(student, entityId) -> new Roster.Identity(entityId, student.getCedula(), student.getStudentId()));
+		this.employees = new Collection<>("Employee", "employees", EMPLOYEE_LIST, "role",
+				enumNames(Employee.Role.values()), generator::newEmployee, generator::updatedEmployee,
+				generator::toEmployeeCsv,
+				(employee, entityId) -> new Roster.Identity(entityId, employee.getCedula(), null));
+		addOperations(students);
+		addOperations(employees);
+	}
+
+	/**
+	 *
+	 * Fills the database through the bulk import endpoints, and the rosters
+	 * with the entities created.
+	 *
+	 * @param studentCount
+	 *            Number of Students to create.
+	 * @param employeeCount
+	 *            Number of Employees to create.
+	 * @param random
+	 *            Source of the entities generated.
+	 * @throws IllegalStateException
+	 *             If the server did not create every entity.
+	 */
+	void seed(int studentCount, int employeeCount, Random random) {
+		seed(students, studentCount, random);
+		seed(employees, employeeCount, random);
+	}
+
+	/**
+	 *
+	 * Sends requests from a number of concurrent clients, each waiting for the
+	 * response to a request before sending the next one.
+	 *
+	 * @param concurrency
+	 *            Number of clients.
+	 * @param seconds
+	 *            How long to send requests for.
+	 * @param seed
+	 *            Seed of the operations and entities picked, each client
+	 *            deriving its own.
+	 * @param report
+	 *            Receives the latency and outcome of every request.
+	 * @throws InterruptedException
+	 *             If interrupted while waiting for the clients to finish.
+	 */
+	void run(int concurrency, int seconds, long seed, LoadReport report) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+		ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+		report.start();
+		for (int client = 0; client < concurrency; client++) {
+			Random random = new Random(seed * 31 + client);
+			clients.execute(() -> {
+				while (System.nanoTime() < deadline) {
+					Operation operation = pick(random.nextDouble() < readRatio ? reads : writes, random);
+					long startTime = System.nanoTime();
+					int status;
+					try {
+						status = operation.request.apply(random);
+					} catch (ProcessingException e) {
+						// No response, i.e. the connection was reset
+						status = 0;
+					}
+					if (status >= 0) {
+						report.record(operation.name, status, System.nanoTime() - startTime);
+					}
+				}
+			});
+		}
+		clients.shutdown();
+		clients.awaitTermination(seconds + 60, TimeUnit.SECONDS);
+		report.stop();
+	}
+
+	private void addOperations(Collection<?> collection) {
+		String service = collection.name + "Service.";
+		reads.add(new Operation(service + "read", 50, random -> read(collection, random)));
+		reads.add(new Operation(service + "readAll[page]", 20, random -> readPage(collection, random)));
+		reads.add(new Operation(service + "readAll[filter]", 10, random -> readFiltered(collection, random)));
+		reads.add(new Operation(service + "batchGet", 10, random -> batchGet(collection, random)));
+		reads.add(new Operation(service + "readChanges", 8, random -> readChanges(collection)));
+		reads.add(new Operation(service + "readAll[stream]", 2, random -> readStream(collection)));
+		writes.add(new Operation(service + "create", 40, random -> create(collection, random)));
+		writes.add(new Operation(service + "update", 40, random -> update(collection, random)));
+		writes.add(new Operation(service + "delete", 10, random -> delete(collection, random)));
+		writes.add(new Operation(service + "createAll", 5, random -> createAll(collection, random)));
+		writes.add(new Operation(service + "createAllFromCsv", 5, random -> createAllFromCsv(collection, random)));
+	}
+
+	private static Operation pick(List<Operation> operations, Random random) {
+		int total = 0;
+		for (Operation operation : operations) {
+			total += operation.weight;
+		}
+		int value = random.nextInt(total);
+		for (Operation operation : operations) {
+			value -= operation.weight;
+			if (value < 0) {
+				return operation;
+			}
+		}
+		return operations.get(operations.size() - 1);
+	}
+
+	private <T> void seed(Collection<T> collection, int count, Random random) {
+		for (int offset = 0; offset < count; offset += SEED_CHUNK_SIZE) {
+			List<T> entities = collection.generate(random, Math.min(SEED_CHUNK_SIZE, count - offset));
+			int created = importAll(collection, entities);
+			if (created < entities.size()) {
+				throw new IllegalStateException(String.format("Only %d of %d %ss could be created", created,
+						entities.size(), collection.name));
+			}
+		}
+	}
+
+	private int read(Collection<?> collection, Random random) {
+		Roster.Identity identity = collection.roster.pick(random);
+		if (identity == null) {
+			return -1;
+		}
+		return consume(api.path(collection.path).path(identity.getEntityId()).request(MediaType.APPLICATION_JSON)
+				.get());
+	}
+
+	private int readPage(Collection<?> collection, Random random) {
+		// Primary keys start at 1 and grow with every create, so this lands anywhere
+		int after = random.nextInt(collection.roster.size() + 1);
+		return consume(api.path(collection.path).queryParam("limit", PAGE_SIZE).queryParam("after", after)
+				.request(MediaType.APPLICATION_JSON).get());
+	}
+
+	private int readFiltered(Collection<?> collection, Random random) {
+		String surname = RosterGenerator.SURNAMES[random.nextInt(RosterGenerator.SURNAMES.length)];
+		String constant = collection.filterValues[random.nextInt(collection.filterValues.length)];
+		return consume(api.path(collection.path).queryParam(collection.filterParameter, constant)
+				.queryParam("surname-prefix", surname.substring(0, 3)).queryParam("limit", PAGE_SIZE)
+				.request(MediaType.APPLICATION_JSON).get());
+	}
+
+	private int readStream(Collection<?> collection) {
+		return consume(api.path(collection.path).queryParam("stream", true).queryParam("fields", STREAM_FIELDS)
+				.request(MediaType.APPLICATION_JSON).get());
+	}
+
+	private int readChanges(Collection<?> collection) {
+		return consume(api.path(collection.path + "/changes").queryParam("limit", PAGE_SIZE)
+				.request(MediaType.APPLICATION_JSON).get());
+	}
+
+	private int batchGet(Collection<?> collection, Random random) {
+		BatchGetRequest batchGetRequest = new BatchGetRequest();
+		for (Roster.Identity identity : collection.roster.pick(random, BATCH_GET_SIZE)) {
+			batchGetRequest.getValues().add(identity.getEntityId());
+		}
+		return consume(api.path(collection.path + ":batchGet").request(MediaType.APPLICATION_JSON)
+				.post(Entity.json(batchGetRequest)));
+	}
+
+	private <T> int create(Collection<T> collection, Random random) {
+		T entity = collection.create.apply(random);
+		Response response = api.path(collection.path).request(MediaType.APPLICATION_JSON).post(Entity.json(entity));
+		if (response.getStatus() == Response.Status.CREATED.getStatusCode() && response.getLocation() != null) {
+			// The entity ID is the last segment of the Location, the ETag only holds the version
+			String location = response.getLocation().getPath();
+			String entityId = location.substring(location.lastIndexOf('/') + 1);
+			collection.roster.add(collection.identify.apply(entity, entityId));
+		}
+		return consume(response);
+	}
+
+	private <T> int update(Collection<T> collection, Random random) {
+		Roster.Identity identity = collection.roster.pick(random);
+		if (identity == null) {
+			return -1;
+		}
+		T entity = collection.update.apply(random, identity);
+		return consume(api.path(collection.path).path(identity.getEntityId()).request(MediaType.APPLICATION_JSON)
+				.put(Entity.json(entity)));
+	}
+
+	private int delete(Collection<?> collection, Random random) {
+		Roster.Identity identity = collection.roster.remove(random);
+		if (identity == null) {
+			return -1;
+		}
+		return consume(api.path(collection.path).path(identity.getEntityId()).request().delete());
+	}
+
+	private <T> int createAll(Collection<T> collection, Random random) {
+		int[] status = new int[1];
+		importAll(collection, collection.generate(random, BULK_SIZE), status);
+		return status[0];
+	}
+
+	private <T> int createAllFromCsv(Collection<T> collection, Random random) {
+		List<T> entities = collection.generate(random, BULK_SIZE);
+		Response response = api.path(collection.path + ":bulk").request(MediaType.APPLICATION_JSON)
+				.post(Entity.entity(collection.toCsv.apply(entities), CSV_MEDIA_TYPE));
+		return register(collection, entities, response, new int[1]);
+	}
+
+	private <T> int importAll(Collection<T> collection, List<T> entities) {
+		return importAll(collection, entities, new int[1]);
+	}
+
+	// Returns the number of entities created, the status of the response is left in status[0]
+	private <T> int importAll(Collection<T> collection, List<T> entities, int[] status) {
+		GenericEntity<List<T>> body = new GenericEntity<>(entities, collection.listType);
+		Response response = api.path(collection.path + ":bulk").request(MediaType.APPLICATION_JSON)
+				.post(Entity.json(body));
+		return register(collection, entities, response, status);
+	}
+
+	private <T> int register(Collection<T> collection, List<T> entities, Response response, int[] status) {
+		int created = 0;
+		status[0] = response.getStatus();
+		if (status[0] == Response.Status.OK.getStatusCode()) {
+			BulkImportReport importReport = response.readEntity(BulkImportReport.class);
+			for (BulkInsertResult result : importReport.getResults()) {
+				if (result.getOutcome() == BulkInsertResult.Outcome.CREATED) {
+					collection.roster.add(collection.identify.apply(entities.get(result.getIndex()),
+							result.getEntityId()));
+					created++;
+				}
+			}
+		}
+		response.close();
+		return created;
+	}
+
+	// Reads the whole body, so its transfer is part of the latency
+	private static int consume(Response response) {
+		try {
+			if (response.hasEntity()) {
+				response.readEntity(byte[].class);
+			}
+			return response.getStatus();
+		} finally {
+			response.close();
+		}
+	}
+
+	private static String[] enumNames(Enum<?>[] constants) {
+		String[] names = new String[constants.length];
+		for (int i = 0; i < constants.length; i++) {
+			names[i] = constants[i].name();
+		}
+		return names;
+	}
+
+	/**
+	 * A request the workload can send, returning the status of the response or
+	 * -1 if it was not sent, i.e. because there was nothing to delete.
+	 */
+	private static final class Operation {
+		private final String name;
+		private final int weight;
+		private final Function<Random, Integer> request;
+
+		private Operation(String name, int weight, Function<Random, Integer> request) {
+			this.name = name;
+			this.weight = weight;
+			this.request = request;
+		}
+	}
+
+	/**
+	 * The resources of Students or Employees, and how to generate them.
+	 */
+	private static final class Collection<T> {
+		private final String name;
+		private final String path;
+		// List<T>, telling the JSON writer the type of the elements
+		private final Type listType;
+		private final String filterParameter;
+		private final String[] filterValues;
+		private final Function<Random, T> create;
+		private final BiFunction<Random, Roster.Identity, T> update;
+		private final Function<List<T>, String> toCsv;
+		private final BiFunction<T, String, Roster.Identity> identify;
+		private final Roster roster = new Roster();
+
+		private Collection(String name, String path, Type listType, String filterParameter, String[] filterValues,
+				Function<Random, T> create, BiFunction<Random, Roster.Identity, T> update,
+				Function<List<T>, String> toCsv, BiFunction<T, String, Roster.Identity> identify) {
+			this.name = name;
+			this.path = path;
+			this.listType = listType;
+			this.filterParameter = filterParameter;
+			this.filterValues = filterValues;
+			this.create = create;
+			this.update = update;
+			this.toCsv = toCsv;
+			this.identify = identify;
+		}
+
+		private List<T> generate(Random random, int count) {
+			List<T> entities = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				entities.add(create.apply(random));
+			}
+			return entities;
+		}
+	}
+}
@@ -0,0 +1,82 @@
+-- Base tables and views read and written by the database helpers, before the
+-- migrations in resources/sql, which EmbeddedDatabase applies on top in order.
+-- Lookup rows are generated from the enums of the core entities.
+
+CREATE TABLE StudentStatus (
+	pk_id INT UNSIGNED AUTO_INCREMENT PRIMARY KEY,
+	status VARCHAR(32) NOT NULL UNIQUE
+) ENGINE=InnoDB;
+CREATE TABLE EmployeeRole (
+	pk_id INT UNSIGNED AUTO_INCREMENT PRIMARY KEY,
+	name VARCHAR(32) NOT NULL UNIQUE
+) ENGINE=InnoDB;
+CREATE TABLE PhoneType (
+	pk_id INT UNSIGNED AUTO_INCREMENT PRIMARY KEY,
+	phoneType VARCHAR(32) NOT NULL UNIQUE
+) ENGINE=InnoDB;
+
+CREATE TABLE Student (
+	pk_id INT UNSIGNED AUTO_INCREMENT PRIMARY KEY,
+	uuid CHAR(36) NOT NULL DEFAULT UUID() UNIQUE,
+	studentId VARCHAR(16) NOT NULL UNIQUE,
+	firstName VARCHAR(64),
+	middleName VARCHAR(64),
+	firstSurname VARCHAR(64),
+	secondSurname VARCHAR(64),
+	cedula VARCHAR(16) NOT NULL UNIQUE,
+	email VARCHAR(255),
+	address VARCHAR(255),
+	StatusPk_id INT UNSIGNED NOT NULL,
+	MD_isDeleted BOOLEAN NOT NULL DEFAULT FALSE,
+	FOREIGN KEY (StatusPk_id) REFERENCES StudentStatus (pk_id)
+) ENGINE=InnoDB;
+CREATE TABLE Employee (
+	pk_id INT UNSIGNED AUTO_INCREMENT PRIMARY KEY,
+	uuid CHAR(36) NOT NULL DEFAULT UUID() UNIQUE,
+	firstName VARCHAR(64),
+	middleName VARCHAR(64),
+	firstSurname VARCHAR(64),
+	secondSurname VARCHAR(64),
+	cedula VARCHAR(16) NOT NULL UNIQUE,
+	email VARCHAR(255),
+	RolePk_id INT UNSIGNED NOT NULL,
+	MD_isDeleted BOOLEAN NOT NULL DEFAULT FALSE,
+	FOREIGN KEY (RolePk_id) REFERENCES EmployeeRole (pk_id)
+) ENGINE=InnoDB;
+CREATE TABLE PhoneNumber (
+	pk_id INT UNSIGNED AUTO_INCREMENT PRIMARY KEY,
+	uuid CHAR(36) NOT NULL DEFAULT UUID() UNIQUE,
+	phoneNumber VARCHAR(32) NOT NULL,
+	PhoneTypePk_id INT UNSIGNED NOT NULL,
+	UNIQUE (phoneNumber, PhoneTypePk_id),
+	FOREIGN KEY (PhoneTypePk_id) REFERENCES PhoneType (pk_id)
+) ENGINE=InnoDB;
+CREATE TABLE StudentHasPhoneNumber (
+	StudentPk_id INT UNSIGNED NOT NULL,
+	PhoneNumberPk_id INT UNSIGNED NOT NULL,
+	PRIMARY KEY (StudentPk_id, PhoneNumberPk_id),
+	FOREIGN KEY (StudentPk_id) REFERENCES Student (pk_id),
+	FOREIGN KEY (PhoneNumberPk_id) REFERENCES PhoneNumber (pk_id)
+) ENGINE=InnoDB;
+CREATE TABLE EmployeeHasPhoneNumber (
+	EmployeePk_id INT UNSIGNED NOT NULL,
+	PhoneNumberPk_id INT UNSIGNED NOT NULL,
+	PRIMARY KEY (EmployeePk_id, PhoneNumberPk_id),
+	FOREIGN KEY (EmployeePk_id) REFERENCES Employee (pk_id),
+	FOREIGN KEY (PhoneNumberPk_id) REFERENCES PhoneNumber (pk_id)
+) ENGINE=InnoDB;
+
+CREATE VIEW VW_Student AS
+	SELECT Student.pk_id AS StudentPk_id, Student.uuid, Student.studentId, Student.firstName, Student.middleName,
+		Student.firstSurname, Student.secondSurname, Student.cedula, Student.email, Student.address,
+		StudentStatus.status
+	FROM Student INNER JOIN StudentStatus ON Student.StatusPk_id=StudentStatus.pk_id
+	WHERE Student.MD_isDeleted=FALSE;
+CREATE VIEW VW_Employee AS
+	SELECT Employee.pk_id AS EmployeePk_id, Employee.uuid, Employee.firstName, Employee.middleName,
+		Employee.firstSurname, Employee.secondSurname, Employee.cedula, Employee.email, EmployeeRole.name AS role
+	FROM Employee INNER JOIN EmployeeRole ON Employee.RolePk_id=EmployeeRole.pk_id
+	WHERE Employee.MD_isDeleted=FALSE;
+CREATE VIEW VW_PhoneNumber AS
+	SELECT PhoneNumber.pk_id AS PhoneNumberPk_id, PhoneNumber.uuid, PhoneNumber.phoneNumber, PhoneType.phoneType
+	FROM PhoneNumber INNER JOIN PhoneType ON PhoneNumber.PhoneTypePk_id=PhoneType.pk_id;
@@ -0,0 +1,6 @@
+-- Row versions backing the ETags of the student and employee resources.
+-- Every UPDATE issued by the server increments MD_version, including the
+-- soft delete and updates that only change phone numbers.
+
+ALTER TABLE Student ADD COLUMN MD_version INT UNSIGNED NOT NULL DEFAULT 1;
+ALTER TABLE Employee ADD COLUMN MD_version INT UNSIGNED NOT NULL DEFAULT 1;
@@ -0,0 +1,18 @@
+-- Change watermarks backing the /students/changes and /employees/changes
+-- delta sync endpoints. Every insert, update and soft delete issued by the
+-- server stamps the row with the next value of the table's counter, taken in
+-- the same transaction.
+
+CREATE TABLE ChangeSequence (
+	name VARCHAR(64) NOT NULL PRIMARY KEY,
+	value BIGINT UNSIGNED NOT NULL
+);
+INSERT INTO ChangeSequence (name, value) VALUES ('Student', 0), ('Employee', 0);
+
+-- Existing rows keep 0, so they are returned by the first sync
+ALTER TABLE Student ADD COLUMN MD_changeSeq BIGINT UNSIGNED NOT NULL DEFAULT 0;
+ALTER TABLE Employee ADD COLUMN MD_changeSeq BIGINT UNSIGNED NOT NULL DEFAULT 0;
+
+-- InnoDB appends the primary key, matching the (MD_changeSeq, pk_id) order
+CREATE INDEX IX_Student_MD_changeSeq ON Student (MD_changeSeq);
+CREATE INDEX IX_Employee_MD_changeSeq ON Employee (MD_changeSeq);
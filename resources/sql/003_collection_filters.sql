@@ -0,0 +1,19 @@
+-- Indexes backing the filters and sort keys of the /students and /employees
+-- collection reads (status, role, surname-prefix, email-domain and sort).
+
+-- Status and role are compared through their lookup tables, which are tiny,
+-- so the filter comes down to the foreign key. Appending the surname lets the
+-- same index serve a surname prefix or sort within a status or role.
+CREATE INDEX IX_Student_StatusPk_id_firstSurname ON Student (StatusPk_id, firstSurname);
+CREATE INDEX IX_Employee_RolePk_id_firstSurname ON Employee (RolePk_id, firstSurname);
+
+-- surname-prefix compiles to firstSurname LIKE 'prefix%', which is a range
+-- scan of these indexes, as is sort=firstSurname
+CREATE INDEX IX_Student_firstSurname ON Student (firstSurname);
+CREATE INDEX IX_Employee_firstSurname ON Employee (firstSurname);
+
+-- email-domain compiles to email LIKE '%@domain', which no index on email can
+-- serve. If the filter becomes hot, index the domain as a generated column and
+-- compare against it instead:
+-- ALTER TABLE Student ADD COLUMN emailDomain VARCHAR(255)
+--	AS (SUBSTRING_INDEX(email, '@', -1)) STORED, ADD INDEX IX_Student_emailDomain (emailDomain);
@@ -0,0 +1,83 @@
+package db;
+
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * Outcome of inserting a single row of a bulk insert.
+ *
+ * @author Francisco Frias
+ * @author Abel Guzman
+ * @author Amin Guzman
+ *
+ */
+@XmlRootElement(name = "result")
+public class BulkInsertResult {
+	public enum Outcome {
+		/** The row was inserted. */
+		CREATED,
+		/** A unique identifier of the row is already in use. */
+		DUPLICATE,
+		/** The row is malformed and was not sent to the database. */
+		INVALID,
+		/** The row could not be inserted because of a database error. */
+		FAILED
+	}
+
+	private int index;
+	private Outcome outcome;
+	private String entityId;
+	private String message;
+
+	public BulkInsertResult() {
+	}
+
+	/**
+	 *
+	 * @param index
+	 *            Position of the row in the input, starting at 0.
+	 * @param outcome
+	 *            What happened to the row.
+	 * @param entityId
+	 *            Entity ID of the created entity, or null if none was created.
+	 * @param message
+	 *            Reason the row was not created, or null if it was.
+	 */
+	public BulkInsertResult(int index, Outcome outcome, String entityId, String message) {
+		this.index = index;
+		this.outcome = outcome;
+		this.entityId = entityId;
+		this.message = message;
+	}
+
+	public int getIndex() {
+		return index;
+	}
+
+	public void setIndex(int index) {
+		this.index = index;
+	}
+
+	public Outcome getOutcome() {
+		return outcome;
+	}
+
+	public void setOutcome(Outcome outcome) {
+		this.outcome = outcome;
+	}
+
+	public String getEntityId() {
+		return entityId;
+	}
+
+	public void setEntityId(String entityId) {
+		this.entityId = entityId;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	public void setMessage(String message) {
+		this.message = message;
+	}
+}
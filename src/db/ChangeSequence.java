@@ -0,0 +1,137 @@
+package db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Hands out numbers from the counters of the ChangeSequence table, used to
+ * stamp modified rows with a monotonic watermark.
+ * 
+ * The counter row stays locked until the calling transaction ends, so numbers
+ * become visible in the order they were handed out and a reader that has seen
+ * number n can never later find a row stamped with a lower one. Writers thus
+ * stamp their rows with {@link #stamp} as the last statement before commit,
+ * once the rows have been written, so the lock is only held for the stamp and
+ * the commit.
+ *
+ * Counters are named after the table whose rows they stamp.
+ * 
+ * @author Francisco Frias
+ * @author Abel Guzman
+ * @author Amin Guzman
+ *
+ */
+final class ChangeSequence {
+	static final String STUDENT = "Student";
+	static final String EMPLOYEE = "Employee";
+
+	private ChangeSequence() {
+	}
+
+	/**
+	 * 
+	 * @param connection
+	 *            A connection with auto-commit disabled, i.e. from a
+	 *            {@link UnitOfWork}.
+	 * @param name
+	 *            Name of the counter.
+	 * @return The next number of the counter.
+	 * @throws SQLException
+	 *             If the counter does not exist or cannot be incremented.
+	 */
+	static long next(Connection connection, String name) throws SQLException {
+		long value;
+
+		String sequenceQuery = "UPDATE ChangeSequence SET value=LAST_INSERT_ID(value+1) WHERE name=?";
+		try (PreparedStatement sequenceStatement = connection.prepareStatement(sequenceQuery)) {
+			sequenceStatement.setString(1, name);
+			if (sequenceStatement.executeUpdate() <= 0) {
+				throw new SQLException("Unknown change sequence: " + name);
+			}
+		}
+
+		// LAST_INSERT_ID() is per connection, so no other writer can interfere
+		try (PreparedStatement sequenceStatement = connection.prepareStatement("SELECT LAST_INSERT_ID()");
+				ResultSet sequenceResultSet = sequenceStatement.executeQuery()) {
+			sequenceResultSet.next();
+			value = sequenceResultSet.getLong(1);
+		}
+
+		return value;
+	}
+
+	/**
+	 * 
+	 * Reads the last number handed out by a counter, without locking it. Numbers
+	 * taken by transactions not yet committed are not seen.
+	 * 
+	 * @param connection
+	 *            The connection on which to run the query.
+	 * @param name
+	 *            Name of the counter.
+	 * @return The last number of the counter, 0 if none was handed out yet.
+	 * @throws SQLException
+	 *             If the counter does not exist or cannot be read.
+	 */
+	static long current(Connection connection, String name) throws SQLException {
+		long value;
+
+		String sequenceQuery = "SELECT value FROM ChangeSequence WHERE name=?";
+		try (PreparedStatement sequenceStatement = connection.prepareStatement(sequenceQuery)) {
+			sequenceStatement.setString(1, name);
+			try (ResultSet sequenceResultSet = sequenceStatement.executeQuery()) {
+				if (!sequenceResultSet.next()) {
+					throw new SQLException("Unknown change sequence: " + name);
+				}
+				value = sequenceResultSet.getLong(1);
+			}
+		}
+
+		return value;
+	}
+
+	/**
+	 * 
+	 * Takes the next number of the counter of a table and stamps it as the
+	 * MD_changeSeq of the rows passed. Nothing is locked if there are no rows.
+	 * 
+	 * @param connection
+	 *            A connection with auto-commit disabled, i.e. from a
+	 *            {@link UnitOfWork}, on which the rows were written.
+	 * @param name
+	 *            Name of the counter, and of the table of the rows.
+	 * @param column
+	 *            A unique column of the table locating the rows, i.e. pk_id.
+	 * @param values
+	 *            The values of the column of the rows to stamp.
+	 * @return The number stamped, or 0 if there were no rows.
+	 * @throws SQLException
+	 *             If the counter does not exist or any of the queries fail.
+	 */
+	static long stamp(Connection connection, String name, String column, Collection<?> values)
+			throws SQLException {
+		if (values.isEmpty()) {
+			return 0;
+		}
+		long value = next(connection, name);
+
+		// One lookup by key per row, an IN list may be run as a scan locking rows of other writers
+		for (List<?> batch : QueryUtils.partition(values, QueryUtils.BATCH_SIZE)) {
+			String stampQuery = String.format("UPDATE %s SET MD_changeSeq=? WHERE %s=?", name, column);
+			try (PreparedStatement stampStatement = connection.prepareStatement(stampQuery)) {
+				for (Object rowValue : batch) {
+					stampStatement.setLong(1, value);
+					stampStatement.setObject(2, rowValue);
+					stampStatement.addBatch();
+				}
+				stampStatement.executeBatch();
+			}
+		}
+
+		return value;
+	}
+}
@@ -0,0 +1,128 @@
+package db;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.bind.annotation.XmlAnyElement;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElementWrapper;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlSeeAlso;
+
+import core.Employee;
+import core.Student;
+
+/**
+ * Entities changed after a watermark, along with the watermark to resume from.
+ *
+ * @author Francisco Frias
+ * @author Abel Guzman
+ * @author Amin Guzman
+ *
+ * @param <T>
+ *            Type of the entities.
+ */
+@XmlRootElement(name = "changes")
+@XmlSeeAlso({ Student.class, Employee.class })
+public class ChangeSet<T> {
+	private List<T> updated = new ArrayList<>();
+	private List<String> deleted = new ArrayList<>();
+	private String token;
+	private boolean more;
+
+	public ChangeSet() {
+	}
+
+	/**
+	 *
+	 * @param updated
+	 *            Entities created or modified, in their current state.
+	 * @param deleted
+	 *            Entity IDs of the entities deleted.
+	 * @param token
+	 *            Watermark to pass on the next request.
+	 * @param more
+	 *            Whether further changes are available right away.
+	 */
+	public ChangeSet(List<T> updated, List<String> deleted, String token, boolean more) {
+		this.updated = updated;
+		this.deleted = deleted;
+		this.token = token;
+		this.more = more;
+	}
+
+	@XmlAnyElement(lax = true)
+	public List<T> getUpdated() {
+		return updated;
+	}
+
+	public void setUpdated(List<T> updated) {
+		this.updated = updated;
+	}
+
+	@XmlElementWrapper(name = "deleted")
+	@XmlElement(name = "uuid")
+	public List<String> getDeleted() {
+		return deleted;
+	}
+
+	public void setDeleted(List<String> deleted) {
+		this.deleted = deleted;
+	}
+
+	public String getToken() {
+		return token;
+	}
+
+	public void setToken(String token) {
+		this.token = token;
+	}
+
+	public boolean isMore() {
+		return more;
+	}
+
+	public void setMore(boolean more) {
+		this.more = more;
+	}
+
+	/**
+	 *
+	 * @param changeSeq
+	 *            Change sequence number of the last row returned.
+	 * @param pkId
+	 *            Primary key of the last row returned.
+	 * @return The opaque watermark passed to clients.
+	 */
+	static String toToken(long changeSeq, int pkId) {
+		return changeSeq + "." + pkId;
+	}
+
+	/**
+	 *
+	 * @param token
+	 *            A watermark previously returned, or null to start from the
+	 *            beginning.
+	 * @return The change sequence number and primary key encoded in the token.
+	 * @throws IllegalArgumentException
+	 *             If the token is malformed.
+	 */
+	static long[] fromToken(String token) {
+		if (token == null || token.trim().length() == 0) {
+			return new long[] { 0, 0 };
+		}
+		String[] parts = token.trim().split("\\.");
+		if (parts.length != 2) {
+			throw new IllegalArgumentException("Malformed token: " + token);
+		}
+		try {
+			long[] watermark = { Long.parseLong(parts[0]), Integer.parseInt(parts[1]) };
+			if (watermark[0] < 0 || watermark[1] < 0) {
+				throw new IllegalArgumentException("Malformed token: " + token);
+			}
+			return watermark;
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Malformed token: " + token, e);
+		}
+	}
+}
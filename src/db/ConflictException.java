@@ -0,0 +1,36 @@
+package db;
+
+/**
+ * Thrown when an entity cannot be created because one of its unique
+ * identifiers is already in use.
+ *
+ * @author Francisco Frias
+ * @author Abel Guzman
+ * @author Amin Guzman
+ *
+ */
+public class ConflictException extends RuntimeException {
+	private static final long serialVersionUID = 1L;
+
+	private final String identifier;
+
+	/**
+	 *
+	 * @param entityName
+	 *            The kind of entity being created, i.e. Student.
+	 * @param identifier
+	 *            The name of the identifier already in use.
+	 */
+	public ConflictException(String entityName, String identifier) {
+		super(String.format("%s already exists with the same %s", entityName, identifier));
+		this.identifier = identifier;
+	}
+
+	/**
+	 *
+	 * @return The name of the identifier already in use, i.e. cedula.
+	 */
+	public String getIdentifier() {
+		return identifier;
+	}
+}
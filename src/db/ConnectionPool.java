@@ -0,0 +1,412 @@
+package db;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bounded pool of physical database connections.
+ *
+ * Connections are created up front (up to the configured minimum idle count),
+ * handed out as leases and returned to the pool when the lease is closed. Idle
+ * connections are validated before being reused, connections older than the
+ * maximum lifetime are retired, and leases held longer than the leak detection
+ * threshold are reported.
+ *
+ * @author Francisco Frias
+ * @author Abel Guzman
+ * @author Amin Guzman
+ *
+ */
+public class ConnectionPool {
+	private static final Logger LOGGER = Logger.getLogger(ConnectionPool.class.getName());
+	private static final long HOUSEKEEPING_INTERVAL = 30000;
+
+	/**
+	 * Settings used to create a pool. Times are expressed in milliseconds, except
+	 * for the validation timeout, which JDBC expects in seconds.
+	 */
+	static class Configuration {
+		String connectionString;
+		int minimumIdle = 2;
+		int maximumSize = 10;
+		long connectionTimeout = 30000;
+		int validationTimeout = 5;
+		long idleValidationInterval = 30000;
+		long maximumLifetime = 1800000;
+		long leakDetectionThreshold = 60000;
+	}
+
+	private final Configuration configuration;
+	private final LinkedBlockingDeque<PooledConnection> idleConnections = new LinkedBlockingDeque<>();
+	private final Semaphore leases;
+	private final AtomicInteger totalConnections = new AtomicInteger();
+	private final ScheduledExecutorService scheduler;
+	private volatile boolean shutdown = false;
+
+	// Statistics
+	private final AtomicLong borrowCount = new AtomicLong();
+	private final AtomicLong timeoutCount = new AtomicLong();
+	private final AtomicLong totalWaitNanos = new AtomicLong();
+	private final AtomicLong maximumWaitNanos = new AtomicLong();
+	private final AtomicLong createdCount = new AtomicLong();
+	private final AtomicLong destroyedCount = new AtomicLong();
+	private final AtomicLong leakCount = new AtomicLong();
+
+	ConnectionPool(Configuration configuration) {
+		this.configuration = configuration;
+		this.leases = new Semaphore(configuration.maximumSize, true);
+
+		ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+			Thread thread = new Thread(runnable, "dartagnan-connection-pool");
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.setRemoveOnCancelPolicy(true);
+		this.scheduler = executor;
+
+		// Pre-warm the pool, then keep it topped up in the background
+		fillIdleConnections();
+		scheduler.scheduleWithFixedDelay(this::housekeep, HOUSEKEEPING_INTERVAL, HOUSEKEEPING_INTERVAL,
+				TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 *
+	 * Leases a connection from the pool, waiting up to the configured connection
+	 * timeout for one to become available.
+	 *
+	 * @return A validated connection, which must be handed back through
+	 *         {@link #release(PooledConnection)}.
+	 * @throws SQLException
+	 *             If the pool is shut down, no connection became available in
+	 *             time or a new connection could not be opened.
+	 */
+	PooledConnection borrow() throws SQLException {
+		if (shutdown) {
+			throw new SQLException("Connection pool has been shut down");
+		}
+
+		long startTime = System.nanoTime();
+		long deadline = startTime + TimeUnit.MILLISECONDS.toNanos(configuration.connectionTimeout);
+		try {
+			if (!leases.tryAcquire(configuration.connectionTimeout, TimeUnit.MILLISECONDS)) {
+				timeoutCount.incrementAndGet();
+				throw new SQLTimeoutException(String.format(
+						"Timed out after %d ms waiting for a database connection (%d in use)",
+						configuration.connectionTimeout, configuration.maximumSize));
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while waiting for a database connection", e);
+		}
+
+		try {
+			PooledConnection pooledConnection = takeConnection(deadline);
+			recordWait(System.nanoTime() - startTime);
+
+			ScheduledFuture<?> leakTask = null;
+			Throwable trace = null;
+			if (configuration.leakDetectionThreshold > 0) {
+				trace = new Exception("Connection leased here");
+				leakTask = scheduler.schedule(() -> reportLeak(pooledConnection), configuration.leakDetectionThreshold,
+						TimeUnit.MILLISECONDS);
+			}
+			pooledConnection.onBorrow(trace, leakTask);
+			borrowCount.incrementAndGet();
+			return pooledConnection;
+		} catch (SQLException | RuntimeException e) {
+			leases.release();
+			throw e;
+		}
+	}
+
+	/**
+	 *
+	 * Returns a leased connection to the pool. Connections that are broken or have
+	 * outlived their maximum lifetime are closed instead.
+	 *
+	 * @param pooledConnection
+	 *            The connection obtained from {@link #borrow()}.
+	 */
+	void release(PooledConnection pooledConnection) {
+		pooledConnection.onRelease();
+		try {
+			Connection connection = pooledConnection.getConnection();
+			if (shutdown || connection.isClosed() || pooledConnection.isExpired(configuration.maximumLifetime)) {
+				destroy(pooledConnection);
+			} else {
+				// Leave the connection in the state the next borrower expects
+				if (!connection.getAutoCommit()) {
+					connection.rollback();
+					connection.setAutoCommit(true);
+				}
+				connection.clearWarnings();
+				idleConnections.offerFirst(pooledConnection);
+			}
+		} catch (SQLException e) {
+			e.printStackTrace();
+			destroy(pooledConnection);
+		} finally {
+			leases.release();
+		}
+	}
+
+	/**
+	 *
+	 * Closes every idle connection and stops background maintenance. Connections
+	 * still leased are closed as they are returned.
+	 */
+	public void shutdown() {
+		shutdown = true;
+		scheduler.shutdownNow();
+		PooledConnection pooledConnection;
+		while ((pooledConnection = idleConnections.pollFirst()) != null) {
+			destroy(pooledConnection);
+		}
+	}
+
+	/**
+	 *
+	 * @return A snapshot of the current pool size and usage counters.
+	 */
+	public Statistics getStatistics() {
+		int total = totalConnections.get();
+		int idle = idleConnections.size();
+		return new Statistics(total, idle, Math.max(0, total - idle), leases.getQueueLength(),
+				configuration.maximumSize, borrowCount.get(), timeoutCount.get(), totalWaitNanos.get(),
+				maximumWaitNanos.get(), createdCount.get(), destroyedCount.get(), leakCount.get());
+	}
+
+	private PooledConnection takeConnection(long deadline) throws SQLException {
+		while (true) {
+			PooledConnection pooledConnection = idleConnections.pollFirst();
+			if (pooledConnection != null) {
+				if (isUsable(pooledConnection)) {
+					return pooledConnection;
+				}
+				destroy(pooledConnection);
+				continue;
+			}
+
+			// No idle connection, open a new one if there is room for it
+			if (reserveSlot()) {
+				return open();
+			}
+
+			/*
+			 * Every slot is taken by idle connections being handed back or created in the
+			 * background, so wait for one of them to show up.
+			 */
+			long remaining = deadline - System.nanoTime();
+			if (remaining <= 0) {
+				timeoutCount.incrementAndGet();
+				throw new SQLTimeoutException("Timed out waiting for an idle database connection");
+			}
+			try {
+				pooledConnection = idleConnections.pollFirst(remaining, TimeUnit.NANOSECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new SQLException("Interrupted while waiting for a database connection", e);
+			}
+			if (pooledConnection != null) {
+				idleConnections.offerFirst(pooledConnection);
+			}
+		}
+	}
+
+	private boolean isUsable(PooledConnection pooledConnection) {
+		if (pooledConnection.isExpired(configuration.maximumLifetime)) {
+			return false;
+		}
+		long idleTime = System.currentTimeMillis() - pooledConnection.getLastReleasedAt();
+		try {
+			if (idleTime >= configuration.idleValidationInterval) {
+				return pooledConnection.getConnection().isValid(configuration.validationTimeout);
+			}
+			return !pooledConnection.getConnection().isClosed();
+		} catch (SQLException e) {
+			return false;
+		}
+	}
+
+	private boolean reserveSlot() {
+		while (true) {
+			int total = totalConnections.get();
+			if (total >= configuration.maximumSize) {
+				return false;
+			}
+			if (totalConnections.compareAndSet(total, total + 1)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Opens a new physical connection for a slot previously reserved through
+	 * {@link #reserveSlot()}.
+	 */
+	private PooledConnection open() throws SQLException {
+		try {
+			Connection connection = DriverManager.getConnection(configuration.connectionString);
+			createdCount.incrementAndGet();
+			return new PooledConnection(connection);
+		} catch (SQLException | RuntimeException e) {
+			totalConnections.decrementAndGet();
+			throw e;
+		}
+	}
+
+	private void destroy(PooledConnection pooledConnection) {
+		totalConnections.decrementAndGet();
+		destroyedCount.incrementAndGet();
+		pooledConnection.closeQuietly();
+	}
+
+	private void fillIdleConnections() {
+		while (!shutdown && idleConnections.size() < configuration.minimumIdle && reserveSlot()) {
+			try {
+				idleConnections.offerLast(open());
+			} catch (SQLException e) {
+				// Database may not be reachable yet, try again on the next run
+				LOGGER.log(Level.WARNING, "Could not open database connection for the pool", e);
+				return;
+			}
+		}
+	}
+
+	private void housekeep() {
+		// Retire idle connections past their lifetime, then top the pool back up
+		Iterator<PooledConnection> iterator = idleConnections.iterator();
+		while (iterator.hasNext()) {
+			PooledConnection pooledConnection = iterator.next();
+			if (pooledConnection.isExpired(configuration.maximumLifetime)
+					&& idleConnections.removeFirstOccurrence(pooledConnection)) {
+				destroy(pooledConnection);
+			}
+		}
+		fillIdleConnections();
+	}
+
+	private void recordWait(long waitNanos) {
+		totalWaitNanos.addAndGet(waitNanos);
+		long currentMaximum;
+		while (waitNanos > (currentMaximum = maximumWaitNanos.get())) {
+			if (maximumWaitNanos.compareAndSet(currentMaximum, waitNanos)) {
+				break;
+			}
+		}
+	}
+
+	private void reportLeak(PooledConnection pooledConnection) {
+		leakCount.incrementAndGet();
+		LOGGER.log(Level.WARNING,
+				String.format("Database connection leased %d ms ago has not been returned, possible leak",
+						System.currentTimeMillis() - pooledConnection.getBorrowedAt()),
+				pooledConnection.getBorrowTrace());
+	}
+
+	/**
+	 * Point in time view of the pool usage.
+	 */
+	public static class Statistics {
+		private final int totalConnections;
+		private final int idleConnections;
+		private final int activeConnections;
+		private final int pendingThreads;
+		private final int maximumSize;
+		private final long borrowCount;
+		private final long timeoutCount;
+		private final long totalWaitNanos;
+		private final long maximumWaitNanos;
+		private final long createdCount;
+		private final long destroyedCount;
+		private final long leakCount;
+
+		Statistics(int totalConnections, int idleConnections, int activeConnections, int pendingThreads,
+				int maximumSize, long borrowCount, long timeoutCount, long totalWaitNanos, long maximumWaitNanos,
+				long createdCount, long destroyedCount, long leakCount) {
+			this.totalConnections = totalConnections;
+			this.idleConnections = idleConnections;
+			this.activeConnections = activeConnections;
+			this.pendingThreads = pendingThreads;
+			this.maximumSize = maximumSize;
+			this.borrowCount = borrowCount;
+			this.timeoutCount = timeoutCount;
+			this.totalWaitNanos = totalWaitNanos;
+			this.maximumWaitNanos = maximumWaitNanos;
+			this.createdCount = createdCount;
+			this.destroyedCount = destroyedCount;
+			this.leakCount = leakCount;
+		}
+
+		public int getTotalConnections() {
+			return totalConnections;
+		}
+
+		public int getIdleConnections() {
+			return idleConnections;
+		}
+
+		public int getActiveConnections() {
+			return activeConnections;
+		}
+
+		public int getPendingThreads() {
+			return pendingThreads;
+		}
+
+		public int getMaximumSize() {
+			return maximumSize;
+		}
+
+		public long getBorrowCount() {
+			return borrowCount;
+		}
+
+		public long getTimeoutCount() {
+			return timeoutCount;
+		}
+
+		public long getTotalWaitNanos() {
+			return totalWaitNanos;
+		}
+
+		public long getMaximumWaitNanos() {
+			return maximumWaitNanos;
+		}
+
+		/**
+		 *
+		 * @return Average time spent waiting for a lease, in nanoseconds.
+		 */
+		public long getAverageWaitNanos() {
+			return borrowCount == 0 ? 0 : totalWaitNanos / borrowCount;
+		}
+
+		public long getCreatedCount() {
+			return createdCount;
+		}
+
+		public long getDestroyedCount() {
+			return destroyedCount;
+		}
+
+		public long getLeakCount() {
+			return leakCount;
+		}
+	}
+}
@@ -1,20 +1,22 @@
 package db;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 
 import util.PropertyLoader;
 
 /**
  * Helper class for connecting to the database.
- * 
+ *
+ * Each instance is a lease on a connection from a shared {@link ConnectionPool}
+ * and must be closed once done, which hands the connection back to the pool.
+ *
  * @author Francisco Frias
  * @author Abel Guzman
  * @author Amin Guzman
  *
  */
-public class DatabaseConnection {
+public class DatabaseConnection implements AutoCloseable {
 	/*
 	 * Standard format in which the connection string must be generated
 	 * protocol:subprotocol://host:port/schema?user=username&password=password
@@ -23,9 +25,84 @@ public class DatabaseConnection {
 	private static final String PROPERTIES_NAMESPACE = "/config/database.properties";
 	private static PropertyLoader connectionProperties = new PropertyLoader(PROPERTIES_NAMESPACE);
 
-	private Connection connection;
+	private static volatile ConnectionPool pool;
+
+	private final ConnectionPool owner;
+	private PooledConnection pooledConnection;
+	private final Connection connection;
 
 	public DatabaseConnection() throws SQLException {
+		owner = getPool();
+		long startTime = System.nanoTime();
+		pooledConnection = owner.borrow();
+		// Statements run on the lease are timed, see QueryLog
+		connection = QueryLog.instrument(pooledConnection.getConnection(), System.nanoTime() - startTime);
+	}
+
+	public Connection getConnection() {
+		return connection;
+	}
+
+	/**
+	 *
+	 * Returns the connection to the pool. Calling this method more than once has
+	 * no effect.
+	 *
+	 * @throws SQLException
+	 *             Never thrown, kept for compatibility with existing callers.
+	 */
+	@Override
+	public void close() throws SQLException {
+		if (pooledConnection != null) {
+			owner.release(pooledConnection);
+			pooledConnection = null;
+		}
+	}
+
+	/**
+	 *
+	 * Creates and pre-warms the connection pool, if not done already. Otherwise
+	 * the pool is created on the first lease.
+	 */
+	public static void initializePool() {
+		getPool();
+	}
+
+	/**
+	 *
+	 * @return Current size and usage counters of the connection pool.
+	 */
+	public static ConnectionPool.Statistics getPoolStatistics() {
+		return getPool().getStatistics();
+	}
+
+	/**
+	 *
+	 * Closes every pooled connection. Intended to be called when the application
+	 * is shut down.
+	 */
+	public static synchronized void shutdownPool() {
+		if (pool != null) {
+			pool.shutdown();
+			pool = null;
+		}
+	}
+
+	private static ConnectionPool getPool() {
+		ConnectionPool currentPool = pool;
+		if (currentPool == null) {
+			synchronized (DatabaseConnection.class) {
+				currentPool = pool;
+				if (currentPool == null) {
+					currentPool = createPool();
+					pool = currentPool;
+				}
+			}
+		}
+		return currentPool;
+	}
+
+	private static ConnectionPool createPool() {
 		try {
 			Class.forName(connectionProperties.getProperty("driver"));
 		} catch (ClassNotFoundException e) {
@@ -39,21 +116,45 @@ public class DatabaseConnection {
 		String schema = connectionProperties.getProperty("schema");
 		String username = connectionProperties.getProperty("username");
 		String password = connectionProperties.getProperty("password");
-		String connectionString = generateConnectionString(protocol, subProtocol, host, port, schema, username,
-				password);
+		String options = connectionProperties.getProperty("options");
 
-		connection = DriverManager.getConnection(connectionString);
+		ConnectionPool.Configuration configuration = new ConnectionPool.Configuration();
+		configuration.connectionString = generateConnectionString(protocol, subProtocol, host, port, schema,
+				username, password);
+		if (options != null && options.trim().length() > 0) {
+			// i.e. rewriteBatchedStatements, which sends a JDBC batch as one statement
+			configuration.connectionString += "&" + options.trim();
+		}
+		configuration.minimumIdle = getIntProperty("pool.minimumIdle", configuration.minimumIdle);
+		configuration.maximumSize = getIntProperty("pool.maximumSize", configuration.maximumSize);
+		configuration.connectionTimeout = getLongProperty("pool.connectionTimeout", configuration.connectionTimeout);
+		configuration.validationTimeout = getIntProperty("pool.validationTimeout", configuration.validationTimeout);
+		configuration.idleValidationInterval = getLongProperty("pool.idleValidationInterval",
+				configuration.idleValidationInterval);
+		configuration.maximumLifetime = getLongProperty("pool.maximumLifetime", configuration.maximumLifetime);
+		configuration.leakDetectionThreshold = getLongProperty("pool.leakDetectionThreshold",
+				configuration.leakDetectionThreshold);
+		return new ConnectionPool(configuration);
 	}
 
-	public Connection getConnection() {
-		return connection;
+	private static int getIntProperty(String key, int defaultValue) {
+		return (int) getLongProperty(key, defaultValue);
 	}
 
-	public void close() throws SQLException {
-		connection.close();
+	private static long getLongProperty(String key, long defaultValue) {
+		String value = connectionProperties.getProperty(key);
+		if (value == null || value.trim().length() == 0) {
+			return defaultValue;
+		}
+		try {
+			return Long.parseLong(value.trim());
+		} catch (NumberFormatException e) {
+			e.printStackTrace();
+			return defaultValue;
+		}
 	}
 
-	private String generateConnectionString(String protocol, String subProtocol, String host, String port,
+	private static String generateConnectionString(String protocol, String subProtocol, String host, String port,
 			String schema, String username, String password) {
 		return String.format(CONNECTION_STRING_FORMAT, protocol, subProtocol, host, port, schema, username, password);
 	}
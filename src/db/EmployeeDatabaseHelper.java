@@ -1,71 +1,413 @@
 package db;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Consumer;
 
 import com.mysql.jdbc.Statement;
 
 import core.Employee;
 import core.PhoneNumber;
+import db.BulkInsertResult.Outcome;
 
 public class EmployeeDatabaseHelper {
 
 	/**
 	 * 
-	 * @return A list of all the Employees in the database or an empty list, if none
-	 *         exist.
+	 * Same as {@link #getAll(Projection, Filter)}, reading every field of every
+	 * Employee.
 	 */
 	public static List<Employee> getAll() {
+		return getAll(Projection.FULL, Filter.NONE);
+	}
+
+	/**
+	 * 
+	 * Builds a projection of Employees, checking every field exists.
+	 * 
+	 * @param fields
+	 *            The fields to read, or null to read every field.
+	 * @param phoneNumbers
+	 *            Whether phone numbers are read.
+	 * @return The projection.
+	 * @throws IllegalArgumentException
+	 *             If a field is not a field of Employees.
+	 */
+	public static Projection getProjection(Collection<String> fields, boolean phoneNumbers) {
+		Projection projection = Projection.of(fields, phoneNumbers);
+		EmployeeRowMapper.of(projection);
+		return projection;
+	}
+
+	/**
+	 * 
+	 * Checks every field a filter refers to exists, before it is used.
+	 * 
+	 * @param filter
+	 *            The filter to check.
+	 * @throws IllegalArgumentException
+	 *             If the filter refers to a field Employees do not have.
+	 */
+	public static void checkFilter(Filter filter) {
+		filter.getConditions(EmployeeRowMapper::getColumn, null);
+		filter.getOrderBy(EmployeeRowMapper::getColumn, null, "EmployeePk_id");
+	}
+
+	/**
+	 * 
+	 * @param projection
+	 *            The fields of every Employee to read.
+	 * @param filter
+	 *            The conditions Employees must meet and their order.
+	 * @return A list of all the Employees in the database meeting the conditions or an
+	 *         empty list, if no such Employees exist.
+	 * @throws IllegalArgumentException
+	 *             If the projection or filter refer to a field Employees do not have.
+	 */
+	public static List<Employee> getAll(Projection projection, Filter filter) {
 
 		List<Employee> employeeList = new ArrayList<>();
 
-		try {
-			DatabaseConnection connection = new DatabaseConnection();
-
-			// First fetch Employee data
-			String employeeQuery = "SELECT * FROM VW_Employee";
-			PreparedStatement employeeStatement = connection.getConnection().prepareStatement(employeeQuery);
-			ResultSet employeeResultSet = employeeStatement.executeQuery();
-
-			while (employeeResultSet.next()) {
-				int employeePkId = employeeResultSet.getInt("EmployeePk_id");
-				String employeeEntityId = employeeResultSet.getString("uuid");
-				String firstName = employeeResultSet.getString("firstName");
-				String middleName = employeeResultSet.getString("middleName");
-				String firstSurname = employeeResultSet.getString("firstSurname");
-				String secondSurname = employeeResultSet.getString("secondSurname");
-				String cedula = employeeResultSet.getString("cedula");
-				String email = employeeResultSet.getString("email");
-				String role = employeeResultSet.getString("role");
-				Employee employee = new Employee();
-				employee.setEntityId(employeeEntityId);
-				employee.setFirstName(firstName);
-				employee.setMiddleName(middleName);
-				employee.setFirstSurname(firstSurname);
-				employee.setSecondSurname(secondSurname);
-				employee.setCedula(cedula);
-				employee.setEmail(email);
-				employee.setRole(role);
-				// Then we fetch the associated phone numbers for the current employee
-				List<PhoneNumber> phoneNumbers = EmployeePhoneNumberDatabaseHelper.getAll(employeePkId);
-				employee.setPhoneNumbers(phoneNumbers);
-
-				// Add to the list
-				employeeList.add(employee);
-			}
-			// Close unused resources
-			employeeResultSet.close();
-			employeeStatement.close();
-			connection.close();
+		try (DatabaseConnection connection = new DatabaseConnection()) {
+			EmployeeRowMapper mapper = EmployeeRowMapper.of(projection);
+			String conditions = filter.getConditions(EmployeeRowMapper::getColumn, null);
+			String employeeQuery = "SELECT " + mapper.getSelectList() + " FROM VW_Employee"
+					+ (conditions.isEmpty() ? "" : " WHERE " + conditions) + " ORDER BY "
+					+ filter.getOrderBy(EmployeeRowMapper::getColumn, null, "EmployeePk_id");
+			employeeList.addAll(
+					query(connection.getConnection(), mapper, employeeQuery, filter.getParameters().toArray()).values());
 		} catch (SQLException e) {
 			e.printStackTrace();
 		}
 		return employeeList;
 	}
 
+	/**
+	 * 
+	 * Same as {@link #streamAll(Projection, Filter, Consumer)}, reading every
+	 * field of every Employee.
+	 */
+	public static boolean streamAll(Consumer<? super Employee> consumer) {
+		return streamAll(Projection.FULL, Filter.NONE, consumer);
+	}
+
+	/**
+	 * 
+	 * Walks every Employee in the database meeting the conditions of a filter, in its
+	 * order, handing each one to the consumer as soon as its rows have been read.
+	 * Rows are streamed from the server rather than buffered, so memory use does
+	 * not depend on the number of Employees.
+	 * 
+	 * The connection stays busy until the walk ends, so the consumer should not
+	 * block on anything other than writing its output.
+	 * 
+	 * @param projection
+	 *            The fields of every Employee to read. Phone numbers are only joined
+	 *            in if included.
+	 * @param filter
+	 *            The conditions Employees must meet and their order.
+	 * @param consumer
+	 *            Receives every Employee. Unchecked exceptions thrown by the consumer
+	 *            stop the walk and are propagated to the caller.
+	 * @return true if every Employee was visited, false if the walk was interrupted
+	 *         by a database error.
+	 * @throws IllegalArgumentException
+	 *             If the projection or filter refer to a field Employees do not have.
+	 */
+	public static boolean streamAll(Projection projection, Filter filter, Consumer<? super Employee> consumer) {
+		boolean opResult = false;
+		EmployeeRowMapper mapper = EmployeeRowMapper.of(projection);
+
+		try (DatabaseConnection connection = new DatabaseConnection()) {
+			/*
+			 * Phone numbers are joined in and grouped by Employee as rows arrive, since no
+			 * other query can run on the connection while a result set is streamed.
+			 */
+			String employeeQuery;
+			String conditions;
+			String orderBy;
+			if (projection.includesPhoneNumbers()) {
+				conditions = filter.getConditions(EmployeeRowMapper::getColumn, "VW_Employee");
+				orderBy = filter.getOrderBy(EmployeeRowMapper::getColumn, "VW_Employee", "EmployeePk_id");
+				employeeQuery = "SELECT " + mapper.getSelectList("VW_Employee")
+						+ ", VW_PhoneNumber.uuid AS phoneNumberUuid, VW_PhoneNumber.phoneNumber, VW_PhoneNumber.phoneType FROM VW_Employee LEFT JOIN EmployeeHasPhoneNumber ON VW_Employee.EmployeePk_id=EmployeeHasPhoneNumber.EmployeePk_id LEFT JOIN VW_PhoneNumber ON EmployeeHasPhoneNumber.PhoneNumberPk_id=VW_PhoneNumber.PhoneNumberPk_id";
+			} else {
+				conditions = filter.getConditions(EmployeeRowMapper::getColumn, null);
+				orderBy = filter.getOrderBy(EmployeeRowMapper::getColumn, null, "EmployeePk_id");
+				employeeQuery = "SELECT " + mapper.getSelectList() + " FROM VW_Employee";
+			}
+			// Ties are broken by primary key, so the rows of every Employee stay together
+			employeeQuery += (conditions.isEmpty() ? "" : " WHERE " + conditions) + " ORDER BY " + orderBy;
+			try (PreparedStatement employeeStatement = connection.getConnection().prepareStatement(employeeQuery,
+					ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+				employeeStatement.setFetchSize(QueryUtils.STREAMING_FETCH_SIZE);
+				List<Object> parameters = filter.getParameters();
+				for (int i = 0; i < parameters.size(); i++) {
+					employeeStatement.setObject(i + 1, parameters.get(i));
+				}
+				try (ResultSet employeeResultSet = employeeStatement.executeQuery()) {
+					// Resolve every column once, rather than by name on every row
+					RowMapper<Employee>.Row row = mapper.bind(employeeResultSet);
+					int phoneNumberUuidColumn = -1;
+					int phoneNumberColumn = -1;
+					int phoneTypeColumn = -1;
+					if (projection.includesPhoneNumbers()) {
+						phoneNumberUuidColumn = employeeResultSet.findColumn("phoneNumberUuid");
+						phoneNumberColumn = employeeResultSet.findColumn("phoneNumber");
+						phoneTypeColumn = employeeResultSet.findColumn("phoneType");
+					}
+
+					Employee current = null;
+					int currentPkId = -1;
+					while (employeeResultSet.next()) {
+						int employeePkId = EmployeeRowMapper.getPkId(row);
+						if (current == null || employeePkId != currentPkId) {
+							// First row of the next Employee, the previous one is complete
+							if (current != null) {
+								consumer.accept(current);
+							}
+							current = row.map();
+							if (projection.includesPhoneNumbers()) {
+								current.setPhoneNumbers(new ArrayList<PhoneNumber>());
+							}
+							currentPkId = employeePkId;
+						}
+
+						String phoneNumberEntityId = null;
+						if (projection.includesPhoneNumbers()) {
+							phoneNumberEntityId = employeeResultSet.getString(phoneNumberUuidColumn);
+						}
+						if (phoneNumberEntityId != null) {
+							PhoneNumber phoneNumber = new PhoneNumber();
+							phoneNumber.setEntityId(phoneNumberEntityId);
+							phoneNumber.setPhoneNumber(employeeResultSet.getString(phoneNumberColumn));
+							phoneNumber.setType(employeeResultSet.getString(phoneTypeColumn));
+							current.getPhoneNumbers().add(phoneNumber);
+						}
+					}
+					if (current != null) {
+						consumer.accept(current);
+					}
+					opResult = true;
+				}
+			}
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+		return opResult;
+	}
+
+	/**
+	 * 
+	 * Same as {@link #getPage(int, int, Projection, Filter)}, reading every field
+	 * of every Employee.
+	 */
+	public static Page<Employee> getPage(int after, int limit) {
+		return getPage(after, limit, Projection.FULL, Filter.NONE);
+	}
+
+	/**
+	 * 
+	 * Fetches a page of Employees ordered by primary key, starting right after the
+	 * cursor passed. Pages are located through the primary key index (keyset
+	 * pagination) rather than with OFFSET, so every page costs the same no matter
+	 * how deep into the table it is.
+	 * 
+	 * @param after
+	 *            Cursor returned with the previous page, or 0 to start from the
+	 *            beginning.
+	 * @param limit
+	 *            Maximum number of Employees in the page.
+	 * @param projection
+	 *            The fields of every Employee to read.
+	 * @param filter
+	 *            The conditions Employees must meet. Pages are always in primary key
+	 *            order, so it cannot be sorted.
+	 * @return The requested page, with a cursor to the next one if more Employees
+	 *         remain.
+	 * @throws IllegalArgumentException
+	 *             If the projection or filter refer to a field Employees do not have,
+	 *             or the filter is sorted.
+	 */
+	public static Page<Employee> getPage(int after, int limit, Projection projection, Filter filter) {
+		if (filter.isSorted()) {
+			throw new IllegalArgumentException("Pages cannot be sorted");
+		}
+
+		Page<Employee> page = new Page<>(new ArrayList<Employee>(), null);
+
+		try (DatabaseConnection connection = new DatabaseConnection()) {
+			// Fetch one extra row to find out whether there is a next page
+			EmployeeRowMapper mapper = EmployeeRowMapper.of(projection);
+			String conditions = filter.getConditions(EmployeeRowMapper::getColumn, null);
+			String employeeQuery = "SELECT " + mapper.getSelectList() + " FROM VW_Employee WHERE EmployeePk_id>?"
+					+ (conditions.isEmpty() ? "" : " AND " + conditions) + " ORDER BY EmployeePk_id LIMIT ?";
+			List<Object> parameters = new ArrayList<>();
+			parameters.add(after);
+			parameters.addAll(filter.getParameters());
+			parameters.add(limit + 1);
+			Map<Integer, Employee> employees = query(connection.getConnection(), mapper, employeeQuery,
+					parameters.toArray());
+
+			List<Employee> employeeList = new ArrayList<>(limit);
+			Integer nextCursor = null;
+			int lastPkId = after;
+			for (Map.Entry<Integer, Employee> entry : employees.entrySet()) {
+				if (employeeList.size() == limit) {
+					// The extra row exists, the next page starts after the last one kept
+					nextCursor = lastPkId;
+					break;
+				}
+				employeeList.add(entry.getValue());
+				lastPkId = entry.getKey();
+			}
+			page = new Page<>(employeeList, nextCursor);
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+		return page;
+	}
+
+	/**
+	 * 
+	 * Fetches the Employees created, updated or deleted after a watermark, in the
+	 * order they changed. Rows are located through the MD_changeSeq index, so the
+	 * cost depends on the number of changes rather than the number of Employees.
+	 * 
+	 * @param since
+	 *            Token returned with the previous set of changes, or null to start
+	 *            from the beginning.
+	 * @param limit
+	 *            Maximum number of changes returned.
+	 * @return The changes found, with the token to pass on the next call. No
+	 *         changes are returned if the query fails.
+	 * @throws IllegalArgumentException
+	 *             If the token is malformed.
+	 */
+	public static ChangeSet<Employee> getChanges(String since, int limit) {
+		long[] watermark = ChangeSet.fromToken(since);
+		ChangeSet<Employee> changes = new ChangeSet<>(new ArrayList<Employee>(), new ArrayList<String>(),
+				ChangeSet.toToken(watermark[0], (int) watermark[1]), false);
+
+		try (DatabaseConnection connection = new DatabaseConnection()) {
+			// Soft deleted rows are not in the view, so the table is read first
+			String changeQuery = "SELECT pk_id, uuid, MD_changeSeq, MD_isDeleted FROM Employee "
+					+ "WHERE MD_changeSeq>? OR (MD_changeSeq=? AND pk_id>?) ORDER BY MD_changeSeq, pk_id LIMIT ?";
+			List<Integer> updatedPkIds = new ArrayList<>();
+			List<String> deleted = new ArrayList<>();
+			long lastChangeSeq = watermark[0];
+			int lastPkId = (int) watermark[1];
+			boolean more = false;
+			try (PreparedStatement changeStatement = connection.getConnection().prepareStatement(changeQuery)) {
+				changeStatement.setLong(1, watermark[0]);
+				changeStatement.setLong(2, watermark[0]);
+				changeStatement.setLong(3, watermark[1]);
+				// Fetch one extra row to find out whether there are more changes
+				changeStatement.setInt(4, limit + 1);
+				try (ResultSet changeResultSet = changeStatement.executeQuery()) {
+					int count = 0;
+					while (changeResultSet.next()) {
+						if (count++ == limit) {
+							more = true;
+							break;
+						}
+						lastChangeSeq = changeResultSet.getLong("MD_changeSeq");
+						lastPkId = changeResultSet.getInt("pk_id");
+						if (changeResultSet.getBoolean("MD_isDeleted")) {
+							deleted.add(changeResultSet.getString("uuid"));
+						} else {
+							updatedPkIds.add(lastPkId);
+						}
+					}
+				}
+			}
+
+			// Then fetch the current state of the rows still alive
+			Map<Integer, Employee> employees = new HashMap<>();
+			for (List<Integer> chunk : QueryUtils.partition(updatedPkIds, QueryUtils.IN_CLAUSE_CHUNK_SIZE)) {
+				String employeeQuery = "SELECT " + EmployeeRowMapper.FULL.getSelectList()
+						+ " FROM VW_Employee WHERE EmployeePk_id IN (" + QueryUtils.placeholders(chunk.size()) + ")";
+				employees.putAll(
+						query(connection.getConnection(), EmployeeRowMapper.FULL, employeeQuery, chunk.toArray()));
+			}
+			List<Employee> updated = new ArrayList<>(updatedPkIds.size());
+			for (Integer pkId : updatedPkIds) {
+				if (employees.containsKey(pkId)) {
+					updated.add(employees.get(pkId));
+				}
+			}
+
+			changes = new ChangeSet<>(updated, deleted, ChangeSet.toToken(lastChangeSeq, lastPkId), more);
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+		return changes;
+	}
+
+	/**
+	 * 
+	 * Runs a query over VW_Employee and maps every row, fetching the phone numbers of
+	 * all rows in a handful of batched queries.
+	 * 
+	 * @param connection
+	 *            The connection on which to run the queries.
+	 * @param mapper
+	 *            Reads the rows. Phone numbers are only fetched if its projection
+	 *            includes them.
+	 * @param employeeQuery
+	 *            The query to run, which must select the columns of the mapper.
+	 * @param parameters
+	 *            Values bound to the query placeholders, in order.
+	 * @return The Employees found keyed by primary key, in query order.
+	 * @throws SQLException
+	 *             If any of the queries fail.
+	 */
+	static Map<Integer, Employee> query(Connection connection, EmployeeRowMapper mapper, String employeeQuery,
+			Object... parameters) throws SQLException {
+		// Keep the rows in query order, keyed by primary key
+		Map<Integer, Employee> employees = new LinkedHashMap<>();
+
+		// First fetch Employee data
+		try (PreparedStatement employeeStatement = connection.prepareStatement(employeeQuery)) {
+			for (int i = 0; i < parameters.length; i++) {
+				employeeStatement.setObject(i + 1, parameters[i]);
+			}
+			try (ResultSet employeeResultSet = employeeStatement.executeQuery()) {
+				RowMapper<Employee>.Row row = mapper.bind(employeeResultSet);
+				while (employeeResultSet.next()) {
+					int employeePkId = EmployeeRowMapper.getPkId(row);
+					Employee employee = row.map();
+
+					// Add to the list, phone numbers are fetched below for all rows at once
+					employees.put(employeePkId, employee);
+				}
+			}
+		}
+
+		// Then we fetch the phone numbers of every employee in a handful of queries
+		if (mapper.getProjection().includesPhoneNumbers()) {
+			Map<Integer, List<PhoneNumber>> phoneNumbers = EmployeePhoneNumberDatabaseHelper
+					.getAll(connection, employees.keySet());
+			for (Map.Entry<Integer, Employee> entry : employees.entrySet()) {
+				entry.getValue().setPhoneNumbers(phoneNumbers.get(entry.getKey()));
+			}
+		}
+		return employees;
+	}
+
 	/**
 	 * 
 	 * @param identifier
@@ -76,57 +418,103 @@ public class EmployeeDatabaseHelper {
 	 *            want to fetch.
 	 * @return An Employee object representing the Employee found under the
 	 *         specified identifier, or null if none found.
+	 * @throws IllegalArgumentException
+	 *             If identifier is not one of the identifier columns supported.
 	 */
 	public static Employee getByUniqueIdentifier(String identifier, String value) {
 
 		Employee employee = null;
 
-		try {
-			DatabaseConnection connection = new DatabaseConnection();
+		try (DatabaseConnection connection = new DatabaseConnection()) {
+			employee = getByUniqueIdentifier(connection.getConnection(), identifier, value);
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+		return employee;
+	}
 
-			// First we fetch Employee data
-			String employeeQuery = String.format("SELECT * FROM VW_Employee WHERE %s=?", identifier);
-			PreparedStatement employeeStatement = connection.getConnection().prepareStatement(employeeQuery);
+	/**
+	 * 
+	 * Same as {@link #getByUniqueIdentifier(String, String)}, using an already
+	 * open connection.
+	 * 
+	 * @param connection
+	 *            The connection on which to run the queries.
+	 * @throws SQLException
+	 *             If any of the queries fail.
+	 */
+	static Employee getByUniqueIdentifier(Connection connection, String identifier, String value)
+			throws SQLException {
+		Employee employee = null;
+
+		// First we fetch Employee data
+		String employeeQuery = StatementRegistry.get(StatementRegistry.EMPLOYEE_BY_IDENTIFIER, identifier);
+		try (PreparedStatement employeeStatement = connection.prepareStatement(employeeQuery)) {
 			employeeStatement.setString(1, value);
-			ResultSet employeeResultSet = employeeStatement.executeQuery();
+			try (ResultSet employeeResultSet = employeeStatement.executeQuery()) {
+				/*
+				 * Since we're querying via an unique identifier, it's safe to assume the result
+				 * set contains either zero or one results.
+				 */
+				RowMapper<Employee>.Row row = EmployeeRowMapper.FULL.bind(employeeResultSet);
+				if (employeeResultSet.next()) {
+					int employeePkId = EmployeeRowMapper.getPkId(row);
+					employee = row.map();
 
-			/*
-			 * Since we're querying via an unique identifier, it's safe to assume the result
-			 * set contains either zero or one results.
-			 */
-			if (employeeResultSet.next()) {
-				employee = new Employee();
-				int employeePkId = employeeResultSet.getInt("EmployeePk_id");
-				String employeeEntityId = employeeResultSet.getString("uuid");
-				String firstName = employeeResultSet.getString("firstName");
-				String middleName = employeeResultSet.getString("middleName");
-				String firstSurname = employeeResultSet.getString("firstSurname");
-				String secondSurname = employeeResultSet.getString("secondSurname");
-				String cedula = employeeResultSet.getString("cedula");
-				String email = employeeResultSet.getString("email");
-				String role = employeeResultSet.getString("role");
-				employee.setEntityId(employeeEntityId);
-				employee.setFirstName(firstName);
-				employee.setMiddleName(middleName);
-				employee.setFirstSurname(firstSurname);
-				employee.setSecondSurname(secondSurname);
-				employee.setCedula(cedula);
-				employee.setEmail(email);
-				employee.setRole(role);
-
-				// Then we fetch the associated phone numbers
-				List<PhoneNumber> phoneNumbers = EmployeePhoneNumberDatabaseHelper.getAll(employeePkId);
-				employee.setPhoneNumbers(phoneNumbers);
-			}
-
-			// Close unused resources
-			employeeResultSet.close();
-			employeeStatement.close();
-			connection.close();
+					// Then we fetch the associated phone numbers
+					List<PhoneNumber> phoneNumbers = EmployeePhoneNumberDatabaseHelper.getAll(connection, employeePkId);
+					employee.setPhoneNumbers(phoneNumbers);
+				}
+			}
+		}
+
+		return employee;
+	}
+
+	/**
+	 * 
+	 * Fetches several Employees by one of their unique identifiers at once, issuing one
+	 * query per {@link QueryUtils#IN_CLAUSE_CHUNK_SIZE} values plus the batched
+	 * phone number queries, instead of a handful of queries per Employee.
+	 * 
+	 * @param identifier
+	 *            The name of the identifier column to look in: uuid or cedula.
+	 * @param values
+	 *            The values to look for.
+	 * @return The Employees found, keyed by the value of the identifier. Keys compare
+	 *         ignoring case, as the identifier columns do. Values not found are
+	 *         absent from the map, and nothing is found if the queries fail.
+	 * @throws IllegalArgumentException
+	 *             If identifier is not one of the identifier columns supported.
+	 */
+	public static Map<String, Employee> getAllByUniqueIdentifier(String identifier, Collection<String> values) {
+		String employeeQuery = StatementRegistry.get(StatementRegistry.EMPLOYEE_ALL_BY_IDENTIFIER, identifier);
+		Map<String, Employee> employees = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+		try (DatabaseConnection connection = new DatabaseConnection()) {
+			for (List<String> chunk : QueryUtils.partition(values, QueryUtils.IN_CLAUSE_CHUNK_SIZE)) {
+				String chunkQuery = String.format(employeeQuery, QueryUtils.placeholders(chunk.size()));
+				Map<Integer, Employee> found = query(connection.getConnection(), EmployeeRowMapper.FULL, chunkQuery,
+						chunk.toArray());
+				for (Employee employee : found.values()) {
+					employees.put(getUniqueIdentifier(employee, identifier), employee);
+				}
+			}
 		} catch (SQLException e) {
 			e.printStackTrace();
+			employees.clear();
 		}
-		return employee;
+
+		return employees;
+	}
+
+	private static String getUniqueIdentifier(Employee employee, String identifier) {
+		if ("uuid".equals(identifier)) {
+			return employee.getEntityId();
+		} else if ("cedula".equals(identifier)) {
+			return employee.getCedula();
+		}
+		return null;
 	}
 
 	/**
@@ -138,73 +526,433 @@ public class EmployeeDatabaseHelper {
 	 *            The Employee to be inserted into the database.
 	 * @return A Employee object representing the newly created entity, including its
 	 *         associated entity ID, or null if the entity could not be created.
+	 * @throws ConflictException
+	 *             If a unique identifier of the Employee is already in use.
 	 */
 	public static Employee create(Employee newEmployee) {
 		Employee createdEmployee = null;
 
-		try {
-			DatabaseConnection connection = new DatabaseConnection();
+		// First fetch key of the role to apply
+		int rolePkId = EmployeeRoleDatabaseHelper.getPkId(newEmployee.getRole());
+		if (rolePkId < 0) {
+			// If no role found, Employee object must be malformed
+			return createdEmployee;
+		}
+
+		// Every statement below runs on the same connection and is committed at once
+		try (UnitOfWork unitOfWork = new UnitOfWork()) {
+			Connection connection = unitOfWork.getConnection();
 
 			// Check if unique identifiers are in use
-			if (getByUniqueIdentifier("cedula", newEmployee.getCedula()) != null) {
-				return createdEmployee;
-			} else if (getByUniqueIdentifier("uuid", newEmployee.getEntityId()) != null) {
-				return createdEmployee;
-			}
-
-			// First fetch key of the role to apply
-			int rolePkId = EmployeeRoleDatabaseHelper.getPkId(newEmployee.getRole());
-			if (rolePkId < 0) {
-				// If no role found, Employee object must be malformed
-				return createdEmployee;
+			String conflict = findConflict(connection, newEmployee);
+			if (conflict != null) {
+				throw new ConflictException("Employee", conflict);
 			}
 
-			// First insert Employee data
+			// Then insert Employee data
 			String employeeQuery = "INSERT INTO Employee "
 					+ "(firstName, middleName, firstSurname, secondSurname, cedula, email, RolePk_id) "
 					+ "VALUES (?, ?, ?, ?, ?, ?, ?)";
-			PreparedStatement employeeStatement = connection.getConnection().prepareStatement(employeeQuery,
-					Statement.RETURN_GENERATED_KEYS);
-			employeeStatement.setString(1, newEmployee.getFirstName());
-			employeeStatement.setString(2, newEmployee.getMiddleName());
-			employeeStatement.setString(3, newEmployee.getFirstSurname());
-			employeeStatement.setString(4, newEmployee.getSecondSurname());
-			employeeStatement.setString(5, newEmployee.getCedula());
-			employeeStatement.setString(6, newEmployee.getEmail());
-			employeeStatement.setInt(7, rolePkId);
-			employeeStatement.executeUpdate();
-			ResultSet employeeResultSet = employeeStatement.getGeneratedKeys();
-
-			// Check for generated keys, if any
-			int employeePkId;
-			if (employeeResultSet.next()) {
-				employeePkId = employeeResultSet.getInt(1);
-			} else {
+			int employeePkId = -1;
+			try (PreparedStatement employeeStatement = connection.prepareStatement(employeeQuery,
+					Statement.RETURN_GENERATED_KEYS)) {
+				employeeStatement.setString(1, newEmployee.getFirstName());
+				employeeStatement.setString(2, newEmployee.getMiddleName());
+				employeeStatement.setString(3, newEmployee.getFirstSurname());
+				employeeStatement.setString(4, newEmployee.getSecondSurname());
+				employeeStatement.setString(5, newEmployee.getCedula());
+				employeeStatement.setString(6, newEmployee.getEmail());
+				employeeStatement.setInt(7, rolePkId);
+				employeeStatement.executeUpdate();
+				try (ResultSet employeeResultSet = employeeStatement.getGeneratedKeys()) {
+					// Check for generated keys, if any
+					if (employeeResultSet.next()) {
+						employeePkId = employeeResultSet.getInt(1);
+					}
+				}
+			}
+			if (employeePkId < 0) {
 				// An unknown error occurred while inserting the employee
 				return createdEmployee;
 			}
 
-			// Close unused resources
-			employeeResultSet.close();
-			employeeStatement.close();
-			connection.close();
-
 			// If employee data was inserted correctly, associate telephone numbers, if any
-			if (newEmployee.getPhoneNumbers() != null) {
-				for (PhoneNumber p : newEmployee.getPhoneNumbers()) {
-					int phoneNumberPkId = PhoneNumberDatabaseHelper.resolve(p);
-					EmployeePhoneNumberDatabaseHelper.link(phoneNumberPkId, employeePkId);
+			List<Integer> phoneNumberPkIds = new ArrayList<>();
+			if (newEmployee.getPhoneNumbers() != null && !newEmployee.getPhoneNumbers().isEmpty()) {
+				phoneNumberPkIds = PhoneNumberDatabaseHelper.resolveAll(connection,
+						newEmployee.getPhoneNumbers());
+				if (phoneNumberPkIds.contains(-1)) {
+					// Malformed phone number, the whole Employee is rolled back
+					return createdEmployee;
 				}
+				EmployeePhoneNumberDatabaseHelper.linkAll(connection, phoneNumberPkIds, employeePkId);
 			}
 
+			// Only the identifiers generated by the database are read back
+			Employee employee = toCreated(connection, newEmployee, employeePkId, phoneNumberPkIds);
+
+			// Stamp the new row last, the change sequence is held until commit
+			ChangeSequence.stamp(connection, ChangeSequence.EMPLOYEE, "pk_id",
+					Collections.singletonList(employeePkId));
+			unitOfWork.commit();
+
 			// Operation completed if reached this line
-			createdEmployee = getByUniqueIdentifier("EmployeePk_id", String.valueOf(employeePkId));
+			createdEmployee = employee;
 		} catch (SQLException e) {
 			e.printStackTrace();
 		}
+
+		return createdEmployee;
+	}
+
+	/**
+	 * 
+	 * Builds the Employee just inserted from the values it was inserted with, reading
+	 * only the uuids generated by the database for it and its phone numbers. A
+	 * single query on the connection of the insert is run, instead of reading the
+	 * whole Employee back.
+	 * 
+	 * @param connection
+	 *            The connection the Employee was inserted on.
+	 * @param newEmployee
+	 *            The Employee as inserted.
+	 * @param employeePkId
+	 *            The primary key generated for the Employee.
+	 * @param phoneNumberPkIds
+	 *            The primary key of every phone number of the Employee, in the same
+	 *            order.
+	 * @return The Employee inserted, or null if it cannot be found.
+	 * @throws SQLException
+	 *             If the query fails.
+	 */
+	private static Employee toCreated(Connection connection, Employee newEmployee, int employeePkId,
+			List<Integer> phoneNumberPkIds) throws SQLException {
+		Employee createdEmployee = null;
+
+		String createdQuery = "SELECT Employee.uuid, VW_PhoneNumber.PhoneNumberPk_id, VW_PhoneNumber.uuid FROM Employee "
+				+ "LEFT JOIN EmployeeHasPhoneNumber ON Employee.pk_id=EmployeeHasPhoneNumber.EmployeePk_id "
+				+ "LEFT JOIN VW_PhoneNumber ON EmployeeHasPhoneNumber.PhoneNumberPk_id=VW_PhoneNumber.PhoneNumberPk_id "
+				+ "WHERE Employee.pk_id=?";
+		// One row per phone number, or a single one without phone numbers
+		String employeeEntityId = null;
+		Map<Integer, String> phoneNumberEntityIds = new HashMap<>();
+		try (PreparedStatement createdStatement = connection.prepareStatement(createdQuery)) {
+			createdStatement.setInt(1, employeePkId);
+			try (ResultSet createdResultSet = createdStatement.executeQuery()) {
+				while (createdResultSet.next()) {
+					employeeEntityId = createdResultSet.getString(1);
+					int phoneNumberPkId = createdResultSet.getInt(2);
+					if (!createdResultSet.wasNull()) {
+						phoneNumberEntityIds.put(phoneNumberPkId, createdResultSet.getString(3));
+					}
+				}
+			}
+		}
+
+		if (employeeEntityId != null) {
+			createdEmployee = new Employee();
+			createdEmployee.setEntityId(employeeEntityId);
+			createdEmployee.setFirstName(newEmployee.getFirstName());
+			createdEmployee.setMiddleName(newEmployee.getMiddleName());
+			createdEmployee.setFirstSurname(newEmployee.getFirstSurname());
+			createdEmployee.setSecondSurname(newEmployee.getSecondSurname());
+			createdEmployee.setCedula(newEmployee.getCedula());
+			createdEmployee.setEmail(newEmployee.getEmail());
+			createdEmployee.setRole(newEmployee.getRole().name());
+
+			List<PhoneNumber> phoneNumbers = new ArrayList<>();
+			for (int i = 0; i < phoneNumberPkIds.size(); i++) {
+				PhoneNumber newPhoneNumber = newEmployee.getPhoneNumbers().get(i);
+				PhoneNumber phoneNumber = new PhoneNumber();
+				phoneNumber.setEntityId(phoneNumberEntityIds.get(phoneNumberPkIds.get(i)));
+				phoneNumber.setPhoneNumber(newPhoneNumber.getPhoneNumber());
+				phoneNumber.setType(newPhoneNumber.getType().name());
+				phoneNumbers.add(phoneNumber);
+			}
+			createdEmployee.setPhoneNumbers(phoneNumbers);
+		}
+
 		return createdEmployee;
 	}
 
+	/**
+	 * 
+	 * Inserts many Employees at once. Rows are validated in memory, checked for
+	 * unique identifiers already in use with a handful of set-based queries, and
+	 * inserted along with their phone numbers in JDBC batches.
+	 * 
+	 * Every chunk of rows is committed as a single transaction, so a database error
+	 * only fails the rows of the chunk in which it happened.
+	 * 
+	 * @param newEmployees
+	 *            The Employees to insert.
+	 * @param chunkSize
+	 *            Maximum number of rows inserted per transaction.
+	 * @return The outcome of every Employee passed, in the same order.
+	 */
+	public static List<BulkInsertResult> createAll(List<Employee> newEmployees, int chunkSize) {
+		BulkInsertResult[] results = new BulkInsertResult[newEmployees.size()];
+
+		// Validate rows and drop those repeating an identifier of a previous row, compared as the columns do
+		Set<String> cedulas = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+		Set<String> entityIds = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+		List<Integer> pending = new ArrayList<>();
+		for (int i = 0; i < newEmployees.size(); i++) {
+			Employee employee = newEmployees.get(i);
+			String error = validate(employee);
+			if (error != null) {
+				results[i] = new BulkInsertResult(i, Outcome.INVALID, null, error);
+			} else if (cedulas.contains(employee.getCedula())
+					|| (employee.getEntityId() != null && entityIds.contains(employee.getEntityId()))) {
+				results[i] = new BulkInsertResult(i, Outcome.DUPLICATE, null, "Repeated in the request");
+			} else {
+				cedulas.add(employee.getCedula());
+				if (employee.getEntityId() != null) {
+					entityIds.add(employee.getEntityId());
+				}
+				pending.add(i);
+			}
+		}
+
+		for (List<Integer> chunk : QueryUtils.partition(pending, chunkSize)) {
+			try (UnitOfWork unitOfWork = new UnitOfWork()) {
+				insertAll(unitOfWork.getConnection(), newEmployees, chunk, results);
+				unitOfWork.commit();
+			} catch (SQLException e) {
+				e.printStackTrace();
+				// The whole chunk was rolled back
+				for (int i : chunk) {
+					results[i] = new BulkInsertResult(i, Outcome.FAILED, null, e.getMessage());
+				}
+			}
+		}
+
+		return Arrays.asList(results);
+	}
+
+	/**
+	 * 
+	 * Inserts a chunk of validated Employees on the connection passed, recording the
+	 * outcome of every row.
+	 * 
+	 * @param connection
+	 *            The connection on which to run the queries.
+	 * @param newEmployees
+	 *            All the Employees of the bulk insert.
+	 * @param chunk
+	 *            Indexes in newEmployees of the rows to insert.
+	 * @param results
+	 *            Receives the outcome of every row in the chunk, by index.
+	 * @throws SQLException
+	 *             If any of the queries fail.
+	 */
+	private static void insertAll(Connection connection, List<Employee> newEmployees, List<Integer> chunk,
+			BulkInsertResult[] results) throws SQLException {
+		// Check which unique identifiers are in use, one query per identifier
+		Set<String> cedulas = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+		Set<String> entityIds = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+		for (int i : chunk) {
+			Employee employee = newEmployees.get(i);
+			cedulas.add(employee.getCedula());
+			if (employee.getEntityId() != null) {
+				entityIds.add(employee.getEntityId());
+			}
+		}
+		Set<String> usedCedulas = findExisting(connection, "cedula", cedulas);
+		Set<String> usedEntityIds = findExisting(connection, "uuid", entityIds);
+
+		List<Integer> inserts = new ArrayList<>(chunk.size());
+		for (int i : chunk) {
+			Employee employee = newEmployees.get(i);
+			if (usedCedulas.contains(employee.getCedula())) {
+				results[i] = new BulkInsertResult(i, Outcome.DUPLICATE, null, "cedula already in use");
+			} else if (employee.getEntityId() != null && usedEntityIds.contains(employee.getEntityId())) {
+				results[i] = new BulkInsertResult(i, Outcome.DUPLICATE, null, "uuid already in use");
+			} else {
+				inserts.add(i);
+			}
+		}
+
+		// Insert Employee data, generated keys come back in batch order
+		Map<Integer, Integer> employeePkIds = new LinkedHashMap<>();
+		for (List<Integer> batch : QueryUtils.partition(inserts, QueryUtils.BATCH_SIZE)) {
+			String employeeQuery = "INSERT INTO Employee "
+					+ "(firstName, middleName, firstSurname, secondSurname, cedula, email, RolePk_id) "
+					+ "VALUES (?, ?, ?, ?, ?, ?, ?)";
+			try (PreparedStatement employeeStatement = connection.prepareStatement(employeeQuery,
+					Statement.RETURN_GENERATED_KEYS)) {
+				for (int i : batch) {
+					Employee newEmployee = newEmployees.get(i);
+					employeeStatement.setString(1, newEmployee.getFirstName());
+					employeeStatement.setString(2, newEmployee.getMiddleName());
+					employeeStatement.setString(3, newEmployee.getFirstSurname());
+					employeeStatement.setString(4, newEmployee.getSecondSurname());
+					employeeStatement.setString(5, newEmployee.getCedula());
+					employeeStatement.setString(6, newEmployee.getEmail());
+					employeeStatement.setInt(7, EmployeeRoleDatabaseHelper.getPkId(newEmployee.getRole()));
+					employeeStatement.addBatch();
+				}
+				employeeStatement.executeBatch();
+				try (ResultSet employeeResultSet = employeeStatement.getGeneratedKeys()) {
+					for (int i : batch) {
+						if (!employeeResultSet.next()) {
+							throw new SQLException("Missing generated key for Employee at index " + i);
+						}
+						employeePkIds.put(i, employeeResultSet.getInt(1));
+					}
+				}
+			}
+		}
+
+		// Associate telephone numbers of every inserted Employee at once
+		List<PhoneNumber> phoneNumbers = new ArrayList<>();
+		for (int i : employeePkIds.keySet()) {
+			if (newEmployees.get(i).getPhoneNumbers() != null) {
+				phoneNumbers.addAll(newEmployees.get(i).getPhoneNumbers());
+			}
+		}
+		if (!phoneNumbers.isEmpty()) {
+			List<Integer> phoneNumberPkIds = PhoneNumberDatabaseHelper.resolveAll(connection, phoneNumbers);
+			Map<Integer, List<Integer>> links = new LinkedHashMap<>();
+			int next = 0;
+			for (Map.Entry<Integer, Integer> entry : employeePkIds.entrySet()) {
+				List<PhoneNumber> employeePhoneNumbers = newEmployees.get(entry.getKey()).getPhoneNumbers();
+				int count = employeePhoneNumbers == null ? 0 : employeePhoneNumbers.size();
+				links.put(entry.getValue(), phoneNumberPkIds.subList(next, next + count));
+				next += count;
+			}
+			EmployeePhoneNumberDatabaseHelper.linkAll(connection, links);
+		}
+
+		// Finally fetch the entity IDs generated by the database
+		Map<Integer, String> entityIdsByPkId = new HashMap<>();
+		for (List<Integer> batch : QueryUtils.partition(employeePkIds.values(), QueryUtils.IN_CLAUSE_CHUNK_SIZE)) {
+			String idQuery = "SELECT EmployeePk_id, uuid FROM VW_Employee WHERE EmployeePk_id IN ("
+					+ QueryUtils.placeholders(batch.size()) + ")";
+			try (PreparedStatement idStatement = connection.prepareStatement(idQuery)) {
+				for (int i = 0; i < batch.size(); i++) {
+					idStatement.setInt(i + 1, batch.get(i));
+				}
+				try (ResultSet idResultSet = idStatement.executeQuery()) {
+					while (idResultSet.next()) {
+						entityIdsByPkId.put(idResultSet.getInt("EmployeePk_id"), idResultSet.getString("uuid"));
+					}
+				}
+			}
+		}
+		for (Map.Entry<Integer, Integer> entry : employeePkIds.entrySet()) {
+			results[entry.getKey()] = new BulkInsertResult(entry.getKey(), Outcome.CREATED,
+					entityIdsByPkId.get(entry.getValue()), null);
+		}
+
+		// The whole chunk shares one change sequence number, taken last as it is held until commit
+		ChangeSequence.stamp(connection, ChangeSequence.EMPLOYEE, "pk_id", employeePkIds.values());
+	}
+
+	/**
+	 * 
+	 * Looks for a Employee already holding any of the unique identifiers of the one
+	 * passed, deleted or not, with a single query served by the unique indexes.
+	 * 
+	 * @param connection
+	 *            The connection on which to run the query.
+	 * @param employee
+	 *            The Employee to check.
+	 * @return The name of an identifier already in use (cedula or uuid), or null if
+	 *         none is.
+	 * @throws SQLException
+	 *             If the query fails.
+	 */
+	private static String findConflict(Connection connection, Employee employee) throws SQLException {
+		String conflict = null;
+
+		// Deleted rows still hold their identifiers under the unique constraints
+		String conflictQuery = "SELECT cedula, uuid FROM Employee WHERE cedula=? OR uuid=? LIMIT 1";
+		try (PreparedStatement conflictStatement = connection.prepareStatement(conflictQuery)) {
+			conflictStatement.setString(1, employee.getCedula());
+			conflictStatement.setString(2, employee.getEntityId());
+			try (ResultSet conflictResultSet = conflictStatement.executeQuery()) {
+				if (conflictResultSet.next()) {
+					if (matches(employee.getCedula(), conflictResultSet.getString("cedula"))) {
+						conflict = "cedula";
+					} else {
+						conflict = "uuid";
+					}
+				}
+			}
+		}
+
+		return conflict;
+	}
+
+	// Identifier columns use a case insensitive collation
+	private static boolean matches(String value, String storedValue) {
+		return value != null && value.equalsIgnoreCase(storedValue);
+	}
+
+	/**
+	 * 
+	 * @param connection
+	 *            The connection on which to run the queries.
+	 * @param identifier
+	 *            The name of a column of Employee with an unique identifier.
+	 * @param values
+	 *            The values to look for.
+	 * @return The values passed that are already stored under the identifier,
+	 *         including by deleted Employees.
+	 * @throws SQLException
+	 *             If any of the queries fail.
+	 */
+	private static Set<String> findExisting(Connection connection, String identifier, Collection<String> values)
+			throws SQLException {
+		Set<String> existing = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+
+		for (List<String> chunk : QueryUtils.partition(values, QueryUtils.IN_CLAUSE_CHUNK_SIZE)) {
+			String existingQuery = String.format(StatementRegistry.get(StatementRegistry.EMPLOYEE_EXISTING, identifier),
+					QueryUtils.placeholders(chunk.size()));
+			try (PreparedStatement existingStatement = connection.prepareStatement(existingQuery)) {
+				for (int i = 0; i < chunk.size(); i++) {
+					existingStatement.setString(i + 1, chunk.get(i));
+				}
+				try (ResultSet existingResultSet = existingStatement.executeQuery()) {
+					while (existingResultSet.next()) {
+						existing.add(existingResultSet.getString(1));
+					}
+				}
+			}
+		}
+
+		return existing;
+	}
+
+	/**
+	 * 
+	 * @param employee
+	 *            The Employee to check.
+	 * @return Why the Employee cannot be inserted, or null if it is well formed.
+	 */
+	private static String validate(Employee employee) {
+		String error = null;
+
+		if (employee == null) {
+			error = "Missing Employee";
+		} else if (employee.getCedula() == null || employee.getCedula().trim().length() == 0) {
+			error = "cedula is required";
+		} else if (EmployeeRoleDatabaseHelper.getPkId(employee.getRole()) < 0) {
+			error = "Unknown role: " + employee.getRole();
+		} else if (employee.getPhoneNumbers() != null) {
+			for (PhoneNumber phoneNumber : employee.getPhoneNumbers()) {
+				if (phoneNumber == null || phoneNumber.getPhoneNumber() == null
+						|| PhoneTypeDatabaseHelper.getPkId(phoneNumber.getType()) < 0) {
+					error = "Malformed phone number";
+					break;
+				}
+			}
+		}
+
+		return error;
+	}
+
 	/**
 	 * 
 	 * @param identifier
@@ -214,25 +962,29 @@ public class EmployeeDatabaseHelper {
 	 *            The value stored in the identifier for the particular employee we
 	 *            want to delete.
 	 * @return True if Employee was successfully deleted, false otherwise.
+	 * @throws IllegalArgumentException
+	 *             If identifier is not one of the identifier columns supported.
 	 */
 	public static boolean deleteByUniqueIdentifier(String identifier, String value) {
 		boolean opResult = false;
 
-		try {
-			DatabaseConnection connection = new DatabaseConnection();
+		try (UnitOfWork unitOfWork = new UnitOfWork()) {
+			Connection connection = unitOfWork.getConnection();
 
-			// Apply updates
-			String deleteQuery = String.format("UPDATE Employee SET MD_isDeleted=TRUE WHERE %s=?", identifier);
-			PreparedStatement deleteStatement = connection.getConnection().prepareStatement(deleteQuery);
-			deleteStatement.setString(1, value);
-			int affectedRows = deleteStatement.executeUpdate();
-
-			// Close unused resources
-			deleteStatement.close();
-			connection.close();
+			// Apply updates, entities already deleted are not found
+			String deleteQuery = StatementRegistry.get(StatementRegistry.EMPLOYEE_DELETE, identifier);
+			int affectedRows;
+			try (PreparedStatement deleteStatement = connection.prepareStatement(deleteQuery)) {
+				deleteStatement.setString(1, value);
+				affectedRows = deleteStatement.executeUpdate();
+			}
 
 			// Operation failed if affected rows <= 0
 			if (affectedRows > 0) {
+				// Stamp the row last, the change sequence is held until commit
+				ChangeSequence.stamp(connection, ChangeSequence.EMPLOYEE, identifier,
+						Collections.singletonList(value));
+				unitOfWork.commit();
 				opResult = true;
 			}
 		} catch (SQLException e) {
@@ -253,59 +1005,69 @@ public class EmployeeDatabaseHelper {
 	 * @param updatedEmployee
 	 *            An Employee object containing the new data for the entity.
 	 * @return true if update was successful, false otherwise.
+	 * @throws IllegalArgumentException
+	 *             If identifier is not one of the identifier columns supported.
 	 */
 	public static boolean updateByUniqueIdentifier(String identifier, String value, Employee updatedEmployee) {
 		boolean opResult = false;
 
-		try {
-			DatabaseConnection connection = new DatabaseConnection();
+		// Fetch employee role pk_id
+		int rolePkId = EmployeeRoleDatabaseHelper.getPkId(updatedEmployee.getRole());
+		if (rolePkId < 0) {
+			// Employee object malformed
+			return opResult;
+		}
+
+		// Every statement below runs on the same connection and is committed at once
+		try (UnitOfWork unitOfWork = new UnitOfWork()) {
+			Connection connection = unitOfWork.getConnection();
 
 			// Fetch employee pk_id
-			int employeePkId = getPkIdByUniqueIdentifier(identifier, value);
+			int employeePkId = getPkIdByUniqueIdentifier(connection, identifier, value);
 			if (employeePkId < 0) {
 				// Employee not found
 				return opResult;
 			}
 
-			// Fetch employee role pk_id
-			int rolePkId = EmployeeRoleDatabaseHelper.getPkId(updatedEmployee.getRole());
-			if (rolePkId < 0) {
-				// Employee object malformed
-				return opResult;
-			}
-
 			String updateQuery = "UPDATE Employee SET " + "firstName=?, middleName=?, firstSurname=?, secondSurname=?, "
-					+ "cedula=?, email=?, RolePk_id=? " + String.format("WHERE %s=?", identifier);
-			PreparedStatement updateStatement = connection.getConnection().prepareStatement(updateQuery);
-			updateStatement.setString(1, updatedEmployee.getFirstName());
-			updateStatement.setString(2, updatedEmployee.getMiddleName());
-			updateStatement.setString(3, updatedEmployee.getFirstSurname());
-			updateStatement.setString(4, updatedEmployee.getSecondSurname());
-			updateStatement.setString(5, updatedEmployee.getCedula());
-			updateStatement.setString(6, updatedEmployee.getEmail());
-			updateStatement.setInt(7, rolePkId);
-			updateStatement.setString(8, value);
-			int affectedRows = updateStatement.executeUpdate();
-
-			// Close unused resources
-			updateStatement.close();
-			connection.close();
+					+ "cedula=?, email=?, RolePk_id=?, MD_version=MD_version+1 "
+					+ "WHERE pk_id=?";
+			int affectedRows;
+			try (PreparedStatement updateStatement = connection.prepareStatement(updateQuery)) {
+				updateStatement.setString(1, updatedEmployee.getFirstName());
+				updateStatement.setString(2, updatedEmployee.getMiddleName());
+				updateStatement.setString(3, updatedEmployee.getFirstSurname());
+				updateStatement.setString(4, updatedEmployee.getSecondSurname());
+				updateStatement.setString(5, updatedEmployee.getCedula());
+				updateStatement.setString(6, updatedEmployee.getEmail());
+				updateStatement.setInt(7, rolePkId);
+				updateStatement.setInt(8, employeePkId);
+				affectedRows = updateStatement.executeUpdate();
+			}
 
 			if (affectedRows > 0) {
 				/*
-				 * If employee data was inserted correctly, re-associate telephone numbers, if
+				 * If employee data was updated correctly, re-associate telephone numbers, if
 				 * any
 				 */
-				EmployeePhoneNumberDatabaseHelper.unlinkAll(employeePkId);
-				if (updatedEmployee.getPhoneNumbers() != null) {
-					for (PhoneNumber p : updatedEmployee.getPhoneNumbers()) {
-						int phoneNumberPkId = PhoneNumberDatabaseHelper.resolve(p);
-						EmployeePhoneNumberDatabaseHelper.link(phoneNumberPkId, employeePkId);
+				List<Integer> phoneNumberPkIds = new ArrayList<>();
+				if (updatedEmployee.getPhoneNumbers() != null && !updatedEmployee.getPhoneNumbers().isEmpty()) {
+					phoneNumberPkIds = PhoneNumberDatabaseHelper.resolveAll(connection,
+							updatedEmployee.getPhoneNumbers());
+					if (phoneNumberPkIds.contains(-1)) {
+						// Malformed phone number, the whole update is rolled back
+						return opResult;
 					}
 				}
+				// Only links that actually changed are written
+				EmployeePhoneNumberDatabaseHelper.replaceAll(connection, phoneNumberPkIds, employeePkId);
+
+				// Stamp the row last, the change sequence is held until commit
+				ChangeSequence.stamp(connection, ChangeSequence.EMPLOYEE, "pk_id",
+						Collections.singletonList(employeePkId));
+				unitOfWork.commit();
 				opResult = true;
 			}
-
 		} catch (SQLException e) {
 			e.printStackTrace();
 		}
@@ -323,26 +1085,103 @@ public class EmployeeDatabaseHelper {
 	 *            want to locate.
 	 * @return The primary key value of the employee stored under the identifier, or
 	 *         -1 if not found.
+	 * @throws IllegalArgumentException
+	 *             If identifier is not one of the identifier columns supported.
 	 */
 	public static int getPkIdByUniqueIdentifier(String identifier, String value) {
 		int pkId = -1;
 
-		try {
-			DatabaseConnection connection = new DatabaseConnection();
+		try (DatabaseConnection connection = new DatabaseConnection()) {
+			pkId = getPkIdByUniqueIdentifier(connection.getConnection(), identifier, value);
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
 
-			String idQuery = String.format("SELECT EmployeePk_id FROM VW_Employee WHERE %s=?", identifier);
-			PreparedStatement idStatement = connection.getConnection().prepareStatement(idQuery);
+		return pkId;
+	}
+
+	/**
+	 * 
+	 * Same as {@link #getPkIdByUniqueIdentifier(String, String)}, using an
+	 * already open connection.
+	 * 
+	 * @param connection
+	 *            The connection on which to run the queries.
+	 * @throws SQLException
+	 *             If any of the queries fail.
+	 */
+	static int getPkIdByUniqueIdentifier(Connection connection, String identifier, String value)
+			throws SQLException {
+		int pkId = -1;
+
+		String idQuery = StatementRegistry.get(StatementRegistry.EMPLOYEE_PK_BY_IDENTIFIER, identifier);
+		try (PreparedStatement idStatement = connection.prepareStatement(idQuery)) {
 			idStatement.setString(1, value);
-			ResultSet idResultSet = idStatement.executeQuery();
+			try (ResultSet idResultSet = idStatement.executeQuery()) {
+				if (idResultSet.next()) {
+					pkId = idResultSet.getInt("EmployeePk_id");
+				}
+			}
+		}
+
+		return pkId;
+	}
+
+	/**
+	 * 
+	 * Reads the row version of an Employee, which starts at 1 and grows every time
+	 * the Employee or its phone numbers change. Only the Employee table is read, so this
+	 * is much cheaper than fetching the Employee.
+	 * 
+	 * @param identifier
+	 *            The name of the column with an unique identifier that we want to
+	 *            use to locate the Employee.
+	 * @param value
+	 *            The value stored in the identifier for the particular employee we
+	 *            want to locate.
+	 * @return The row version of the employee stored under the identifier, or -1 if
+	 *         not found.
+	 * @throws IllegalArgumentException
+	 *             If identifier is not one of the identifier columns supported.
+	 */
+	public static long getVersionByUniqueIdentifier(String identifier, String value) {
+		long version = -1;
 
-			if (idResultSet.next()) {
-				pkId = idResultSet.getInt("EmployeePk_id");
+		try (DatabaseConnection connection = new DatabaseConnection()) {
+			String versionQuery = StatementRegistry.get(StatementRegistry.EMPLOYEE_VERSION, identifier);
+			try (PreparedStatement versionStatement = connection.getConnection().prepareStatement(versionQuery)) {
+				versionStatement.setString(1, value);
+				try (ResultSet versionResultSet = versionStatement.executeQuery()) {
+					if (versionResultSet.next()) {
+						version = versionResultSet.getLong("MD_version");
+					}
+				}
 			}
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+
+		return version;
+	}
 
+	/**
+	 * 
+	 * Reads a value that changes whenever an Employee is created, updated or
+	 * deleted: every write stamps its rows with the next number of the Employee
+	 * change sequence, whose current value is a single row read.
+	 * 
+	 * @return The version of the whole Employee collection, or null if it could not
+	 *         be read.
+	 */
+	public static String getCollectionVersion() {
+		String version = null;
+
+		try (DatabaseConnection connection = new DatabaseConnection()) {
+			version = Long.toString(ChangeSequence.current(connection.getConnection(), ChangeSequence.EMPLOYEE));
 		} catch (SQLException e) {
 			e.printStackTrace();
 		}
 
-		return pkId;
+		return version;
 	}
 }
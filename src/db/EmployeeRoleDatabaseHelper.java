@@ -1,39 +1,59 @@
 package db;
 
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Map;
 
 import core.Employee.Role;
 
 public class EmployeeRoleDatabaseHelper {
+	/*
+	 * Immutable snapshot of the EmployeeRole table, replaced as a whole on refresh.
+	 * Null until loaded successfully.
+	 */
+	private static volatile Map<Role, Integer> rolePkIds;
+
+	/**
+	 * 
+	 * @param role
+	 *            The role to look up.
+	 * @return The primary key of the role, or -1 if the role is not defined in the
+	 *         database.
+	 */
 	public static int getPkId(Role role) {
 		int pkId = -1;
-		
-		try {
-			DatabaseConnection connection = new DatabaseConnection();
-
-			// First fetch key of the role to apply
-			String roleQuery = "SELECT pk_id FROM EmployeeRole WHERE name=?";
-			PreparedStatement roleStatement = connection.getConnection().prepareStatement(roleQuery);
-			roleStatement.setString(1, role.name());
-			ResultSet roleResultSet = roleStatement.executeQuery();
-			if (roleResultSet.next()) {
-				pkId = roleResultSet.getInt("pk_id");
-			} else {
-				// If no role found, Employee object must be malformed
-				return pkId;
-			}
-
-			// Close unused resources
-			roleResultSet.close();
-			roleStatement.close();
-			connection.close();
 
+		Map<Role, Integer> pkIds = rolePkIds;
+		if (pkIds == null) {
+			// Not loaded at startup, most likely because the database was down
+			refresh();
+			pkIds = rolePkIds;
+		}
+
+		if (role != null && pkIds != null && pkIds.containsKey(role)) {
+			pkId = pkIds.get(role);
+		}
+
+		return pkId;
+	}
+
+	/**
+	 * 
+	 * Reloads the EmployeeRole table. Must be called whenever the table changes.
+	 * 
+	 * @return true if the table was reloaded, false otherwise.
+	 */
+	public static boolean refresh() {
+		boolean result = false;
+
+		try {
+			rolePkIds = Collections.unmodifiableMap(
+					LookupTables.load("SELECT pk_id, name FROM EmployeeRole", Role.class));
+			result = true;
 		} catch (SQLException e) {
 			e.printStackTrace();
 		}
-		
-		return pkId;
+
+		return result;
 	}
 }
@@ -0,0 +1,145 @@
+package db;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import core.Employee;
+
+/**
+ * Maps rows of VW_Employee to Employees, reading only the fields of a projection. Phone
+ * numbers are not read.
+ *
+ * @author Francisco Frias
+ * @author Abel Guzman
+ * @author Amin Guzman
+ *
+ */
+final class EmployeeRowMapper extends RowMapper<Employee> {
+	// Fields that can be read and the columns they are read from, by position
+	private static final List<String> FIELDS = Arrays.asList("entityId", "firstName", "middleName", "firstSurname",
+			"secondSurname", "cedula", "email", "role");
+	private static final List<String> COLUMNS = Arrays.asList("uuid", "firstName", "middleName", "firstSurname",
+			"secondSurname", "cedula", "email", "role");
+	private static final int ENTITY_ID = 0;
+	private static final int FIRST_NAME = 1;
+	private static final int MIDDLE_NAME = 2;
+	private static final int FIRST_SURNAME = 3;
+	private static final int SECOND_SURNAME = 4;
+	private static final int CEDULA = 5;
+	private static final int EMAIL = 6;
+	private static final int ROLE = 7;
+
+	static final EmployeeRowMapper FULL = create(Projection.FULL);
+
+	private final Projection projection;
+	// Position of every field in the row, or -1 if not read
+	private final int[] positions;
+
+	private EmployeeRowMapper(Projection projection, List<String> columns, int[] positions) {
+		super(columns.toArray(new String[columns.size()]));
+		this.projection = projection;
+		this.positions = positions;
+	}
+
+	/**
+	 *
+	 * @param projection
+	 *            The fields to read.
+	 * @return The mapper reading them.
+	 * @throws IllegalArgumentException
+	 *             If the projection includes a field Employees do not have.
+	 */
+	static EmployeeRowMapper of(Projection projection) {
+		return projection == Projection.FULL ? FULL : create(projection);
+	}
+
+	/**
+	 *
+	 * @param field
+	 *            A field of Employees.
+	 * @return The column of VW_Employee the field is read from.
+	 * @throws IllegalArgumentException
+	 *             If Employees do not have the field.
+	 */
+	static String getColumn(String field) {
+		int index = FIELDS.indexOf(field);
+		if (index < 0) {
+			throw new IllegalArgumentException("Unknown Employee field: " + field);
+		}
+		return COLUMNS.get(index);
+	}
+
+	Projection getProjection() {
+		return projection;
+	}
+
+	/**
+	 *
+	 * @param row
+	 *            A row bound by any of the Employee mappers.
+	 * @return The primary key of the Employee in the row.
+	 * @throws SQLException
+	 *             If the column cannot be read.
+	 */
+	static int getPkId(RowMapper<Employee>.Row row) throws SQLException {
+		return row.getInt(0);
+	}
+
+	@Override
+	Employee map(Row row) throws SQLException {
+		Employee employee = new Employee();
+		employee.setEntityId(row.getString(positions[ENTITY_ID]));
+		if (reads(FIRST_NAME)) {
+			employee.setFirstName(row.getString(positions[FIRST_NAME]));
+		}
+		if (reads(MIDDLE_NAME)) {
+			employee.setMiddleName(row.getString(positions[MIDDLE_NAME]));
+		}
+		if (reads(FIRST_SURNAME)) {
+			employee.setFirstSurname(row.getString(positions[FIRST_SURNAME]));
+		}
+		if (reads(SECOND_SURNAME)) {
+			employee.setSecondSurname(row.getString(positions[SECOND_SURNAME]));
+		}
+		if (reads(CEDULA)) {
+			employee.setCedula(row.getString(positions[CEDULA]));
+		}
+		if (reads(EMAIL)) {
+			employee.setEmail(row.getString(positions[EMAIL]));
+		}
+		if (reads(ROLE)) {
+			employee.setRole(row.getString(positions[ROLE]));
+		}
+		return employee;
+	}
+
+	private boolean reads(int field) {
+		return positions[field] >= 0;
+	}
+
+	private static EmployeeRowMapper create(Projection projection) {
+		if (projection.getFields() != null) {
+			for (String field : projection.getFields()) {
+				if (!FIELDS.contains(field) && !Projection.PHONE_NUMBERS.equals(field)) {
+					throw new IllegalArgumentException("Unknown Employee field: " + field);
+				}
+			}
+		}
+
+		// The primary key comes first, the entity ID is always read
+		List<String> columns = new ArrayList<>();
+		columns.add("EmployeePk_id");
+		int[] positions = new int[FIELDS.size()];
+		for (int field = 0; field < FIELDS.size(); field++) {
+			if (field == ENTITY_ID || projection.includes(FIELDS.get(field))) {
+				positions[field] = columns.size();
+				columns.add(COLUMNS.get(field));
+			} else {
+				positions[field] = -1;
+			}
+		}
+		return new EmployeeRowMapper(projection, columns, positions);
+	}
+}
@@ -0,0 +1,200 @@
+package db;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Conditions and sort order of a collection read, rendered into parameterized
+ * SQL by the database helpers.
+ *
+ * Field names are those of the entity properties, i.e. firstSurname. Helpers
+ * only accept fields they map to a column, so values are always bound as
+ * parameters and no client supplied name ever reaches the SQL. Filters are
+ * immutable, every method returns a new one.
+ *
+ * @author Francisco Frias
+ * @author Abel Guzman
+ * @author Amin Guzman
+ *
+ */
+public final class Filter {
+	/**
+	 * No conditions, sorted by primary key.
+	 */
+	public static final Filter NONE = new Filter(Collections.<Condition> emptyList(),
+			Collections.<SortKey> emptyList());
+
+	// Escapes the LIKE wildcards in values matched by prefix or suffix
+	private static final char LIKE_ESCAPE = '!';
+	private static final String LIKE = " LIKE ? ESCAPE '" + LIKE_ESCAPE + "'";
+
+	private final List<Condition> conditions;
+	private final List<SortKey> sortKeys;
+
+	private Filter(List<Condition> conditions, List<SortKey> sortKeys) {
+		this.conditions = conditions;
+		this.sortKeys = sortKeys;
+	}
+
+	/**
+	 *
+	 * @param field
+	 *            The field to compare.
+	 * @param value
+	 *            The value the field must be equal to, or null for no condition.
+	 * @return A filter with the condition added.
+	 */
+	public Filter equalTo(String field, String value) {
+		return value == null ? this : with(new Condition(field, "=?", value));
+	}
+
+	/**
+	 *
+	 * @param field
+	 *            The field to compare.
+	 * @param prefix
+	 *            The value the field must start with, or null for no condition.
+	 * @return A filter with the condition added.
+	 */
+	public Filter startsWith(String field, String prefix) {
+		return prefix == null ? this : with(new Condition(field, LIKE, escapeLike(prefix) + "%"));
+	}
+
+	/**
+	 *
+	 * @param field
+	 *            The field to compare.
+	 * @param suffix
+	 *            The value the field must end with, or null for no condition.
+	 * @return A filter with the condition added.
+	 */
+	public Filter endsWith(String field, String suffix) {
+		return suffix == null ? this : with(new Condition(field, LIKE, "%" + escapeLike(suffix)));
+	}
+
+	/**
+	 *
+	 * Sorts by a field, after any sort keys already added. Entities with equal
+	 * values keep primary key order.
+	 *
+	 * @param field
+	 *            The field to sort by.
+	 * @param descending
+	 *            Whether to sort from the highest value down.
+	 * @return A filter with the sort key added.
+	 */
+	public Filter orderBy(String field, boolean descending) {
+		List<SortKey> sortKeys = new ArrayList<>(this.sortKeys);
+		sortKeys.add(new SortKey(field, descending));
+		return new Filter(conditions, Collections.unmodifiableList(sortKeys));
+	}
+
+	/**
+	 *
+	 * @return Whether any sort key was added, so entities are not in primary key
+	 *         order.
+	 */
+	public boolean isSorted() {
+		return !sortKeys.isEmpty();
+	}
+
+	/**
+	 *
+	 * @param columns
+	 *            Maps every field to its column, throwing an
+	 *            IllegalArgumentException for fields that cannot be filtered on.
+	 * @param table
+	 *            The table or view to qualify columns with, or null.
+	 * @return The conditions joined with AND, or an empty string if there are
+	 *         none. Values are left as placeholders, see {@link #getParameters()}.
+	 */
+	String getConditions(Function<String, String> columns, String table) {
+		StringBuilder sql = new StringBuilder();
+		for (Condition condition : conditions) {
+			if (sql.length() > 0) {
+				sql.append(" AND ");
+			}
+			sql.append(qualify(table, columns.apply(condition.field))).append(condition.operator);
+		}
+		return sql.toString();
+	}
+
+	/**
+	 *
+	 * @return The values bound to the placeholders of
+	 *         {@link #getConditions(Function, String)}, in order.
+	 */
+	List<Object> getParameters() {
+		List<Object> parameters = new ArrayList<>(conditions.size());
+		for (Condition condition : conditions) {
+			parameters.add(condition.value);
+		}
+		return parameters;
+	}
+
+	/**
+	 *
+	 * @param columns
+	 *            Maps every field to its column, throwing an
+	 *            IllegalArgumentException for fields that cannot be sorted by.
+	 * @param table
+	 *            The table or view to qualify columns with, or null.
+	 * @param pkColumn
+	 *            The primary key column, which breaks ties.
+	 * @return The sort keys, comma separated, for the ORDER BY clause.
+	 */
+	String getOrderBy(Function<String, String> columns, String table, String pkColumn) {
+		StringBuilder sql = new StringBuilder();
+		for (SortKey sortKey : sortKeys) {
+			sql.append(qualify(table, columns.apply(sortKey.field))).append(sortKey.descending ? " DESC" : "")
+					.append(", ");
+		}
+		return sql.append(qualify(table, pkColumn)).toString();
+	}
+
+	private Filter with(Condition condition) {
+		List<Condition> conditions = new ArrayList<>(this.conditions);
+		conditions.add(condition);
+		return new Filter(Collections.unmodifiableList(conditions), sortKeys);
+	}
+
+	private static String qualify(String table, String column) {
+		return table == null ? column : table + "." + column;
+	}
+
+	private static String escapeLike(String value) {
+		StringBuilder escaped = new StringBuilder(value.length());
+		for (char c : value.toCharArray()) {
+			if (c == LIKE_ESCAPE || c == '%' || c == '_') {
+				escaped.append(LIKE_ESCAPE);
+			}
+			escaped.append(c);
+		}
+		return escaped.toString();
+	}
+
+	private static final class Condition {
+		private final String field;
+		// Comparison following the column, with a single placeholder
+		private final String operator;
+		private final String value;
+
+		private Condition(String field, String operator, String value) {
+			this.field = field;
+			this.operator = operator;
+			this.value = value;
+		}
+	}
+
+	private static final class SortKey {
+		private final String field;
+		private final boolean descending;
+
+		private SortKey(String field, boolean descending) {
+			this.field = field;
+			this.descending = descending;
+		}
+	}
+}
@@ -0,0 +1,193 @@
+package db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Dynamic proxies around the JDBC objects handed out by
+ * {@link DatabaseConnection}, timing every statement and reporting it to
+ * {@link QueryLog}.
+ *
+ * Statements returning a result set are reported once the result set or the
+ * statement is closed, so the rows read can be counted. Every other call is
+ * passed through untouched.
+ *
+ * @author Francisco Frias
+ * @author Abel Guzman
+ * @author Amin Guzman
+ *
+ */
+final class InstrumentedJdbc {
+
+	private InstrumentedJdbc() {
+	}
+
+	/**
+	 *
+	 * @param connection
+	 *            The connection to instrument.
+	 * @param acquireNanos
+	 *            Time it took to lease the connection, reported with every
+	 *            statement run on it.
+	 * @return A connection reporting every statement run on it.
+	 */
+	static Connection wrap(Connection connection, long acquireNanos) {
+		return proxy(Connection.class, new ConnectionHandler(connection, acquireNanos));
+	}
+
+	private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+		return type.cast(Proxy.newProxyInstance(InstrumentedJdbc.class.getClassLoader(), new Class<?>[] { type },
+				handler));
+	}
+
+	private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			// Rethrow the SQLException as thrown by the driver
+			throw e.getCause();
+		}
+	}
+
+	private static class ConnectionHandler implements InvocationHandler {
+		private final Connection connection;
+		private final long acquireNanos;
+
+		ConnectionHandler(Connection connection, long acquireNanos) {
+			this.connection = connection;
+			this.acquireNanos = acquireNanos;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			Object result = InstrumentedJdbc.invoke(connection, method, args);
+			if (result instanceof Statement) {
+				// prepareStatement and prepareCall take the SQL up front, createStatement on execution
+				String sql = method.getName().startsWith("prepare") ? (String) args[0] : null;
+				StatementHandler handler = new StatementHandler((Statement) result, sql, acquireNanos);
+				if (result instanceof CallableStatement) {
+					return proxy(CallableStatement.class, handler);
+				} else if (result instanceof PreparedStatement) {
+					return proxy(PreparedStatement.class, handler);
+				}
+				return proxy(Statement.class, handler);
+			}
+			return result;
+		}
+	}
+
+	private static class StatementHandler implements InvocationHandler {
+		private final Statement statement;
+		private final String sql;
+		private final long acquireNanos;
+		// The last query run, reported once its result set is done with
+		private Execution pending;
+
+		StatementHandler(Statement statement, String sql, long acquireNanos) {
+			this.statement = statement;
+			this.sql = sql;
+			this.acquireNanos = acquireNanos;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+			if (!name.startsWith("execute")) {
+				if (name.equals("close")) {
+					finishPending();
+				}
+				return InstrumentedJdbc.invoke(statement, method, args);
+			}
+
+			finishPending();
+			String executedSql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0]
+					: sql;
+			long startTime = System.nanoTime();
+			Object result = InstrumentedJdbc.invoke(statement, method, args);
+			long executionNanos = System.nanoTime() - startTime;
+
+			if (result instanceof ResultSet) {
+				pending = new Execution(executedSql, executionNanos, acquireNanos);
+				return proxy(ResultSet.class, new ResultSetHandler((ResultSet) result, pending));
+			}
+			QueryLog.record(executedSql, executionNanos, getAffectedRows(result), acquireNanos);
+			return result;
+		}
+
+		private void finishPending() {
+			if (pending != null) {
+				pending.finish();
+				pending = null;
+			}
+		}
+
+		private static long getAffectedRows(Object result) {
+			if (result instanceof Number) {
+				return ((Number) result).longValue();
+			}
+			if (result instanceof int[]) {
+				long rows = 0;
+				for (int count : (int[]) result) {
+					// Batches may only report success, without a count
+					if (count >= 0) {
+						rows += count;
+					}
+				}
+				return rows;
+			}
+			return -1;
+		}
+	}
+
+	private static class ResultSetHandler implements InvocationHandler {
+		private final ResultSet resultSet;
+		private final Execution execution;
+
+		ResultSetHandler(ResultSet resultSet, Execution execution) {
+			this.resultSet = resultSet;
+			this.execution = execution;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			Object result = InstrumentedJdbc.invoke(resultSet, method, args);
+			String name = method.getName();
+			if (name.equals("next")) {
+				if ((Boolean) result) {
+					execution.rows++;
+				}
+			} else if (name.equals("close")) {
+				execution.finish();
+			}
+			return result;
+		}
+	}
+
+	private static class Execution {
+		private final String sql;
+		private final long executionNanos;
+		private final long acquireNanos;
+		private long rows;
+		private boolean finished;
+
+		Execution(String sql, long executionNanos, long acquireNanos) {
+			this.sql = sql;
+			this.executionNanos = executionNanos;
+			this.acquireNanos = acquireNanos;
+		}
+
+		void finish() {
+			if (!finished) {
+				finished = true;
+				QueryLog.record(sql, executionNanos, rows, acquireNanos);
+			}
+		}
+	}
+}
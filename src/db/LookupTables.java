@@ -0,0 +1,74 @@
+package db;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Loading of the small reference tables (statuses, roles, phone types) that map
+ * an enumerated value to its primary key.
+ * 
+ * @author Francisco Frias
+ * @author Abel Guzman
+ * @author Amin Guzman
+ *
+ */
+final class LookupTables {
+
+	private LookupTables() {
+	}
+
+	/**
+	 * 
+	 * Reads every row of a reference table.
+	 * 
+	 * @param lookupQuery
+	 *            Query selecting the pk_id column and the name column, in that
+	 *            order.
+	 * @return A map from the name of each row to its primary key.
+	 * @throws SQLException
+	 *             If the table cannot be read.
+	 */
+	private static Map<String, Integer> load(String lookupQuery) throws SQLException {
+		Map<String, Integer> pkIds = new HashMap<>();
+
+		try (DatabaseConnection connection = new DatabaseConnection();
+				PreparedStatement lookupStatement = connection.getConnection().prepareStatement(lookupQuery);
+				ResultSet lookupResultSet = lookupStatement.executeQuery()) {
+			while (lookupResultSet.next()) {
+				pkIds.put(lookupResultSet.getString(2), lookupResultSet.getInt(1));
+			}
+		}
+
+		return pkIds;
+	}
+
+	/**
+	 * 
+	 * Reads every row of a reference table whose names are the constants of an
+	 * enum. Rows with no matching constant are ignored.
+	 * 
+	 * @param lookupQuery
+	 *            Query selecting the pk_id column and the name column, in that
+	 *            order.
+	 * @param type
+	 *            The enum the names map to.
+	 * @return A map from each constant found in the table to its primary key.
+	 * @throws SQLException
+	 *             If the table cannot be read.
+	 */
+	static <E extends Enum<E>> EnumMap<E, Integer> load(String lookupQuery, Class<E> type) throws SQLException {
+		Map<String, Integer> pkIdsByName = load(lookupQuery);
+		EnumMap<E, Integer> pkIds = new EnumMap<>(type);
+		for (E constant : type.getEnumConstants()) {
+			Integer pkId = pkIdsByName.get(constant.name());
+			if (pkId != null) {
+				pkIds.put(constant, pkId);
+			}
+		}
+		return pkIds;
+	}
+}
@@ -0,0 +1,45 @@
+package db;
+
+import java.util.List;
+
+/**
+ * A slice of a keyset-paginated result, along with the cursor from which the
+ * next slice starts.
+ * 
+ * @author Francisco Frias
+ * @author Abel Guzman
+ * @author Amin Guzman
+ *
+ * @param <T>
+ *            Type of the entities in the page.
+ */
+public class Page<T> {
+	private final List<T> items;
+	private final Integer nextCursor;
+
+	public Page(List<T> items, Integer nextCursor) {
+		this.items = items;
+		this.nextCursor = nextCursor;
+	}
+
+	/**
+	 * 
+	 * @return The entities in this page, in cursor order.
+	 */
+	public List<T> getItems() {
+		return items;
+	}
+
+	/**
+	 * 
+	 * @return The cursor to pass to fetch the following page, or null if this is
+	 *         the last page.
+	 */
+	public Integer getNextCursor() {
+		return nextCursor;
+	}
+
+	public boolean hasNext() {
+		return nextCursor != null;
+	}
+}
@@ -1,9 +1,16 @@
 package db;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 import core.PhoneNumber;
 
@@ -21,66 +28,166 @@ public class PhoneNumberDatabaseHelper {
 	public static int resolve(PhoneNumber phoneNumber) {
 		int pkId = -1;
 
-		try {
-			DatabaseConnection connection = new DatabaseConnection();
+		try (DatabaseConnection connection = new DatabaseConnection()) {
+			pkId = resolve(connection.getConnection(), phoneNumber);
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+		return pkId;
+	}
 
-			// First fetch key of the phoneType
-			String phoneTypeQuery = "SELECT pk_id FROM PhoneType WHERE phoneType=?";
-			PreparedStatement phoneTypeStatement = connection.getConnection().prepareStatement(phoneTypeQuery);
-			phoneTypeStatement.setString(1, phoneNumber.getType().name());
-			ResultSet phoneTypeResultSet = phoneTypeStatement.executeQuery();
-			int phoneTypePkId;
-			if (phoneTypeResultSet.next()) {
-				phoneTypePkId = phoneTypeResultSet.getInt("pk_id");
-			} else {
-				// If no status found, PhoneNumber object must be malformed
-				return pkId;
-			}
+	/**
+	 * 
+	 * Same as {@link #resolve(PhoneNumber)}, using an already open connection.
+	 * 
+	 * @param connection
+	 *            The connection on which to run the queries.
+	 * @throws SQLException
+	 *             If any of the queries fail.
+	 */
+	static int resolve(Connection connection, PhoneNumber phoneNumber) throws SQLException {
+		int pkId = -1;
 
-			// Close unused resources
-			phoneTypeResultSet.close();
-			phoneTypeStatement.close();
+		// First fetch key of the phoneType
+		int phoneTypePkId = PhoneTypeDatabaseHelper.getPkId(phoneNumber.getType());
+		if (phoneTypePkId < 0) {
+			// If no phone type found, PhoneNumber object must be malformed
+			return pkId;
+		}
 
-			// Search if phone number exists
-			String phoneNumberQuery = "SELECT pk_id FROM PhoneNumber WHERE phoneNumber=? AND PhoneTypePk_id=?";
-			PreparedStatement phoneNumberStatement = connection.getConnection().prepareStatement(phoneNumberQuery);
+		// Search if phone number exists
+		String phoneNumberQuery = "SELECT pk_id FROM PhoneNumber WHERE phoneNumber=? AND PhoneTypePk_id=?";
+		try (PreparedStatement phoneNumberStatement = connection.prepareStatement(phoneNumberQuery)) {
 			phoneNumberStatement.setString(1, phoneNumber.getPhoneNumber());
 			phoneNumberStatement.setInt(2, phoneTypePkId);
-			ResultSet phoneNumberResultSet = phoneNumberStatement.executeQuery();
-
-			/*
-			 * phoneNumber and PhoneTypePk_id for an unique pair, so only one result
-			 * expected
-			 */
-			if (phoneNumberResultSet.next()) {
-				pkId = phoneNumberResultSet.getInt("pk_id");
-			} else {
-				// Close unused resources
-				phoneNumberResultSet.close();
-				phoneNumberStatement.close();
-
-				// Insert phone number
-				phoneNumberQuery = "INSERT INTO PhoneNumber (phoneNumber, PhoneTypePk_id) VALUES (?, ?)";
-				phoneNumberStatement = connection.getConnection().prepareStatement(phoneNumberQuery,
-						Statement.RETURN_GENERATED_KEYS);
-				phoneNumberStatement.setString(1, phoneNumber.getPhoneNumber());
-				phoneNumberStatement.setInt(2, phoneTypePkId);
-				phoneNumberStatement.executeUpdate();
-				phoneNumberResultSet = phoneNumberStatement.getGeneratedKeys();
+			try (ResultSet phoneNumberResultSet = phoneNumberStatement.executeQuery()) {
+				/*
+				 * phoneNumber and PhoneTypePk_id for an unique pair, so only one
+				 * result expected
+				 */
+				if (phoneNumberResultSet.next()) {
+					pkId = phoneNumberResultSet.getInt("pk_id");
+				}
+			}
+		}
+		if (pkId >= 0) {
+			return pkId;
+		}
 
+		// Insert phone number
+		phoneNumberQuery = "INSERT INTO PhoneNumber (phoneNumber, PhoneTypePk_id) VALUES (?, ?)";
+		try (PreparedStatement phoneNumberStatement = connection.prepareStatement(phoneNumberQuery,
+				Statement.RETURN_GENERATED_KEYS)) {
+			phoneNumberStatement.setString(1, phoneNumber.getPhoneNumber());
+			phoneNumberStatement.setInt(2, phoneTypePkId);
+			phoneNumberStatement.executeUpdate();
+			try (ResultSet phoneNumberResultSet = phoneNumberStatement.getGeneratedKeys()) {
 				if (phoneNumberResultSet.next()) {
 					pkId = phoneNumberResultSet.getInt(1);
 				}
-				// Close unused resources
-				phoneNumberResultSet.close();
-				phoneNumberStatement.close();
 			}
-			// Close unused resources
-			connection.close();
-
-		} catch (SQLException e) {
-			e.printStackTrace();
 		}
+
 		return pkId;
 	}
+
+	/**
+	 * 
+	 * Resolves several PhoneNumber objects at once, inserting those that don't
+	 * exist. Stored numbers are found with one query per
+	 * {@link QueryUtils#IN_CLAUSE_CHUNK_SIZE} numbers and missing ones are inserted
+	 * in JDBC batches, instead of issuing up to two statements per number.
+	 * 
+	 * @param connection
+	 *            The connection on which to run the queries.
+	 * @param phoneNumbers
+	 *            The PhoneNumbers to resolve.
+	 * @return The database PRIMARY KEY ID of every PhoneNumber passed, in the same
+	 *         order, with -1 for those that are malformed.
+	 * @throws SQLException
+	 *             If any of the queries fail.
+	 */
+	static List<Integer> resolveAll(Connection connection, List<PhoneNumber> phoneNumbers) throws SQLException {
+		// Key of every distinct (phoneNumber, PhoneTypePk_id) pair, -1 until found
+		Map<String, Integer> pkIds = new LinkedHashMap<>();
+		Map<String, PhoneNumber> pending = new LinkedHashMap<>();
+		Map<String, Integer> phoneTypePkIds = new HashMap<>();
+		List<String> keys = new ArrayList<>(phoneNumbers.size());
+
+		for (PhoneNumber phoneNumber : phoneNumbers) {
+			int phoneTypePkId = PhoneTypeDatabaseHelper.getPkId(phoneNumber.getType());
+			if (phoneTypePkId < 0 || phoneNumber.getPhoneNumber() == null) {
+				// If no phone type found, PhoneNumber object must be malformed
+				keys.add(null);
+				continue;
+			}
+			String key = key(phoneNumber.getPhoneNumber(), phoneTypePkId);
+			keys.add(key);
+			if (!pkIds.containsKey(key)) {
+				pkIds.put(key, -1);
+				pending.put(key, phoneNumber);
+				phoneTypePkIds.put(key, phoneTypePkId);
+			}
+		}
+
+		// Search which phone numbers exist
+		for (List<String> chunk : QueryUtils.partition(pending.keySet(), QueryUtils.IN_CLAUSE_CHUNK_SIZE)) {
+			String phoneNumberQuery = "SELECT pk_id, phoneNumber, PhoneTypePk_id FROM PhoneNumber "
+					+ "WHERE (phoneNumber, PhoneTypePk_id) IN (" + QueryUtils.rowPlaceholders(chunk.size(), 2) + ")";
+			try (PreparedStatement phoneNumberStatement = connection.prepareStatement(phoneNumberQuery)) {
+				for (int i = 0; i < chunk.size(); i++) {
+					phoneNumberStatement.setString(2 * i + 1, pending.get(chunk.get(i)).getPhoneNumber());
+					phoneNumberStatement.setInt(2 * i + 2, phoneTypePkIds.get(chunk.get(i)));
+				}
+				try (ResultSet phoneNumberResultSet = phoneNumberStatement.executeQuery()) {
+					while (phoneNumberResultSet.next()) {
+						String key = key(phoneNumberResultSet.getString("phoneNumber"),
+								phoneNumberResultSet.getInt("PhoneTypePk_id"));
+						if (pkIds.containsKey(key)) {
+							pkIds.put(key, phoneNumberResultSet.getInt("pk_id"));
+							pending.remove(key);
+						}
+					}
+				}
+			}
+		}
+
+		// Insert the missing ones, generated keys come back in batch order
+		for (List<String> chunk : QueryUtils.partition(pending.keySet(), QueryUtils.BATCH_SIZE)) {
+			String phoneNumberQuery = "INSERT INTO PhoneNumber (phoneNumber, PhoneTypePk_id) VALUES (?, ?)";
+			try (PreparedStatement phoneNumberStatement = connection.prepareStatement(phoneNumberQuery,
+					Statement.RETURN_GENERATED_KEYS)) {
+				for (String key : chunk) {
+					phoneNumberStatement.setString(1, pending.get(key).getPhoneNumber());
+					phoneNumberStatement.setInt(2, phoneTypePkIds.get(key));
+					phoneNumberStatement.addBatch();
+				}
+				phoneNumberStatement.executeBatch();
+				try (ResultSet phoneNumberResultSet = phoneNumberStatement.getGeneratedKeys()) {
+					for (String key : chunk) {
+						if (!phoneNumberResultSet.next()) {
+							throw new SQLException(
+									"Missing generated key for PhoneNumber " + pending.get(key).getPhoneNumber());
+						}
+						pkIds.put(key, phoneNumberResultSet.getInt(1));
+					}
+				}
+			}
+		}
+
+		List<Integer> result = new ArrayList<>(keys.size());
+		for (String key : keys) {
+			result.add(key == null ? -1 : pkIds.get(key));
+		}
+		return result;
+	}
+
+	// Numbers equal under the column collation share a key, it ignores case and trailing spaces
+	private static String key(String phoneNumber, int phoneTypePkId) {
+		int end = phoneNumber.length();
+		while (end > 0 && phoneNumber.charAt(end - 1) == ' ') {
+			end--;
+		}
+		return phoneTypePkId + ":" + phoneNumber.substring(0, end).toLowerCase(Locale.ROOT);
+	}
 }
@@ -0,0 +1,30 @@
+package db;
+
+import java.sql.SQLException;
+
+import core.PhoneNumber;
+
+/**
+ * Maps rows of VW_PhoneNumber to PhoneNumbers.
+ *
+ * @author Francisco Frias
+ * @author Abel Guzman
+ * @author Amin Guzman
+ *
+ */
+final class PhoneNumberRowMapper extends RowMapper<PhoneNumber> {
+	static final PhoneNumberRowMapper INSTANCE = new PhoneNumberRowMapper("uuid", "phoneNumber", "phoneType");
+
+	private PhoneNumberRowMapper(String... columns) {
+		super(columns);
+	}
+
+	@Override
+	PhoneNumber map(Row row) throws SQLException {
+		PhoneNumber phoneNumber = new PhoneNumber();
+		phoneNumber.setEntityId(row.getString(0));
+		phoneNumber.setPhoneNumber(row.getString(1));
+		phoneNumber.setType(row.getString(2));
+		return phoneNumber;
+	}
+}
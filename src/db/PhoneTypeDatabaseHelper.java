@@ -0,0 +1,59 @@
+package db;
+
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Map;
+
+import core.PhoneNumber.Type;
+
+public class PhoneTypeDatabaseHelper {
+	/*
+	 * Immutable snapshot of the PhoneType table, replaced as a whole on refresh.
+	 * Null until loaded successfully.
+	 */
+	private static volatile Map<Type, Integer> phoneTypePkIds;
+
+	/**
+	 * 
+	 * @param phoneType
+	 *            The phone type to look up.
+	 * @return The primary key of the phone type, or -1 if the phone type is not
+	 *         defined in the database.
+	 */
+	public static int getPkId(Type phoneType) {
+		int pkId = -1;
+
+		Map<Type, Integer> pkIds = phoneTypePkIds;
+		if (pkIds == null) {
+			// Not loaded at startup, most likely because the database was down
+			refresh();
+			pkIds = phoneTypePkIds;
+		}
+
+		if (phoneType != null && pkIds != null && pkIds.containsKey(phoneType)) {
+			pkId = pkIds.get(phoneType);
+		}
+
+		return pkId;
+	}
+
+	/**
+	 * 
+	 * Reloads the PhoneType table. Must be called whenever the table changes.
+	 * 
+	 * @return true if the table was reloaded, false otherwise.
+	 */
+	public static boolean refresh() {
+		boolean result = false;
+
+		try {
+			phoneTypePkIds = Collections.unmodifiableMap(
+					LookupTables.load("SELECT pk_id, phoneType FROM PhoneType", Type.class));
+			result = true;
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+
+		return result;
+	}
+}
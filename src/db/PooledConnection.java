@@ -0,0 +1,102 @@
+package db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * A physical database connection owned by a {@link ConnectionPool}, along with
+ * the bookkeeping the pool needs to validate, retire and track it.
+ *
+ * @author Francisco Frias
+ * @author Abel Guzman
+ * @author Amin Guzman
+ *
+ */
+class PooledConnection {
+	private final Connection connection;
+	private final long createdAt;
+	private volatile long lastReleasedAt;
+	private volatile long borrowedAt;
+	private volatile Throwable borrowTrace;
+	private volatile ScheduledFuture<?> leakTask;
+
+	PooledConnection(Connection connection) {
+		this.connection = connection;
+		this.createdAt = System.currentTimeMillis();
+		this.lastReleasedAt = createdAt;
+	}
+
+	Connection getConnection() {
+		return connection;
+	}
+
+	long getCreatedAt() {
+		return createdAt;
+	}
+
+	long getLastReleasedAt() {
+		return lastReleasedAt;
+	}
+
+	long getBorrowedAt() {
+		return borrowedAt;
+	}
+
+	Throwable getBorrowTrace() {
+		return borrowTrace;
+	}
+
+	/**
+	 *
+	 * Marks the connection as leased.
+	 *
+	 * @param trace
+	 *            Stack trace of the borrower, used to report leaks. May be null.
+	 * @param leakTask
+	 *            The scheduled leak check for this lease, or null if leak
+	 *            detection is disabled.
+	 */
+	void onBorrow(Throwable trace, ScheduledFuture<?> leakTask) {
+		this.borrowedAt = System.currentTimeMillis();
+		this.borrowTrace = trace;
+		this.leakTask = leakTask;
+	}
+
+	/**
+	 *
+	 * Marks the connection as returned to the pool, cancelling any pending leak
+	 * check for the lease.
+	 */
+	void onRelease() {
+		if (leakTask != null) {
+			leakTask.cancel(false);
+			leakTask = null;
+		}
+		borrowTrace = null;
+		lastReleasedAt = System.currentTimeMillis();
+	}
+
+	/**
+	 *
+	 * @param maximumLifetime
+	 *            Maximum lifetime in milliseconds, 0 or less meaning unlimited.
+	 * @return true if the connection has outlived the maximum lifetime.
+	 */
+	boolean isExpired(long maximumLifetime) {
+		return maximumLifetime > 0 && System.currentTimeMillis() - createdAt >= maximumLifetime;
+	}
+
+	/**
+	 *
+	 * Closes the physical connection, ignoring any error since the connection is
+	 * being discarded anyway.
+	 */
+	void closeQuietly() {
+		try {
+			connection.close();
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+	}
+}
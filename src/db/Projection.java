@@ -0,0 +1,67 @@
+package db;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Which fields of an entity are read from the database. Fields left out are
+ * not selected, and phone numbers are not queried at all unless included.
+ *
+ * Field names are those of the entity properties, i.e. firstName. The entity ID
+ * is always read.
+ *
+ * @author Francisco Frias
+ * @author Abel Guzman
+ * @author Amin Guzman
+ *
+ */
+public final class Projection {
+	/**
+	 * Every field of the entity, including its phone numbers.
+	 */
+	public static final Projection FULL = new Projection(null, true);
+
+	public static final String PHONE_NUMBERS = "phoneNumbers";
+
+	// Null means every field
+	private final Set<String> fields;
+	private final boolean phoneNumbers;
+
+	private Projection(Set<String> fields, boolean phoneNumbers) {
+		this.fields = fields;
+		this.phoneNumbers = phoneNumbers;
+	}
+
+	/**
+	 *
+	 * @param fields
+	 *            The fields to read, or null to read every field.
+	 * @param phoneNumbers
+	 *            Whether phone numbers are read.
+	 * @return The projection reading them.
+	 */
+	public static Projection of(Collection<String> fields, boolean phoneNumbers) {
+		if (fields == null) {
+			return phoneNumbers ? FULL : new Projection(null, false);
+		}
+		return new Projection(Collections.unmodifiableSet(new LinkedHashSet<>(fields)), phoneNumbers);
+	}
+
+	/**
+	 *
+	 * @return The fields read, or null if every field is.
+	 */
+	public Set<String> getFields() {
+		return fields;
+	}
+
+	public boolean includes(String field) {
+		return fields == null || fields.contains(field);
+	}
+
+	public boolean includesPhoneNumbers() {
+		return phoneNumbers;
+	}
+}
@@ -0,0 +1,225 @@
+package db;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+import metrics.LatencyHistogram;
+import util.PropertyLoader;
+
+/**
+ * Timing of every statement run through a {@link DatabaseConnection}, by SQL
+ * template, along with the time it took to lease connections.
+ *
+ * Statements taking longer than &lt;queryLog.slowQueryThreshold&gt;
+ * milliseconds are logged, naming the helper methods that ran them, and the
+ * last &lt;queryLog.slowQueryCapacity&gt; of them are kept in a ring buffer.
+ * Instrumentation can be turned off with queryLog.enabled=false, in which case
+ * connections are handed out unwrapped.
+ *
+ * @author Francisco Frias
+ * @author Abel Guzman
+ * @author Amin Guzman
+ *
+ */
+public final class QueryLog {
+	private static final Logger LOGGER = Logger.getLogger(QueryLog.class.getName());
+	private static final String PROPERTIES_NAMESPACE = "/config/database.properties";
+	private static final long DEFAULT_SLOW_QUERY_THRESHOLD = 500;
+	private static final int DEFAULT_SLOW_QUERY_CAPACITY = 100;
+	// Frames of the caller reported with a slow query
+	private static final int MAXIMUM_CALLER_FRAMES = 3;
+	// Upper bound of SQL strings whose template is remembered
+	private static final int MAXIMUM_CACHED_TEMPLATES = 4096;
+	/*
+	 * IN clauses and multi-row VALUES are generated with one placeholder per
+	 * value, so they are collapsed to keep one template per statement
+	 */
+	private static final Pattern PLACEHOLDER_LIST = Pattern.compile("\\?(\\s*,\\s*\\?)+");
+	private static final Pattern ROW_LIST = Pattern.compile("\\((\\?(?:, \\?)*)\\)(?:\\s*,\\s*\\(\\1\\))+");
+	private static PropertyLoader queryLogProperties = new PropertyLoader(PROPERTIES_NAMESPACE);
+
+	private static final boolean ENABLED = !"false"
+			.equalsIgnoreCase(queryLogProperties.getProperty("queryLog.enabled"));
+	private static final long SLOW_QUERY_THRESHOLD_NANOS = getLongProperty("queryLog.slowQueryThreshold",
+			DEFAULT_SLOW_QUERY_THRESHOLD) * 1000000;
+	private static final int SLOW_QUERY_CAPACITY = (int) Math.max(1,
+			getLongProperty("queryLog.slowQueryCapacity", DEFAULT_SLOW_QUERY_CAPACITY));
+
+	private static final LatencyHistogram ACQUIRE_TIMES = new LatencyHistogram();
+	private static final ConcurrentMap<String, Statistics> STATISTICS = new ConcurrentHashMap<>();
+	private static final ConcurrentMap<String, String> TEMPLATES = new ConcurrentHashMap<>();
+	private static final SlowQuery[] SLOW_QUERIES = new SlowQuery[SLOW_QUERY_CAPACITY];
+	private static final AtomicLong SLOW_QUERY_COUNT = new AtomicLong();
+
+	private QueryLog() {
+	}
+
+	/**
+	 *
+	 * @param connection
+	 *            A connection just leased from the pool.
+	 * @param acquireNanos
+	 *            Time it took to lease it.
+	 * @return The connection to hand out, reporting every statement run on it
+	 *         unless instrumentation is disabled.
+	 */
+	static Connection instrument(Connection connection, long acquireNanos) {
+		ACQUIRE_TIMES.record(acquireNanos);
+		return ENABLED ? InstrumentedJdbc.wrap(connection, acquireNanos) : connection;
+	}
+
+	/**
+	 *
+	 * @param sql
+	 *            The SQL of the statement, or null for a batch of plain
+	 *            statements.
+	 * @param executionNanos
+	 *            Time the driver took to run it.
+	 * @param rows
+	 *            Rows read or affected, or -1 if unknown.
+	 * @param acquireNanos
+	 *            Time it took to lease the connection it ran on.
+	 */
+	static void record(String sql, long executionNanos, long rows, long acquireNanos) {
+		String template = getTemplate(sql);
+		Statistics statistics = STATISTICS.get(template);
+		if (statistics == null) {
+			statistics = STATISTICS.computeIfAbsent(template, t -> new Statistics());
+		}
+		statistics.executionTimes.record(executionNanos);
+		if (rows > 0) {
+			statistics.rowCount.add(rows);
+		}
+
+		if (executionNanos >= SLOW_QUERY_THRESHOLD_NANOS) {
+			SlowQuery slowQuery = new SlowQuery(System.currentTimeMillis(), template, getCaller(), executionNanos,
+					rows, acquireNanos);
+			synchronized (SLOW_QUERIES) {
+				long index = SLOW_QUERY_COUNT.getAndIncrement();
+				SLOW_QUERIES[(int) (index % SLOW_QUERY_CAPACITY)] = slowQuery;
+			}
+			LOGGER.log(Level.WARNING,
+					String.format("Slow query, %d ms (%d rows, connection leased in %d ms) from %s: %s",
+							executionNanos / 1000000, rows, acquireNanos / 1000000, slowQuery.getCaller(), template));
+		}
+	}
+
+	/**
+	 *
+	 * @return The time it took to lease every connection handed out.
+	 */
+	public static LatencyHistogram getAcquireTimes() {
+		return ACQUIRE_TIMES;
+	}
+
+	/**
+	 *
+	 * @return Execution statistics keyed by SQL template, i.e. with IN clauses
+	 *         collapsed to a single placeholder.
+	 */
+	public static Map<String, Statistics> getStatistics() {
+		return Collections.unmodifiableMap(STATISTICS);
+	}
+
+	/**
+	 *
+	 * @return The most recent slow queries, latest first.
+	 */
+	public static List<SlowQuery> getSlowQueries() {
+		List<SlowQuery> slowQueries = new ArrayList<>(SLOW_QUERY_CAPACITY);
+		synchronized (SLOW_QUERIES) {
+			long count = SLOW_QUERY_COUNT.get();
+			for (long index = count - 1; index >= Math.max(0, count - SLOW_QUERY_CAPACITY); index--) {
+				slowQueries.add(SLOW_QUERIES[(int) (index % SLOW_QUERY_CAPACITY)]);
+			}
+		}
+		return slowQueries;
+	}
+
+	/**
+	 *
+	 * @return Number of slow queries since startup, including those no longer
+	 *         in the ring buffer.
+	 */
+	public static long getSlowQueryCount() {
+		return SLOW_QUERY_COUNT.get();
+	}
+
+	private static String getTemplate(String sql) {
+		if (sql == null) {
+			return "(batch)";
+		}
+		String template = TEMPLATES.get(sql);
+		if (template == null) {
+			template = PLACEHOLDER_LIST.matcher(ROW_LIST.matcher(sql).replaceAll("($1), ...")).replaceAll("?, ...");
+			if (TEMPLATES.size() < MAXIMUM_CACHED_TEMPLATES) {
+				TEMPLATES.put(sql, template);
+			}
+		}
+		return template;
+	}
+
+	// Only called for slow queries, walking the stack is too costly for every statement
+	private static String getCaller() {
+		StringBuilder caller = new StringBuilder();
+		int frames = 0;
+		for (StackTraceElement element : new Throwable().getStackTrace()) {
+			String className = element.getClassName();
+			if (!className.startsWith("db.") || className.startsWith(QueryLog.class.getName())
+					|| className.startsWith(InstrumentedJdbc.class.getName())) {
+				continue;
+			}
+			if (caller.length() > 0) {
+				caller.append(" < ");
+			}
+			caller.append(className.substring(3)).append('.').append(element.getMethodName());
+			if (++frames == MAXIMUM_CALLER_FRAMES) {
+				break;
+			}
+		}
+		return caller.length() == 0 ? "unknown" : caller.toString();
+	}
+
+	private static long getLongProperty(String key, long defaultValue) {
+		String value = queryLogProperties.getProperty(key);
+		if (value == null || value.trim().length() == 0) {
+			return defaultValue;
+		}
+		try {
+			return Long.parseLong(value.trim());
+		} catch (NumberFormatException e) {
+			e.printStackTrace();
+			return defaultValue;
+		}
+	}
+
+	/**
+	 * Executions of one SQL template.
+	 */
+	public static class Statistics {
+		private final LatencyHistogram executionTimes = new LatencyHistogram();
+		private final LongAdder rowCount = new LongAdder();
+
+		public LatencyHistogram getExecutionTimes() {
+			return executionTimes;
+		}
+
+		/**
+		 *
+		 * @return Rows read or affected by every execution.
+		 */
+		public long getRowCount() {
+			return rowCount.sum();
+		}
+	}
+}
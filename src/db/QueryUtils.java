@@ -0,0 +1,98 @@
+package db;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Shared helpers for building set-based queries.
+ * 
+ * @author Francisco Frias
+ * @author Abel Guzman
+ * @author Amin Guzman
+ *
+ */
+final class QueryUtils {
+	/*
+	 * Upper bound of values bound into a single IN (...) clause, keeps statements
+	 * well under the server packet and placeholder limits.
+	 */
+	static final int IN_CLAUSE_CHUNK_SIZE = 500;
+
+	/*
+	 * Connector/J only streams rows one at a time, instead of buffering the whole
+	 * result set in memory, for forward-only, read-only statements with this fetch
+	 * size.
+	 */
+	static final int STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+
+	/*
+	 * Upper bound of statements sent in a single JDBC batch, so the driver never
+	 * has to hold an unbounded number of parameter sets in memory.
+	 */
+	static final int BATCH_SIZE = 500;
+
+	private QueryUtils() {
+	}
+
+	/**
+	 * 
+	 * @param count
+	 *            Number of placeholders to generate, must be greater than 0.
+	 * @return A comma separated list of count placeholders, i.e. "?, ?, ?".
+	 */
+	static String placeholders(int count) {
+		StringBuilder builder = new StringBuilder(count * 3);
+		for (int i = 0; i < count; i++) {
+			if (i > 0) {
+				builder.append(", ");
+			}
+			builder.append('?');
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * 
+	 * @param rows
+	 *            Number of row constructors to generate, must be greater than 0.
+	 * @param columns
+	 *            Number of placeholders in each row constructor.
+	 * @return A comma separated list of row constructors, i.e. "(?, ?), (?, ?)"
+	 *         for 2 rows of 2 columns.
+	 */
+	static String rowPlaceholders(int rows, int columns) {
+		String row = "(" + placeholders(columns) + ")";
+		StringBuilder builder = new StringBuilder(rows * (row.length() + 2));
+		for (int i = 0; i < rows; i++) {
+			if (i > 0) {
+				builder.append(", ");
+			}
+			builder.append(row);
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * 
+	 * Splits a collection into consecutive chunks of at most chunkSize elements.
+	 * 
+	 * @param values
+	 *            The values to split.
+	 * @param chunkSize
+	 *            Maximum size of each chunk.
+	 * @return The list of chunks, empty if there are no values.
+	 */
+	static <T> List<List<T>> partition(Collection<T> values, int chunkSize) {
+		if (values.isEmpty()) {
+			return Collections.emptyList();
+		}
+		List<T> list = new ArrayList<>(values);
+		List<List<T>> chunks = new ArrayList<>((list.size() + chunkSize - 1) / chunkSize);
+		for (int start = 0; start < list.size(); start += chunkSize) {
+			chunks.add(list.subList(start, Math.min(start + chunkSize, list.size())));
+		}
+		return chunks;
+	}
+}
@@ -0,0 +1,122 @@
+package db;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps the rows of a result set to objects, reading an explicit list of
+ * columns.
+ *
+ * The position of every column is looked up once per result set, when the
+ * mapper is bound to it, so reading a row costs no name lookups. Queries should
+ * select exactly {@link #getSelectList()} rather than *, so no column that is
+ * not read goes over the wire.
+ *
+ * @author Francisco Frias
+ * @author Abel Guzman
+ * @author Amin Guzman
+ *
+ * @param <T>
+ *            Type of the objects built.
+ */
+abstract class RowMapper<T> {
+	private final String[] columns;
+
+	/**
+	 *
+	 * @param columns
+	 *            The columns read, in the order {@link #map(Row)} refers to them.
+	 */
+	RowMapper(String... columns) {
+		this.columns = columns;
+	}
+
+	/**
+	 *
+	 * @return The columns read, comma separated, for the select list of a query.
+	 */
+	String getSelectList() {
+		return String.join(", ", columns);
+	}
+
+	/**
+	 *
+	 * @param table
+	 *            The table or view every column is read from, for queries with
+	 *            joins.
+	 * @return The columns read, qualified with the table name and comma
+	 *         separated.
+	 */
+	String getSelectList(String table) {
+		StringBuilder selectList = new StringBuilder();
+		for (String column : columns) {
+			if (selectList.length() > 0) {
+				selectList.append(", ");
+			}
+			selectList.append(table).append('.').append(column);
+		}
+		return selectList.toString();
+	}
+
+	/**
+	 *
+	 * Looks up the position of every column in a result set.
+	 *
+	 * @param resultSet
+	 *            A result set including every column read, in any order.
+	 * @return A row reading the current row of the result set.
+	 * @throws SQLException
+	 *             If a column is missing from the result set.
+	 */
+	Row bind(ResultSet resultSet) throws SQLException {
+		int[] indexes = new int[columns.length];
+		for (int i = 0; i < columns.length; i++) {
+			indexes[i] = resultSet.findColumn(columns[i]);
+		}
+		return new Row(resultSet, indexes);
+	}
+
+	/**
+	 *
+	 * Builds an object from the current row.
+	 *
+	 * @param row
+	 *            The row to read, with columns referred to by position in the
+	 *            list passed to the constructor.
+	 * @return The object represented by the row.
+	 * @throws SQLException
+	 *             If the columns cannot be read.
+	 */
+	abstract T map(Row row) throws SQLException;
+
+	/**
+	 * A result set whose column positions have been resolved.
+	 */
+	final class Row {
+		private final ResultSet resultSet;
+		private final int[] indexes;
+
+		private Row(ResultSet resultSet, int[] indexes) {
+			this.resultSet = resultSet;
+			this.indexes = indexes;
+		}
+
+		String getString(int column) throws SQLException {
+			return resultSet.getString(indexes[column]);
+		}
+
+		int getInt(int column) throws SQLException {
+			return resultSet.getInt(indexes[column]);
+		}
+
+		/**
+		 *
+		 * @return The object represented by the current row of the result set.
+		 * @throws SQLException
+		 *             If the columns cannot be read.
+		 */
+		T map() throws SQLException {
+			return RowMapper.this.map(this);
+		}
+	}
+}
@@ -0,0 +1,75 @@
+package db;
+
+/**
+ * A statement that took longer than the slow query threshold, as recorded by
+ * {@link QueryLog}.
+ *
+ * @author Francisco Frias
+ * @author Abel Guzman
+ * @author Amin Guzman
+ *
+ */
+public class SlowQuery {
+	private final long timestamp;
+	private final String sql;
+	private final String caller;
+	private final long executionNanos;
+	private final long rows;
+	private final long acquireNanos;
+
+	SlowQuery(long timestamp, String sql, String caller, long executionNanos, long rows, long acquireNanos) {
+		this.timestamp = timestamp;
+		this.sql = sql;
+		this.caller = caller;
+		this.executionNanos = executionNanos;
+		this.rows = rows;
+		this.acquireNanos = acquireNanos;
+	}
+
+	/**
+	 *
+	 * @return When the statement completed, in milliseconds since the epoch.
+	 */
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	/**
+	 *
+	 * @return The SQL of the statement, with placeholders rather than values.
+	 */
+	public String getSql() {
+		return sql;
+	}
+
+	/**
+	 *
+	 * @return The database helper methods that ran the statement, innermost
+	 *         first, i.e. StudentDatabaseHelper.query &lt;
+	 *         StudentDatabaseHelper.getAll.
+	 */
+	public String getCaller() {
+		return caller;
+	}
+
+	public long getExecutionNanos() {
+		return executionNanos;
+	}
+
+	/**
+	 *
+	 * @return Rows read from the result set or affected by the update, or -1 if
+	 *         unknown.
+	 */
+	public long getRows() {
+		return rows;
+	}
+
+	/**
+	 *
+	 * @return Time it took to lease the connection the statement ran on.
+	 */
+	public long getAcquireNanos() {
+		return acquireNanos;
+	}
+}
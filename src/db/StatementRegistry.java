@@ -0,0 +1,119 @@
+package db;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registry of the SQL statements that locate entities by one of their unique
+ * identifiers.
+ *
+ * Identifier columns cannot be bound as parameters, so every statement is
+ * rendered once per whitelisted identifier when the class is loaded. Helpers
+ * look statements up instead of formatting SQL themselves, which keeps unknown
+ * column names out of the SQL and hands the driver the exact same string on
+ * every call, so its per-connection prepared statement cache (cachePrepStmts in
+ * database.properties) reuses the statement prepared the first time.
+ *
+ * @author Francisco Frias
+ * @author Abel Guzman
+ * @author Amin Guzman
+ *
+ */
+final class StatementRegistry {
+	// Statement names
+	static final String STUDENT_BY_IDENTIFIER = "Student.byIdentifier";
+	static final String STUDENT_ALL_BY_IDENTIFIER = "Student.allByIdentifier";
+	static final String STUDENT_PK_BY_IDENTIFIER = "Student.pkByIdentifier";
+	static final String STUDENT_EXISTING = "Student.existing";
+	static final String STUDENT_DELETE = "Student.delete";
+	static final String STUDENT_VERSION = "Student.version";
+	static final String EMPLOYEE_BY_IDENTIFIER = "Employee.byIdentifier";
+	static final String EMPLOYEE_ALL_BY_IDENTIFIER = "Employee.allByIdentifier";
+	static final String EMPLOYEE_PK_BY_IDENTIFIER = "Employee.pkByIdentifier";
+	static final String EMPLOYEE_EXISTING = "Employee.existing";
+	static final String EMPLOYEE_DELETE = "Employee.delete";
+	static final String EMPLOYEE_VERSION = "Employee.version";
+
+	// Identifiers available on the tables, views add the primary key
+	private static final List<String> STUDENT_IDENTIFIERS = Arrays.asList("uuid", "cedula", "studentId");
+	private static final List<String> STUDENT_VIEW_IDENTIFIERS = Arrays.asList("uuid", "cedula", "studentId",
+			"StudentPk_id");
+	private static final List<String> EMPLOYEE_IDENTIFIERS = Arrays.asList("uuid", "cedula");
+	private static final List<String> EMPLOYEE_VIEW_IDENTIFIERS = Arrays.asList("uuid", "cedula", "EmployeePk_id");
+
+	private static final Map<String, Map<String, String>> STATEMENTS;
+
+	static {
+		Map<String, Map<String, String>> statements = new HashMap<>();
+		register(statements, STUDENT_BY_IDENTIFIER,
+				"SELECT " + StudentRowMapper.FULL.getSelectList() + " FROM VW_Student WHERE %1$s=?",
+				STUDENT_VIEW_IDENTIFIERS);
+		register(statements, STUDENT_ALL_BY_IDENTIFIER,
+				"SELECT " + StudentRowMapper.FULL.getSelectList() + " FROM VW_Student WHERE %1$s IN (%%s)",
+				STUDENT_IDENTIFIERS);
+		register(statements, STUDENT_PK_BY_IDENTIFIER, "SELECT StudentPk_id FROM VW_Student WHERE %1$s=?",
+				STUDENT_VIEW_IDENTIFIERS);
+		// Deleted rows still hold their identifiers under the unique constraints
+		register(statements, STUDENT_EXISTING, "SELECT %1$s FROM Student WHERE %1$s IN (%%s)", STUDENT_IDENTIFIERS);
+		register(statements, STUDENT_DELETE,
+				"UPDATE Student SET MD_isDeleted=TRUE, MD_version=MD_version+1 WHERE %1$s=? AND MD_isDeleted=FALSE",
+				STUDENT_IDENTIFIERS);
+		register(statements, STUDENT_VERSION, "SELECT MD_version FROM Student WHERE %1$s=? AND MD_isDeleted=FALSE",
+				STUDENT_IDENTIFIERS);
+		register(statements, EMPLOYEE_BY_IDENTIFIER,
+				"SELECT " + EmployeeRowMapper.FULL.getSelectList() + " FROM VW_Employee WHERE %1$s=?",
+				EMPLOYEE_VIEW_IDENTIFIERS);
+		register(statements, EMPLOYEE_ALL_BY_IDENTIFIER,
+				"SELECT " + EmployeeRowMapper.FULL.getSelectList() + " FROM VW_Employee WHERE %1$s IN (%%s)",
+				EMPLOYEE_IDENTIFIERS);
+		register(statements, EMPLOYEE_PK_BY_IDENTIFIER, "SELECT EmployeePk_id FROM VW_Employee WHERE %1$s=?",
+				EMPLOYEE_VIEW_IDENTIFIERS);
+		// Deleted rows still hold their identifiers under the unique constraints
+		register(statements, EMPLOYEE_EXISTING, "SELECT %1$s FROM Employee WHERE %1$s IN (%%s)", EMPLOYEE_IDENTIFIERS);
+		register(statements, EMPLOYEE_DELETE,
+				"UPDATE Employee SET MD_isDeleted=TRUE, MD_version=MD_version+1 WHERE %1$s=? AND MD_isDeleted=FALSE",
+				EMPLOYEE_IDENTIFIERS);
+		register(statements, EMPLOYEE_VERSION, "SELECT MD_version FROM Employee WHERE %1$s=? AND MD_isDeleted=FALSE",
+				EMPLOYEE_IDENTIFIERS);
+		STATEMENTS = Collections.unmodifiableMap(statements);
+	}
+
+	private StatementRegistry() {
+	}
+
+	/**
+	 *
+	 * @param name
+	 *            The name of the statement, one of the constants of this class.
+	 * @param identifier
+	 *            The name of the identifier column the statement filters on.
+	 * @return The SQL of the statement. Statements with an IN clause contain a %s
+	 *         to be replaced with its placeholders.
+	 * @throws IllegalArgumentException
+	 *             If the statement does not exist or cannot filter on the
+	 *             identifier.
+	 */
+	static String get(String name, String identifier) {
+		Map<String, String> byIdentifier = STATEMENTS.get(name);
+		if (byIdentifier == null) {
+			throw new IllegalArgumentException("Unknown statement: " + name);
+		}
+		String sql = byIdentifier.get(identifier);
+		if (sql == null) {
+			throw new IllegalArgumentException(String.format("Unknown identifier for %s: %s", name, identifier));
+		}
+		return sql;
+	}
+
+	private static void register(Map<String, Map<String, String>> statements, String name, String template,
+			List<String> identifiers) {
+		Map<String, String> byIdentifier = new HashMap<>();
+		for (String identifier : identifiers) {
+			byIdentifier.put(identifier, String.format(template, identifier));
+		}
+		statements.put(name, Collections.unmodifiableMap(byIdentifier));
+	}
+}
@@ -1,15 +1,27 @@
 package db;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Consumer;
 
 import com.mysql.jdbc.Statement;
 
 import core.PhoneNumber;
 import core.Student;
+import db.BulkInsertResult.Outcome;
 
 /**
  * Helper class for accessing and modifying Student data.
@@ -23,61 +35,387 @@ public class StudentDatabaseHelper {
 
 	/**
 	 * 
-	 * @return A list of all the Students in the database or an empty list, if no
-	 *         Students exist.
+	 * Same as {@link #getAll(Projection, Filter)}, reading every field of every
+	 * Student.
 	 */
 	public static List<Student> getAll() {
+		return getAll(Projection.FULL, Filter.NONE);
+	}
+
+	/**
+	 * 
+	 * Builds a projection of Students, checking every field exists.
+	 * 
+	 * @param fields
+	 *            The fields to read, or null to read every field.
+	 * @param phoneNumbers
+	 *            Whether phone numbers are read.
+	 * @return The projection.
+	 * @throws IllegalArgumentException
+	 *             If a field is not a field of Students.
+	 */
+	public static Projection getProjection(Collection<String> fields, boolean phoneNumbers) {
+		Projection projection = Projection.of(fields, phoneNumbers);
+		StudentRowMapper.of(projection);
+		return projection;
+	}
+
+	/**
+	 * 
+	 * Checks every field a filter refers to exists, before it is used.
+	 * 
+	 * @param filter
+	 *            The filter to check.
+	 * @throws IllegalArgumentException
+	 *             If the filter refers to a field Students do not have.
+	 */
+	public static void checkFilter(Filter filter) {
+		filter.getConditions(StudentRowMapper::getColumn, null);
+		filter.getOrderBy(StudentRowMapper::getColumn, null, "StudentPk_id");
+	}
+
+	/**
+	 * 
+	 * @param projection
+	 *            The fields of every Student to read.
+	 * @param filter
+	 *            The conditions Students must meet and their order.
+	 * @return A list of all the Students in the database meeting the conditions or an
+	 *         empty list, if no such Students exist.
+	 * @throws IllegalArgumentException
+	 *             If the projection or filter refer to a field Students do not have.
+	 */
+	public static List<Student> getAll(Projection projection, Filter filter) {
 
 		List<Student> studentList = new ArrayList<Student>();
 
-		try {
-			DatabaseConnection connection = new DatabaseConnection();
-
-			// First fetch Student data
-			String studentQuery = "SELECT * FROM VW_Student";
-			PreparedStatement studentStatement = connection.getConnection().prepareStatement(studentQuery);
-			ResultSet studentResultSet = studentStatement.executeQuery();
-
-			while (studentResultSet.next()) {
-				int studentPkId = studentResultSet.getInt("StudentPk_id");
-				String studentEntityId = studentResultSet.getString("uuid");
-				String studentId = studentResultSet.getString("studentId");
-				String firstName = studentResultSet.getString("firstName");
-				String middleName = studentResultSet.getString("middleName");
-				String firstSurname = studentResultSet.getString("firstSurname");
-				String secondSurname = studentResultSet.getString("secondSurname");
-				String cedula = studentResultSet.getString("cedula");
-				String email = studentResultSet.getString("email");
-				String address = studentResultSet.getString("address");
-				String status = studentResultSet.getString("status");
-				Student student = new Student();
-				student.setEntityId(studentEntityId);
-				student.setStudentId(studentId);
-				student.setFirstName(firstName);
-				student.setMiddleName(middleName);
-				student.setFirstSurname(firstSurname);
-				student.setSecondSurname(secondSurname);
-				student.setCedula(cedula);
-				student.setEmail(email);
-				student.setAddress(address);
-				student.setStatus(status);
-				// Then we fetch the associated phone numbers for the current student
-				List<PhoneNumber> phoneNumbers = StudentPhoneNumberDatabaseHelper.getAll(studentPkId);
-				student.setPhoneNumbers(phoneNumbers);
-
-				// Add to the list
-				studentList.add(student);
-			}
-			// Close unused resources
-			studentResultSet.close();
-			studentStatement.close();
-			connection.close();
+		try (DatabaseConnection connection = new DatabaseConnection()) {
+			StudentRowMapper mapper = StudentRowMapper.of(projection);
+			String conditions = filter.getConditions(StudentRowMapper::getColumn, null);
+			String studentQuery = "SELECT " + mapper.getSelectList() + " FROM VW_Student"
+					+ (conditions.isEmpty() ? "" : " WHERE " + conditions) + " ORDER BY "
+					+ filter.getOrderBy(StudentRowMapper::getColumn, null, "StudentPk_id");
+			studentList.addAll(
+					query(connection.getConnection(), mapper, studentQuery, filter.getParameters().toArray()).values());
 		} catch (SQLException e) {
 			e.printStackTrace();
 		}
 		return studentList;
 	}
 
+	/**
+	 * 
+	 * Same as {@link #streamAll(Projection, Filter, Consumer)}, reading every
+	 * field of every Student.
+	 */
+	public static boolean streamAll(Consumer<? super Student> consumer) {
+		return streamAll(Projection.FULL, Filter.NONE, consumer);
+	}
+
+	/**
+	 * 
+	 * Walks every Student in the database meeting the conditions of a filter, in its
+	 * order, handing each one to the consumer as soon as its rows have been read.
+	 * Rows are streamed from the server rather than buffered, so memory use does
+	 * not depend on the number of Students.
+	 * 
+	 * The connection stays busy until the walk ends, so the consumer should not
+	 * block on anything other than writing its output.
+	 * 
+	 * @param projection
+	 *            The fields of every Student to read. Phone numbers are only joined
+	 *            in if included.
+	 * @param filter
+	 *            The conditions Students must meet and their order.
+	 * @param consumer
+	 *            Receives every Student. Unchecked exceptions thrown by the consumer
+	 *            stop the walk and are propagated to the caller.
+	 * @return true if every Student was visited, false if the walk was interrupted
+	 *         by a database error.
+	 * @throws IllegalArgumentException
+	 *             If the projection or filter refer to a field Students do not have.
+	 */
+	public static boolean streamAll(Projection projection, Filter filter, Consumer<? super Student> consumer) {
+		boolean opResult = false;
+		StudentRowMapper mapper = StudentRowMapper.of(projection);
+
+		try (DatabaseConnection connection = new DatabaseConnection()) {
+			/*
+			 * Phone numbers are joined in and grouped by Student as rows arrive, since no
+			 * other query can run on the connection while a result set is streamed.
+			 */
+			String studentQuery;
+			String conditions;
+			String orderBy;
+			if (projection.includesPhoneNumbers()) {
+				conditions = filter.getConditions(StudentRowMapper::getColumn, "VW_Student");
+				orderBy = filter.getOrderBy(StudentRowMapper::getColumn, "VW_Student", "StudentPk_id");
+				studentQuery = "SELECT " + mapper.getSelectList("VW_Student")
+						+ ", VW_PhoneNumber.uuid AS phoneNumberUuid, VW_PhoneNumber.phoneNumber, VW_PhoneNumber.phoneType FROM VW_Student LEFT JOIN StudentHasPhoneNumber ON VW_Student.StudentPk_id=StudentHasPhoneNumber.StudentPk_id LEFT JOIN VW_PhoneNumber ON StudentHasPhoneNumber.PhoneNumberPk_id=VW_PhoneNumber.PhoneNumberPk_id";
+			} else {
+				conditions = filter.getConditions(StudentRowMapper::getColumn, null);
+				orderBy = filter.getOrderBy(StudentRowMapper::getColumn, null, "StudentPk_id");
+				studentQuery = "SELECT " + mapper.getSelectList() + " FROM VW_Student";
+			}
+			// Ties are broken by primary key, so the rows of every Student stay together
+			studentQuery += (conditions.isEmpty() ? "" : " WHERE " + conditions) + " ORDER BY " + orderBy;
+			try (PreparedStatement studentStatement = connection.getConnection().prepareStatement(studentQuery,
+					ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+				studentStatement.setFetchSize(QueryUtils.STREAMING_FETCH_SIZE);
+				List<Object> parameters = filter.getParameters();
+				for (int i = 0; i < parameters.size(); i++) {
+					studentStatement.setObject(i + 1, parameters.get(i));
+				}
+				try (ResultSet studentResultSet = studentStatement.executeQuery()) {
+					// Resolve every column once, rather than by name on every row
+					RowMapper<Student>.Row row = mapper.bind(studentResultSet);
+					int phoneNumberUuidColumn = -1;
+					int phoneNumberColumn = -1;
+					int phoneTypeColumn = -1;
+					if (projection.includesPhoneNumbers()) {
+						phoneNumberUuidColumn = studentResultSet.findColumn("phoneNumberUuid");
+						phoneNumberColumn = studentResultSet.findColumn("phoneNumber");
+						phoneTypeColumn = studentResultSet.findColumn("phoneType");
+					}
+
+					Student current = null;
+					int currentPkId = -1;
+					while (studentResultSet.next()) {
+						int studentPkId = StudentRowMapper.getPkId(row);
+						if (current == null || studentPkId != currentPkId) {
+							// First row of the next Student, the previous one is complete
+							if (current != null) {
+								consumer.accept(current);
+							}
+							current = row.map();
+							if (projection.includesPhoneNumbers()) {
+								current.setPhoneNumbers(new ArrayList<PhoneNumber>());
+							}
+							currentPkId = studentPkId;
+						}
+
+						String phoneNumberEntityId = null;
+						if (projection.includesPhoneNumbers()) {
+							phoneNumberEntityId = studentResultSet.getString(phoneNumberUuidColumn);
+						}
+						if (phoneNumberEntityId != null) {
+							PhoneNumber phoneNumber = new PhoneNumber();
+							phoneNumber.setEntityId(phoneNumberEntityId);
+							phoneNumber.setPhoneNumber(studentResultSet.getString(phoneNumberColumn));
+							phoneNumber.setType(studentResultSet.getString(phoneTypeColumn));
+							current.getPhoneNumbers().add(phoneNumber);
+						}
+					}
+					if (current != null) {
+						consumer.accept(current);
+					}
+					opResult = true;
+				}
+			}
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+		return opResult;
+	}
+
+	/**
+	 * 
+	 * Same as {@link #getPage(int, int, Projection, Filter)}, reading every field
+	 * of every Student.
+	 */
+	public static Page<Student> getPage(int after, int limit) {
+		return getPage(after, limit, Projection.FULL, Filter.NONE);
+	}
+
+	/**
+	 * 
+	 * Fetches a page of Students ordered by primary key, starting right after the
+	 * cursor passed. Pages are located through the primary key index (keyset
+	 * pagination) rather than with OFFSET, so every page costs the same no matter
+	 * how deep into the table it is.
+	 * 
+	 * @param after
+	 *            Cursor returned with the previous page, or 0 to start from the
+	 *            beginning.
+	 * @param limit
+	 *            Maximum number of Students in the page.
+	 * @param projection
+	 *            The fields of every Student to read.
+	 * @param filter
+	 *            The conditions Students must meet. Pages are always in primary key
+	 *            order, so it cannot be sorted.
+	 * @return The requested page, with a cursor to the next one if more Students
+	 *         remain.
+	 * @throws IllegalArgumentException
+	 *             If the projection or filter refer to a field Students do not have,
+	 *             or the filter is sorted.
+	 */
+	public static Page<Student> getPage(int after, int limit, Projection projection, Filter filter) {
+		if (filter.isSorted()) {
+			throw new IllegalArgumentException("Pages cannot be sorted");
+		}
+
+		Page<Student> page = new Page<>(new ArrayList<Student>(), null);
+
+		try (DatabaseConnection connection = new DatabaseConnection()) {
+			// Fetch one extra row to find out whether there is a next page
+			StudentRowMapper mapper = StudentRowMapper.of(projection);
+			String conditions = filter.getConditions(StudentRowMapper::getColumn, null);
+			String studentQuery = "SELECT " + mapper.getSelectList() + " FROM VW_Student WHERE StudentPk_id>?"
+					+ (conditions.isEmpty() ? "" : " AND " + conditions) + " ORDER BY StudentPk_id LIMIT ?";
+			List<Object> parameters = new ArrayList<>();
+			parameters.add(after);
+			parameters.addAll(filter.getParameters());
+			parameters.add(limit + 1);
+			Map<Integer, Student> students = query(connection.getConnection(), mapper, studentQuery,
+					parameters.toArray());
+
+			List<Student> studentList = new ArrayList<>(limit);
+			Integer nextCursor = null;
+			int lastPkId = after;
+			for (Map.Entry<Integer, Student> entry : students.entrySet()) {
+				if (studentList.size() == limit) {
+					// The extra row exists, the next page starts after the last one kept
+					nextCursor = lastPkId;
+					break;
+				}
+				studentList.add(entry.getValue());
+				lastPkId = entry.getKey();
+			}
+			page = new Page<>(studentList, nextCursor);
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+		return page;
+	}
+
+	/**
+	 * 
+	 * Fetches the Students created, updated or deleted after a watermark, in the
+	 * order they changed. Rows are located through the MD_changeSeq index, so the
+	 * cost depends on the number of changes rather than the number of Students.
+	 * 
+	 * @param since
+	 *            Token returned with the previous set of changes, or null to start
+	 *            from the beginning.
+	 * @param limit
+	 *            Maximum number of changes returned.
+	 * @return The changes found, with the token to pass on the next call. No
+	 *         changes are returned if the query fails.
+	 * @throws IllegalArgumentException
+	 *             If the token is malformed.
+	 */
+	public static ChangeSet<Student> getChanges(String since, int limit) {
+		long[] watermark = ChangeSet.fromToken(since);
+		ChangeSet<Student> changes = new ChangeSet<>(new ArrayList<Student>(), new ArrayList<String>(),
+				ChangeSet.toToken(watermark[0], (int) watermark[1]), false);
+
+		try (DatabaseConnection connection = new DatabaseConnection()) {
+			// Soft deleted rows are not in the view, so the table is read first
+			String changeQuery = "SELECT pk_id, uuid, MD_changeSeq, MD_isDeleted FROM Student "
+					+ "WHERE MD_changeSeq>? OR (MD_changeSeq=? AND pk_id>?) ORDER BY MD_changeSeq, pk_id LIMIT ?";
+			List<Integer> updatedPkIds = new ArrayList<>();
+			List<String> deleted = new ArrayList<>();
+			long lastChangeSeq = watermark[0];
+			int lastPkId = (int) watermark[1];
+			boolean more = false;
+			try (PreparedStatement changeStatement = connection.getConnection().prepareStatement(changeQuery)) {
+				changeStatement.setLong(1, watermark[0]);
+				changeStatement.setLong(2, watermark[0]);
+				changeStatement.setLong(3, watermark[1]);
+				// Fetch one extra row to find out whether there are more changes
+				changeStatement.setInt(4, limit + 1);
+				try (ResultSet changeResultSet = changeStatement.executeQuery()) {
+					int count = 0;
+					while (changeResultSet.next()) {
+						if (count++ == limit) {
+							more = true;
+							break;
+						}
+						lastChangeSeq = changeResultSet.getLong("MD_changeSeq");
+						lastPkId = changeResultSet.getInt("pk_id");
+						if (changeResultSet.getBoolean("MD_isDeleted")) {
+							deleted.add(changeResultSet.getString("uuid"));
+						} else {
+							updatedPkIds.add(lastPkId);
+						}
+					}
+				}
+			}
+
+			// Then fetch the current state of the rows still alive
+			Map<Integer, Student> students = new HashMap<>();
+			for (List<Integer> chunk : QueryUtils.partition(updatedPkIds, QueryUtils.IN_CLAUSE_CHUNK_SIZE)) {
+				String studentQuery = "SELECT " + StudentRowMapper.FULL.getSelectList()
+						+ " FROM VW_Student WHERE StudentPk_id IN (" + QueryUtils.placeholders(chunk.size()) + ")";
+				students.putAll(
+						query(connection.getConnection(), StudentRowMapper.FULL, studentQuery, chunk.toArray()));
+			}
+			List<Student> updated = new ArrayList<>(updatedPkIds.size());
+			for (Integer pkId : updatedPkIds) {
+				if (students.containsKey(pkId)) {
+					updated.add(students.get(pkId));
+				}
+			}
+
+			changes = new ChangeSet<>(updated, deleted, ChangeSet.toToken(lastChangeSeq, lastPkId), more);
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+		return changes;
+	}
+
+	/**
+	 * 
+	 * Runs a query over VW_Student and maps every row, fetching the phone numbers of
+	 * all rows in a handful of batched queries.
+	 * 
+	 * @param connection
+	 *            The connection on which to run the queries.
+	 * @param mapper
+	 *            Reads the rows. Phone numbers are only fetched if its projection
+	 *            includes them.
+	 * @param studentQuery
+	 *            The query to run, which must select the columns of the mapper.
+	 * @param parameters
+	 *            Values bound to the query placeholders, in order.
+	 * @return The Students found keyed by primary key, in query order.
+	 * @throws SQLException
+	 *             If any of the queries fail.
+	 */
+	static Map<Integer, Student> query(Connection connection, StudentRowMapper mapper, String studentQuery,
+			Object... parameters) throws SQLException {
+		// Keep the rows in query order, keyed by primary key
+		Map<Integer, Student> students = new LinkedHashMap<>();
+
+		// First fetch Student data
+		try (PreparedStatement studentStatement = connection.prepareStatement(studentQuery)) {
+			for (int i = 0; i < parameters.length; i++) {
+				studentStatement.setObject(i + 1, parameters[i]);
+			}
+			try (ResultSet studentResultSet = studentStatement.executeQuery()) {
+				RowMapper<Student>.Row row = mapper.bind(studentResultSet);
+				while (studentResultSet.next()) {
+					int studentPkId = StudentRowMapper.getPkId(row);
+					Student student = row.map();
+
+					// Add to the list, phone numbers are fetched below for all rows at once
+					students.put(studentPkId, student);
+				}
+			}
+		}
+
+		// Then we fetch the phone numbers of every student in a handful of queries
+		if (mapper.getProjection().includesPhoneNumbers()) {
+			Map<Integer, List<PhoneNumber>> phoneNumbers = StudentPhoneNumberDatabaseHelper
+					.getAll(connection, students.keySet());
+			for (Map.Entry<Integer, Student> entry : students.entrySet()) {
+				entry.getValue().setPhoneNumbers(phoneNumbers.get(entry.getKey()));
+			}
+		}
+		return students;
+	}
+
 	/**
 	 * 
 	 * @param identifier
@@ -88,61 +426,105 @@ public class StudentDatabaseHelper {
 	 *            want to fetch.
 	 * @return An Student object representing the Student found under the specified
 	 *         identifier, or null if none found.
+	 * @throws IllegalArgumentException
+	 *             If identifier is not one of the identifier columns supported.
 	 */
 	public static Student getByUniqueIdentifier(String identifier, String value) {
 
 		Student student = null;
 
-		try {
-			DatabaseConnection connection = new DatabaseConnection();
+		try (DatabaseConnection connection = new DatabaseConnection()) {
+			student = getByUniqueIdentifier(connection.getConnection(), identifier, value);
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+		return student;
+	}
 
-			// First we fetch Student data
-			String studentQuery = String.format("SELECT * FROM VW_Student WHERE %s=?", identifier);
-			PreparedStatement studentStatement = connection.getConnection().prepareStatement(studentQuery);
+	/**
+	 * 
+	 * Same as {@link #getByUniqueIdentifier(String, String)}, using an already
+	 * open connection.
+	 * 
+	 * @param connection
+	 *            The connection on which to run the queries.
+	 * @throws SQLException
+	 *             If any of the queries fail.
+	 */
+	static Student getByUniqueIdentifier(Connection connection, String identifier, String value)
+			throws SQLException {
+		Student student = null;
+
+		// First we fetch Student data
+		String studentQuery = StatementRegistry.get(StatementRegistry.STUDENT_BY_IDENTIFIER, identifier);
+		try (PreparedStatement studentStatement = connection.prepareStatement(studentQuery)) {
 			studentStatement.setString(1, value);
-			ResultSet studentResultSet = studentStatement.executeQuery();
+			try (ResultSet studentResultSet = studentStatement.executeQuery()) {
+				/*
+				 * Since we're querying via an unique identifier, it's safe to assume the result
+				 * set contains either zero or one results.
+				 */
+				RowMapper<Student>.Row row = StudentRowMapper.FULL.bind(studentResultSet);
+				if (studentResultSet.next()) {
+					int studentPk_id = StudentRowMapper.getPkId(row);
+					student = row.map();
 
-			/*
-			 * Since we're querying via an unique identifier, it's safe to assume the result
-			 * set contains either zero or one results.
-			 */
-			if (studentResultSet.next()) {
-				student = new Student();
-				int studentPk_id = studentResultSet.getInt("StudentPk_id");
-				String studentEntityId = studentResultSet.getString("uuid");
-				String studentId = studentResultSet.getString("studentId");
-				String firstName = studentResultSet.getString("firstName");
-				String middleName = studentResultSet.getString("middleName");
-				String firstSurname = studentResultSet.getString("firstSurname");
-				String secondSurname = studentResultSet.getString("secondSurname");
-				String cedula = studentResultSet.getString("cedula");
-				String email = studentResultSet.getString("email");
-				String address = studentResultSet.getString("address");
-				String status = studentResultSet.getString("status");
-				student.setEntityId(studentEntityId);
-				student.setStudentId(studentId);
-				student.setFirstName(firstName);
-				student.setMiddleName(middleName);
-				student.setFirstSurname(firstSurname);
-				student.setSecondSurname(secondSurname);
-				student.setCedula(cedula);
-				student.setEmail(email);
-				student.setAddress(address);
-				student.setStatus(status);
-
-				// Then we fetch the associated phone numbers
-				List<PhoneNumber> phoneNumbers = StudentPhoneNumberDatabaseHelper.getAll(studentPk_id);
-				student.setPhoneNumbers(phoneNumbers);
-			}
-
-			// Close unused resources
-			studentResultSet.close();
-			studentStatement.close();
-			connection.close();
+					// Then we fetch the associated phone numbers
+					List<PhoneNumber> phoneNumbers = StudentPhoneNumberDatabaseHelper.getAll(connection, studentPk_id);
+					student.setPhoneNumbers(phoneNumbers);
+				}
+			}
+		}
+
+		return student;
+	}
+
+	/**
+	 * 
+	 * Fetches several Students by one of their unique identifiers at once, issuing one
+	 * query per {@link QueryUtils#IN_CLAUSE_CHUNK_SIZE} values plus the batched
+	 * phone number queries, instead of a handful of queries per Student.
+	 * 
+	 * @param identifier
+	 *            The name of the identifier column to look in: uuid, cedula or studentId.
+	 * @param values
+	 *            The values to look for.
+	 * @return The Students found, keyed by the value of the identifier. Keys compare
+	 *         ignoring case, as the identifier columns do. Values not found are
+	 *         absent from the map, and nothing is found if the queries fail.
+	 * @throws IllegalArgumentException
+	 *             If identifier is not one of the identifier columns supported.
+	 */
+	public static Map<String, Student> getAllByUniqueIdentifier(String identifier, Collection<String> values) {
+		String studentQuery = StatementRegistry.get(StatementRegistry.STUDENT_ALL_BY_IDENTIFIER, identifier);
+		Map<String, Student> students = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+		try (DatabaseConnection connection = new DatabaseConnection()) {
+			for (List<String> chunk : QueryUtils.partition(values, QueryUtils.IN_CLAUSE_CHUNK_SIZE)) {
+				String chunkQuery = String.format(studentQuery, QueryUtils.placeholders(chunk.size()));
+				Map<Integer, Student> found = query(connection.getConnection(), StudentRowMapper.FULL, chunkQuery,
+						chunk.toArray());
+				for (Student student : found.values()) {
+					students.put(getUniqueIdentifier(student, identifier), student);
+				}
+			}
 		} catch (SQLException e) {
 			e.printStackTrace();
+			students.clear();
 		}
-		return student;
+
+		return students;
+	}
+
+	private static String getUniqueIdentifier(Student student, String identifier) {
+		if ("uuid".equals(identifier)) {
+			return student.getEntityId();
+		} else if ("cedula".equals(identifier)) {
+			return student.getCedula();
+		} else if ("studentId".equals(identifier)) {
+			return student.getStudentId();
+		}
+		return null;
 	}
 
 	/**
@@ -154,77 +536,452 @@ public class StudentDatabaseHelper {
 	 *            The student to be inserted into the database.
 	 * @return A Student object representing the newly created entity, including its
 	 *         associated entity ID, or null if the entity could not be created.
+	 * @throws ConflictException
+	 *             If a unique identifier of the Student is already in use.
 	 */
 	public static Student create(Student newStudent) {
 		Student createdStudent = null;
 
-		try {
-			DatabaseConnection connection = new DatabaseConnection();
+		// First fetch key of the status to apply
+		int statusPkId = StudentStatusDatabaseHelper.getStatusPkId(newStudent.getStatus());
+		if (statusPkId < 0) {
+			// If no status found, Student object must be malformed
+			return createdStudent;
+		}
 
-			// Check if unique identifiers are in use
-			if (getByUniqueIdentifier("cedula", newStudent.getCedula()) != null) {
-				return createdStudent;
-			} else if (getByUniqueIdentifier("studentId", newStudent.getStudentId()) != null) {
-				return createdStudent;
-			} else if (getByUniqueIdentifier("uuid", newStudent.getEntityId()) != null) {
-				return createdStudent;
-			}
+		// Every statement below runs on the same connection and is committed at once
+		try (UnitOfWork unitOfWork = new UnitOfWork()) {
+			Connection connection = unitOfWork.getConnection();
 
-			// First fetch key of the status to apply
-			int statusPkId = StudentStatusDatabaseHelper.getStatusPkId(newStudent.getStatus());
-			if (statusPkId < 0) {
-				// If no status found, Student object must be malformed
-				return createdStudent;
+			// Check if unique identifiers are in use
+			String conflict = findConflict(connection, newStudent);
+			if (conflict != null) {
+				throw new ConflictException("Student", conflict);
 			}
 
-			// First insert Student data
+			// Then insert Student data
 			String studentQuery = "INSERT INTO Student "
 					+ "(studentId, firstName, middleName, firstSurname, secondSurname, cedula, email, address, StatusPk_id) "
 					+ "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
-			PreparedStatement studentStatement = connection.getConnection().prepareStatement(studentQuery,
-					Statement.RETURN_GENERATED_KEYS);
-			studentStatement.setString(1, newStudent.getStudentId());
-			studentStatement.setString(2, newStudent.getFirstName());
-			studentStatement.setString(3, newStudent.getMiddleName());
-			studentStatement.setString(4, newStudent.getFirstSurname());
-			studentStatement.setString(5, newStudent.getSecondSurname());
-			studentStatement.setString(6, newStudent.getCedula());
-			studentStatement.setString(7, newStudent.getEmail());
-			studentStatement.setString(8, newStudent.getAddress());
-			studentStatement.setInt(9, statusPkId);
-			studentStatement.executeUpdate();
-			ResultSet studentResultSet = studentStatement.getGeneratedKeys();
-
-			// Check for generated keys, if any
-			int studentPkId;
-			if (studentResultSet.next()) {
-				studentPkId = studentResultSet.getInt(1);
-			} else {
+			int studentPkId = -1;
+			try (PreparedStatement studentStatement = connection.prepareStatement(studentQuery,
+					Statement.RETURN_GENERATED_KEYS)) {
+				studentStatement.setString(1, newStudent.getStudentId());
+				studentStatement.setString(2, newStudent.getFirstName());
+				studentStatement.setString(3, newStudent.getMiddleName());
+				studentStatement.setString(4, newStudent.getFirstSurname());
+				studentStatement.setString(5, newStudent.getSecondSurname());
+				studentStatement.setString(6, newStudent.getCedula());
+				studentStatement.setString(7, newStudent.getEmail());
+				studentStatement.setString(8, newStudent.getAddress());
+				studentStatement.setInt(9, statusPkId);
+				studentStatement.executeUpdate();
+				try (ResultSet studentResultSet = studentStatement.getGeneratedKeys()) {
+					// Check for generated keys, if any
+					if (studentResultSet.next()) {
+						studentPkId = studentResultSet.getInt(1);
+					}
+				}
+			}
+			if (studentPkId < 0) {
 				// An unknown error occurred while inserting the student
 				return createdStudent;
 			}
 
-			// Close unused resources
-			studentResultSet.close();
-			studentStatement.close();
-			connection.close();
-
 			// If student data was inserted correctly, associate telephone numbers, if any
-			if (newStudent.getPhoneNumbers() != null) {
-				for (PhoneNumber p : newStudent.getPhoneNumbers()) {
-					int phoneNumberPkId = PhoneNumberDatabaseHelper.resolve(p);
-					StudentPhoneNumberDatabaseHelper.link(phoneNumberPkId, studentPkId);
+			List<Integer> phoneNumberPkIds = new ArrayList<>();
+			if (newStudent.getPhoneNumbers() != null && !newStudent.getPhoneNumbers().isEmpty()) {
+				phoneNumberPkIds = PhoneNumberDatabaseHelper.resolveAll(connection,
+						newStudent.getPhoneNumbers());
+				if (phoneNumberPkIds.contains(-1)) {
+					// Malformed phone number, the whole Student is rolled back
+					return createdStudent;
 				}
+				StudentPhoneNumberDatabaseHelper.linkAll(connection, phoneNumberPkIds, studentPkId);
 			}
 
+			// Only the identifiers generated by the database are read back
+			Student student = toCreated(connection, newStudent, studentPkId, phoneNumberPkIds);
+
+			// Stamp the new row last, the change sequence is held until commit
+			ChangeSequence.stamp(connection, ChangeSequence.STUDENT, "pk_id",
+					Collections.singletonList(studentPkId));
+			unitOfWork.commit();
+
 			// Operation completed if reached this line
-			createdStudent = getByUniqueIdentifier("StudentPk_id", String.valueOf(studentPkId));
+			createdStudent = student;
 		} catch (SQLException e) {
 			e.printStackTrace();
 		}
+
+		return createdStudent;
+	}
+
+	/**
+	 * 
+	 * Builds the Student just inserted from the values it was inserted with, reading
+	 * only the uuids generated by the database for it and its phone numbers. A
+	 * single query on the connection of the insert is run, instead of reading the
+	 * whole Student back.
+	 * 
+	 * @param connection
+	 *            The connection the Student was inserted on.
+	 * @param newStudent
+	 *            The Student as inserted.
+	 * @param studentPkId
+	 *            The primary key generated for the Student.
+	 * @param phoneNumberPkIds
+	 *            The primary key of every phone number of the Student, in the same
+	 *            order.
+	 * @return The Student inserted, or null if it cannot be found.
+	 * @throws SQLException
+	 *             If the query fails.
+	 */
+	private static Student toCreated(Connection connection, Student newStudent, int studentPkId,
+			List<Integer> phoneNumberPkIds) throws SQLException {
+		Student createdStudent = null;
+
+		String createdQuery = "SELECT Student.uuid, VW_PhoneNumber.PhoneNumberPk_id, VW_PhoneNumber.uuid FROM Student "
+				+ "LEFT JOIN StudentHasPhoneNumber ON Student.pk_id=StudentHasPhoneNumber.StudentPk_id "
+				+ "LEFT JOIN VW_PhoneNumber ON StudentHasPhoneNumber.PhoneNumberPk_id=VW_PhoneNumber.PhoneNumberPk_id "
+				+ "WHERE Student.pk_id=?";
+		// One row per phone number, or a single one without phone numbers
+		String studentEntityId = null;
+		Map<Integer, String> phoneNumberEntityIds = new HashMap<>();
+		try (PreparedStatement createdStatement = connection.prepareStatement(createdQuery)) {
+			createdStatement.setInt(1, studentPkId);
+			try (ResultSet createdResultSet = createdStatement.executeQuery()) {
+				while (createdResultSet.next()) {
+					studentEntityId = createdResultSet.getString(1);
+					int phoneNumberPkId = createdResultSet.getInt(2);
+					if (!createdResultSet.wasNull()) {
+						phoneNumberEntityIds.put(phoneNumberPkId, createdResultSet.getString(3));
+					}
+				}
+			}
+		}
+
+		if (studentEntityId != null) {
+			createdStudent = new Student();
+			createdStudent.setEntityId(studentEntityId);
+			createdStudent.setStudentId(newStudent.getStudentId());
+			createdStudent.setFirstName(newStudent.getFirstName());
+			createdStudent.setMiddleName(newStudent.getMiddleName());
+			createdStudent.setFirstSurname(newStudent.getFirstSurname());
+			createdStudent.setSecondSurname(newStudent.getSecondSurname());
+			createdStudent.setCedula(newStudent.getCedula());
+			createdStudent.setEmail(newStudent.getEmail());
+			createdStudent.setAddress(newStudent.getAddress());
+			createdStudent.setStatus(newStudent.getStatus().name());
+
+			List<PhoneNumber> phoneNumbers = new ArrayList<>();
+			for (int i = 0; i < phoneNumberPkIds.size(); i++) {
+				PhoneNumber newPhoneNumber = newStudent.getPhoneNumbers().get(i);
+				PhoneNumber phoneNumber = new PhoneNumber();
+				phoneNumber.setEntityId(phoneNumberEntityIds.get(phoneNumberPkIds.get(i)));
+				phoneNumber.setPhoneNumber(newPhoneNumber.getPhoneNumber());
+				phoneNumber.setType(newPhoneNumber.getType().name());
+				phoneNumbers.add(phoneNumber);
+			}
+			createdStudent.setPhoneNumbers(phoneNumbers);
+		}
+
 		return createdStudent;
 	}
 
+	/**
+	 * 
+	 * Inserts many Students at once. Rows are validated in memory, checked for
+	 * unique identifiers already in use with a handful of set-based queries, and
+	 * inserted along with their phone numbers in JDBC batches.
+	 * 
+	 * Every chunk of rows is committed as a single transaction, so a database error
+	 * only fails the rows of the chunk in which it happened.
+	 * 
+	 * @param newStudents
+	 *            The Students to insert.
+	 * @param chunkSize
+	 *            Maximum number of rows inserted per transaction.
+	 * @return The outcome of every Student passed, in the same order.
+	 */
+	public static List<BulkInsertResult> createAll(List<Student> newStudents, int chunkSize) {
+		BulkInsertResult[] results = new BulkInsertResult[newStudents.size()];
+
+		// Validate rows and drop those repeating an identifier of a previous row, compared as the columns do
+		Set<String> cedulas = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+		Set<String> studentIds = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+		Set<String> entityIds = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+		List<Integer> pending = new ArrayList<>();
+		for (int i = 0; i < newStudents.size(); i++) {
+			Student student = newStudents.get(i);
+			String error = validate(student);
+			if (error != null) {
+				results[i] = new BulkInsertResult(i, Outcome.INVALID, null, error);
+			} else if (cedulas.contains(student.getCedula()) || studentIds.contains(student.getStudentId())
+					|| (student.getEntityId() != null && entityIds.contains(student.getEntityId()))) {
+				results[i] = new BulkInsertResult(i, Outcome.DUPLICATE, null, "Repeated in the request");
+			} else {
+				cedulas.add(student.getCedula());
+				studentIds.add(student.getStudentId());
+				if (student.getEntityId() != null) {
+					entityIds.add(student.getEntityId());
+				}
+				pending.add(i);
+			}
+		}
+
+		for (List<Integer> chunk : QueryUtils.partition(pending, chunkSize)) {
+			try (UnitOfWork unitOfWork = new UnitOfWork()) {
+				insertAll(unitOfWork.getConnection(), newStudents, chunk, results);
+				unitOfWork.commit();
+			} catch (SQLException e) {
+				e.printStackTrace();
+				// The whole chunk was rolled back
+				for (int i : chunk) {
+					results[i] = new BulkInsertResult(i, Outcome.FAILED, null, e.getMessage());
+				}
+			}
+		}
+
+		return Arrays.asList(results);
+	}
+
+	/**
+	 * 
+	 * Inserts a chunk of validated Students on the connection passed, recording the
+	 * outcome of every row.
+	 * 
+	 * @param connection
+	 *            The connection on which to run the queries.
+	 * @param newStudents
+	 *            All the Students of the bulk insert.
+	 * @param chunk
+	 *            Indexes in newStudents of the rows to insert.
+	 * @param results
+	 *            Receives the outcome of every row in the chunk, by index.
+	 * @throws SQLException
+	 *             If any of the queries fail.
+	 */
+	private static void insertAll(Connection connection, List<Student> newStudents, List<Integer> chunk,
+			BulkInsertResult[] results) throws SQLException {
+		// Check which unique identifiers are in use, one query per identifier
+		Set<String> cedulas = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+		Set<String> studentIds = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+		Set<String> entityIds = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+		for (int i : chunk) {
+			Student student = newStudents.get(i);
+			cedulas.add(student.getCedula());
+			studentIds.add(student.getStudentId());
+			if (student.getEntityId() != null) {
+				entityIds.add(student.getEntityId());
+			}
+		}
+		Set<String> usedCedulas = findExisting(connection, "cedula", cedulas);
+		Set<String> usedStudentIds = findExisting(connection, "studentId", studentIds);
+		Set<String> usedEntityIds = findExisting(connection, "uuid", entityIds);
+
+		List<Integer> inserts = new ArrayList<>(chunk.size());
+		for (int i : chunk) {
+			Student student = newStudents.get(i);
+			if (usedCedulas.contains(student.getCedula())) {
+				results[i] = new BulkInsertResult(i, Outcome.DUPLICATE, null, "cedula already in use");
+			} else if (usedStudentIds.contains(student.getStudentId())) {
+				results[i] = new BulkInsertResult(i, Outcome.DUPLICATE, null, "studentId already in use");
+			} else if (student.getEntityId() != null && usedEntityIds.contains(student.getEntityId())) {
+				results[i] = new BulkInsertResult(i, Outcome.DUPLICATE, null, "uuid already in use");
+			} else {
+				inserts.add(i);
+			}
+		}
+
+		// Insert Student data, generated keys come back in batch order
+		Map<Integer, Integer> studentPkIds = new LinkedHashMap<>();
+		for (List<Integer> batch : QueryUtils.partition(inserts, QueryUtils.BATCH_SIZE)) {
+			String studentQuery = "INSERT INTO Student "
+					+ "(studentId, firstName, middleName, firstSurname, secondSurname, cedula, email, address, StatusPk_id) "
+					+ "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+			try (PreparedStatement studentStatement = connection.prepareStatement(studentQuery,
+					Statement.RETURN_GENERATED_KEYS)) {
+				for (int i : batch) {
+					Student newStudent = newStudents.get(i);
+					studentStatement.setString(1, newStudent.getStudentId());
+					studentStatement.setString(2, newStudent.getFirstName());
+					studentStatement.setString(3, newStudent.getMiddleName());
+					studentStatement.setString(4, newStudent.getFirstSurname());
+					studentStatement.setString(5, newStudent.getSecondSurname());
+					studentStatement.setString(6, newStudent.getCedula());
+					studentStatement.setString(7, newStudent.getEmail());
+					studentStatement.setString(8, newStudent.getAddress());
+					studentStatement.setInt(9, StudentStatusDatabaseHelper.getStatusPkId(newStudent.getStatus()));
+					studentStatement.addBatch();
+				}
+				studentStatement.executeBatch();
+				try (ResultSet studentResultSet = studentStatement.getGeneratedKeys()) {
+					for (int i : batch) {
+						if (!studentResultSet.next()) {
+							throw new SQLException("Missing generated key for Student at index " + i);
+						}
+						studentPkIds.put(i, studentResultSet.getInt(1));
+					}
+				}
+			}
+		}
+
+		// Associate telephone numbers of every inserted Student at once
+		List<PhoneNumber> phoneNumbers = new ArrayList<>();
+		for (int i : studentPkIds.keySet()) {
+			if (newStudents.get(i).getPhoneNumbers() != null) {
+				phoneNumbers.addAll(newStudents.get(i).getPhoneNumbers());
+			}
+		}
+		if (!phoneNumbers.isEmpty()) {
+			List<Integer> phoneNumberPkIds = PhoneNumberDatabaseHelper.resolveAll(connection, phoneNumbers);
+			Map<Integer, List<Integer>> links = new LinkedHashMap<>();
+			int next = 0;
+			for (Map.Entry<Integer, Integer> entry : studentPkIds.entrySet()) {
+				List<PhoneNumber> studentPhoneNumbers = newStudents.get(entry.getKey()).getPhoneNumbers();
+				int count = studentPhoneNumbers == null ? 0 : studentPhoneNumbers.size();
+				links.put(entry.getValue(), phoneNumberPkIds.subList(next, next + count));
+				next += count;
+			}
+			StudentPhoneNumberDatabaseHelper.linkAll(connection, links);
+		}
+
+		// Finally fetch the entity IDs generated by the database
+		Map<Integer, String> entityIdsByPkId = new HashMap<>();
+		for (List<Integer> batch : QueryUtils.partition(studentPkIds.values(), QueryUtils.IN_CLAUSE_CHUNK_SIZE)) {
+			String idQuery = "SELECT StudentPk_id, uuid FROM VW_Student WHERE StudentPk_id IN ("
+					+ QueryUtils.placeholders(batch.size()) + ")";
+			try (PreparedStatement idStatement = connection.prepareStatement(idQuery)) {
+				for (int i = 0; i < batch.size(); i++) {
+					idStatement.setInt(i + 1, batch.get(i));
+				}
+				try (ResultSet idResultSet = idStatement.executeQuery()) {
+					while (idResultSet.next()) {
+						entityIdsByPkId.put(idResultSet.getInt("StudentPk_id"), idResultSet.getString("uuid"));
+					}
+				}
+			}
+		}
+		for (Map.Entry<Integer, Integer> entry : studentPkIds.entrySet()) {
+			results[entry.getKey()] = new BulkInsertResult(entry.getKey(), Outcome.CREATED,
+					entityIdsByPkId.get(entry.getValue()), null);
+		}
+
+		// The whole chunk shares one change sequence number, taken last as it is held until commit
+		ChangeSequence.stamp(connection, ChangeSequence.STUDENT, "pk_id", studentPkIds.values());
+	}
+
+	/**
+	 * 
+	 * Looks for a Student already holding any of the unique identifiers of the one
+	 * passed, deleted or not, with a single query served by the unique indexes.
+	 * 
+	 * @param connection
+	 *            The connection on which to run the query.
+	 * @param student
+	 *            The Student to check.
+	 * @return The name of an identifier already in use (cedula, studentId or uuid), or null if
+	 *         none is.
+	 * @throws SQLException
+	 *             If the query fails.
+	 */
+	private static String findConflict(Connection connection, Student student) throws SQLException {
+		String conflict = null;
+
+		// Deleted rows still hold their identifiers under the unique constraints
+		String conflictQuery = "SELECT cedula, studentId, uuid FROM Student "
+				+ "WHERE cedula=? OR studentId=? OR uuid=? LIMIT 1";
+		try (PreparedStatement conflictStatement = connection.prepareStatement(conflictQuery)) {
+			conflictStatement.setString(1, student.getCedula());
+			conflictStatement.setString(2, student.getStudentId());
+			conflictStatement.setString(3, student.getEntityId());
+			try (ResultSet conflictResultSet = conflictStatement.executeQuery()) {
+				if (conflictResultSet.next()) {
+					if (matches(student.getCedula(), conflictResultSet.getString("cedula"))) {
+						conflict = "cedula";
+					} else if (matches(student.getStudentId(), conflictResultSet.getString("studentId"))) {
+						conflict = "studentId";
+					} else {
+						conflict = "uuid";
+					}
+				}
+			}
+		}
+
+		return conflict;
+	}
+
+	// Identifier columns use a case insensitive collation
+	private static boolean matches(String value, String storedValue) {
+		return value != null && value.equalsIgnoreCase(storedValue);
+	}
+
+	/**
+	 * 
+	 * @param connection
+	 *            The connection on which to run the queries.
+	 * @param identifier
+	 *            The name of a column of Student with an unique identifier.
+	 * @param values
+	 *            The values to look for.
+	 * @return The values passed that are already stored under the identifier,
+	 *         including by deleted Students.
+	 * @throws SQLException
+	 *             If any of the queries fail.
+	 */
+	private static Set<String> findExisting(Connection connection, String identifier, Collection<String> values)
+			throws SQLException {
+		Set<String> existing = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+
+		for (List<String> chunk : QueryUtils.partition(values, QueryUtils.IN_CLAUSE_CHUNK_SIZE)) {
+			String existingQuery = String.format(StatementRegistry.get(StatementRegistry.STUDENT_EXISTING, identifier),
+					QueryUtils.placeholders(chunk.size()));
+			try (PreparedStatement existingStatement = connection.prepareStatement(existingQuery)) {
+				for (int i = 0; i < chunk.size(); i++) {
+					existingStatement.setString(i + 1, chunk.get(i));
+				}
+				try (ResultSet existingResultSet = existingStatement.executeQuery()) {
+					while (existingResultSet.next()) {
+						existing.add(existingResultSet.getString(1));
+					}
+				}
+			}
+		}
+
+		return existing;
+	}
+
+	/**
+	 * 
+	 * @param student
+	 *            The Student to check.
+	 * @return Why the Student cannot be inserted, or null if it is well formed.
+	 */
+	private static String validate(Student student) {
+		String error = null;
+
+		if (student == null) {
+			error = "Missing Student";
+		} else if (student.getCedula() == null || student.getCedula().trim().length() == 0) {
+			error = "cedula is required";
+		} else if (student.getStudentId() == null || student.getStudentId().trim().length() == 0) {
+			error = "studentId is required";
+		} else if (StudentStatusDatabaseHelper.getStatusPkId(student.getStatus()) < 0) {
+			error = "Unknown status: " + student.getStatus();
+		} else if (student.getPhoneNumbers() != null) {
+			for (PhoneNumber phoneNumber : student.getPhoneNumbers()) {
+				if (phoneNumber == null || phoneNumber.getPhoneNumber() == null
+						|| PhoneTypeDatabaseHelper.getPkId(phoneNumber.getType()) < 0) {
+					error = "Malformed phone number";
+					break;
+				}
+			}
+		}
+
+		return error;
+	}
+
 	/**
 	 * 
 	 * @param identifier
@@ -234,25 +991,29 @@ public class StudentDatabaseHelper {
 	 *            The value stored in the identifier for the particular student we
 	 *            want to delete.
 	 * @return True if Student was successfully deleted, false otherwise.
+	 * @throws IllegalArgumentException
+	 *             If identifier is not one of the identifier columns supported.
 	 */
 	public static boolean deleteByUniqueIdentifier(String identifier, String value) {
 		boolean opResult = false;
 
-		try {
-			DatabaseConnection connection = new DatabaseConnection();
-
-			// Apply updates
-			String deleteQuery = String.format("UPDATE Student SET MD_isDeleted=TRUE WHERE %s=?", identifier);
-			PreparedStatement deleteStatement = connection.getConnection().prepareStatement(deleteQuery);
-			deleteStatement.setString(1, value);
-			int affectedRows = deleteStatement.executeUpdate();
+		try (UnitOfWork unitOfWork = new UnitOfWork()) {
+			Connection connection = unitOfWork.getConnection();
 
-			// Close unused resources
-			deleteStatement.close();
-			connection.close();
+			// Apply updates, entities already deleted are not found
+			String deleteQuery = StatementRegistry.get(StatementRegistry.STUDENT_DELETE, identifier);
+			int affectedRows;
+			try (PreparedStatement deleteStatement = connection.prepareStatement(deleteQuery)) {
+				deleteStatement.setString(1, value);
+				affectedRows = deleteStatement.executeUpdate();
+			}
 
 			// Operation failed if affected rows <= 0
 			if (affectedRows > 0) {
+				// Stamp the row last, the change sequence is held until commit
+				ChangeSequence.stamp(connection, ChangeSequence.STUDENT, identifier,
+						Collections.singletonList(value));
+				unitOfWork.commit();
 				opResult = true;
 			}
 		} catch (SQLException e) {
@@ -273,60 +1034,72 @@ public class StudentDatabaseHelper {
 	 * @param updatedStudent
 	 *            A Student object containing the new data for the entity.
 	 * @return true if update was successful, false otherwise.
+	 * @throws IllegalArgumentException
+	 *             If identifier is not one of the identifier columns supported.
 	 */
 	public static boolean updateByUniqueIdentifier(String identifier, String value, Student updatedStudent) {
 		boolean opResult = false;
 
-		try {
-			DatabaseConnection connection = new DatabaseConnection();
+		// Fetch student status pk_id
+		int statusPkId = StudentStatusDatabaseHelper.getStatusPkId(updatedStudent.getStatus());
+		if (statusPkId < 0) {
+			// Student object malformed
+			return opResult;
+		}
+
+		// Every statement below runs on the same connection and is committed at once
+		try (UnitOfWork unitOfWork = new UnitOfWork()) {
+			Connection connection = unitOfWork.getConnection();
 
 			// Fetch student pk_id
-			int studentPkId = getPkIdByUniqueIdentifier(identifier, value);
+			int studentPkId = getPkIdByUniqueIdentifier(connection, identifier, value);
 			if (studentPkId < 0) {
 				// Student not found
 				return opResult;
 			}
 
-			// Fetch student status pk_id
-			int statusPkId = StudentStatusDatabaseHelper.getStatusPkId(updatedStudent.getStatus());
-			if (statusPkId < 0) {
-				// Student object malformed
-				return opResult;
-			}
-
 			String updateQuery = "UPDATE Student SET "
 					+ "studentId=?, firstName=?, middleName=?, firstSurname=?, secondSurname=?, "
-					+ "cedula=?, email=?, address=?, StatusPk_id=? " + String.format("WHERE %s=?", identifier);
-			PreparedStatement updateStatement = connection.getConnection().prepareStatement(updateQuery);
-			updateStatement.setString(1, updatedStudent.getStudentId());
-			updateStatement.setString(2, updatedStudent.getFirstName());
-			updateStatement.setString(3, updatedStudent.getMiddleName());
-			updateStatement.setString(4, updatedStudent.getFirstSurname());
-			updateStatement.setString(5, updatedStudent.getSecondSurname());
-			updateStatement.setString(6, updatedStudent.getCedula());
-			updateStatement.setString(7, updatedStudent.getEmail());
-			updateStatement.setString(8, updatedStudent.getAddress());
-			updateStatement.setInt(9, statusPkId);
-			updateStatement.setString(10, value);
-			int affectedRows = updateStatement.executeUpdate();
-
-			// Close unused resources
-			updateStatement.close();
-			connection.close();
+					+ "cedula=?, email=?, address=?, StatusPk_id=?, MD_version=MD_version+1 "
+					+ "WHERE pk_id=?";
+			int affectedRows;
+			try (PreparedStatement updateStatement = connection.prepareStatement(updateQuery)) {
+				updateStatement.setString(1, updatedStudent.getStudentId());
+				updateStatement.setString(2, updatedStudent.getFirstName());
+				updateStatement.setString(3, updatedStudent.getMiddleName());
+				updateStatement.setString(4, updatedStudent.getFirstSurname());
+				updateStatement.setString(5, updatedStudent.getSecondSurname());
+				updateStatement.setString(6, updatedStudent.getCedula());
+				updateStatement.setString(7, updatedStudent.getEmail());
+				updateStatement.setString(8, updatedStudent.getAddress());
+				updateStatement.setInt(9, statusPkId);
+				updateStatement.setInt(10, studentPkId);
+				affectedRows = updateStatement.executeUpdate();
+			}
 
 			if (affectedRows > 0) {
-				// If student data was inserted correctly, re-associate telephone numbers, if
-				// any
-				StudentPhoneNumberDatabaseHelper.unlinkAll(studentPkId);
-				if (updatedStudent.getPhoneNumbers() != null) {
-					for (PhoneNumber p : updatedStudent.getPhoneNumbers()) {
-						int phoneNumberPkId = PhoneNumberDatabaseHelper.resolve(p);
-						StudentPhoneNumberDatabaseHelper.link(phoneNumberPkId, studentPkId);
+				/*
+				 * If student data was updated correctly, re-associate telephone numbers, if
+				 * any
+				 */
+				List<Integer> phoneNumberPkIds = new ArrayList<>();
+				if (updatedStudent.getPhoneNumbers() != null && !updatedStudent.getPhoneNumbers().isEmpty()) {
+					phoneNumberPkIds = PhoneNumberDatabaseHelper.resolveAll(connection,
+							updatedStudent.getPhoneNumbers());
+					if (phoneNumberPkIds.contains(-1)) {
+						// Malformed phone number, the whole update is rolled back
+						return opResult;
 					}
 				}
+				// Only links that actually changed are written
+				StudentPhoneNumberDatabaseHelper.replaceAll(connection, phoneNumberPkIds, studentPkId);
+
+				// Stamp the row last, the change sequence is held until commit
+				ChangeSequence.stamp(connection, ChangeSequence.STUDENT, "pk_id",
+						Collections.singletonList(studentPkId));
+				unitOfWork.commit();
 				opResult = true;
 			}
-
 		} catch (SQLException e) {
 			e.printStackTrace();
 		}
@@ -344,27 +1117,103 @@ public class StudentDatabaseHelper {
 	 *            want to locate.
 	 * @return The primary key value of the student stored under the identifier, or
 	 *         -1 if not found.
+	 * @throws IllegalArgumentException
+	 *             If identifier is not one of the identifier columns supported.
 	 */
 	public static int getPkIdByUniqueIdentifier(String identifier, String value) {
 		int pkId = -1;
 
-		try {
-			DatabaseConnection connection = new DatabaseConnection();
+		try (DatabaseConnection connection = new DatabaseConnection()) {
+			pkId = getPkIdByUniqueIdentifier(connection.getConnection(), identifier, value);
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
 
-			String idQuery = String.format("SELECT StudentPk_id FROM VW_Student WHERE %s=?", identifier);
-			PreparedStatement idStatement = connection.getConnection().prepareStatement(idQuery);
-			idStatement.setString(1, value);
-			ResultSet idResultSet = idStatement.executeQuery();
+		return pkId;
+	}
+
+	/**
+	 * 
+	 * Same as {@link #getPkIdByUniqueIdentifier(String, String)}, using an
+	 * already open connection.
+	 * 
+	 * @param connection
+	 *            The connection on which to run the queries.
+	 * @throws SQLException
+	 *             If any of the queries fail.
+	 */
+	static int getPkIdByUniqueIdentifier(Connection connection, String identifier, String value)
+			throws SQLException {
+		int pkId = -1;
 
-			if (idResultSet.next()) {
-				pkId = idResultSet.getInt("StudentPk_id");
+		String idQuery = StatementRegistry.get(StatementRegistry.STUDENT_PK_BY_IDENTIFIER, identifier);
+		try (PreparedStatement idStatement = connection.prepareStatement(idQuery)) {
+			idStatement.setString(1, value);
+			try (ResultSet idResultSet = idStatement.executeQuery()) {
+				if (idResultSet.next()) {
+					pkId = idResultSet.getInt("StudentPk_id");
+				}
 			}
+		}
+
+		return pkId;
+	}
+
+	/**
+	 * 
+	 * Reads the row version of a Student, which starts at 1 and grows every time
+	 * the Student or its phone numbers change. Only the Student table is read, so this
+	 * is much cheaper than fetching the Student.
+	 * 
+	 * @param identifier
+	 *            The name of the column with an unique identifier that we want to
+	 *            use to locate the Student.
+	 * @param value
+	 *            The value stored in the identifier for the particular student we
+	 *            want to locate.
+	 * @return The row version of the student stored under the identifier, or -1 if
+	 *         not found.
+	 * @throws IllegalArgumentException
+	 *             If identifier is not one of the identifier columns supported.
+	 */
+	public static long getVersionByUniqueIdentifier(String identifier, String value) {
+		long version = -1;
 
+		try (DatabaseConnection connection = new DatabaseConnection()) {
+			String versionQuery = StatementRegistry.get(StatementRegistry.STUDENT_VERSION, identifier);
+			try (PreparedStatement versionStatement = connection.getConnection().prepareStatement(versionQuery)) {
+				versionStatement.setString(1, value);
+				try (ResultSet versionResultSet = versionStatement.executeQuery()) {
+					if (versionResultSet.next()) {
+						version = versionResultSet.getLong("MD_version");
+					}
+				}
+			}
 		} catch (SQLException e) {
 			e.printStackTrace();
 		}
 
-		return pkId;
+		return version;
 	}
 
+	/**
+	 * 
+	 * Reads a value that changes whenever a Student is created, updated or
+	 * deleted: every write stamps its rows with the next number of the Student
+	 * change sequence, whose current value is a single row read.
+	 * 
+	 * @return The version of the whole Student collection, or null if it could not
+	 *         be read.
+	 */
+	public static String getCollectionVersion() {
+		String version = null;
+
+		try (DatabaseConnection connection = new DatabaseConnection()) {
+			version = Long.toString(ChangeSequence.current(connection.getConnection(), ChangeSequence.STUDENT));
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+
+		return version;
+	}
 }
@@ -1,11 +1,19 @@
 package db;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import core.PhoneNumber;
 
@@ -24,28 +32,108 @@ public class StudentPhoneNumberDatabaseHelper {
 	public static boolean link(int phoneNumberPkId, int studentPkId) {
 		boolean result = false;
 
-		try {
-			DatabaseConnection connection = new DatabaseConnection();
+		try (DatabaseConnection connection = new DatabaseConnection()) {
+			result = link(connection.getConnection(), phoneNumberPkId, studentPkId);
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
 
-			// First fetch key of the phoneType
-			String linkQuery = "INSERT INTO StudentHasPhoneNumber (StudentPk_id, PhoneNumberPk_id) VALUES (?, ?)";
-			PreparedStatement linkStatement = connection.getConnection().prepareStatement(linkQuery,
-					Statement.RETURN_GENERATED_KEYS);
-			linkStatement.setInt(1, studentPkId);
-			linkStatement.setInt(2, phoneNumberPkId);
-			int affectedRows = linkStatement.executeUpdate();
+		return result;
+	}
 
-			// Close unused resources
-			linkStatement.close();
-			connection.close();
+	/**
+	 * 
+	 * Same as {@link #link(int, int)}, using an already open connection.
+	 * 
+	 * @param connection
+	 *            The connection on which to run the queries.
+	 * @throws SQLException
+	 *             If any of the queries fail.
+	 */
+	static boolean link(Connection connection, int phoneNumberPkId, int studentPkId) throws SQLException {
+		boolean result = false;
 
-			if (affectedRows > 0) {
+		// First fetch key of the phoneType
+		String linkQuery = "INSERT INTO StudentHasPhoneNumber (StudentPk_id, PhoneNumberPk_id) VALUES (?, ?)";
+		try (PreparedStatement linkStatement = connection.prepareStatement(linkQuery,
+				Statement.RETURN_GENERATED_KEYS)) {
+			linkStatement.setInt(1, studentPkId);
+			linkStatement.setInt(2, phoneNumberPkId);
+			if (linkStatement.executeUpdate() > 0) {
 				// Values were inserted
 				result = true;
 			}
+		}
 
-		} catch (SQLException e) {
-			e.printStackTrace();
+		return result;
+	}
+
+	/**
+	 * 
+	 * Links several Phone Number entities to a Student entity, sending the inserts
+	 * in JDBC batches instead of one statement per Phone Number.
+	 * 
+	 * @param connection
+	 *            The connection on which to run the inserts.
+	 * @param phoneNumberPkIds
+	 *            The primary keys of the Phone Number entities. Duplicates are
+	 *            linked only once.
+	 * @param studentPkId
+	 *            The primary key of the Student entity.
+	 * @return true if every link was inserted, false otherwise.
+	 * @throws SQLException
+	 *             If any of the inserts fail.
+	 */
+	static boolean linkAll(Connection connection, Collection<Integer> phoneNumberPkIds, int studentPkId)
+			throws SQLException {
+		return linkAll(connection, Collections.singletonMap(studentPkId, phoneNumberPkIds));
+	}
+
+	/**
+	 * 
+	 * Links the Phone Numbers of several Student entities at once, sending the
+	 * inserts in JDBC batches.
+	 * 
+	 * @param connection
+	 *            The connection on which to run the inserts.
+	 * @param phoneNumberPkIds
+	 *            Map from the primary key of each Student entity to the primary keys
+	 *            of the Phone Number entities to link to it. Duplicates are linked
+	 *            only once.
+	 * @return true if every link was inserted, false otherwise.
+	 * @throws SQLException
+	 *             If any of the inserts fail.
+	 */
+	static boolean linkAll(Connection connection, Map<Integer, ? extends Collection<Integer>> phoneNumberPkIds)
+			throws SQLException {
+		boolean result = true;
+
+		// Pairs of (StudentPk_id, PhoneNumberPk_id) to insert
+		List<int[]> links = new ArrayList<>();
+		for (Map.Entry<Integer, ? extends Collection<Integer>> entry : phoneNumberPkIds.entrySet()) {
+			for (Integer phoneNumberPkId : new LinkedHashSet<>(entry.getValue())) {
+				links.add(new int[] { entry.getKey(), phoneNumberPkId });
+			}
+		}
+
+		for (List<int[]> chunk : QueryUtils.partition(links, QueryUtils.BATCH_SIZE)) {
+			String linkQuery = "INSERT INTO StudentHasPhoneNumber (StudentPk_id, PhoneNumberPk_id) VALUES (?, ?)";
+			int[] affectedRows;
+			try (PreparedStatement linkStatement = connection.prepareStatement(linkQuery)) {
+				for (int[] link : chunk) {
+					linkStatement.setInt(1, link[0]);
+					linkStatement.setInt(2, link[1]);
+					linkStatement.addBatch();
+				}
+				affectedRows = linkStatement.executeBatch();
+			}
+
+			for (int rows : affectedRows) {
+				// SUCCESS_NO_INFO is reported when the driver rewrites the batch
+				if (rows == 0 || rows == Statement.EXECUTE_FAILED) {
+					result = false;
+				}
+			}
 		}
 
 		return result;
@@ -64,27 +152,36 @@ public class StudentPhoneNumberDatabaseHelper {
 	public static boolean unlink(int phoneNumberPkId, int studentPkId) {
 		boolean result = false;
 
-		try {
-			DatabaseConnection connection = new DatabaseConnection();
+		try (DatabaseConnection connection = new DatabaseConnection()) {
+			result = unlink(connection.getConnection(), phoneNumberPkId, studentPkId);
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
 
-			// First fetch key of the phoneType
-			String unlinkQuery = "DELETE FROM StudentHasPhoneNumber WHERE StudentPk_id=? AND PhoneNumberPk_id=?";
-			PreparedStatement unlinkStatement = connection.getConnection().prepareStatement(unlinkQuery);
+		return result;
+	}
+
+	/**
+	 * 
+	 * Same as {@link #unlink(int, int)}, using an already open connection.
+	 * 
+	 * @param connection
+	 *            The connection on which to run the queries.
+	 * @throws SQLException
+	 *             If any of the queries fail.
+	 */
+	static boolean unlink(Connection connection, int phoneNumberPkId, int studentPkId) throws SQLException {
+		boolean result = false;
+
+		// First fetch key of the phoneType
+		String unlinkQuery = "DELETE FROM StudentHasPhoneNumber WHERE StudentPk_id=? AND PhoneNumberPk_id=?";
+		try (PreparedStatement unlinkStatement = connection.prepareStatement(unlinkQuery)) {
 			unlinkStatement.setInt(1, studentPkId);
 			unlinkStatement.setInt(2, phoneNumberPkId);
-			int affectedRows = unlinkStatement.executeUpdate();
-
-			if (affectedRows > 0) {
+			if (unlinkStatement.executeUpdate() > 0) {
 				// Values were updated
 				result = true;
 			}
-
-			// Close unused resources
-			unlinkStatement.close();
-			connection.close();
-
-		} catch (SQLException e) {
-			e.printStackTrace();
 		}
 
 		return result;
@@ -101,31 +198,128 @@ public class StudentPhoneNumberDatabaseHelper {
 	public static boolean unlinkAll(int studentPkId) {
 		boolean result = false;
 
-		try {
-			DatabaseConnection connection = new DatabaseConnection();
+		try (DatabaseConnection connection = new DatabaseConnection()) {
+			result = unlinkAll(connection.getConnection(), studentPkId);
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
 
-			// First fetch key of the phoneType
-			String unlinkQuery = "DELETE FROM StudentHasPhoneNumber WHERE StudentPk_id=?";
-			PreparedStatement unlinkStatement = connection.getConnection().prepareStatement(unlinkQuery);
-			unlinkStatement.setInt(1, studentPkId);
-			int affectedRows = unlinkStatement.executeUpdate();
+		return result;
+	}
+
+	/**
+	 * 
+	 * Same as {@link #unlinkAll(int)}, using an already open connection.
+	 * 
+	 * @param connection
+	 *            The connection on which to run the queries.
+	 * @throws SQLException
+	 *             If any of the queries fail.
+	 */
+	static boolean unlinkAll(Connection connection, int studentPkId) throws SQLException {
+		boolean result = false;
 
-			if (affectedRows > 0) {
+		// First fetch key of the phoneType
+		String unlinkQuery = "DELETE FROM StudentHasPhoneNumber WHERE StudentPk_id=?";
+		try (PreparedStatement unlinkStatement = connection.prepareStatement(unlinkQuery)) {
+			unlinkStatement.setInt(1, studentPkId);
+			if (unlinkStatement.executeUpdate() > 0) {
 				// Values were updated
 				result = true;
 			}
+		}
 
-			// Close unused resources
-			unlinkStatement.close();
-			connection.close();
+		return result;
+	}
 
-		} catch (SQLException e) {
-			e.printStackTrace();
+	/**
+	 * 
+	 * Unlinks several Phone Number entities from a Student entity, sending the
+	 * deletes in JDBC batches.
+	 * 
+	 * @param connection
+	 *            The connection on which to run the deletes.
+	 * @param phoneNumberPkIds
+	 *            The primary keys of the Phone Number entities.
+	 * @param studentPkId
+	 *            The primary key of the Student entity.
+	 * @return true if every link was deleted, false otherwise.
+	 * @throws SQLException
+	 *             If any of the deletes fail.
+	 */
+	static boolean unlinkAll(Connection connection, Collection<Integer> phoneNumberPkIds, int studentPkId)
+			throws SQLException {
+		boolean result = true;
+
+		for (List<Integer> chunk : QueryUtils.partition(new LinkedHashSet<>(phoneNumberPkIds),
+				QueryUtils.BATCH_SIZE)) {
+			String unlinkQuery = "DELETE FROM StudentHasPhoneNumber WHERE StudentPk_id=? AND PhoneNumberPk_id=?";
+			int[] affectedRows;
+			try (PreparedStatement unlinkStatement = connection.prepareStatement(unlinkQuery)) {
+				for (Integer phoneNumberPkId : chunk) {
+					unlinkStatement.setInt(1, studentPkId);
+					unlinkStatement.setInt(2, phoneNumberPkId);
+					unlinkStatement.addBatch();
+				}
+				affectedRows = unlinkStatement.executeBatch();
+			}
+
+			for (int rows : affectedRows) {
+				if (rows == 0 || rows == Statement.EXECUTE_FAILED) {
+					result = false;
+				}
+			}
 		}
 
 		return result;
 	}
 
+	/**
+	 * 
+	 * Makes the Phone Numbers linked to a Student entity exactly those passed.
+	 * The current links are read first and only the difference is written, so
+	 * links that stay the same are left untouched.
+	 * 
+	 * @param connection
+	 *            The connection on which to run the queries.
+	 * @param phoneNumberPkIds
+	 *            The primary keys of the Phone Number entities the Student must be
+	 *            linked to.
+	 * @param studentPkId
+	 *            The primary key of the Student entity.
+	 * @return true if every change was applied, false otherwise.
+	 * @throws SQLException
+	 *             If any of the queries fail.
+	 */
+	static boolean replaceAll(Connection connection, Collection<Integer> phoneNumberPkIds, int studentPkId)
+			throws SQLException {
+		Set<Integer> currentPkIds = new HashSet<>();
+
+		String linkQuery = "SELECT PhoneNumberPk_id FROM StudentHasPhoneNumber WHERE StudentPk_id=?";
+		try (PreparedStatement linkStatement = connection.prepareStatement(linkQuery)) {
+			linkStatement.setInt(1, studentPkId);
+			try (ResultSet linkResultSet = linkStatement.executeQuery()) {
+				while (linkResultSet.next()) {
+					currentPkIds.add(linkResultSet.getInt("PhoneNumberPk_id"));
+				}
+			}
+		}
+
+		Set<Integer> addedPkIds = new LinkedHashSet<>(phoneNumberPkIds);
+		addedPkIds.removeAll(currentPkIds);
+		Set<Integer> removedPkIds = new LinkedHashSet<>(currentPkIds);
+		removedPkIds.removeAll(phoneNumberPkIds);
+
+		boolean result = true;
+		if (!removedPkIds.isEmpty()) {
+			result &= unlinkAll(connection, removedPkIds, studentPkId);
+		}
+		if (!addedPkIds.isEmpty()) {
+			result &= linkAll(connection, addedPkIds, studentPkId);
+		}
+		return result;
+	}
+
 	/**
 	 * @param studentPkId
 	 *            The primary key of the Student entity.
@@ -136,35 +330,96 @@ public class StudentPhoneNumberDatabaseHelper {
 
 		List<PhoneNumber> phoneNumbers = new ArrayList<>();
 
-		try {
-			DatabaseConnection connection = new DatabaseConnection();
+		try (DatabaseConnection connection = new DatabaseConnection()) {
+			phoneNumbers = getAll(connection.getConnection(), studentPkId);
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
 
-			String phoneNumberQuery = "SELECT VW_PhoneNumber.PhoneNumberPk_id, VW_PhoneNumber.uuid, VW_PhoneNumber.phoneNumber, VW_PhoneNumber.phoneType FROM VW_PhoneNumber LEFT JOIN StudentHasPhoneNumber ON VW_PhoneNumber.PhoneNumberPk_id=StudentHasPhoneNumber.PhoneNumberPk_id WHERE StudentHasPhoneNumber.StudentPk_id=?";
-			PreparedStatement phoneNumberStatement = connection.getConnection().prepareStatement(phoneNumberQuery);
-			phoneNumberStatement.setInt(1, studentPkId);
-			ResultSet phoneNumberResultSet = phoneNumberStatement.executeQuery();
+		return phoneNumbers;
+	}
 
-			while (phoneNumberResultSet.next()) {
-				String phoneNumberEntityId = phoneNumberResultSet.getString("uuid");
-				String number = phoneNumberResultSet.getString("phoneNumber");
-				String type = phoneNumberResultSet.getString("phoneType");
+	/**
+	 * 
+	 * Same as {@link #getAll(int)}, using an already open connection.
+	 * 
+	 * @param connection
+	 *            The connection on which to run the query.
+	 * @param studentPkId
+	 *            The primary key of the Student entity.
+	 * @return A List of all Phone Number entities associated to the Student entity,
+	 *         or an empty List if none.
+	 * @throws SQLException
+	 *             If the query fails.
+	 */
+	static List<PhoneNumber> getAll(Connection connection, int studentPkId) throws SQLException {
+		return getAll(connection, Collections.singletonList(studentPkId)).get(studentPkId);
+	}
 
-				PhoneNumber phoneNumber = new PhoneNumber();
-				phoneNumber.setEntityId(phoneNumberEntityId);
-				phoneNumber.setPhoneNumber(number);
-				phoneNumber.setType(type);
-				phoneNumbers.add(phoneNumber);
-			}
+	/**
+	 * 
+	 * Fetches the Phone Numbers of several Student entities at once, issuing one
+	 * query per {@link QueryUtils#IN_CLAUSE_CHUNK_SIZE} entities instead of one per
+	 * entity.
+	 * 
+	 * @param studentPkIds
+	 *            The primary keys of the Student entities.
+	 * @return A Map from each primary key passed to the List of Phone Number
+	 *         entities associated to it. Every key passed is present in the map,
+	 *         mapped to an empty List if the Student has no Phone Numbers.
+	 */
+	public static Map<Integer, List<PhoneNumber>> getAll(Collection<Integer> studentPkIds) {
 
-			// Close unused resources
-			phoneNumberResultSet.close();
-			phoneNumberStatement.close();
-			connection.close();
+		Map<Integer, List<PhoneNumber>> phoneNumbers = new HashMap<>();
 
+		try (DatabaseConnection connection = new DatabaseConnection()) {
+			phoneNumbers = getAll(connection.getConnection(), studentPkIds);
 		} catch (SQLException e) {
 			e.printStackTrace();
 		}
 
 		return phoneNumbers;
 	}
+
+	/**
+	 * 
+	 * Same as {@link #getAll(Collection)}, using an already open connection.
+	 * 
+	 * @param connection
+	 *            The connection on which to run the queries.
+	 * @param studentPkIds
+	 *            The primary keys of the Student entities.
+	 * @return A Map from each primary key passed to its List of Phone Numbers.
+	 * @throws SQLException
+	 *             If any of the queries fail.
+	 */
+	static Map<Integer, List<PhoneNumber>> getAll(Connection connection, Collection<Integer> studentPkIds)
+			throws SQLException {
+
+		Map<Integer, List<PhoneNumber>> phoneNumbers = new HashMap<>();
+		for (Integer studentPkId : studentPkIds) {
+			phoneNumbers.put(studentPkId, new ArrayList<PhoneNumber>());
+		}
+
+		for (List<Integer> chunk : QueryUtils.partition(phoneNumbers.keySet(), QueryUtils.IN_CLAUSE_CHUNK_SIZE)) {
+			String phoneNumberQuery = "SELECT StudentHasPhoneNumber.StudentPk_id, VW_PhoneNumber.PhoneNumberPk_id, VW_PhoneNumber.uuid, VW_PhoneNumber.phoneNumber, VW_PhoneNumber.phoneType FROM VW_PhoneNumber INNER JOIN StudentHasPhoneNumber ON VW_PhoneNumber.PhoneNumberPk_id=StudentHasPhoneNumber.PhoneNumberPk_id WHERE StudentHasPhoneNumber.StudentPk_id IN ("
+					+ QueryUtils.placeholders(chunk.size()) + ")";
+			try (PreparedStatement phoneNumberStatement = connection.prepareStatement(phoneNumberQuery)) {
+				for (int i = 0; i < chunk.size(); i++) {
+					phoneNumberStatement.setInt(i + 1, chunk.get(i));
+				}
+				try (ResultSet phoneNumberResultSet = phoneNumberStatement.executeQuery()) {
+					// Group the rows by owner
+					RowMapper<PhoneNumber>.Row row = PhoneNumberRowMapper.INSTANCE.bind(phoneNumberResultSet);
+					int studentPkIdColumn = phoneNumberResultSet.findColumn("StudentPk_id");
+					while (phoneNumberResultSet.next()) {
+						int studentPkId = phoneNumberResultSet.getInt(studentPkIdColumn);
+						phoneNumbers.get(studentPkId).add(row.map());
+					}
+				}
+			}
+		}
+
+		return phoneNumbers;
+	}
 }
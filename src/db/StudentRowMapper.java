@@ -0,0 +1,153 @@
+package db;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import core.Student;
+
+/**
+ * Maps rows of VW_Student to Students, reading only the fields of a projection. Phone
+ * numbers are not read.
+ *
+ * @author Francisco Frias
+ * @author Abel Guzman
+ * @author Amin Guzman
+ *
+ */
+final class StudentRowMapper extends RowMapper<Student> {
+	// Fields that can be read and the columns they are read from, by position
+	private static final List<String> FIELDS = Arrays.asList("entityId", "studentId", "firstName", "middleName",
+			"firstSurname", "secondSurname", "cedula", "email", "address", "status");
+	private static final List<String> COLUMNS = Arrays.asList("uuid", "studentId", "firstName", "middleName",
+			"firstSurname", "secondSurname", "cedula", "email", "address", "status");
+	private static final int ENTITY_ID = 0;
+	private static final int STUDENT_ID = 1;
+	private static final int FIRST_NAME = 2;
+	private static final int MIDDLE_NAME = 3;
+	private static final int FIRST_SURNAME = 4;
+	private static final int SECOND_SURNAME = 5;
+	private static final int CEDULA = 6;
+	private static final int EMAIL = 7;
+	private static final int ADDRESS = 8;
+	private static final int STATUS = 9;
+
+	static final StudentRowMapper FULL = create(Projection.FULL);
+
+	private final Projection projection;
+	// Position of every field in the row, or -1 if not read
+	private final int[] positions;
+
+	private StudentRowMapper(Projection projection, List<String> columns, int[] positions) {
+		super(columns.toArray(new String[columns.size()]));
+		this.projection = projection;
+		this.positions = positions;
+	}
+
+	/**
+	 *
+	 * @param projection
+	 *            The fields to read.
+	 * @return The mapper reading them.
+	 * @throws IllegalArgumentException
+	 *             If the projection includes a field Students do not have.
+	 */
+	static StudentRowMapper of(Projection projection) {
+		return projection == Projection.FULL ? FULL : create(projection);
+	}
+
+	/**
+	 *
+	 * @param field
+	 *            A field of Students.
+	 * @return The column of VW_Student the field is read from.
+	 * @throws IllegalArgumentException
+	 *             If Students do not have the field.
+	 */
+	static String getColumn(String field) {
+		int index = FIELDS.indexOf(field);
+		if (index < 0) {
+			throw new IllegalArgumentException("Unknown Student field: " + field);
+		}
+		return COLUMNS.get(index);
+	}
+
+	Projection getProjection() {
+		return projection;
+	}
+
+	/**
+	 *
+	 * @param row
+	 *            A row bound by any of the Student mappers.
+	 * @return The primary key of the Student in the row.
+	 * @throws SQLException
+	 *             If the column cannot be read.
+	 */
+	static int getPkId(RowMapper<Student>.Row row) throws SQLException {
+		return row.getInt(0);
+	}
+
+	@Override
+	Student map(Row row) throws SQLException {
+		Student student = new Student();
+		student.setEntityId(row.getString(positions[ENTITY_ID]));
+		if (reads(STUDENT_ID)) {
+			student.setStudentId(row.getString(positions[STUDENT_ID]));
+		}
+		if (reads(FIRST_NAME)) {
+			student.setFirstName(row.getString(positions[FIRST_NAME]));
+		}
+		if (reads(MIDDLE_NAME)) {
+			student.setMiddleName(row.getString(positions[MIDDLE_NAME]));
+		}
+		if (reads(FIRST_SURNAME)) {
+			student.setFirstSurname(row.getString(positions[FIRST_SURNAME]));
+		}
+		if (reads(SECOND_SURNAME)) {
+			student.setSecondSurname(row.getString(positions[SECOND_SURNAME]));
+		}
+		if (reads(CEDULA)) {
+			student.setCedula(row.getString(positions[CEDULA]));
+		}
+		if (reads(EMAIL)) {
+			student.setEmail(row.getString(positions[EMAIL]));
+		}
+		if (reads(ADDRESS)) {
+			student.setAddress(row.getString(positions[ADDRESS]));
+		}
+		if (reads(STATUS)) {
+			student.setStatus(row.getString(positions[STATUS]));
+		}
+		return student;
+	}
+
+	private boolean reads(int field) {
+		return positions[field] >= 0;
+	}
+
+	private static StudentRowMapper create(Projection projection) {
+		if (projection.getFields() != null) {
+			for (String field : projection.getFields()) {
+				if (!FIELDS.contains(field) && !Projection.PHONE_NUMBERS.equals(field)) {
+					throw new IllegalArgumentException("Unknown Student field: " + field);
+				}
+			}
+		}
+
+		// The primary key comes first, the entity ID is always read
+		List<String> columns = new ArrayList<>();
+		columns.add("StudentPk_id");
+		int[] positions = new int[FIELDS.size()];
+		for (int field = 0; field < FIELDS.size(); field++) {
+			if (field == ENTITY_ID || projection.includes(FIELDS.get(field))) {
+				positions[field] = columns.size();
+				columns.add(COLUMNS.get(field));
+			} else {
+				positions[field] = -1;
+			}
+		}
+		return new StudentRowMapper(projection, columns, positions);
+	}
+}
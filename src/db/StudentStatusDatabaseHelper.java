@@ -1,39 +1,59 @@
 package db;
 
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Map;
 
 import core.Student.Status;
 
 public class StudentStatusDatabaseHelper {
+	/*
+	 * Immutable snapshot of the StudentStatus table, replaced as a whole on
+	 * refresh. Null until loaded successfully.
+	 */
+	private static volatile Map<Status, Integer> statusPkIds;
+
+	/**
+	 * 
+	 * @param status
+	 *            The status to look up.
+	 * @return The primary key of the status, or -1 if the status is not defined
+	 *         in the database.
+	 */
 	public static int getStatusPkId(Status status) {
 		int pkId = -1;
-		
-		try {
-			DatabaseConnection connection = new DatabaseConnection();
-
-			// First fetch key of the status to apply
-			String statusQuery = "SELECT pk_id FROM StudentStatus WHERE status=?";
-			PreparedStatement statusStatement = connection.getConnection().prepareStatement(statusQuery);
-			statusStatement.setString(1, status.name());
-			ResultSet statusResultSet = statusStatement.executeQuery();
-			if (statusResultSet.next()) {
-				pkId = statusResultSet.getInt("pk_id");
-			} else {
-				// If no status found, Student object must be malformed
-				return pkId;
-			}
-
-			// Close unused resources
-			statusResultSet.close();
-			statusStatement.close();
-			connection.close();
 
+		Map<Status, Integer> pkIds = statusPkIds;
+		if (pkIds == null) {
+			// Not loaded at startup, most likely because the database was down
+			refresh();
+			pkIds = statusPkIds;
+		}
+
+		if (status != null && pkIds != null && pkIds.containsKey(status)) {
+			pkId = pkIds.get(status);
+		}
+
+		return pkId;
+	}
+
+	/**
+	 * 
+	 * Reloads the StudentStatus table. Must be called whenever the table changes.
+	 * 
+	 * @return true if the table was reloaded, false otherwise.
+	 */
+	public static boolean refresh() {
+		boolean result = false;
+
+		try {
+			statusPkIds = Collections.unmodifiableMap(
+					LookupTables.load("SELECT pk_id, status FROM StudentStatus", Status.class));
+			result = true;
 		} catch (SQLException e) {
 			e.printStackTrace();
 		}
-		
-		return pkId;
+
+		return result;
 	}
 }
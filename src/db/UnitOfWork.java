@@ -0,0 +1,77 @@
+package db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Runs a group of statements on a single pooled connection as one transaction.
+ *
+ * Every statement issued through {@link #getConnection()} becomes visible to
+ * other connections only once {@link #commit()} is called. Closing a unit of
+ * work that has not been committed rolls it back, so an early return or an
+ * exception never leaves partial changes behind.
+ *
+ * @author Francisco Frias
+ * @author Abel Guzman
+ * @author Amin Guzman
+ *
+ */
+public class UnitOfWork implements AutoCloseable {
+	private final DatabaseConnection connection;
+	private boolean completed = false;
+
+	public UnitOfWork() throws SQLException {
+		connection = new DatabaseConnection();
+		try {
+			connection.getConnection().setAutoCommit(false);
+		} catch (SQLException e) {
+			connection.close();
+			throw e;
+		}
+	}
+
+	public Connection getConnection() {
+		return connection.getConnection();
+	}
+
+	/**
+	 *
+	 * Makes every change done in this unit of work permanent.
+	 *
+	 * @throws SQLException
+	 *             If the commit fails, in which case the changes are rolled back
+	 *             on close.
+	 */
+	public void commit() throws SQLException {
+		connection.getConnection().commit();
+		completed = true;
+	}
+
+	/**
+	 *
+	 * Discards every change done in this unit of work.
+	 *
+	 * @throws SQLException
+	 *             If the rollback fails.
+	 */
+	public void rollback() throws SQLException {
+		completed = true;
+		connection.getConnection().rollback();
+	}
+
+	/**
+	 *
+	 * Rolls back any uncommitted change and returns the connection to the pool.
+	 */
+	@Override
+	public void close() throws SQLException {
+		try {
+			if (!completed) {
+				rollback();
+			}
+		} finally {
+			// The pool restores auto-commit on release
+			connection.close();
+		}
+	}
+}
@@ -0,0 +1,123 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records durations into log-linear buckets, in the manner of an HDR
+ * histogram. Every power of two is split into 16 buckets, so any quantile is
+ * known within 1/16 of its value while the whole range, from a microsecond to
+ * hours, takes a fixed 528 counters.
+ *
+ * Recording is lock free and costs a few arithmetic operations and atomic
+ * increments, so it can sit on the path of every request. Counts and the sum
+ * are kept in striped counters, which do not contend when many threads record
+ * at once.
+ *
+ * @author Francisco Frias
+ * @author Abel Guzman
+ * @author Amin Guzman
+ *
+ */
+public class LatencyHistogram {
+	// Buckets per power of two is 2^SUB_BUCKET_BITS
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	// Longer durations are recorded as the maximum, about 19 hours
+	private static final long MAXIMUM_MICROS = (1L << 36) - 1;
+	private static final int BUCKET_COUNT = getIndex(MAXIMUM_MICROS) + 1;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder sumMicros = new LongAdder();
+	private final AtomicLong maximumMicros = new AtomicLong();
+
+	/**
+	 *
+	 * @param nanos
+	 *            The duration to record, in nanoseconds.
+	 */
+	public void record(long nanos) {
+		long micros = Math.min(Math.max(nanos / 1000, 0), MAXIMUM_MICROS);
+		buckets.incrementAndGet(getIndex(micros));
+		count.increment();
+		sumMicros.add(micros);
+		maximumMicros.accumulateAndGet(micros, Math::max);
+	}
+
+	public long getCount() {
+		return count.sum();
+	}
+
+	/**
+	 *
+	 * @return Sum of every duration recorded, in seconds.
+	 */
+	public double getSumSeconds() {
+		return sumMicros.sum() / 1e6;
+	}
+
+	/**
+	 *
+	 * @return The longest duration recorded, in seconds.
+	 */
+	public double getMaximumSeconds() {
+		return maximumMicros.get() / 1e6;
+	}
+
+	/**
+	 *
+	 * Estimates several quantiles from a single pass over the buckets.
+	 *
+	 * @param quantiles
+	 *            The quantiles to estimate, in ascending order, i.e. 0.5 and
+	 *            0.99.
+	 * @return The highest duration of the bucket holding every quantile, in
+	 *         seconds, or 0 for every quantile if nothing was recorded.
+	 */
+	public double[] getQuantileSeconds(double... quantiles) {
+		// Copy first, so concurrent records do not move the ranks during the walk
+		long[] counts = new long[BUCKET_COUNT];
+		long total = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			counts[i] = buckets.get(i);
+			total += counts[i];
+		}
+
+		double[] values = new double[quantiles.length];
+		if (total == 0) {
+			return values;
+		}
+		int bucket = 0;
+		long seen = counts[0];
+		for (int q = 0; q < quantiles.length; q++) {
+			long rank = Math.max(1, (long) Math.ceil(quantiles[q] * total));
+			while (seen < rank && bucket < BUCKET_COUNT - 1) {
+				bucket++;
+				seen += counts[bucket];
+			}
+			values[q] = Math.min(getHighestValue(bucket), maximumMicros.get()) / 1e6;
+		}
+		return values;
+	}
+
+	// Values under 2 * SUB_BUCKETS get a bucket each, larger ones share it with 2^shift values
+	private static int getIndex(long micros) {
+		if (micros < SUB_BUCKETS) {
+			return (int) micros;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(micros);
+		int shift = exponent - SUB_BUCKET_BITS;
+		return (shift + 1) * SUB_BUCKETS + (int) (micros >>> shift) - SUB_BUCKETS;
+	}
+
+	private static long getHighestValue(int index) {
+		if (index < 2 * SUB_BUCKETS) {
+			return index;
+		}
+		int shift = index / SUB_BUCKETS - 1;
+		long lowest = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+		return lowest + (1L << shift) - 1;
+	}
+}
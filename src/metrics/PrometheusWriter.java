@@ -0,0 +1,123 @@
+package metrics;
+
+import java.util.Arrays;
+
+/**
+ * Builds a scrape in the Prometheus text exposition format, version 0.0.4.
+ *
+ * Every metric is declared once with {@link #declare(String, String, String)}
+ * and followed by its samples.
+ *
+ * @author Francisco Frias
+ * @author Abel Guzman
+ * @author Amin Guzman
+ *
+ */
+public class PrometheusWriter {
+	public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+	private static final double[] QUANTILES = { 0.5, 0.9, 0.99, 0.999 };
+	private static final String[] QUANTILE_LABELS = { "0.5", "0.9", "0.99", "0.999" };
+
+	private final StringBuilder text = new StringBuilder(4096);
+
+	/**
+	 *
+	 * @param name
+	 *            The name of the metric.
+	 * @param type
+	 *            counter, gauge, summary, histogram or untyped.
+	 * @param help
+	 *            What the metric measures.
+	 * @return This writer.
+	 */
+	public PrometheusWriter declare(String name, String type, String help) {
+		text.append("# HELP ").append(name).append(' ').append(help.replace("\\", "\\\\").replace("\n", "\\n"))
+				.append('\n');
+		text.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+		return this;
+	}
+
+	/**
+	 *
+	 * @param name
+	 *            The name of the sample, the metric name or one of its _sum or
+	 *            _count suffixes.
+	 * @param value
+	 *            The value of the sample.
+	 * @param labels
+	 *            Label names, each followed by its value.
+	 * @return This writer.
+	 */
+	public PrometheusWriter sample(String name, double value, String... labels) {
+		appendName(name, labels);
+		if (value == Math.rint(value) && !Double.isInfinite(value) && Math.abs(value) < 1e15) {
+			// Whole numbers, the bulk of counters and gauges, without a trailing .0
+			text.append((long) value);
+		} else {
+			text.append(value);
+		}
+		text.append('\n');
+		return this;
+	}
+
+	/**
+	 *
+	 * Writes the samples of a summary: the quantiles, sum and count of the
+	 * durations recorded in a histogram.
+	 *
+	 * @param name
+	 *            The name of the metric, declared as a summary.
+	 * @param histogram
+	 *            The durations.
+	 * @param labels
+	 *            Label names, each followed by its value.
+	 * @return This writer.
+	 */
+	public PrometheusWriter summary(String name, LatencyHistogram histogram, String... labels) {
+		double[] values = histogram.getQuantileSeconds(QUANTILES);
+		String[] quantileLabels = Arrays.copyOf(labels, labels.length + 2);
+		quantileLabels[labels.length] = "quantile";
+		for (int i = 0; i < QUANTILES.length; i++) {
+			quantileLabels[labels.length + 1] = QUANTILE_LABELS[i];
+			sample(name, values[i], quantileLabels);
+		}
+		sample(name + "_sum", histogram.getSumSeconds(), labels);
+		sample(name + "_count", histogram.getCount(), labels);
+		return this;
+	}
+
+	@Override
+	public String toString() {
+		return text.toString();
+	}
+
+	private void appendName(String name, String... labels) {
+		text.append(name);
+		if (labels.length > 0) {
+			text.append('{');
+			for (int i = 0; i + 1 < labels.length; i += 2) {
+				if (i > 0) {
+					text.append(',');
+				}
+				text.append(labels[i]).append("=\"");
+				appendLabelValue(labels[i + 1]);
+				text.append('"');
+			}
+			text.append('}');
+		}
+		text.append(' ');
+	}
+
+	private void appendLabelValue(String value) {
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '\\' || c == '"') {
+				text.append('\\').append(c);
+			} else if (c == '\n') {
+				text.append("\\n");
+			} else {
+				text.append(c);
+			}
+		}
+	}
+}
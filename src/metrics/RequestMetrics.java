@@ -0,0 +1,89 @@
+package metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Latency of the requests answered, broken down by resource method, status
+ * code and media type.
+ *
+ * Every combination seen gets its own {@link LatencyHistogram}, created the
+ * first time it is recorded. Resource methods, status codes and the media types
+ * produced are few, so the number of series stays small.
+ *
+ * @author Francisco Frias
+ * @author Abel Guzman
+ * @author Amin Guzman
+ *
+ */
+public final class RequestMetrics {
+	public static final String DURATION_METRIC = "dartagnan_http_request_duration_seconds";
+
+	private static final ConcurrentMap<String, Series> SERIES = new ConcurrentHashMap<>();
+
+	private RequestMetrics() {
+	}
+
+	/**
+	 *
+	 * @param method
+	 *            The resource method that answered, i.e. StudentService.readAll.
+	 * @param status
+	 *            The status code of the response.
+	 * @param mediaType
+	 *            The media type of the response, without parameters, or null if
+	 *            it has no body.
+	 * @param nanos
+	 *            Time between the request arriving and the response being
+	 *            committed, in nanoseconds.
+	 */
+	public static void record(String method, int status, String mediaType, long nanos) {
+		String type = mediaType == null ? "none" : mediaType;
+		String key = method + ' ' + status + ' ' + type;
+		Series series = SERIES.get(key);
+		if (series == null) {
+			series = SERIES.computeIfAbsent(key, k -> new Series(method, Integer.toString(status), type));
+		}
+		series.histogram.record(nanos);
+	}
+
+	/**
+	 *
+	 * Writes a summary per series, with the count, sum, maximum and quantiles of
+	 * its latencies.
+	 *
+	 * @param writer
+	 *            The scrape to write to.
+	 */
+	public static void write(PrometheusWriter writer) {
+		List<Series> snapshot = new ArrayList<>(SERIES.values());
+
+		writer.declare(DURATION_METRIC, "summary",
+				"Time to answer requests, by resource method, status and media type");
+		for (Series series : snapshot) {
+			writer.summary(DURATION_METRIC, series.histogram, "method", series.method, "status", series.status,
+					"media_type", series.mediaType);
+		}
+
+		writer.declare(DURATION_METRIC + "_max", "gauge", "Longest time to answer a request since startup");
+		for (Series series : snapshot) {
+			writer.sample(DURATION_METRIC + "_max", series.histogram.getMaximumSeconds(), "method", series.method,
+					"status", series.status, "media_type", series.mediaType);
+		}
+	}
+
+	private static final class Series {
+		private final String method;
+		private final String status;
+		private final String mediaType;
+		private final LatencyHistogram histogram = new LatencyHistogram();
+
+		private Series(String method, String status, String mediaType) {
+			this.method = method;
+			this.status = status;
+			this.mediaType = mediaType;
+		}
+	}
+}
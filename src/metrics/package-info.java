@@ -0,0 +1,14 @@
+/**
+ *
+ */
+/**
+ *
+ * Low overhead instruments recording how the web API performs, and their
+ * exposition in the Prometheus text format.
+ *
+ * @author Francisco Frias
+ * @author Abel Guzman
+ * @author Amin Guzman
+ *
+ */
+package metrics;
\ No newline at end of file
@@ -0,0 +1,46 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ *
+ * Request body of a batched lookup: the unique identifier to look in and the
+ * values to look for.
+ *
+ * @author Francisco Frias
+ * @author Abel Guzman
+ * @author Amin Guzman
+ *
+ */
+@XmlRootElement(name = "batchGet")
+public class BatchGetRequest {
+	private String key = "uuid";
+	private List<String> values = new ArrayList<>();
+
+	public BatchGetRequest() {
+	}
+
+	/**
+	 *
+	 * @return The name of the unique identifier to look in, uuid unless stated
+	 *         otherwise.
+	 */
+	public String getKey() {
+		return key;
+	}
+
+	public void setKey(String key) {
+		this.key = key;
+	}
+
+	public List<String> getValues() {
+		return values;
+	}
+
+	public void setValues(List<String> values) {
+		this.values = values;
+	}
+}
@@ -0,0 +1,59 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.bind.annotation.XmlAnyElement;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElementWrapper;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlSeeAlso;
+
+import core.Employee;
+import core.Student;
+
+/**
+ *
+ * Response body of a batched lookup: the entities found, in request order, and
+ * the values no entity was found for.
+ *
+ * @author Francisco Frias
+ * @author Abel Guzman
+ * @author Amin Guzman
+ *
+ * @param <T>
+ *            Type of the entities.
+ */
+@XmlRootElement(name = "batchGetResult")
+@XmlSeeAlso({ Student.class, Employee.class })
+public class BatchGetResult<T> {
+	private List<T> found = new ArrayList<>();
+	private List<String> missing = new ArrayList<>();
+
+	public BatchGetResult() {
+	}
+
+	public BatchGetResult(List<T> found, List<String> missing) {
+		this.found = found;
+		this.missing = missing;
+	}
+
+	@XmlAnyElement(lax = true)
+	public List<T> getFound() {
+		return found;
+	}
+
+	public void setFound(List<T> found) {
+		this.found = found;
+	}
+
+	@XmlElementWrapper(name = "missing")
+	@XmlElement(name = "key")
+	public List<String> getMissing() {
+		return missing;
+	}
+
+	public void setMissing(List<String> missing) {
+		this.missing = missing;
+	}
+}
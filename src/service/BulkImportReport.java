@@ -0,0 +1,136 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElementWrapper;
+import javax.xml.bind.annotation.XmlRootElement;
+
+import db.BulkInsertResult;
+
+/**
+ *
+ * Response body of a bulk import: the outcome of every row received, along with
+ * totals and the throughput achieved.
+ *
+ * @author Francisco Frias
+ * @author Abel Guzman
+ * @author Amin Guzman
+ *
+ */
+@XmlRootElement(name = "bulkImport")
+public class BulkImportReport {
+	private int received;
+	private int created;
+	private int duplicated;
+	private int invalid;
+	private int failed;
+	private long elapsedMillis;
+	private double rowsPerSecond;
+	private List<BulkInsertResult> results = new ArrayList<>();
+
+	public BulkImportReport() {
+	}
+
+	/**
+	 *
+	 * @param results
+	 *            The outcome of every row received, in input order.
+	 * @param elapsedNanos
+	 *            Time taken to process the whole request.
+	 */
+	public BulkImportReport(List<BulkInsertResult> results, long elapsedNanos) {
+		this.results = results;
+		this.received = results.size();
+		for (BulkInsertResult result : results) {
+			switch (result.getOutcome()) {
+			case CREATED:
+				created++;
+				break;
+			case DUPLICATE:
+				duplicated++;
+				break;
+			case INVALID:
+				invalid++;
+				break;
+			default:
+				failed++;
+				break;
+			}
+		}
+		this.elapsedMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+		this.rowsPerSecond = elapsedNanos == 0 ? 0 : received * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+	}
+
+	public int getReceived() {
+		return received;
+	}
+
+	public void setReceived(int received) {
+		this.received = received;
+	}
+
+	public int getCreated() {
+		return created;
+	}
+
+	public void setCreated(int created) {
+		this.created = created;
+	}
+
+	public int getDuplicated() {
+		return duplicated;
+	}
+
+	public void setDuplicated(int duplicated) {
+		this.duplicated = duplicated;
+	}
+
+	public int getInvalid() {
+		return invalid;
+	}
+
+	public void setInvalid(int invalid) {
+		this.invalid = invalid;
+	}
+
+	public int getFailed() {
+		return failed;
+	}
+
+	public void setFailed(int failed) {
+		this.failed = failed;
+	}
+
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+
+	public void setElapsedMillis(long elapsedMillis) {
+		this.elapsedMillis = elapsedMillis;
+	}
+
+	/**
+	 *
+	 * @return Rows processed per second, counting every row received.
+	 */
+	public double getRowsPerSecond() {
+		return rowsPerSecond;
+	}
+
+	public void setRowsPerSecond(double rowsPerSecond) {
+		this.rowsPerSecond = rowsPerSecond;
+	}
+
+	@XmlElementWrapper(name = "results")
+	@XmlElement(name = "result")
+	public List<BulkInsertResult> getResults() {
+		return results;
+	}
+
+	public void setResults(List<BulkInsertResult> results) {
+		this.results = results;
+	}
+}
@@ -0,0 +1,101 @@
+package service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ *
+ * Minimal RFC 4180 reader, returning one record at a time so large inputs never
+ * have to be held in memory. Fields may be quoted with double quotes, in which
+ * case they can contain commas, line breaks and escaped ("") quotes.
+ *
+ * @author Francisco Frias
+ * @author Abel Guzman
+ * @author Amin Guzman
+ *
+ */
+public class CsvReader implements AutoCloseable {
+	private final BufferedReader reader;
+	private boolean finished = false;
+
+	public CsvReader(Reader reader) {
+		this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+	}
+
+	/**
+	 *
+	 * @return The fields of the next record, or null if there are no more records.
+	 *         Blank lines are skipped.
+	 * @throws IOException
+	 *             If the input cannot be read, or ends inside a quoted field.
+	 */
+	public List<String> readRecord() throws IOException {
+		List<String> fields = null;
+
+		while (!finished && fields == null) {
+			fields = new ArrayList<>();
+			StringBuilder field = new StringBuilder();
+			boolean quoted = false;
+			boolean empty = true;
+
+			int c;
+			while ((c = reader.read()) != -1) {
+				if (quoted) {
+					if (c == '"') {
+						reader.mark(1);
+						if (reader.read() == '"') {
+							field.append('"');
+						} else {
+							reader.reset();
+							quoted = false;
+						}
+					} else {
+						field.append((char) c);
+					}
+				} else if (c == '"') {
+					quoted = true;
+					empty = false;
+				} else if (c == ',') {
+					fields.add(field.toString());
+					field.setLength(0);
+					empty = false;
+				} else if (c == '\r' || c == '\n') {
+					if (c == '\r') {
+						// Treat CRLF as a single line break
+						reader.mark(1);
+						if (reader.read() != '\n') {
+							reader.reset();
+						}
+					}
+					break;
+				} else {
+					field.append((char) c);
+					empty = false;
+				}
+			}
+
+			if (quoted) {
+				throw new IOException("Unterminated quoted field");
+			}
+			if (c == -1) {
+				finished = true;
+			}
+			if (empty && field.length() == 0) {
+				// Blank line
+				fields = null;
+			} else {
+				fields.add(field.toString());
+			}
+		}
+
+		return fields;
+	}
+
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+}
@@ -1,38 +1,158 @@
 package service;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 import core.Employee;
+import db.BulkInsertResult;
+import db.ChangeSet;
+import db.Filter;
 import db.EmployeeDatabaseHelper;
+import db.Page;
+import db.Projection;
 
 public class EmployeeDao extends GenericDao<Employee> {
+	/*
+	 * Shared by every instance, since resources (and therefore DAOs) are created
+	 * per request
+	 */
+	private static final EntityCache<Employee> CACHE = createCache();
+
 
 	@Override
 	public List<Employee> getAll() {
 		return EmployeeDatabaseHelper.getAll();
 	}
 
+	@Override
+	public List<Employee> getAll(Projection projection, Filter filter) {
+		return EmployeeDatabaseHelper.getAll(projection, filter);
+	}
+
+	@Override
+	public Page<Employee> getPage(int after, int limit) {
+		return EmployeeDatabaseHelper.getPage(after, limit);
+	}
+
+	@Override
+	public Page<Employee> getPage(int after, int limit, Projection projection, Filter filter) {
+		return EmployeeDatabaseHelper.getPage(after, limit, projection, filter);
+	}
+
+	@Override
+	public Projection getProjection(Collection<String> fields, boolean phoneNumbers) {
+		return EmployeeDatabaseHelper.getProjection(fields, phoneNumbers);
+	}
+
+	@Override
+	public void checkFilter(Filter filter) {
+		EmployeeDatabaseHelper.checkFilter(filter);
+	}
+
+	@Override
+	public ChangeSet<Employee> getChanges(String since, int limit) {
+		return EmployeeDatabaseHelper.getChanges(since, limit);
+	}
+
+	@Override
+	public boolean streamAll(Consumer<? super Employee> consumer) {
+		return EmployeeDatabaseHelper.streamAll(consumer);
+	}
+
+	@Override
+	public boolean streamAll(Projection projection, Filter filter, Consumer<? super Employee> consumer) {
+		return EmployeeDatabaseHelper.streamAll(projection, filter, consumer);
+	}
+
 	@Override
 	public Employee create(Employee entity) {
-		return EmployeeDatabaseHelper.create(entity);
+		Employee createdEmployee = EmployeeDatabaseHelper.create(entity);
+		if (createdEmployee != null) {
+			CACHE.invalidate(createdEmployee.getEntityId());
+		}
+		return createdEmployee;
+	}
+
+	@Override
+	public List<BulkInsertResult> createAll(List<Employee> employees, int chunkSize) {
+		// Only new entities are created, so nothing cached can be stale
+		return EmployeeDatabaseHelper.createAll(employees, chunkSize);
 	}
 
 	@Override
 	public boolean delete(String entityId) {
-		return EmployeeDatabaseHelper.deleteByUniqueIdentifier("uuid", entityId);
+		boolean opResult = EmployeeDatabaseHelper.deleteByUniqueIdentifier("uuid", entityId);
+		CACHE.invalidate(entityId);
+		return opResult;
 	}
 
 	@Override
 	public Employee get(String entityId) {
-		return EmployeeDatabaseHelper.getByUniqueIdentifier("uuid", entityId);
+		return CACHE.get(entityId, key -> EmployeeDatabaseHelper.getByUniqueIdentifier("uuid", key));
+	}
+
+	/*
+	 * Served from the cache only if cached at the version given, which must have
+	 * just been read from the database, so the entity is never older than it
+	 */
+	@Override
+	public Employee getCurrent(String entityId, long version) {
+		return CACHE.get(entityId, version, key -> EmployeeDatabaseHelper.getByUniqueIdentifier("uuid", key));
+	}
+
+	/*
+	 * Served from the cache where possible, with every miss loaded in a single
+	 * batch
+	 */
+	@Override
+	public Map<String, Employee> getAllByKey(String keyName, Collection<String> keys) {
+		if ("uuid".equals(keyName)) {
+			return CACHE.getAll(keys, missing -> EmployeeDatabaseHelper.getAllByUniqueIdentifier("uuid", missing));
+		}
+		return CACHE.getAllByKey(keyName, keys,
+				missing -> EmployeeDatabaseHelper.getAllByUniqueIdentifier(keyName, missing));
+	}
+
+	/*
+	 * Versions are always read from the database, so changes made by other
+	 * processes are never hidden by the cache
+	 */
+	@Override
+	public long getVersion(String uuid) {
+		return EmployeeDatabaseHelper.getVersionByUniqueIdentifier("uuid", uuid);
+	}
+
+	@Override
+	public String getCollectionVersion() {
+		return EmployeeDatabaseHelper.getCollectionVersion();
 	}
 
 	@Override
 	public boolean update(String entityId, Employee entity) {
-		return EmployeeDatabaseHelper.updateByUniqueIdentifier("uuid", entityId, entity);
+		boolean opResult = EmployeeDatabaseHelper.updateByUniqueIdentifier("uuid", entityId, entity);
+		CACHE.invalidate(entityId);
+		return opResult;
 	}
 
 	public Employee getByCedula(String cedula) {
-		return EmployeeDatabaseHelper.getByUniqueIdentifier("cedula", cedula);
+		return CACHE.getByKey("cedula", cedula, key -> EmployeeDatabaseHelper.getByUniqueIdentifier("cedula", key));
+	}
+
+	/**
+	 * 
+	 * @return Hit, miss and eviction counters of the Employee cache.
+	 */
+	public static EntityCache.Statistics getCacheStatistics() {
+		return CACHE.getStatistics();
+	}
+
+	private static EntityCache<Employee> createCache() {
+		Map<String, Function<Employee, String>> keys = new HashMap<>();
+		keys.put("cedula", Employee::getCedula);
+		return EntityCache.fromProperties("employees", Employee::getEntityId, keys);
 	}
-}
\ No newline at end of file
+}
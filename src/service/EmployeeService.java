@@ -1,7 +1,11 @@
 package service;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
@@ -13,15 +17,26 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.GenericEntity;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
 import javax.ws.rs.core.UriInfo;
+import javax.ws.rs.ext.Providers;
 import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
 
 import core.Employee;
+import db.ChangeSet;
+import db.ConflictException;
+import db.Filter;
+import db.Page;
+import db.Projection;
 import service.ServicePresets;
 
 @Path(ServicePresets.QUERY_SERVICES_PATH)
@@ -30,121 +45,351 @@ public class EmployeeService extends GenericWebService<Employee> {
 	private final String SERVICE_ROOT = "/employees";
 	private final String ENTITY_ID = "uuid";
 	private final String ENTITY_PATH = "/{" + ENTITY_ID + "}";
+	private final List<String> BATCH_GET_KEYS = Arrays.asList("uuid", "cedula");
 
 	private EmployeeDao employeeDao = new EmployeeDao();
 
 	@GET
 	@Path(SERVICE_ROOT)
-	public Response readAll(@HeaderParam("accept") String acceptHeader, @QueryParam("cedula") String cedula) {
-		Response response;
-
-		// Try to honor the ACCEPT header
-		ContentTypeHeader header = parseAcceptHeader(acceptHeader);
-		MediaType responseMediaType = getPreferredMediaType(header);
-		if (responseMediaType == null) {
-			responseMediaType = MediaType.valueOf(ServicePresets.PRIMARY_OBJECT_MEDIA_TYPE);
-		}
-
-		if (cedula != null && cedula.trim().length() > 0) {
-			Employee employee = employeeDao.getByCedula(cedula);
-			if (employee == null) {
-				response = Response.status(Response.Status.NOT_FOUND).entity("Employee not found for cedula: " + cedula)
-						.build();
+	public void readAll(@Suspended AsyncResponse asyncResponse, @Context UriInfo uriInfo, @Context Request request,
+			@HeaderParam("accept") String acceptHeader, @QueryParam("cedula") String cedula,
+			@QueryParam("limit") Integer limit, @QueryParam("after") Integer after,
+			@QueryParam("stream") boolean stream, @QueryParam("fields") String fields,
+			@QueryParam("expand") String expand, @QueryParam("role") String role,
+			@QueryParam("surname-prefix") String surnamePrefix, @QueryParam("email-domain") String emailDomain,
+			@QueryParam("sort") String sort, @Context Providers providers) {
+		RequestExecutor.submit(asyncResponse, () -> {
+			Response response;
+
+			// Try to honor the ACCEPT header
+			MediaType responseMediaType = getResponseMediaType(acceptHeader);
+
+			// Sparse fieldsets, filters and sorting only apply to collection reads, lookups return whole entities
+			Projection projection = null;
+			Filter filter = null;
+			String parameterError = null;
+			try {
+				projection = getProjection(employeeDao, fields, expand);
+				String surnameFilter = surnamePrefix == null || surnamePrefix.trim().length() == 0 ? null
+						: surnamePrefix.trim();
+				String emailFilter = emailDomain == null || emailDomain.trim().length() == 0 ? null
+						: "@" + emailDomain.trim();
+				filter = getFilter(employeeDao, Filter.NONE
+						.equalTo("role", getConstantName(Employee.Role.class, "role", role))
+						.startsWith("firstSurname", surnameFilter).endsWith("email", emailFilter), sort);
+			} catch (IllegalArgumentException e) {
+				parameterError = e.getMessage();
+			}
+
+			// Collection reads are answered with 304 as long as nothing in the table changed
+			EntityTag collectionTag = null;
+			ResponseBuilder notModified = null;
+			if (cedula == null || cedula.trim().length() == 0) {
+				collectionTag = getCollectionTag(employeeDao.getCollectionVersion());
+				if (collectionTag != null) {
+					notModified = request.evaluatePreconditions(collectionTag);
+				}
+			}
+
+			if (cedula != null && cedula.trim().length() > 0) {
+				Employee employee = employeeDao.getByCedula(cedula);
+				if (employee == null) {
+					response = Response.status(Response.Status.NOT_FOUND)
+							.entity("Employee not found for cedula: " + cedula).build();
+				} else {
+					response = Response.ok(employee, responseMediaType).build();
+				}
+			} else if (parameterError != null) {
+				response = Response.status(Status.BAD_REQUEST).entity(parameterError).build();
+			} else if (notModified != null) {
+				response = notModified.build();
+			} else if (stream) {
+				// Write rows as they are read, for clients pulling the whole collection
+				Projection streamProjection = projection;
+				Filter streamFilter = filter;
+				StreamingOutput employeesOutput = new EntityStreamingOutput<Employee>(Employee.class, "employees",
+						responseMediaType, providers,
+						consumer -> employeeDao.streamAll(streamProjection, streamFilter, consumer));
+				response = Response.ok(employeesOutput, responseMediaType).tag(collectionTag).build();
+			} else if (limit != null || after != null) {
+				// Paginate when requested, linking to the next page, if any
+				if ((limit != null && limit <= 0) || (after != null && after < 0)) {
+					response = Response.status(Status.BAD_REQUEST)
+							.entity("limit must be positive and after non-negative").build();
+				} else if (filter.isSorted()) {
+					// Pages follow primary key order, the cursor could not locate a sorted page
+					response = Response.status(Status.BAD_REQUEST).entity("sort cannot be combined with limit or after")
+							.build();
+				} else {
+					int pageSize = getPageSize(limit);
+					Page<Employee> page = employeeDao.getPage(after == null ? 0 : after, pageSize, projection, filter);
+					GenericEntity<List<Employee>> employeesEntity = new GenericEntity<List<Employee>>(page.getItems()) {
+					};
+					ResponseBuilder builder = Response.ok(employeesEntity, responseMediaType).tag(collectionTag);
+					URI nextPageUri = getNextPageUri(uriInfo, page, pageSize);
+					if (nextPageUri != null) {
+						builder.link(nextPageUri, "next");
+					}
+					response = builder.build();
+				}
+			} else {
+				List<Employee> employees = employeeDao.getAll(projection, filter);
+				GenericEntity<List<Employee>> employeesEntity = new GenericEntity<List<Employee>>(employees) {
+				};
+				response = Response.ok(employeesEntity, responseMediaType).tag(collectionTag).build();
+			}
+			return response;
+		});
+	}
+
+	/*
+	 * Literal paths take precedence over ENTITY_PATH, so "changes" is never taken
+	 * for an entity ID
+	 */
+	@GET
+	@Path(SERVICE_ROOT + CHANGES_PATH)
+	public void readChanges(@Suspended AsyncResponse asyncResponse, @HeaderParam("accept") String acceptHeader,
+			@QueryParam("since") String since, @QueryParam("limit") Integer limit) {
+		RequestExecutor.submit(asyncResponse, () -> {
+			Response response;
+
+			// Try to honor the ACCEPT header
+			MediaType responseMediaType = getResponseMediaType(acceptHeader);
+
+			if (limit != null && limit <= 0) {
+				response = Response.status(Status.BAD_REQUEST).entity("limit must be positive").build();
+			} else {
+				try {
+					ChangeSet<Employee> changes = employeeDao.getChanges(since, getPageSize(limit));
+					GenericEntity<ChangeSet<Employee>> changesEntity = new GenericEntity<ChangeSet<Employee>>(changes) {
+					};
+					response = Response.ok(changesEntity, responseMediaType).build();
+				} catch (IllegalArgumentException e) {
+					response = Response.status(Status.BAD_REQUEST).entity(e.getMessage()).build();
+				}
+			}
+			return response;
+		});
+	}
+
+	/*
+	 * Resolves many Employees in one round trip, for clients that would otherwise look
+	 * them up one at a time
+	 */
+	@POST
+	@Path(SERVICE_ROOT + BATCH_GET_PATH)
+	@Consumes({ ServicePresets.PRIMARY_OBJECT_MEDIA_TYPE, ServicePresets.SECONDARY_OBJECT_MEDIA_TYPE })
+	public void batchGet(@Suspended AsyncResponse asyncResponse, @HeaderParam("accept") String acceptHeader,
+			BatchGetRequest batchRequest) {
+		RequestExecutor.submit(asyncResponse, () -> {
+			Response response;
+
+			// Try to honor the ACCEPT header
+			MediaType responseMediaType = getResponseMediaType(acceptHeader);
+
+			if (batchRequest == null || batchRequest.getValues() == null) {
+				response = Response.status(Status.BAD_REQUEST).build();
+			} else if (!BATCH_GET_KEYS.contains(batchRequest.getKey())) {
+				response = Response.status(Status.BAD_REQUEST).entity("key must be one of " + BATCH_GET_KEYS).build();
+			} else if (batchRequest.getValues().size() > MAX_BATCH_GET_SIZE) {
+				response = Response.status(Status.BAD_REQUEST)
+						.entity("At most " + MAX_BATCH_GET_SIZE + " values can be looked up at once").build();
 			} else {
-				response = Response.ok(employee, responseMediaType).build();
+				BatchGetResult<Employee> result = batchGet(employeeDao, batchRequest.getKey(),
+						batchRequest.getValues());
+				GenericEntity<BatchGetResult<Employee>> resultEntity = new GenericEntity<BatchGetResult<Employee>>(
+						result) {
+				};
+				response = Response.ok(resultEntity, responseMediaType).build();
 			}
-		} else {
-			List<Employee> employees = employeeDao.getAll();
-			GenericEntity<List<Employee>> employeesEntity = new GenericEntity<List<Employee>>(employees) {
-			};
-			response = Response.ok(employeesEntity, responseMediaType).build();
-		}
-
-		return response;
+
+			return response;
+		});
 	}
 
 	@GET
 	@Path(SERVICE_ROOT + ENTITY_PATH)
-	public Response read(@HeaderParam("accept") String acceptHeader, @PathParam(ENTITY_ID) String entityId) {
-		Response response;
-
-		// Try to honor the ACCEPT header
-		ContentTypeHeader header = parseAcceptHeader(acceptHeader);
-		MediaType responseMediaType = getPreferredMediaType(header);
-		if (responseMediaType == null) {
-			responseMediaType = MediaType.valueOf(ServicePresets.PRIMARY_OBJECT_MEDIA_TYPE);
-		}
-
-		Employee employee = employeeDao.get(entityId);
-		if (employee == null) {
-			response = Response.status(Response.Status.NOT_FOUND).entity("Student not found for UUID: " + entityId).build();
-		} else {
-			response = Response.ok(employee, responseMediaType).build();
-		}
-
-		return response;
+	public void read(@Suspended AsyncResponse asyncResponse, @Context Request request,
+			@HeaderParam("accept") String acceptHeader, @PathParam(ENTITY_ID) String entityId) {
+		RequestExecutor.submit(asyncResponse, () -> {
+			Response response;
+
+			// Try to honor the ACCEPT header
+			MediaType responseMediaType = getResponseMediaType(acceptHeader);
+
+			/*
+			 * Compare the version first, so a client with a current copy gets a 304
+			 * without the Employee being loaded at all
+			 */
+			long version = employeeDao.getVersion(entityId);
+			EntityTag entityTag = getEntityTag(version);
+			ResponseBuilder builder = entityTag == null ? null : request.evaluatePreconditions(entityTag);
+			if (builder != null) {
+				response = builder.build();
+			} else {
+				// Cached at the version of its tag, or loaded after the version was read
+				Employee employee = employeeDao.getCurrent(entityId, version);
+				if (employee == null) {
+					response = Response.status(Response.Status.NOT_FOUND)
+							.entity("Employee not found for UUID: " + entityId).build();
+				} else {
+					response = Response.ok(employee, responseMediaType).tag(entityTag).build();
+				}
+			}
+			return response;
+		});
 	}
 
 	@Override
 	@POST
 	@Path(SERVICE_ROOT)
 	@Consumes({ ServicePresets.PRIMARY_OBJECT_MEDIA_TYPE, ServicePresets.SECONDARY_OBJECT_MEDIA_TYPE })
-	public Response create(@Context UriInfo uriInfo, Employee entity) {
-		Response response;
-		Employee createdEmployee = null;
+	public void create(@Suspended AsyncResponse asyncResponse, @Context UriInfo uriInfo,
+			@HeaderParam("accept") String acceptHeader, @HeaderParam("prefer") String prefer, Employee entity) {
+		RequestExecutor.submitWrite(asyncResponse, () -> {
+			Response response;
+			Employee createdEmployee = null;
+			String conflict = null;
 		
-		if (entity != null) {
-			createdEmployee = employeeDao.create(entity);
-			System.err.println("RECEIVED NULL");
-		}
-		if (createdEmployee != null) {
-			EntityTag entityTag = new EntityTag(createdEmployee.getEntityId());
-			URI entityUri = URI.create(String.format("%s/%s", uriInfo.getRequestUri(), entityTag.getValue()));
-			response = Response.created(entityUri).tag(entityTag).build();
-		} else {
-			response = Response.status(Status.BAD_REQUEST).build();
-		}
-		return response;
+			if (entity != null) {
+				try {
+					createdEmployee = employeeDao.create(entity);
+				} catch (ConflictException e) {
+					// Tell the client which unique identifier is taken
+					conflict = e.getMessage();
+				}
+			}
+			if (createdEmployee != null) {
+				// New rows start at version 1, tagged as a read of the new Employee would be
+				EntityTag entityTag = getEntityTag(1);
+				URI entityUri = URI.create(
+						String.format("%s/%s", uriInfo.getRequestUri(), createdEmployee.getEntityId()));
+				ResponseBuilder builder = Response.created(entityUri).tag(entityTag);
+				if (prefersRepresentation(prefer)) {
+					// The entity returned by the DAO is complete, so no further reads are needed
+					MediaType responseMediaType = getResponseMediaType(acceptHeader);
+					builder.entity(createdEmployee).type(responseMediaType).header(PREFERENCE_APPLIED_HEADER,
+							RETURN_REPRESENTATION);
+				}
+				response = builder.build();
+			} else if (conflict != null) {
+				response = Response.status(Status.CONFLICT).entity(conflict).build();
+			} else {
+				response = Response.status(Status.BAD_REQUEST).build();
+			}
+			return response;
+		});
+	}
+
+	@POST
+	@Path(SERVICE_ROOT + BULK_PATH)
+	@Consumes({ ServicePresets.PRIMARY_OBJECT_MEDIA_TYPE, ServicePresets.SECONDARY_OBJECT_MEDIA_TYPE })
+	public void createAll(@Suspended AsyncResponse asyncResponse, @HeaderParam("accept") String acceptHeader,
+			@QueryParam("chunk-size") Integer chunkSize, List<Employee> entities) {
+		RequestExecutor.submitWrite(asyncResponse, () -> {
+			Response response;
+
+			// Try to honor the ACCEPT header
+			MediaType responseMediaType = getResponseMediaType(acceptHeader);
+
+			if (entities == null || (chunkSize != null && chunkSize <= 0)) {
+				response = Response.status(Status.BAD_REQUEST).build();
+			} else {
+				BulkImportReport report = importAll(employeeDao, entities, getBulkChunkSize(chunkSize));
+				response = Response.ok(report, responseMediaType).build();
+			}
+			return response;
+		});
+	}
+
+	/*
+	 * Expects a header row naming the columns: firstName, middleName, firstSurname, secondSurname,
+	 * cedula, email, role and phoneNumbers.
+	 */
+	@POST
+	@Path(SERVICE_ROOT + BULK_PATH)
+	@Consumes(CSV_MEDIA_TYPE)
+	public void createAllFromCsv(@Suspended AsyncResponse asyncResponse, @HeaderParam("accept") String acceptHeader,
+			@QueryParam("chunk-size") Integer chunkSize, InputStream input) {
+		RequestExecutor.submitWrite(asyncResponse, () -> {
+			Response response;
+
+			// Try to honor the ACCEPT header
+			MediaType responseMediaType = getResponseMediaType(acceptHeader);
+
+			if (chunkSize != null && chunkSize <= 0) {
+				response = Response.status(Status.BAD_REQUEST).build();
+			} else {
+				try {
+					BulkImportReport report = importCsv(employeeDao, input, getBulkChunkSize(chunkSize), row -> {
+						Employee employee = fromCsv(row);
+						employee.setPhoneNumbers(parsePhoneNumbers(row.get("phoneNumbers")));
+						return employee;
+					});
+					response = Response.ok(report, responseMediaType).build();
+				} catch (IOException e) {
+					e.printStackTrace();
+					response = Response.status(Status.BAD_REQUEST).entity("Malformed CSV: " + e.getMessage()).build();
+				}
+			}
+			return response;
+		});
 	}
 
 	@Override
 	@PUT
 	@Path(SERVICE_ROOT + ENTITY_PATH)
 	@Consumes({ ServicePresets.PRIMARY_OBJECT_MEDIA_TYPE, ServicePresets.SECONDARY_OBJECT_MEDIA_TYPE })
-	public Response update(@PathParam(ENTITY_ID) String entityId, Employee entity) {
-		Response response;
-
-		if (entityId != null && entityId.trim().length() > 0 && entity != null) {
-			boolean opResult = employeeDao.update(entityId, entity);
-			if (opResult != true) {
-				response = Response.status(Response.Status.NOT_FOUND).entity("Student not found for uuid: " + entityId)
-						.build();
+	public void update(@Suspended AsyncResponse asyncResponse, @PathParam(ENTITY_ID) String entityId, Employee entity) {
+		RequestExecutor.submitWrite(asyncResponse, () -> {
+			Response response;
+
+			if (entityId != null && entityId.trim().length() > 0 && entity != null) {
+				boolean opResult = employeeDao.update(entityId, entity);
+				if (opResult != true) {
+					response = Response.status(Response.Status.NOT_FOUND)
+							.entity("Student not found for uuid: " + entityId).build();
+				} else {
+					response = Response.ok().build();
+				}
 			} else {
-				response = Response.ok().build();
+				response = Response.status(Status.BAD_REQUEST).build();
 			}
-		} else {
-			response = Response.status(Status.BAD_REQUEST).build();
-		}
-		return response;
+			return response;
+		});
 	}
 
 	@Override
 	@DELETE
 	@Path(SERVICE_ROOT + ENTITY_PATH)
-	public Response delete(@PathParam(ENTITY_ID) String entityId) {
-		Response response;
-
-		if (entityId != null && entityId.trim().length() > 0) {
-			boolean opResult = employeeDao.delete(entityId);
-			if (opResult != true) {
-				response = Response.status(Response.Status.NOT_FOUND).entity("Student not found for uuid: " + entityId)
-						.build();
+	public void delete(@Suspended AsyncResponse asyncResponse, @PathParam(ENTITY_ID) String entityId) {
+		RequestExecutor.submitWrite(asyncResponse, () -> {
+			Response response;
+
+			if (entityId != null && entityId.trim().length() > 0) {
+				boolean opResult = employeeDao.delete(entityId);
+				if (opResult != true) {
+					response = Response.status(Response.Status.NOT_FOUND)
+							.entity("Student not found for uuid: " + entityId).build();
+				} else {
+					response = Response.ok().build();
+				}
 			} else {
-				response = Response.ok().build();
+				response = Response.status(Status.BAD_REQUEST).build();
 			}
-		} else {
-			response = Response.status(Status.BAD_REQUEST).build();
-		}
-		return response;
+			return response;
+		});
+	}
+
+	private static Employee fromCsv(Map<String, String> row) {
+		Employee employee = new Employee();
+		employee.setFirstName(row.get("firstName"));
+		employee.setMiddleName(row.get("middleName"));
+		employee.setFirstSurname(row.get("firstSurname"));
+		employee.setSecondSurname(row.get("secondSurname"));
+		employee.setCedula(row.get("cedula"));
+		employee.setEmail(row.get("email"));
+		employee.setRole(row.get("role"));
+		return employee;
 	}
 }
\ No newline at end of file
@@ -0,0 +1,508 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import util.PropertyLoader;
+
+/**
+ *
+ * Bounded, in-process read-through cache of entities keyed by entity ID, with
+ * secondary indexes so entities can also be found by other unique keys (i.e.
+ * cedula). Least recently used entries are evicted once the cache is full, and
+ * entries expire after a fixed time to live so changes made outside this
+ * process are eventually picked up.
+ *
+ * Secondary keys are matched regardless of case, as the identifier columns are
+ * compared by the database.
+ *
+ * Entries may also record the row version their entity was loaded at, so a
+ * caller that has just read the current version can tell whether the cached
+ * entity is still current without waiting for it to expire.
+ *
+ * Missing entities are never cached.
+ *
+ * @author Francisco Frias
+ * @author Abel Guzman
+ * @author Amin Guzman
+ *
+ * @param <T>
+ *            Type of the entities cached.
+ */
+public class EntityCache<T> {
+	private static final String PROPERTIES_NAMESPACE = "/config/cache.properties";
+	private static final int DEFAULT_MAXIMUM_SIZE = 10000;
+	private static final long DEFAULT_TIME_TO_LIVE = 300000;
+	private static final long UNKNOWN_VERSION = -1;
+	private static PropertyLoader cacheProperties = new PropertyLoader(PROPERTIES_NAMESPACE);
+
+	private final int maximumSize;
+	private final long timeToLive;
+	private final Function<T, String> entityIdExtractor;
+	private final Map<String, Function<T, String>> keyExtractors;
+
+	// Guarded by this
+	private final LinkedHashMap<String, CacheEntry<T>> entries;
+	private final Map<String, Map<String, String>> indexes = new HashMap<>();
+	private long generation = 0;
+
+	private final LongAdder hitCount = new LongAdder();
+	private final LongAdder missCount = new LongAdder();
+	private final LongAdder evictionCount = new LongAdder();
+	private final LongAdder expirationCount = new LongAdder();
+	private final LongAdder invalidationCount = new LongAdder();
+
+	/**
+	 *
+	 * @param maximumSize
+	 *            Maximum number of entities kept.
+	 * @param timeToLive
+	 *            Time in milliseconds after which a cached entity is reloaded.
+	 * @param entityIdExtractor
+	 *            Returns the entity ID of an entity.
+	 * @param keyExtractors
+	 *            Secondary keys by which entities can be found, mapped to the
+	 *            function returning the value of the key for an entity.
+	 */
+	public EntityCache(int maximumSize, long timeToLive, Function<T, String> entityIdExtractor,
+			Map<String, Function<T, String>> keyExtractors) {
+		this.maximumSize = maximumSize;
+		this.timeToLive = timeToLive;
+		this.entityIdExtractor = entityIdExtractor;
+		this.keyExtractors = keyExtractors;
+		for (String keyName : keyExtractors.keySet()) {
+			indexes.put(keyName, new HashMap<String, String>());
+		}
+		this.entries = new LinkedHashMap<String, CacheEntry<T>>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CacheEntry<T>> eldest) {
+				if (size() > EntityCache.this.maximumSize) {
+					unindex(eldest.getValue());
+					evictionCount.increment();
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 *
+	 * Creates a cache sized from the &lt;name&gt;.maximumSize and
+	 * &lt;name&gt;.timeToLive keys of the cache properties.
+	 *
+	 * @param name
+	 *            Name of the cache in the properties file.
+	 * @param entityIdExtractor
+	 *            Returns the entity ID of an entity.
+	 * @param keyExtractors
+	 *            Secondary keys by which entities can be found.
+	 * @return The new cache.
+	 */
+	public static <T> EntityCache<T> fromProperties(String name, Function<T, String> entityIdExtractor,
+			Map<String, Function<T, String>> keyExtractors) {
+		int maximumSize = (int) getLongProperty(name + ".maximumSize", DEFAULT_MAXIMUM_SIZE);
+		long timeToLive = getLongProperty(name + ".timeToLive", DEFAULT_TIME_TO_LIVE);
+		return new EntityCache<>(maximumSize, timeToLive, entityIdExtractor, keyExtractors);
+	}
+
+	/**
+	 *
+	 * Looks up an entity by its entity ID, loading and caching it on a miss.
+	 *
+	 * @param entityId
+	 *            The entity ID.
+	 * @param loader
+	 *            Loads the entity from the database by entity ID, returning null if
+	 *            not found.
+	 * @return The entity, or null if not found.
+	 */
+	public T get(String entityId, Function<String, T> loader) {
+		if (entityId == null) {
+			return loader.apply(entityId);
+		}
+
+		long loadGeneration;
+		synchronized (this) {
+			T entity = lookup(entityId);
+			if (entity != null) {
+				hitCount.increment();
+				return entity;
+			}
+			loadGeneration = generation;
+		}
+		missCount.increment();
+		return load(loader.apply(entityId), UNKNOWN_VERSION, loadGeneration);
+	}
+
+	/**
+	 *
+	 * Looks up an entity by its entity ID, only if it was cached at the row version
+	 * given. Otherwise the entity is loaded and cached at that version.
+	 *
+	 * @param entityId
+	 *            The entity ID.
+	 * @param version
+	 *            The current row version of the entity, read from the database
+	 *            before this call. Entities are neither served from nor put in
+	 *            the cache if negative.
+	 * @param loader
+	 *            Loads the entity from the database by entity ID, returning null if
+	 *            not found.
+	 * @return The entity, or null if not found.
+	 */
+	public T get(String entityId, long version, Function<String, T> loader) {
+		if (entityId == null || version < 0) {
+			return loader.apply(entityId);
+		}
+
+		long loadGeneration;
+		synchronized (this) {
+			CacheEntry<T> entry = lookupEntry(entityId);
+			if (entry != null && entry.version == version) {
+				hitCount.increment();
+				return entry.entity;
+			}
+			loadGeneration = generation;
+		}
+		missCount.increment();
+		/*
+		 * Loaded after the version was read, so the entity is at that version or a
+		 * later one, and versions only grow: an entity cached here is never served
+		 * at a version older than its own
+		 */
+		return load(loader.apply(entityId), version, loadGeneration);
+	}
+
+	/**
+	 *
+	 * Looks up an entity by one of its secondary keys, loading and caching it on a
+	 * miss.
+	 *
+	 * @param keyName
+	 *            Name of the secondary key, as given in the constructor.
+	 * @param key
+	 *            Value of the secondary key.
+	 * @param loader
+	 *            Loads the entity from the database by the secondary key, returning
+	 *            null if not found.
+	 * @return The entity, or null if not found.
+	 */
+	public T getByKey(String keyName, String key, Function<String, T> loader) {
+		Map<String, String> index = indexes.get(keyName);
+		if (index == null) {
+			throw new IllegalArgumentException("Unknown cache key: " + keyName);
+		}
+		if (key == null) {
+			return loader.apply(key);
+		}
+
+		long loadGeneration;
+		synchronized (this) {
+			String entityId = index.get(normalize(key));
+			T entity = entityId == null ? null : lookup(entityId);
+			if (entity != null) {
+				hitCount.increment();
+				return entity;
+			}
+			loadGeneration = generation;
+		}
+		missCount.increment();
+		return load(loader.apply(key), UNKNOWN_VERSION, loadGeneration);
+	}
+
+	/**
+	 *
+	 * Looks up several entities by entity ID, loading every miss at once.
+	 *
+	 * @param entityIds
+	 *            The entity IDs.
+	 * @param loader
+	 *            Loads the entities from the database by entity ID, returning
+	 *            those found keyed by entity ID.
+	 * @return The entities found, keyed by entity ID.
+	 */
+	public Map<String, T> getAll(Collection<String> entityIds, Function<Collection<String>, Map<String, T>> loader) {
+		return getAll(null, entityIds, loader);
+	}
+
+	/**
+	 *
+	 * Looks up several entities by one of their secondary keys, loading every miss
+	 * at once.
+	 *
+	 * @param keyName
+	 *            Name of the secondary key, as given in the constructor.
+	 * @param keys
+	 *            Values of the secondary key.
+	 * @param loader
+	 *            Loads the entities from the database by the secondary key,
+	 *            returning those found keyed by the secondary key.
+	 * @return The entities found, keyed by the secondary key.
+	 */
+	public Map<String, T> getAllByKey(String keyName, Collection<String> keys,
+			Function<Collection<String>, Map<String, T>> loader) {
+		Map<String, String> index = indexes.get(keyName);
+		if (index == null) {
+			throw new IllegalArgumentException("Unknown cache key: " + keyName);
+		}
+		return getAll(index, keys, loader);
+	}
+
+	private Map<String, T> getAll(Map<String, String> index, Collection<String> keys,
+			Function<Collection<String>, Map<String, T>> loader) {
+		Map<String, T> found = new HashMap<>();
+		List<String> missing = new ArrayList<>();
+
+		long loadGeneration;
+		synchronized (this) {
+			for (String key : keys) {
+				String entityId = index == null || key == null ? key : index.get(normalize(key));
+				T entity = entityId == null ? null : lookup(entityId);
+				if (entity != null) {
+					found.put(key, entity);
+				} else if (key != null) {
+					missing.add(key);
+				}
+			}
+			loadGeneration = generation;
+		}
+		hitCount.add(found.size());
+		missCount.add(missing.size());
+
+		if (!missing.isEmpty()) {
+			for (Map.Entry<String, T> loaded : loader.apply(missing).entrySet()) {
+				found.put(loaded.getKey(), load(loaded.getValue(), UNKNOWN_VERSION, loadGeneration));
+			}
+		}
+		return found;
+	}
+
+	/**
+	 *
+	 * Removes an entity from the cache, along with its secondary keys. Must be
+	 * called whenever the entity is modified or deleted.
+	 *
+	 * @param entityId
+	 *            The entity ID of the entity to remove.
+	 */
+	public synchronized void invalidate(String entityId) {
+		// Loads that started before this call must not repopulate the entry
+		generation++;
+		CacheEntry<T> entry = entries.remove(entityId);
+		if (entry != null) {
+			unindex(entry);
+			invalidationCount.increment();
+		}
+	}
+
+	/**
+	 *
+	 * Removes every entity from the cache.
+	 */
+	public synchronized void invalidateAll() {
+		generation++;
+		invalidationCount.add(entries.size());
+		entries.clear();
+		for (Map<String, String> index : indexes.values()) {
+			index.clear();
+		}
+	}
+
+	/**
+	 *
+	 * @return A snapshot of the cache size and counters.
+	 */
+	public Statistics getStatistics() {
+		int size;
+		synchronized (this) {
+			size = entries.size();
+		}
+		return new Statistics(size, maximumSize, hitCount.sum(), missCount.sum(), evictionCount.sum(),
+				expirationCount.sum(), invalidationCount.sum());
+	}
+
+	// Must hold the lock
+	private T lookup(String entityId) {
+		CacheEntry<T> entry = lookupEntry(entityId);
+		return entry == null ? null : entry.entity;
+	}
+
+	// Must hold the lock
+	private CacheEntry<T> lookupEntry(String entityId) {
+		CacheEntry<T> entry = entries.get(entityId);
+		if (entry == null) {
+			return null;
+		}
+		if (entry.isExpired()) {
+			entries.remove(entityId);
+			unindex(entry);
+			expirationCount.increment();
+			return null;
+		}
+		return entry;
+	}
+
+	private T load(T entity, long version, long loadGeneration) {
+		if (entity == null) {
+			return null;
+		}
+		String entityId = entityIdExtractor.apply(entity);
+		if (entityId == null) {
+			return entity;
+		}
+
+		Map<String, String> keys = new HashMap<>();
+		for (Map.Entry<String, Function<T, String>> extractor : keyExtractors.entrySet()) {
+			String key = extractor.getValue().apply(entity);
+			if (key != null) {
+				keys.put(extractor.getKey(), normalize(key));
+			}
+		}
+
+		synchronized (this) {
+			// Skip caching if the entity may have changed while it was being loaded
+			if (loadGeneration == generation) {
+				CacheEntry<T> previous = entries.remove(entityId);
+				if (previous != null) {
+					unindex(previous);
+				}
+				CacheEntry<T> entry = new CacheEntry<>(entityId, entity, version, Collections.unmodifiableMap(keys),
+						System.currentTimeMillis() + timeToLive);
+				for (Map.Entry<String, String> key : entry.keys.entrySet()) {
+					indexes.get(key.getKey()).put(key.getValue(), entityId);
+				}
+				entries.put(entityId, entry);
+			}
+		}
+		return entity;
+	}
+
+	// Secondary keys are indexed in lower case
+	private static String normalize(String key) {
+		return key.toLowerCase(Locale.ROOT);
+	}
+
+	// Must hold the lock
+	private void unindex(CacheEntry<T> entry) {
+		Iterator<Map.Entry<String, String>> iterator = entry.keys.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Map.Entry<String, String> key = iterator.next();
+			Map<String, String> index = indexes.get(key.getKey());
+			// Only remove the mapping if it still points to this entity
+			if (entry.entityId.equals(index.get(key.getValue()))) {
+				index.remove(key.getValue());
+			}
+		}
+	}
+
+	private static class CacheEntry<T> {
+		final String entityId;
+		final T entity;
+		// Row version the entity was loaded at, or UNKNOWN_VERSION
+		final long version;
+		final Map<String, String> keys;
+		final long expiresAt;
+
+		CacheEntry(String entityId, T entity, long version, Map<String, String> keys, long expiresAt) {
+			this.entityId = entityId;
+			this.entity = entity;
+			this.version = version;
+			this.keys = keys;
+			this.expiresAt = expiresAt;
+		}
+
+		boolean isExpired() {
+			return System.currentTimeMillis() >= expiresAt;
+		}
+	}
+
+	/**
+	 * Point in time view of the cache usage.
+	 */
+	public static class Statistics {
+		private final int size;
+		private final int maximumSize;
+		private final long hitCount;
+		private final long missCount;
+		private final long evictionCount;
+		private final long expirationCount;
+		private final long invalidationCount;
+
+		Statistics(int size, int maximumSize, long hitCount, long missCount, long evictionCount,
+				long expirationCount, long invalidationCount) {
+			this.size = size;
+			this.maximumSize = maximumSize;
+			this.hitCount = hitCount;
+			this.missCount = missCount;
+			this.evictionCount = evictionCount;
+			this.expirationCount = expirationCount;
+			this.invalidationCount = invalidationCount;
+		}
+
+		public int getSize() {
+			return size;
+		}
+
+		public int getMaximumSize() {
+			return maximumSize;
+		}
+
+		public long getHitCount() {
+			return hitCount;
+		}
+
+		public long getMissCount() {
+			return missCount;
+		}
+
+		/**
+		 *
+		 * @return Number of entries removed to make room for new ones.
+		 */
+		public long getEvictionCount() {
+			return evictionCount;
+		}
+
+		/**
+		 *
+		 * @return Number of entries dropped because their time to live ran out.
+		 */
+		public long getExpirationCount() {
+			return expirationCount;
+		}
+
+		public long getInvalidationCount() {
+			return invalidationCount;
+		}
+
+		public double getHitRatio() {
+			long requests = hitCount + missCount;
+			return requests == 0 ? 0 : (double) hitCount / requests;
+		}
+	}
+
+	private static long getLongProperty(String key, long defaultValue) {
+		String value = cacheProperties.getProperty(key);
+		if (value == null || value.trim().length() == 0) {
+			return defaultValue;
+		}
+		try {
+			return Long.parseLong(value.trim());
+		} catch (NumberFormatException e) {
+			e.printStackTrace();
+			return defaultValue;
+		}
+	}
+}
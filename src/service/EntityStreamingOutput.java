@@ -0,0 +1,184 @@
+package service;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.annotation.Annotation;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Providers;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+
+/**
+ *
+ * Writes a collection of entities to the response as they are produced, instead
+ * of building the whole list in memory first. The output has the same shape as
+ * a serialized list: a JSON array, or an XML document with a wrapper element
+ * around the entities.
+ *
+ * @author Francisco Frias
+ * @author Abel Guzman
+ * @author Amin Guzman
+ *
+ * @param <T>
+ *            Type of the entities written.
+ */
+public class EntityStreamingOutput<T> implements StreamingOutput {
+	private static final int BUFFER_SIZE = 8192;
+	private static final Annotation[] NO_ANNOTATIONS = new Annotation[0];
+	private static final ConcurrentMap<Class<?>, JAXBContext> JAXB_CONTEXTS = new ConcurrentHashMap<>();
+
+	/**
+	 * Source of the entities to write, i.e. a DAO streamAll method.
+	 */
+	public interface Source<T> {
+		/**
+		 *
+		 * @param consumer
+		 *            Receives every entity to write, in order.
+		 * @return true if every entity was produced, false if the source failed
+		 *         part way through.
+		 */
+		boolean forEach(Consumer<? super T> consumer);
+	}
+
+	private final Class<T> type;
+	private final String collectionName;
+	private final MediaType mediaType;
+	private final Providers providers;
+	private final Source<T> source;
+
+	/**
+	 *
+	 * @param type
+	 *            Class of the entities written.
+	 * @param collectionName
+	 *            Name of the XML element wrapping the entities, i.e. "students".
+	 * @param mediaType
+	 *            Media type to write, must be JSON or XML.
+	 * @param providers
+	 *            Providers of the current request, used to find the JSON writer.
+	 * @param source
+	 *            Produces the entities to write.
+	 */
+	public EntityStreamingOutput(Class<T> type, String collectionName, MediaType mediaType, Providers providers,
+			Source<T> source) {
+		this.type = type;
+		this.collectionName = collectionName;
+		this.mediaType = mediaType;
+		this.providers = providers;
+		this.source = source;
+	}
+
+	@Override
+	public void write(OutputStream output) throws IOException, WebApplicationException {
+		OutputStream bufferedOutput = new BufferedOutputStream(output, BUFFER_SIZE);
+		boolean completed;
+		try {
+			if (MediaType.APPLICATION_XML_TYPE.isCompatible(mediaType)
+					|| MediaType.TEXT_XML_TYPE.isCompatible(mediaType)) {
+				completed = writeXml(bufferedOutput);
+			} else {
+				completed = writeJson(bufferedOutput);
+			}
+		} catch (UncheckedIOException e) {
+			// Client went away while writing
+			throw e.getCause();
+		}
+
+		if (!completed) {
+			/*
+			 * The status line has already been sent, so the only way of telling the client
+			 * the collection is incomplete is aborting the response before it ends.
+			 */
+			bufferedOutput.flush();
+			throw new IOException("Entity source failed while streaming " + collectionName);
+		}
+		bufferedOutput.flush();
+	}
+
+	private boolean writeJson(OutputStream output) throws IOException {
+		MessageBodyWriter<T> writer = providers.getMessageBodyWriter(type, type, NO_ANNOTATIONS, mediaType);
+		if (writer == null) {
+			throw new IOException("No writer available for " + type.getName() + " as " + mediaType);
+		}
+		OutputStream entityOutput = new NonClosingOutputStream(output);
+		MultivaluedHashMap<String, Object> headers = new MultivaluedHashMap<>();
+
+		output.write('[');
+		boolean[] first = { true };
+		boolean completed = source.forEach(entity -> {
+			try {
+				if (!first[0]) {
+					output.write(',');
+				}
+				first[0] = false;
+				writer.writeTo(entity, type, type, NO_ANNOTATIONS, mediaType, headers, entityOutput);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+		output.write(']');
+		return completed;
+	}
+
+	private boolean writeXml(OutputStream output) throws IOException {
+		Marshaller marshaller;
+		try {
+			JAXBContext context = JAXB_CONTEXTS.get(type);
+			if (context == null) {
+				context = JAXBContext.newInstance(type);
+				JAXB_CONTEXTS.putIfAbsent(type, context);
+			}
+			// Marshallers are cheap, but not thread safe
+			marshaller = context.createMarshaller();
+			marshaller.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
+		} catch (JAXBException e) {
+			throw new IOException("Could not create XML marshaller for " + type.getName(), e);
+		}
+
+		output.write(String.format("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?><%s>", collectionName)
+				.getBytes(StandardCharsets.UTF_8));
+		OutputStream entityOutput = new NonClosingOutputStream(output);
+		boolean completed = source.forEach(entity -> {
+			try {
+				marshaller.marshal(entity, entityOutput);
+			} catch (JAXBException e) {
+				throw new UncheckedIOException(new IOException("Could not marshal " + type.getName(), e));
+			}
+		});
+		output.write(String.format("</%s>", collectionName).getBytes(StandardCharsets.UTF_8));
+		return completed;
+	}
+
+	/**
+	 * Keeps entity writers from closing the response stream after each entity.
+	 */
+	private static class NonClosingOutputStream extends FilterOutputStream {
+		NonClosingOutputStream(OutputStream output) {
+			super(output);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+		}
+
+		@Override
+		public void close() throws IOException {
+			flush();
+		}
+	}
+}
@@ -1,15 +1,50 @@
 package service;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import db.BulkInsertResult;
+import db.ChangeSet;
+import db.Filter;
+import db.Page;
+import db.Projection;
 
 public abstract class GenericDao<T> {
 	public abstract List<T> getAll();
 
+	public abstract List<T> getAll(Projection projection, Filter filter);
+
+	public abstract Page<T> getPage(int after, int limit);
+
+	public abstract Page<T> getPage(int after, int limit, Projection projection, Filter filter);
+
+	public abstract boolean streamAll(Consumer<? super T> consumer);
+
+	public abstract boolean streamAll(Projection projection, Filter filter, Consumer<? super T> consumer);
+
+	public abstract Projection getProjection(Collection<String> fields, boolean phoneNumbers);
+
+	public abstract void checkFilter(Filter filter);
+
+	public abstract ChangeSet<T> getChanges(String since, int limit);
+
 	public abstract T create(T entity);
 
+	public abstract List<BulkInsertResult> createAll(List<T> entities, int chunkSize);
+
 	public abstract boolean delete(String entityId);
 
 	public abstract T get(String entityId);
 
+	public abstract T getCurrent(String entityId, long version);
+
+	public abstract Map<String, T> getAllByKey(String keyName, Collection<String> keys);
+
+	public abstract long getVersion(String entityId);
+
+	public abstract String getCollectionVersion();
+
 	public abstract boolean update(String entityId, T entity);
 }
@@ -1,11 +1,32 @@
 package service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.MediaType;
-import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.UriInfo;
 
-import service.ContentTypeHeader;
-import service.ContentTypeUnit;
+import core.PhoneNumber;
+import db.BulkInsertResult;
+import db.BulkInsertResult.Outcome;
+import db.Filter;
+import db.Page;
+import db.Projection;
 
 /**
  * 
@@ -17,60 +38,427 @@ import service.ContentTypeUnit;
  * 
  */
 public abstract class GenericWebService<T> {
-	final static String CONTENT_TYPE_WILDCARD = "*/*";
+	final static int DEFAULT_PAGE_SIZE = 100;
+	final static int MAX_PAGE_SIZE = 1000;
+	final static String BULK_PATH = ":bulk";
+	final static String BATCH_GET_PATH = ":batchGet";
+	final static int MAX_BATCH_GET_SIZE = 1000;
+	final static String CHANGES_PATH = "/changes";
+	final static String CSV_MEDIA_TYPE = "text/csv";
+	final static int DEFAULT_BULK_CHUNK_SIZE = 1000;
+	final static int MAX_BULK_CHUNK_SIZE = 10000;
+	final static String PREFERENCE_APPLIED_HEADER = "Preference-Applied";
+	final static String RETURN_REPRESENTATION = "return=representation";
+	final static MediaType PRIMARY_OBJECT_MEDIA_TYPE = MediaType.valueOf(ServicePresets.PRIMARY_OBJECT_MEDIA_TYPE);
+	final static MediaType SECONDARY_OBJECT_MEDIA_TYPE = MediaType.valueOf(ServicePresets.SECONDARY_OBJECT_MEDIA_TYPE);
+	private final static MediaTypeNegotiator OBJECT_MEDIA_TYPES = new MediaTypeNegotiator(PRIMARY_OBJECT_MEDIA_TYPE,
+			SECONDARY_OBJECT_MEDIA_TYPE);
+
+	/**
+	 * 
+	 * Determines which media type from those produced by the service is the most
+	 * suitable from the options specified in the header. Results are cached by
+	 * header, see {@link MediaTypeNegotiator}.
+	 * 
+	 * @param acceptHeader
+	 *            The raw accept header from the request. Empty or null headers
+	 *            default to a wildcard value.
+	 * @return The preferred {@link #javax.ws.rs.core.MediaType} that we can
+	 *         provide, or null if we cannot provide any of the requested media
+	 *         types.
+	 */
+	public MediaType getPreferredMediaType(String acceptHeader) {
+		return OBJECT_MEDIA_TYPES.getPreferredMediaType(acceptHeader);
+	}
 
 	/**
 	 * 
-	 * Parses the accept header from an HTTP request into a
-	 * {@link #util.ContentTypeHeader}.
+	 * Determines the media type of a response, honoring the accept header where
+	 * possible.
 	 * 
 	 * @param acceptHeader
 	 *            The raw accept header from the request.
-	 * @return A {@link #util.ContentTypeHeader} object representing the header.
-	 *         Empty or null headers default to a wildcard value.
+	 * @return The preferred media type, or the primary object media type if we
+	 *         cannot provide any of the requested media types.
 	 */
-	public ContentTypeHeader parseAcceptHeader(String acceptHeader) {
-		ContentTypeHeader header = ContentTypeHeader.parse(CONTENT_TYPE_WILDCARD);
+	public MediaType getResponseMediaType(String acceptHeader) {
+		MediaType mediaType = getPreferredMediaType(acceptHeader);
+		return mediaType == null ? PRIMARY_OBJECT_MEDIA_TYPE : mediaType;
+	}
 
-		if (acceptHeader != null && acceptHeader.trim().length() > 0) {
-			try {
-				header = ContentTypeHeader.parse(acceptHeader);
-			} catch (IllegalArgumentException e) {
-				e.printStackTrace();
+	/**
+	 * 
+	 * Determines whether the client asked for the created or modified entity to be
+	 * returned in the response body, as defined by RFC 7240.
+	 * 
+	 * @param prefer
+	 *            The raw prefer header from the request, or null if none was sent.
+	 * @return True if the header includes the return=representation preference.
+	 */
+	public boolean prefersRepresentation(String prefer) {
+		if (prefer != null) {
+			for (String preference : prefer.split(",")) {
+				// Preference parameters, if any, follow a semicolon
+				String token = preference.split(";", 2)[0].replace(" ", "");
+				if (token.equalsIgnoreCase(RETURN_REPRESENTATION)) {
+					return true;
+				}
 			}
 		}
-		return header;
+		return false;
 	}
 
 	/**
 	 * 
-	 * Determines which media type from those produced by the service is the most
-	 * suitable from the options specified in the header.
+	 * Builds the ETag of a single entity from its row version. Tags are weak, since
+	 * the same version is served as JSON and XML.
 	 * 
-	 * @param acceptHeader
-	 *            Accept header representing media types specified as accepted in
-	 *            the request.
-	 * @return The preferred {@link #javax.ws.rs.core.MediaType} that we can
-	 *         provide, or null if we cannot provide any of the requested media
-	 *         types.
+	 * @param version
+	 *            The row version of the entity, or a negative value if unknown.
+	 * @return The ETag, or null if the version is unknown.
+	 */
+	public EntityTag getEntityTag(long version) {
+		return version < 0 ? null : new EntityTag(Long.toString(version), true);
+	}
+
+	/**
+	 * 
+	 * Builds the ETag of a whole collection.
+	 * 
+	 * @param collectionVersion
+	 *            A value that changes whenever any entity of the collection is
+	 *            created, modified or deleted, or null if unknown.
+	 * @return The ETag, or null if the version is unknown.
+	 */
+	public EntityTag getCollectionTag(String collectionVersion) {
+		return collectionVersion == null ? null : new EntityTag(collectionVersion, true);
+	}
+
+	/**
+	 * 
+	 * Clamps a requested page size to the range supported by the service.
+	 * 
+	 * @param limit
+	 *            The page size requested, or null if none was specified.
+	 * @return The page size to use.
+	 */
+	public int getPageSize(Integer limit) {
+		if (limit == null) {
+			return DEFAULT_PAGE_SIZE;
+		}
+		return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+	}
+
+	/**
+	 * 
+	 * Builds the URI of the page following the one passed, keeping every other
+	 * parameter of the current request.
+	 * 
+	 * @param uriInfo
+	 *            Information about the current request.
+	 * @param page
+	 *            The page being returned.
+	 * @param limit
+	 *            The page size in use.
+	 * @return The URI of the next page, or null if the page passed is the last one.
+	 */
+	public URI getNextPageUri(UriInfo uriInfo, Page<?> page, int limit) {
+		if (!page.hasNext()) {
+			return null;
+		}
+		return uriInfo.getRequestUriBuilder().replaceQueryParam("limit", limit)
+				.replaceQueryParam("after", page.getNextCursor()).build();
+	}
+
+	/**
+	 * 
+	 * Builds the projection requested through the fields and expand parameters.
+	 * Phone numbers are included by default only if every field is, so
+	 * requesting a few fields skips their query unless expanded explicitly.
+	 * 
+	 * @param dao
+	 *            The DAO of the entities.
+	 * @param fields
+	 *            Comma separated fields to read, or null to read every field.
+	 * @param expand
+	 *            Comma separated related collections to read, or null for the
+	 *            default.
+	 * @return The projection requested.
+	 * @throws IllegalArgumentException
+	 *             If a field or expansion is unknown.
+	 */
+	public Projection getProjection(GenericDao<T> dao, String fields, String expand) {
+		List<String> fieldList = splitParameter(fields);
+		boolean phoneNumbers = fieldList == null;
+		List<String> expandList = splitParameter(expand);
+		if (expandList != null) {
+			phoneNumbers = false;
+			for (String expansion : expandList) {
+				if (!Projection.PHONE_NUMBERS.equals(expansion)) {
+					throw new IllegalArgumentException("Unknown expansion: " + expansion);
+				}
+				phoneNumbers = true;
+			}
+		}
+		return dao.getProjection(fieldList, phoneNumbers);
+	}
+
+	/**
+	 * 
+	 * Adds the sort keys requested through the sort parameter to a filter and
+	 * checks every field it refers to exists.
+	 * 
+	 * @param dao
+	 *            The DAO of the entities.
+	 * @param filter
+	 *            The conditions requested.
+	 * @param sort
+	 *            Comma separated fields to sort by, each prefixed with - to sort
+	 *            in descending order, or null to keep primary key order.
+	 * @return The filter with the sort keys added.
+	 * @throws IllegalArgumentException
+	 *             If a field is unknown.
+	 */
+	public Filter getFilter(GenericDao<T> dao, Filter filter, String sort) {
+		List<String> sortList = splitParameter(sort);
+		if (sortList != null) {
+			for (String sortKey : sortList) {
+				boolean descending = sortKey.startsWith("-");
+				filter = filter.orderBy(descending ? sortKey.substring(1) : sortKey, descending);
+			}
+		}
+		dao.checkFilter(filter);
+		return filter;
+	}
+
+	/**
+	 * 
+	 * Checks the value of a query parameter backed by an enum.
+	 * 
+	 * @param type
+	 *            The enum the value must name a constant of.
+	 * @param parameter
+	 *            The name of the query parameter, for the error message.
+	 * @param value
+	 *            The value passed, or null if none was.
+	 * @return The name of the constant, or null if no value was passed.
+	 * @throws IllegalArgumentException
+	 *             If the value does not name a constant.
 	 */
-	public MediaType getPreferredMediaType(ContentTypeHeader acceptHeader) {
-		MediaType mediaType = null;
-		for (ContentTypeUnit unit : acceptHeader) {
-			if (unit.getMediaType().equals(MediaType.valueOf(ServicePresets.PRIMARY_OBJECT_MEDIA_TYPE))
-					|| unit.getMediaType().equals(MediaType.valueOf(ServicePresets.SECONDARY_OBJECT_MEDIA_TYPE))) {
-				mediaType = unit.getMediaType();
-				break;
+	public <E extends Enum<E>> String getConstantName(Class<E> type, String parameter, String value) {
+		if (value == null || value.trim().length() == 0) {
+			return null;
+		}
+		try {
+			return Enum.valueOf(type, value.trim()).name();
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("Unknown " + parameter + ": " + value);
+		}
+	}
+
+	// Splits a comma separated query parameter, null if absent or blank
+	private static List<String> splitParameter(String parameter) {
+		if (parameter == null || parameter.trim().length() == 0) {
+			return null;
+		}
+		List<String> values = new ArrayList<>();
+		for (String value : parameter.split(",")) {
+			if (value.trim().length() > 0) {
+				values.add(value.trim());
 			}
 		}
-		return mediaType;
+		return values;
 	}
 
-	public abstract Response create(UriInfo uriInfo, T entity);
+	/**
+	 * 
+	 * Looks up several entities by one of their unique identifiers at once.
+	 * 
+	 * @param dao
+	 *            The DAO of the entities.
+	 * @param keyName
+	 *            The name of the unique identifier to look in.
+	 * @param keys
+	 *            The values to look for. Repeated values, ignoring case, are only
+	 *            looked up once.
+	 * @return The entities found, in request order, and the values nothing was
+	 *         found for.
+	 */
+	public BatchGetResult<T> batchGet(GenericDao<T> dao, String keyName, List<String> keys) {
+		// Identifier columns compare ignoring case
+		Set<String> uniqueKeys = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+		List<String> requestedKeys = new ArrayList<>();
+		for (String key : keys) {
+			if (key != null && uniqueKeys.add(key)) {
+				requestedKeys.add(key);
+			}
+		}
+
+		Map<String, T> entities = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+		entities.putAll(dao.getAllByKey(keyName, requestedKeys));
+
+		List<T> found = new ArrayList<>();
+		List<String> missing = new ArrayList<>();
+		for (String key : requestedKeys) {
+			T entity = entities.get(key);
+			if (entity != null) {
+				found.add(entity);
+			} else {
+				missing.add(key);
+			}
+		}
+		return new BatchGetResult<>(found, missing);
+	}
+
+	/**
+	 * 
+	 * Clamps a requested bulk import chunk size to the range supported by the
+	 * service.
+	 * 
+	 * @param chunkSize
+	 *            The chunk size requested, or null if none was specified.
+	 * @return The chunk size to use.
+	 */
+	public int getBulkChunkSize(Integer chunkSize) {
+		if (chunkSize == null) {
+			return DEFAULT_BULK_CHUNK_SIZE;
+		}
+		return Math.max(1, Math.min(chunkSize, MAX_BULK_CHUNK_SIZE));
+	}
+
+	/**
+	 * 
+	 * Creates every entity passed through a single bulk insert.
+	 * 
+	 * @param dao
+	 *            The DAO of the entities.
+	 * @param entities
+	 *            The entities to create.
+	 * @param chunkSize
+	 *            Maximum number of entities inserted per transaction.
+	 * @return The outcome of every entity, indexed by position in the list.
+	 */
+	public BulkImportReport importAll(GenericDao<T> dao, List<T> entities, int chunkSize) {
+		long start = System.nanoTime();
+		List<BulkInsertResult> results = dao.createAll(entities, chunkSize);
+		return new BulkImportReport(results, System.nanoTime() - start);
+	}
+
+	/**
+	 * 
+	 * Creates entities from CSV input whose first record names the columns. Rows
+	 * are inserted a chunk at a time as they are read, so the input is never held
+	 * in memory as a whole.
+	 * 
+	 * @param dao
+	 *            The DAO of the entities.
+	 * @param input
+	 *            UTF-8 encoded CSV input.
+	 * @param chunkSize
+	 *            Maximum number of entities inserted per transaction.
+	 * @param mapper
+	 *            Builds an entity from a row keyed by column name, with empty
+	 *            fields mapped to null. Throws IllegalArgumentException if the row
+	 *            is malformed.
+	 * @return The outcome of every row after the header, indexed from 0.
+	 * @throws IOException
+	 *             If the input cannot be read or is not valid CSV.
+	 */
+	public BulkImportReport importCsv(GenericDao<T> dao, InputStream input, int chunkSize,
+			Function<Map<String, String>, T> mapper) throws IOException {
+		long start = System.nanoTime();
+		List<BulkInsertResult> results = new ArrayList<>();
+
+		try (CsvReader reader = new CsvReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+			List<String> header = reader.readRecord();
+			List<T> chunk = new ArrayList<>();
+			List<Integer> rowIndexes = new ArrayList<>();
+			int rowIndex = 0;
+
+			List<String> record;
+			while (header != null && (record = reader.readRecord()) != null) {
+				Map<String, String> row = new HashMap<>();
+				for (int i = 0; i < header.size() && i < record.size(); i++) {
+					String value = record.get(i).trim();
+					row.put(header.get(i).trim(), value.length() == 0 ? null : value);
+				}
+
+				try {
+					chunk.add(mapper.apply(row));
+					rowIndexes.add(rowIndex);
+				} catch (IllegalArgumentException e) {
+					results.add(new BulkInsertResult(rowIndex, Outcome.INVALID, null, e.getMessage()));
+				}
+				rowIndex++;
+
+				if (chunk.size() == chunkSize) {
+					importChunk(dao, chunk, rowIndexes, results);
+				}
+			}
+			importChunk(dao, chunk, rowIndexes, results);
+		}
+
+		// Rows rejected while parsing were reported ahead of their chunk
+		results.sort(Comparator.comparingInt(BulkInsertResult::getIndex));
+		return new BulkImportReport(results, System.nanoTime() - start);
+	}
+
+	/**
+	 * 
+	 * Parses the phone numbers column of a CSV import.
+	 * 
+	 * @param value
+	 *            Semicolon separated list of TYPE:number pairs, i.e.
+	 *            "MOBILE:8095550000;HOME:8095551111", or null if none.
+	 * @return The phone numbers listed.
+	 * @throws IllegalArgumentException
+	 *             If a pair is malformed or of an unknown type.
+	 */
+	public List<PhoneNumber> parsePhoneNumbers(String value) {
+		List<PhoneNumber> phoneNumbers = new ArrayList<>();
+
+		if (value != null) {
+			for (String pair : value.split(";")) {
+				if (pair.trim().length() == 0) {
+					continue;
+				}
+				int separator = pair.indexOf(':');
+				if (separator < 0) {
+					throw new IllegalArgumentException("Malformed phone number: " + pair.trim());
+				}
+				PhoneNumber phoneNumber = new PhoneNumber();
+				phoneNumber.setType(pair.substring(0, separator).trim());
+				phoneNumber.setPhoneNumber(pair.substring(separator + 1).trim());
+				phoneNumbers.add(phoneNumber);
+			}
+		}
+
+		return phoneNumbers;
+	}
+
+	private void importChunk(GenericDao<T> dao, List<T> chunk, List<Integer> rowIndexes,
+			List<BulkInsertResult> results) {
+		if (!chunk.isEmpty()) {
+			// Results come back indexed by position in the chunk
+			for (BulkInsertResult result : dao.createAll(chunk, chunk.size())) {
+				result.setIndex(rowIndexes.get(result.getIndex()));
+				results.add(result);
+			}
+			chunk.clear();
+			rowIndexes.clear();
+		}
+	}
+
+	/*
+	 * Resource methods are suspended and answered through the AsyncResponse, see
+	 * RequestExecutor
+	 */
+	public abstract void create(AsyncResponse asyncResponse, UriInfo uriInfo, String acceptHeader, String prefer,
+			T entity);
 
-	public abstract Response read(String acceptHeader, String entityId);
+	public abstract void read(AsyncResponse asyncResponse, Request request, String acceptHeader, String entityId);
 
-	public abstract Response update(String entityId, T entity);
+	public abstract void update(AsyncResponse asyncResponse, String entityId, T entity);
 
-	public abstract Response delete(String entityId);
+	public abstract void delete(AsyncResponse asyncResponse, String entityId);
 }
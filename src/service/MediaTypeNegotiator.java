@@ -0,0 +1,223 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.ws.rs.core.MediaType;
+
+/**
+ *
+ * Chooses the media type of a response among those a service produces, from
+ * the raw Accept header of the request, as defined by RFC 7231 section 5.3.2.
+ *
+ * Every produced media type gets the quality of the most specific range that
+ * matches it (type/subtype over type/* over *&#47;*), and the one with the
+ * highest quality above zero wins. Ties go to the more specific range, then to
+ * the range listed first by the client, then to the order the media types were
+ * given in.
+ *
+ * Clients send a handful of distinct headers, so results are cached by raw
+ * header. The cache holds at most a fixed number of headers and is cleared
+ * when full, so unusual headers cannot make it grow without limit.
+ *
+ * @author Francisco Frias
+ * @author Abel Guzman
+ * @author Amin Guzman
+ *
+ */
+public class MediaTypeNegotiator {
+	private static final int MAX_CACHED_HEADERS = 256;
+	private static final int MAX_CACHED_HEADER_LENGTH = 512;
+	private static final String QUALITY_PARAMETER = "q";
+	private static final String WILDCARD = "*";
+	private static final String CONTENT_TYPE_WILDCARD = "*/*";
+	// Specificity of a range matching a media type
+	private static final int NO_MATCH = -1;
+	private static final int ANY_TYPE_MATCH = 0;
+	private static final int ANY_SUBTYPE_MATCH = 1;
+	private static final int EXACT_MATCH = 2;
+
+	private final MediaType[] mediaTypes;
+	private final ConcurrentMap<String, Optional<MediaType>> preferredMediaTypes = new ConcurrentHashMap<>();
+
+	/**
+	 *
+	 * @param mediaTypes
+	 *            The media types produced, most preferred by the server first.
+	 */
+	public MediaTypeNegotiator(MediaType... mediaTypes) {
+		this.mediaTypes = mediaTypes.clone();
+	}
+
+	/**
+	 *
+	 * Looks up the preferred media type for an Accept header, negotiating it on
+	 * the first request with that header.
+	 *
+	 * @param acceptHeader
+	 *            The raw accept header from the request. Null or empty headers
+	 *            accept any media type.
+	 * @return The preferred media type, or null if none of those produced is
+	 *         acceptable.
+	 */
+	public MediaType getPreferredMediaType(String acceptHeader) {
+		String key = acceptHeader == null ? "" : acceptHeader;
+		Optional<MediaType> mediaType = preferredMediaTypes.get(key);
+		if (mediaType == null) {
+			mediaType = Optional.ofNullable(negotiate(key));
+			if (key.length() <= MAX_CACHED_HEADER_LENGTH) {
+				if (preferredMediaTypes.size() >= MAX_CACHED_HEADERS) {
+					preferredMediaTypes.clear();
+				}
+				preferredMediaTypes.put(key, mediaType);
+			}
+		}
+		return mediaType.orElse(null);
+	}
+
+	/**
+	 *
+	 * Negotiates the preferred media type for an Accept header, without caching.
+	 *
+	 * @param acceptHeader
+	 *            The raw accept header from the request. Null or empty headers
+	 *            accept any media type.
+	 * @return The preferred media type, or null if none of those produced is
+	 *         acceptable.
+	 */
+	public MediaType negotiate(String acceptHeader) {
+		if (acceptHeader == null || acceptHeader.trim().length() == 0) {
+			return mediaTypes.length > 0 ? mediaTypes[0] : null;
+		}
+		List<MediaRange> ranges = parse(acceptHeader);
+
+		MediaType preferred = null;
+		MediaRange preferredRange = null;
+		for (MediaType mediaType : mediaTypes) {
+			// The most specific range decides the quality, whatever its position
+			MediaRange matchingRange = null;
+			int matchingSpecificity = NO_MATCH;
+			for (MediaRange range : ranges) {
+				int specificity = range.match(mediaType);
+				if (specificity > matchingSpecificity) {
+					matchingRange = range;
+					matchingSpecificity = specificity;
+				}
+			}
+			if (matchingRange != null && matchingRange.quality > 0
+					&& (preferredRange == null || matchingRange.isPreferredTo(preferredRange, mediaType, preferred))) {
+				preferred = mediaType;
+				preferredRange = matchingRange;
+			}
+		}
+		return preferred;
+	}
+
+	// Media ranges that cannot be parsed are ignored, as are those with an invalid quality
+	private static List<MediaRange> parse(String acceptHeader) {
+		List<MediaRange> ranges = new ArrayList<>();
+		for (String element : split(acceptHeader, ',')) {
+			List<String> parts = split(element, ';');
+			String range = parts.get(0).trim().toLowerCase(Locale.ROOT);
+			if (range.equals(WILDCARD)) {
+				// Sent by some old clients to mean */*
+				range = CONTENT_TYPE_WILDCARD;
+			}
+			int slash = range.indexOf('/');
+			if (slash <= 0 || slash == range.length() - 1) {
+				continue;
+			}
+			String type = range.substring(0, slash).trim();
+			String subtype = range.substring(slash + 1).trim();
+			if (type.equals(WILDCARD) && !subtype.equals(WILDCARD)) {
+				continue;
+			}
+
+			double quality = 1;
+			for (int i = 1; i < parts.size(); i++) {
+				String parameter = parts.get(i).trim();
+				int equals = parameter.indexOf('=');
+				if (equals > 0 && parameter.substring(0, equals).trim().equalsIgnoreCase(QUALITY_PARAMETER)) {
+					try {
+						quality = Double.parseDouble(parameter.substring(equals + 1).trim());
+					} catch (NumberFormatException e) {
+						quality = -1;
+					}
+					// Media type parameters end where the quality is given
+					break;
+				}
+			}
+			if (quality >= 0 && quality <= 1) {
+				ranges.add(new MediaRange(type, subtype, quality, ranges.size()));
+			}
+		}
+		return ranges;
+	}
+
+	// Splits on a separator outside quoted strings
+	private static List<String> split(String value, char separator) {
+		List<String> parts = new ArrayList<>();
+		boolean quoted = false;
+		int start = 0;
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"') {
+				quoted = !quoted;
+			} else if (c == '\\' && quoted) {
+				i++;
+			} else if (c == separator && !quoted) {
+				parts.add(value.substring(start, i));
+				start = i + 1;
+			}
+		}
+		parts.add(value.substring(start));
+		return parts;
+	}
+
+	/**
+	 * A media range of the Accept header with its quality.
+	 */
+	private static final class MediaRange {
+		private final String type;
+		private final String subtype;
+		private final double quality;
+		private final int position;
+
+		private MediaRange(String type, String subtype, double quality, int position) {
+			this.type = type;
+			this.subtype = subtype;
+			this.quality = quality;
+			this.position = position;
+		}
+
+		private int match(MediaType mediaType) {
+			if (type.equals(WILDCARD)) {
+				return ANY_TYPE_MATCH;
+			}
+			if (!type.equalsIgnoreCase(mediaType.getType())) {
+				return NO_MATCH;
+			}
+			if (subtype.equals(WILDCARD)) {
+				return ANY_SUBTYPE_MATCH;
+			}
+			return subtype.equalsIgnoreCase(mediaType.getSubtype()) ? EXACT_MATCH : NO_MATCH;
+		}
+
+		// Whether this range makes its media type preferable to the one chosen by other
+		private boolean isPreferredTo(MediaRange other, MediaType mediaType, MediaType otherMediaType) {
+			if (quality != other.quality) {
+				return quality > other.quality;
+			}
+			int specificity = match(mediaType);
+			int otherSpecificity = other.match(otherMediaType);
+			if (specificity != otherSpecificity) {
+				return specificity > otherSpecificity;
+			}
+			return position < other.position;
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package service;
+
+import java.lang.reflect.Method;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.PreMatching;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.ext.Provider;
+
+import metrics.RequestMetrics;
+
+/**
+ *
+ * Records the latency of every request answered by the resources of this
+ * package into {@link RequestMetrics}.
+ *
+ * The clock starts before the request is matched and stops once the response
+ * is built, so it includes the time suspended requests wait in the
+ * RequestExecutor. Streamed bodies are written after the response filters run,
+ * so their time is not included.
+ *
+ * @author Francisco Frias
+ * @author Abel Guzman
+ * @author Amin Guzman
+ *
+ */
+@Provider
+@PreMatching
+public class MetricsFilter implements ContainerRequestFilter, ContainerResponseFilter {
+	private static final String START_PROPERTY = MetricsFilter.class.getName() + ".start";
+	private static final String UNMATCHED_METHOD = "unmatched";
+
+	@Context
+	private ResourceInfo resourceInfo;
+
+	@Override
+	public void filter(ContainerRequestContext requestContext) {
+		requestContext.setProperty(START_PROPERTY, System.nanoTime());
+	}
+
+	@Override
+	public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+		Object start = requestContext.getProperty(START_PROPERTY);
+		if (start == null) {
+			// Aborted before the request filter ran
+			return;
+		}
+		long nanos = System.nanoTime() - (Long) start;
+
+		String method = UNMATCHED_METHOD;
+		Method resourceMethod = resourceInfo.getResourceMethod();
+		if (resourceMethod != null) {
+			method = resourceInfo.getResourceClass().getSimpleName() + "." + resourceMethod.getName();
+		}
+
+		String mediaType = null;
+		MediaType responseMediaType = responseContext.getMediaType();
+		if (responseMediaType != null) {
+			// Parameters such as charset would only multiply the series
+			mediaType = responseMediaType.getType() + "/" + responseMediaType.getSubtype();
+		}
+
+		RequestMetrics.record(method, responseContext.getStatus(), mediaType, nanos);
+	}
+}
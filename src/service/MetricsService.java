@@ -0,0 +1,161 @@
+package service;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import db.ConnectionPool;
+import db.DatabaseConnection;
+import db.QueryLog;
+import db.SlowQuery;
+import metrics.PrometheusWriter;
+import metrics.RequestMetrics;
+
+/**
+ *
+ * Exposes request latencies along with the state of the request executor, the
+ * connection pool, the statements run and the entity caches, in the Prometheus
+ * text format.
+ *
+ * @author Francisco Frias
+ * @author Abel Guzman
+ * @author Amin Guzman
+ *
+ */
+@Path("/metrics")
+public class MetricsService {
+	private static final String TIMESTAMP_FORMAT = "yyyy-MM-dd'T'HH:mm:ss.SSSZ";
+
+	/*
+	 * Answered on the container thread rather than through the RequestExecutor,
+	 * so metrics can still be scraped while the executor is saturated
+	 */
+	@GET
+	@Produces(PrometheusWriter.CONTENT_TYPE)
+	public Response read() {
+		PrometheusWriter writer = new PrometheusWriter();
+		RequestMetrics.write(writer);
+		writeExecutorMetrics(writer);
+		writePoolMetrics(writer, DatabaseConnection.getPoolStatistics());
+		writeQueryMetrics(writer);
+		Map<String, EntityCache.Statistics> caches = new LinkedHashMap<>();
+		caches.put("students", StudentDao.getCacheStatistics());
+		caches.put("employees", EmployeeDao.getCacheStatistics());
+		writeCacheMetrics(writer, caches);
+
+		Response response = Response.ok(writer.toString(), PrometheusWriter.CONTENT_TYPE).build();
+		return response;
+	}
+
+	/**
+	 * 
+	 * Lists the most recent statements that ran longer than the slow query
+	 * threshold, latest first, one per line.
+	 */
+	@GET
+	@Path("/slow-queries")
+	@Produces(MediaType.TEXT_PLAIN)
+	public Response readSlowQueries() {
+		StringBuilder text = new StringBuilder();
+		SimpleDateFormat dateFormat = new SimpleDateFormat(TIMESTAMP_FORMAT);
+		for (SlowQuery slowQuery : QueryLog.getSlowQueries()) {
+			text.append(String.format("%s %d ms, %d rows, connection leased in %d ms, from %s: %s%n",
+					dateFormat.format(new Date(slowQuery.getTimestamp())), slowQuery.getExecutionNanos() / 1000000,
+					slowQuery.getRows(), slowQuery.getAcquireNanos() / 1000000, slowQuery.getCaller(),
+					slowQuery.getSql()));
+		}
+
+		Response response = Response.ok(text.toString(), MediaType.TEXT_PLAIN).build();
+		return response;
+	}
+
+	private static void writeExecutorMetrics(PrometheusWriter writer) {
+		writer.declare("dartagnan_executor_active_requests", "gauge", "Requests being worked on")
+				.sample("dartagnan_executor_active_requests", RequestExecutor.getActiveCount());
+		writer.declare("dartagnan_executor_queued_requests", "gauge", "Requests waiting for a worker")
+				.sample("dartagnan_executor_queued_requests", RequestExecutor.getQueuedCount());
+		writer.declare("dartagnan_executor_completed_total", "counter", "Requests worked on to completion")
+				.sample("dartagnan_executor_completed_total", RequestExecutor.getCompletedCount());
+		writer.declare("dartagnan_executor_rejected_total", "counter", "Requests shed because the queue was full")
+				.sample("dartagnan_executor_rejected_total", RequestExecutor.getRejectedCount());
+		writer.declare("dartagnan_executor_timeouts_total", "counter", "Requests answered with a timeout")
+				.sample("dartagnan_executor_timeouts_total", RequestExecutor.getTimeoutCount());
+	}
+
+	private static void writePoolMetrics(PrometheusWriter writer, ConnectionPool.Statistics statistics) {
+		writer.declare("dartagnan_db_pool_connections", "gauge", "Pooled connections by state")
+				.sample("dartagnan_db_pool_connections", statistics.getActiveConnections(), "state", "active")
+				.sample("dartagnan_db_pool_connections", statistics.getIdleConnections(), "state", "idle");
+		writer.declare("dartagnan_db_pool_maximum_connections", "gauge", "Maximum size of the pool")
+				.sample("dartagnan_db_pool_maximum_connections", statistics.getMaximumSize());
+		writer.declare("dartagnan_db_pool_pending_threads", "gauge", "Threads waiting for a connection")
+				.sample("dartagnan_db_pool_pending_threads", statistics.getPendingThreads());
+		writer.declare("dartagnan_db_pool_borrows_total", "counter", "Connections leased")
+				.sample("dartagnan_db_pool_borrows_total", statistics.getBorrowCount());
+		writer.declare("dartagnan_db_pool_timeouts_total", "counter", "Leases that timed out waiting")
+				.sample("dartagnan_db_pool_timeouts_total", statistics.getTimeoutCount());
+		writer.declare("dartagnan_db_pool_wait_seconds_total", "counter", "Time spent waiting for a connection")
+				.sample("dartagnan_db_pool_wait_seconds_total", statistics.getTotalWaitNanos() / 1e9);
+		writer.declare("dartagnan_db_pool_wait_seconds_max", "gauge", "Longest wait for a connection")
+				.sample("dartagnan_db_pool_wait_seconds_max", statistics.getMaximumWaitNanos() / 1e9);
+		writer.declare("dartagnan_db_pool_created_total", "counter", "Physical connections opened")
+				.sample("dartagnan_db_pool_created_total", statistics.getCreatedCount());
+		writer.declare("dartagnan_db_pool_destroyed_total", "counter", "Physical connections closed")
+				.sample("dartagnan_db_pool_destroyed_total", statistics.getDestroyedCount());
+		writer.declare("dartagnan_db_pool_leaks_total", "counter", "Leases reclaimed without being returned")
+				.sample("dartagnan_db_pool_leaks_total", statistics.getLeakCount());
+	}
+
+	private static void writeQueryMetrics(PrometheusWriter writer) {
+		writer.declare("dartagnan_db_connection_acquire_seconds", "summary", "Time to lease a connection")
+				.summary("dartagnan_db_connection_acquire_seconds", QueryLog.getAcquireTimes());
+
+		Map<String, QueryLog.Statistics> statistics = QueryLog.getStatistics();
+		writer.declare("dartagnan_db_query_duration_seconds", "summary", "Time to run statements, by SQL template");
+		for (Map.Entry<String, QueryLog.Statistics> query : statistics.entrySet()) {
+			writer.summary("dartagnan_db_query_duration_seconds", query.getValue().getExecutionTimes(), "sql",
+					query.getKey());
+		}
+		writer.declare("dartagnan_db_query_rows_total", "counter", "Rows read or affected, by SQL template");
+		for (Map.Entry<String, QueryLog.Statistics> query : statistics.entrySet()) {
+			writer.sample("dartagnan_db_query_rows_total", query.getValue().getRowCount(), "sql", query.getKey());
+		}
+		writer.declare("dartagnan_db_slow_queries_total", "counter", "Statements over the slow query threshold")
+				.sample("dartagnan_db_slow_queries_total", QueryLog.getSlowQueryCount());
+	}
+
+	private static void writeCacheMetrics(PrometheusWriter writer, Map<String, EntityCache.Statistics> caches) {
+		writer.declare("dartagnan_cache_entries", "gauge", "Entities cached");
+		for (Map.Entry<String, EntityCache.Statistics> cache : caches.entrySet()) {
+			writer.sample("dartagnan_cache_entries", cache.getValue().getSize(), "cache", cache.getKey());
+		}
+		writer.declare("dartagnan_cache_maximum_entries", "gauge", "Maximum entities cached");
+		for (Map.Entry<String, EntityCache.Statistics> cache : caches.entrySet()) {
+			writer.sample("dartagnan_cache_maximum_entries", cache.getValue().getMaximumSize(), "cache",
+					cache.getKey());
+		}
+		writer.declare("dartagnan_cache_requests_total", "counter", "Cache lookups by result");
+		for (Map.Entry<String, EntityCache.Statistics> cache : caches.entrySet()) {
+			writer.sample("dartagnan_cache_requests_total", cache.getValue().getHitCount(), "cache", cache.getKey(),
+					"result", "hit");
+			writer.sample("dartagnan_cache_requests_total", cache.getValue().getMissCount(), "cache", cache.getKey(),
+					"result", "miss");
+		}
+		writer.declare("dartagnan_cache_removals_total", "counter", "Entities dropped from the cache by cause");
+		for (Map.Entry<String, EntityCache.Statistics> cache : caches.entrySet()) {
+			writer.sample("dartagnan_cache_removals_total", cache.getValue().getEvictionCount(), "cache",
+					cache.getKey(), "cause", "eviction");
+			writer.sample("dartagnan_cache_removals_total", cache.getValue().getExpirationCount(), "cache",
+					cache.getKey(), "cause", "expiration");
+			writer.sample("dartagnan_cache_removals_total", cache.getValue().getInvalidationCount(), "cache",
+					cache.getKey(), "cause", "invalidation");
+		}
+	}
+}
@@ -0,0 +1,244 @@
+package service;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+
+import util.PropertyLoader;
+
+/**
+ *
+ * Runs the work of suspended resource methods off the servlet container
+ * threads, so those threads are not held while waiting on the database.
+ *
+ * At most &lt;maximumThreads&gt; requests are worked on at once and at most
+ * &lt;queueCapacity&gt; more wait for their turn. Requests arriving while the
+ * queue is full are shed right away with a 503, and requests not answered
+ * within &lt;timeout&gt; milliseconds are answered with a 503 as well.
+ *
+ * A request that times out before its work started is never worked on, so it
+ * can safely be retried. Once started, the work of a write cannot be called
+ * off and may still commit, so a write timing out then is answered with a 504
+ * and no Retry-After instead, leaving the client to find out its outcome.
+ *
+ * Virtual threads are used instead of a thread pool when the JDK supports them
+ * and they are enabled.
+ *
+ * @author Francisco Frias
+ * @author Abel Guzman
+ * @author Amin Guzman
+ *
+ */
+public final class RequestExecutor {
+	private static final Logger LOGGER = Logger.getLogger(RequestExecutor.class.getName());
+	private static final String PROPERTIES_NAMESPACE = "/config/executor.properties";
+	private static final int DEFAULT_MAXIMUM_THREADS = 20;
+	private static final int DEFAULT_QUEUE_CAPACITY = 200;
+	private static final long DEFAULT_TIMEOUT = 30000;
+	private static final long RETRY_AFTER_SECONDS = 1;
+	// States of a request
+	private static final int QUEUED = 0;
+	private static final int STARTED = 1;
+	private static final int CANCELLED = 2;
+	private static PropertyLoader executorProperties = new PropertyLoader(PROPERTIES_NAMESPACE);
+
+	private static final int MAXIMUM_THREADS = (int) getLongProperty("maximumThreads", DEFAULT_MAXIMUM_THREADS);
+	private static final int QUEUE_CAPACITY = (int) getLongProperty("queueCapacity", DEFAULT_QUEUE_CAPACITY);
+	private static final long TIMEOUT = getLongProperty("timeout", DEFAULT_TIMEOUT);
+
+	// Admission is bounded here, so the executor itself never rejects
+	private static final Semaphore ADMISSIONS = new Semaphore(MAXIMUM_THREADS + QUEUE_CAPACITY);
+	private static final Semaphore WORKERS = new Semaphore(MAXIMUM_THREADS);
+	private static final ExecutorService EXECUTOR = createExecutor();
+
+	// Statistics
+	private static final AtomicInteger ACTIVE_COUNT = new AtomicInteger();
+	private static final LongAdder COMPLETED_COUNT = new LongAdder();
+	private static final LongAdder REJECTED_COUNT = new LongAdder();
+	private static final LongAdder TIMEOUT_COUNT = new LongAdder();
+
+	private RequestExecutor() {
+	}
+
+	/**
+	 *
+	 * Works on a suspended request that does not modify anything in the
+	 * background, resuming it with the response built.
+	 *
+	 * @param asyncResponse
+	 *            The suspended request.
+	 * @param task
+	 *            Builds the response. Exceptions thrown are passed on to the
+	 *            container as if thrown by the resource method.
+	 */
+	public static void submit(AsyncResponse asyncResponse, Supplier<Response> task) {
+		submit(asyncResponse, false, task);
+	}
+
+	/**
+	 *
+	 * Works on a suspended request that creates, updates or deletes entities in
+	 * the background, resuming it with the response built.
+	 *
+	 * @param asyncResponse
+	 *            The suspended request.
+	 * @param task
+	 *            Builds the response. Exceptions thrown are passed on to the
+	 *            container as if thrown by the resource method.
+	 */
+	public static void submitWrite(AsyncResponse asyncResponse, Supplier<Response> task) {
+		submit(asyncResponse, true, task);
+	}
+
+	private static void submit(AsyncResponse asyncResponse, boolean write, Supplier<Response> task) {
+		if (!ADMISSIONS.tryAcquire()) {
+			REJECTED_COUNT.increment();
+			asyncResponse.resume(unavailable("Too many requests in progress"));
+			return;
+		}
+
+		AtomicInteger state = new AtomicInteger(QUEUED);
+		asyncResponse.setTimeout(TIMEOUT, TimeUnit.MILLISECONDS);
+		asyncResponse.setTimeoutHandler(suspended -> {
+			TIMEOUT_COUNT.increment();
+			if (state.compareAndSet(QUEUED, CANCELLED) || !write) {
+				suspended.resume(unavailable("Request timed out"));
+			} else {
+				suspended.resume(Response.status(Status.GATEWAY_TIMEOUT)
+						.entity("Request timed out, its changes may still be applied").build());
+			}
+		});
+
+		try {
+			EXECUTOR.execute(() -> run(asyncResponse, state, task));
+		} catch (RejectedExecutionException e) {
+			// Only after shutdown
+			ADMISSIONS.release();
+			REJECTED_COUNT.increment();
+			asyncResponse.resume(unavailable("Service is shutting down"));
+		}
+	}
+
+	/**
+	 *
+	 * Stops accepting requests and waits briefly for those in progress.
+	 */
+	public static void shutdown() {
+		EXECUTOR.shutdown();
+		try {
+			if (!EXECUTOR.awaitTermination(TIMEOUT, TimeUnit.MILLISECONDS)) {
+				EXECUTOR.shutdownNow();
+			}
+		} catch (InterruptedException e) {
+			EXECUTOR.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 *
+	 * @return Number of requests being worked on.
+	 */
+	public static int getActiveCount() {
+		return ACTIVE_COUNT.get();
+	}
+
+	/**
+	 *
+	 * @return Number of requests admitted and waiting for a worker.
+	 */
+	public static int getQueuedCount() {
+		int admitted = MAXIMUM_THREADS + QUEUE_CAPACITY - ADMISSIONS.availablePermits();
+		return Math.max(0, admitted - ACTIVE_COUNT.get());
+	}
+
+	public static long getCompletedCount() {
+		return COMPLETED_COUNT.sum();
+	}
+
+	/**
+	 *
+	 * @return Number of requests shed because the queue was full.
+	 */
+	public static long getRejectedCount() {
+		return REJECTED_COUNT.sum();
+	}
+
+	public static long getTimeoutCount() {
+		return TIMEOUT_COUNT.sum();
+	}
+
+	private static void run(AsyncResponse asyncResponse, AtomicInteger state, Supplier<Response> task) {
+		try {
+			WORKERS.acquireUninterruptibly();
+			ACTIVE_COUNT.incrementAndGet();
+			try {
+				// Skip requests already answered by the timeout handler
+				if (state.compareAndSet(QUEUED, STARTED)) {
+					asyncResponse.resume(task.get());
+				}
+			} catch (Throwable t) {
+				asyncResponse.resume(t);
+			} finally {
+				ACTIVE_COUNT.decrementAndGet();
+				WORKERS.release();
+			}
+		} finally {
+			COMPLETED_COUNT.increment();
+			ADMISSIONS.release();
+		}
+	}
+
+	private static Response unavailable(String message) {
+		return Response.status(Status.SERVICE_UNAVAILABLE).header("Retry-After", RETRY_AFTER_SECONDS).entity(message)
+				.build();
+	}
+
+	private static ExecutorService createExecutor() {
+		if (Boolean.parseBoolean(executorProperties.getProperty("virtualThreads"))) {
+			try {
+				// Looked up reflectively, so the service still runs on JDKs without them
+				Method factory = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+				return (ExecutorService) factory.invoke(null);
+			} catch (ReflectiveOperationException e) {
+				LOGGER.log(Level.INFO, "Virtual threads not supported, using a thread pool");
+			}
+		}
+
+		AtomicInteger threadCount = new AtomicInteger();
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(MAXIMUM_THREADS, MAXIMUM_THREADS, 60, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), runnable -> {
+					Thread thread = new Thread(runnable, "dartagnan-request-" + threadCount.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	private static long getLongProperty(String key, long defaultValue) {
+		String value = executorProperties.getProperty(key);
+		if (value == null || value.trim().length() == 0) {
+			return defaultValue;
+		}
+		try {
+			return Long.parseLong(value.trim());
+		} catch (NumberFormatException e) {
+			e.printStackTrace();
+			return defaultValue;
+		}
+	}
+}
@@ -0,0 +1,39 @@
+package service;
+
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+
+import db.DatabaseConnection;
+import db.EmployeeRoleDatabaseHelper;
+import db.PhoneTypeDatabaseHelper;
+import db.StudentStatusDatabaseHelper;
+
+/**
+ * 
+ * Sets up and tears down shared resources when the web application is deployed
+ * and undeployed.
+ * 
+ * @author Francisco Frias
+ * @author Abel Guzman
+ * @author Amin Guzman
+ *
+ */
+public class ServiceLifecycleListener implements ServletContextListener {
+
+	@Override
+	public void contextInitialized(ServletContextEvent event) {
+		DatabaseConnection.initializePool();
+
+		// Reference tables are tiny and rarely change, keep them in memory
+		StudentStatusDatabaseHelper.refresh();
+		EmployeeRoleDatabaseHelper.refresh();
+		PhoneTypeDatabaseHelper.refresh();
+	}
+
+	@Override
+	public void contextDestroyed(ServletContextEvent event) {
+		// Let requests in progress finish before their connections go away
+		RequestExecutor.shutdown();
+		DatabaseConnection.shutdownPool();
+	}
+}
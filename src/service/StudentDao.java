@@ -1,17 +1,34 @@
 package service;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 import core.Student;
+import db.BulkInsertResult;
+import db.ChangeSet;
+import db.Filter;
 import db.StudentDatabaseHelper;
+import db.Page;
+import db.Projection;
 
 public class StudentDao extends GenericDao<Student> {
+	/*
+	 * Shared by every instance, since resources (and therefore DAOs) are created
+	 * per request
+	 */
+	private static final EntityCache<Student> CACHE = createCache();
+
 	public Student getByCedula(String cedula) {
-		return StudentDatabaseHelper.getByUniqueIdentifier("cedula", cedula);
+		return CACHE.getByKey("cedula", cedula, key -> StudentDatabaseHelper.getByUniqueIdentifier("cedula", key));
 	}
 
 	public Student getByStudentId(String studentId) {
-		return StudentDatabaseHelper.getByUniqueIdentifier("studentId", studentId);
+		return CACHE.getByKey("studentId", studentId,
+				key -> StudentDatabaseHelper.getByUniqueIdentifier("studentId", key));
 	}
 	
 	@Override
@@ -19,23 +36,128 @@ public class StudentDao extends GenericDao<Student> {
 		return StudentDatabaseHelper.getAll();
 	}
 
+	@Override
+	public List<Student> getAll(Projection projection, Filter filter) {
+		return StudentDatabaseHelper.getAll(projection, filter);
+	}
+
+	@Override
+	public Page<Student> getPage(int after, int limit) {
+		return StudentDatabaseHelper.getPage(after, limit);
+	}
+
+	@Override
+	public Page<Student> getPage(int after, int limit, Projection projection, Filter filter) {
+		return StudentDatabaseHelper.getPage(after, limit, projection, filter);
+	}
+
+	@Override
+	public Projection getProjection(Collection<String> fields, boolean phoneNumbers) {
+		return StudentDatabaseHelper.getProjection(fields, phoneNumbers);
+	}
+
+	@Override
+	public void checkFilter(Filter filter) {
+		StudentDatabaseHelper.checkFilter(filter);
+	}
+
+	@Override
+	public ChangeSet<Student> getChanges(String since, int limit) {
+		return StudentDatabaseHelper.getChanges(since, limit);
+	}
+
+	@Override
+	public boolean streamAll(Consumer<? super Student> consumer) {
+		return StudentDatabaseHelper.streamAll(consumer);
+	}
+
+	@Override
+	public boolean streamAll(Projection projection, Filter filter, Consumer<? super Student> consumer) {
+		return StudentDatabaseHelper.streamAll(projection, filter, consumer);
+	}
+
 	@Override
 	public Student create(Student student) {
-		return StudentDatabaseHelper.create(student);
+		Student createdStudent = StudentDatabaseHelper.create(student);
+		if (createdStudent != null) {
+			CACHE.invalidate(createdStudent.getEntityId());
+		}
+		return createdStudent;
+	}
+
+	@Override
+	public List<BulkInsertResult> createAll(List<Student> students, int chunkSize) {
+		// Only new entities are created, so nothing cached can be stale
+		return StudentDatabaseHelper.createAll(students, chunkSize);
 	}
 
 	@Override
 	public boolean delete(String uuid) {
-		return StudentDatabaseHelper.deleteByUniqueIdentifier("uuid", uuid);
+		boolean opResult = StudentDatabaseHelper.deleteByUniqueIdentifier("uuid", uuid);
+		CACHE.invalidate(uuid);
+		return opResult;
 	}
 
 	@Override
 	public Student get(String uuid) {
-		return StudentDatabaseHelper.getByUniqueIdentifier("uuid", uuid);
+		return CACHE.get(uuid, key -> StudentDatabaseHelper.getByUniqueIdentifier("uuid", key));
+	}
+
+	/*
+	 * Served from the cache only if cached at the version given, which must have
+	 * just been read from the database, so the entity is never older than it
+	 */
+	@Override
+	public Student getCurrent(String uuid, long version) {
+		return CACHE.get(uuid, version, key -> StudentDatabaseHelper.getByUniqueIdentifier("uuid", key));
+	}
+
+	/*
+	 * Served from the cache where possible, with every miss loaded in a single
+	 * batch
+	 */
+	@Override
+	public Map<String, Student> getAllByKey(String keyName, Collection<String> keys) {
+		if ("uuid".equals(keyName)) {
+			return CACHE.getAll(keys, missing -> StudentDatabaseHelper.getAllByUniqueIdentifier("uuid", missing));
+		}
+		return CACHE.getAllByKey(keyName, keys,
+				missing -> StudentDatabaseHelper.getAllByUniqueIdentifier(keyName, missing));
+	}
+
+	/*
+	 * Versions are always read from the database, so changes made by other
+	 * processes are never hidden by the cache
+	 */
+	@Override
+	public long getVersion(String uuid) {
+		return StudentDatabaseHelper.getVersionByUniqueIdentifier("uuid", uuid);
+	}
+
+	@Override
+	public String getCollectionVersion() {
+		return StudentDatabaseHelper.getCollectionVersion();
 	}
 
 	@Override
 	public boolean update(String uuid, Student updatedStudent) {
-		return StudentDatabaseHelper.updateByUniqueIdentifier("uuid", uuid, updatedStudent);
+		boolean opResult = StudentDatabaseHelper.updateByUniqueIdentifier("uuid", uuid, updatedStudent);
+		CACHE.invalidate(uuid);
+		return opResult;
+	}
+
+	/**
+	 * 
+	 * @return Hit, miss and eviction counters of the Student cache.
+	 */
+	public static EntityCache.Statistics getCacheStatistics() {
+		return CACHE.getStatistics();
+	}
+
+	private static EntityCache<Student> createCache() {
+		Map<String, Function<Student, String>> keys = new HashMap<>();
+		keys.put("cedula", Student::getCedula);
+		keys.put("studentId", Student::getStudentId);
+		return EntityCache.fromProperties("students", Student::getEntityId, keys);
 	}
-}
\ No newline at end of file
+}